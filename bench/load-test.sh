@@ -0,0 +1,53 @@
+#!/usr/bin/env bash
+# Нагрузочный тест: платформенные потоки Tomcat против виртуальных.
+#
+#   mvn -Pjava21 -DskipTests package          # нужен JDK 21
+#   psql -d hogwarts -f bench/search-benchmark.sql   # опционально: 1M студентов
+#   bench/load-test.sh
+#
+# Приложение запускается дважды (spring.threads.virtual.enabled=false/true)
+# на одной и той же базе; для каждого эндпоинта wrk печатает пропускную
+# способность, p99 и число ответов не-2xx (в том числе 503 от ограничителей).
+# Нужен wrk (https://github.com/wg/wrk).
+set -euo pipefail
+
+JAR=${JAR:-$(ls target/hogwarts.sova-*.jar | grep -v original | head -1)}
+PORT=${PORT:-8080}
+CONNECTIONS=${CONNECTIONS:-400}
+THREADS=${THREADS:-8}
+DURATION=${DURATION:-30s}
+ENDPOINTS=(
+    "/student/1"
+    "/student/age/12"
+    "/student/age-between?min=12&max=13"
+    "/faculty/42/students"
+    "/student/search?name=%D0%B3%D0%B0%D1%80%D1%80%D0%B8&mode=PREFIX"
+)
+
+run_mode() {
+    local virtual=$1
+    java -jar "$JAR" --server.port="$PORT" --spring.threads.virtual.enabled="$virtual" \
+        --spring.profiles.active=performance >"target/load-test-$virtual.log" 2>&1 &
+    local pid=$!
+    trap 'kill $pid 2>/dev/null' EXIT
+    until curl -sf "http://localhost:$PORT/faculty?limit=1" >/dev/null; do
+        sleep 1
+    done
+
+    echo "=== virtual threads: $virtual ==="
+    for path in "${ENDPOINTS[@]}"; do
+        wrk -t"$THREADS" -c"$CONNECTIONS" -d"$DURATION" --latency "http://localhost:$PORT$path" \
+            | awk -v path="$path" '
+                /Requests\/sec/ { rps = $2 }
+                /^ +99%/ { p99 = $2 }
+                /Non-2xx/ { errors = $5 }
+                END { printf "%-45s %10s req/s  p99 %8s  non-2xx %s\n", path, rps, p99, errors + 0 }'
+    done
+
+    kill "$pid"
+    wait "$pid" 2>/dev/null || true
+    trap - EXIT
+}
+
+run_mode false
+run_mode true
@@ -0,0 +1,98 @@
+-- Бенчмарк секционирования student по потокам на 10M студентов, 20 потоков
+-- (7 текущих курсов и 13 выпусков).
+--
+--   createdb hogwarts_bench
+--   for m in V1__baseline V2__student_id_sequence V3__search_indexes V4__age_faculty_indexes \
+--            V5__student_faculty_name_index V6__change_outbox; do
+--       psql -d hogwarts_bench -f src/main/resources/db/migration/$m.sql
+--   done
+--   psql -d hogwarts_bench -f bench/partition-benchmark.sql
+--
+-- Сначала запросы StudentRepository и обслуживание (VACUUM после правок
+-- текущих курсов, REINDEX) выполняются на одной таблице, затем применяется
+-- V7 и то же повторяется на секциях: без окна потоков (from = 0) и с окном
+-- hogwarts.student.active-cohorts=7. Сравнивайте "Execution Time" в выводе
+-- EXPLAIN ANALYZE и время VACUUM/REINDEX от \timing.
+\timing on
+
+TRUNCATE student, faculty RESTART IDENTITY CASCADE;
+
+INSERT INTO faculty (version, name, color)
+SELECT 0, 'Факультет ' || g, (ARRAY ['красный', 'зелёный', 'синий', 'жёлтый'])[1 + g % 4]
+FROM generate_series(1, 100) g;
+
+-- Возраст 11..30: после V7 это потоки от текущего года до 19 лет назад
+INSERT INTO student (id, version, name, age, faculty_id)
+SELECT g,
+       0,
+       (ARRAY ['Гарри', 'Рон', 'Гермиона', 'Драко', 'Невилл', 'Луна', 'Седрик', 'Чжоу'])[1 + g % 8]
+           || ' ' || md5(g::text),
+       11 + g % 20,
+       1 + g % 100
+FROM generate_series(1, 10000000) g;
+SELECT setval('student_seq', 10000050, false);
+VACUUM ANALYZE faculty;
+VACUUM ANALYZE student;
+
+SELECT EXTRACT(YEAR FROM CURRENT_DATE)::INTEGER - 6 AS from_cohort,
+       'student_' || EXTRACT(YEAR FROM CURRENT_DATE)::INTEGER AS current_partition \gset
+
+\echo '=== одна таблица ==='
+EXPLAIN ANALYZE SELECT * FROM student s WHERE s.age BETWEEN 12 AND 13 ORDER BY s.id LIMIT 50 OFFSET 5000;
+EXPLAIN ANALYZE SELECT count(*) FROM student s WHERE s.age BETWEEN 12 AND 13;
+EXPLAIN ANALYZE SELECT * FROM student s WHERE s.faculty_id = 42 ORDER BY s.name, s.id LIMIT 20 OFFSET 200;
+EXPLAIN ANALYZE SELECT count(*) FROM student s WHERE s.faculty_id = 42;
+BEGIN;
+EXPLAIN ANALYZE UPDATE student SET faculty_id = NULL, version = COALESCE(version, 0) + 1
+WHERE id IN (SELECT id FROM student WHERE faculty_id = 42 LIMIT 1000);
+ROLLBACK;
+
+-- Правки идут по текущим курсам: 10% их строк, затем уборка
+UPDATE student SET version = version + 1 WHERE age <= 17 AND id % 10 = 0;
+VACUUM student;
+REINDEX TABLE student;
+
+\echo '=== V7: секции по потокам ==='
+\i src/main/resources/db/migration/V7__student_cohort_partitions.sql
+VACUUM ANALYZE student;
+
+\echo '--- без окна (active-cohorts=0) ---'
+EXPLAIN ANALYZE SELECT * FROM student s WHERE s.age BETWEEN 12 AND 13 AND s.cohort >= 0 ORDER BY s.id LIMIT 50 OFFSET 5000;
+EXPLAIN ANALYZE SELECT count(*) FROM student s WHERE s.age BETWEEN 12 AND 13 AND s.cohort >= 0;
+EXPLAIN ANALYZE SELECT * FROM student s WHERE s.faculty_id = 42 AND s.cohort >= 0 ORDER BY s.name, s.id LIMIT 20 OFFSET 200;
+EXPLAIN ANALYZE SELECT count(*) FROM student s WHERE s.faculty_id = 42 AND s.cohort >= 0;
+
+\echo '--- окно из 7 потоков (active-cohorts=7) ---'
+EXPLAIN ANALYZE SELECT * FROM student s WHERE s.age BETWEEN 12 AND 13 AND s.cohort >= :from_cohort ORDER BY s.id LIMIT 50 OFFSET 5000;
+EXPLAIN ANALYZE SELECT count(*) FROM student s WHERE s.age BETWEEN 12 AND 13 AND s.cohort >= :from_cohort;
+EXPLAIN ANALYZE SELECT * FROM student s WHERE s.faculty_id = 42 AND s.cohort >= :from_cohort ORDER BY s.name, s.id LIMIT 20 OFFSET 200;
+EXPLAIN ANALYZE SELECT count(*) FROM student s WHERE s.faculty_id = 42 AND s.cohort >= :from_cohort;
+
+-- Так выполняет запрос JDBC-драйвер после prepareThreshold повторов:
+-- generic-план, секции отсекаются при старте ("Subplans Removed")
+SET plan_cache_mode = force_generic_plan;
+PREPARE roster(BIGINT, INTEGER) AS
+    SELECT * FROM student s WHERE s.faculty_id = $1 AND s.cohort >= $2 ORDER BY s.name, s.id LIMIT 20;
+EXPLAIN ANALYZE EXECUTE roster(42, :from_cohort);
+DEALLOCATE roster;
+RESET plan_cache_mode;
+
+BEGIN;
+EXPLAIN ANALYZE UPDATE student SET faculty_id = NULL, version = COALESCE(version, 0) + 1
+WHERE (id, cohort) IN (SELECT id, cohort FROM student WHERE faculty_id = 42 LIMIT 1000);
+ROLLBACK;
+
+-- Те же правки текущих курсов; убирать нужно только их секции
+UPDATE student SET version = version + 1 WHERE cohort >= :from_cohort AND id % 10 = 0;
+\echo '--- уборка только секций текущих курсов ---'
+SELECT format('VACUUM %I', c.relname)
+FROM pg_inherits i
+         JOIN pg_class c ON c.oid = i.inhrelid
+WHERE i.inhparent = 'student'::REGCLASS
+  AND c.relname ~ '^student_[0-9]+$'
+  AND substring(c.relname FROM 9)::INTEGER >= :from_cohort \gexec
+REINDEX TABLE :"current_partition";
+
+\echo '--- архивирование выпусков ---'
+SELECT student_archive_cohorts(:from_cohort);
+SELECT count(*) FROM student;
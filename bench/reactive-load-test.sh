@@ -0,0 +1,74 @@
+#!/usr/bin/env bash
+# Блокирующие эндпоинты (Spring MVC + JPA) против реактивных (/reactive/**, R2DBC)
+# на одном и том же приложении и базе.
+#
+#   mvn -DskipTests package
+#   psql -d hogwarts -f bench/search-benchmark.sql   # опционально: 1M студентов
+#   bench/reactive-load-test.sh
+#
+# Для каждой пары эндпоинтов wrk печатает пропускную способность и p99, а
+# фоновый замер — максимум потоков JVM и открытых соединений с базой за
+# прогон (JDBC и R2DBC различаются по application_name в pg_stat_activity).
+# Нужны wrk и psql.
+set -euo pipefail
+
+JAR=${JAR:-$(ls target/hogwarts.sova-*.jar | grep -v original | head -1)}
+PORT=${PORT:-8080}
+CONNECTIONS=${CONNECTIONS:-400}
+THREADS=${THREADS:-8}
+DURATION=${DURATION:-30s}
+PSQL=${PSQL:-psql -d hogwarts -tA}
+PAIRS=(
+    "/student/age/12 /reactive/student/age/12"
+    "/student/age-between?min=12&max=13 /reactive/student/age-between?min=12&max=13"
+    "/faculty/42/students /reactive/faculty/42/students"
+)
+
+java -jar "$JAR" --server.port="$PORT" --spring.profiles.active=performance \
+    >"target/reactive-load-test.log" 2>&1 &
+pid=$!
+trap 'kill $pid 2>/dev/null' EXIT
+until curl -sf "http://localhost:$PORT/faculty?limit=1" >/dev/null; do
+    sleep 1
+done
+
+# Максимумы за прогон: потоки JVM, соединения JDBC и R2DBC.
+sample() {
+    local threads=0 jdbc=0 r2dbc=0 t j r
+    while kill -0 "$1" 2>/dev/null; do
+        t=$(awk '/^Threads/ { print $2 }' "/proc/$pid/status")
+        j=$($PSQL -c "SELECT count(*) FROM pg_stat_activity WHERE application_name = 'PostgreSQL JDBC Driver'")
+        r=$($PSQL -c "SELECT count(*) FROM pg_stat_activity WHERE application_name = 'r2dbc-postgresql'")
+        (( t > threads )) && threads=$t
+        (( j > jdbc )) && jdbc=$j
+        (( r > r2dbc )) && r2dbc=$r
+        sleep 1
+    done
+    echo "$threads $jdbc $r2dbc"
+}
+
+run() {
+    local path=$1
+    shift
+    wrk -t"$THREADS" -c"$CONNECTIONS" -d"$DURATION" --latency "$@" "http://localhost:$PORT$path" \
+        >"target/reactive-load-test.wrk" &
+    local wrk_pid=$!
+    local peaks
+    peaks=$(sample "$wrk_pid")
+    wait "$wrk_pid"
+    awk -v path="$path" -v peaks="$peaks" '
+        /Requests\/sec/ { rps = $2 }
+        /^ +99%/ { p99 = $2 }
+        /Non-2xx/ { errors = $5 }
+        END {
+            split(peaks, p, " ")
+            printf "%-50s %10s req/s  p99 %8s  non-2xx %-6s threads %4s  jdbc %3s  r2dbc %3s\n",
+                path, rps, p99, errors + 0, p[1], p[2], p[3]
+        }' "target/reactive-load-test.wrk"
+}
+
+for pair in "${PAIRS[@]}"; do
+    read -r mvc reactive <<<"$pair"
+    run "$mvc"
+    run "$reactive" -H "Accept: application/x-ndjson"
+done
@@ -0,0 +1,47 @@
+-- Бенчмарк поиска на 1M студентов.
+--
+--   createdb hogwarts_bench
+--   psql -d hogwarts_bench -f src/main/resources/db/migration/V1__baseline.sql
+--   psql -d hogwarts_bench -f src/main/resources/db/migration/V2__student_id_sequence.sql
+--   psql -d hogwarts_bench -f bench/search-benchmark.sql
+--
+-- Сначала запросы выполняются без индексов из V3 (как было с upper/lower
+-- без функциональных индексов), затем индексы создаются и те же запросы
+-- повторяются. Сравнивайте "Execution Time" в выводе EXPLAIN ANALYZE.
+\timing on
+
+TRUNCATE student, faculty RESTART IDENTITY CASCADE;
+
+INSERT INTO faculty (version, name, color)
+SELECT 0, 'Факультет ' || g, (ARRAY ['красный', 'зелёный', 'синий', 'жёлтый'])[1 + g % 4]
+FROM generate_series(1, 100) g;
+
+INSERT INTO student (id, version, name, age, faculty_id)
+SELECT g,
+       0,
+       (ARRAY ['Гарри', 'Рон', 'Гермиона', 'Драко', 'Невилл', 'Луна', 'Седрик', 'Чжоу'])[1 + g % 8]
+           || ' ' || md5(g::text),
+       11 + g % 7,
+       1 + g % 100
+FROM generate_series(1, 1000000) g;
+SELECT setval('student_seq', 1000050, false);
+ANALYZE faculty;
+ANALYZE student;
+
+DROP INDEX IF EXISTS faculty_name_lower_idx, faculty_color_lower_idx, faculty_name_trgm_idx,
+    faculty_color_trgm_idx, student_name_lower_idx, student_name_trgm_idx;
+
+\echo '=== без индексов ==='
+EXPLAIN ANALYZE SELECT * FROM student s WHERE lower(s.name) = lower('Луна 1679091c5a880faf6fb5e6087eb1b2dc') ORDER BY s.id LIMIT 20;
+EXPLAIN ANALYZE SELECT * FROM student s WHERE lower(s.name) LIKE 'луна 16%' ORDER BY length(s.name), s.id LIMIT 20;
+EXPLAIN ANALYZE SELECT * FROM faculty f WHERE lower(f.color) = lower('Синий');
+
+\i src/main/resources/db/migration/V3__search_indexes.sql
+ANALYZE student;
+
+\echo '=== с индексами V3 ==='
+EXPLAIN ANALYZE SELECT * FROM student s WHERE lower(s.name) = lower('Луна 1679091c5a880faf6fb5e6087eb1b2dc') ORDER BY s.id LIMIT 20;
+EXPLAIN ANALYZE SELECT * FROM student s WHERE lower(s.name) LIKE 'луна 16%' ORDER BY length(s.name), s.id LIMIT 20;
+EXPLAIN ANALYZE SELECT * FROM faculty f WHERE lower(f.color) = lower('Синий');
+EXPLAIN ANALYZE SELECT s.* FROM student s WHERE lower(s.name) % lower('Гермона 1679091c')
+    ORDER BY similarity(lower(s.name), lower('Гермона 1679091c')) DESC, s.id LIMIT 20;
@@ -0,0 +1,85 @@
+#!/usr/bin/env bash
+# Время старта и память: обычный jar против режима быстрого старта
+# (Spring AOT + CDS-архив + ленивая инициализация, см. профиль startup в pom.xml).
+#
+#   mvn -Pstartup -DskipTests package    # собирает оба варианта
+#   bench/startup-benchmark.sh
+#
+# Каждый режим запускается RUNS раз на одной и той же базе. Время до
+# первого ответа — от запуска java до первого 200 на FIRST_REQUEST (то есть
+# с учётом Flyway, проверки схемы и инициализации MVC при первом запросе).
+# RSS снимается сразу после первого ответа и ещё раз после WARM_REQUESTS
+# запросов. Печатаются медианы.
+set -euo pipefail
+
+JAR=${JAR:-$(ls target/hogwarts.sova-*.jar | grep -v original | head -1)}
+STARTUP_DIR=${STARTUP_DIR:-target/startup}
+PORT=${PORT:-8080}
+RUNS=${RUNS:-5}
+WARM_REQUESTS=${WARM_REQUESTS:-200}
+FIRST_REQUEST=${FIRST_REQUEST:-/faculty?limit=1}
+PROFILES=performance
+
+if [[ ! -f "$STARTUP_DIR/application.jsa" ]]; then
+    echo "Нет $STARTUP_DIR/application.jsa, сначала mvn -Pstartup -DskipTests package" >&2
+    exit 1
+fi
+
+now_ms() {
+    date +%s%3N
+}
+
+rss_mb() {
+    awk '/VmRSS/ { printf "%.0f", $2 / 1024 }' "/proc/$1/status"
+}
+
+median() {
+    sort -n | awk '{ v[NR] = $1 } END { print (NR % 2) ? v[(NR + 1) / 2] : int((v[NR / 2] + v[NR / 2 + 1]) / 2) }'
+}
+
+run_once() {
+    local start pid first rss_first rss_warm
+    start=$(now_ms)
+    "$@" --server.port="$PORT" >"target/startup-benchmark.log" 2>&1 &
+    pid=$!
+    trap 'kill $pid 2>/dev/null' EXIT
+    until curl -sf -o /dev/null "http://localhost:$PORT$FIRST_REQUEST"; do
+        if ! kill -0 "$pid" 2>/dev/null; then
+            echo "Приложение не стартовало, см. target/startup-benchmark.log" >&2
+            exit 1
+        fi
+        sleep 0.05
+    done
+    first=$(( $(now_ms) - start ))
+    rss_first=$(rss_mb "$pid")
+    for _ in $(seq "$WARM_REQUESTS"); do
+        curl -sf -o /dev/null "http://localhost:$PORT$FIRST_REQUEST"
+    done
+    rss_warm=$(rss_mb "$pid")
+
+    kill "$pid"
+    wait "$pid" 2>/dev/null || true
+    trap - EXIT
+    echo "$first $rss_first $rss_warm"
+}
+
+run_mode() {
+    local name=$1
+    shift
+    local results=()
+    for _ in $(seq "$RUNS"); do
+        results+=("$(run_once "$@")")
+    done
+    printf '%s\n' "${results[@]}" > "target/startup-benchmark-$name.txt"
+    printf "%-10s first request %6s ms   RSS %5s MB   RSS after %s requests %5s MB\n" "$name" \
+        "$(cut -d' ' -f1 "target/startup-benchmark-$name.txt" | median)" \
+        "$(cut -d' ' -f2 "target/startup-benchmark-$name.txt" | median)" \
+        "$WARM_REQUESTS" \
+        "$(cut -d' ' -f3 "target/startup-benchmark-$name.txt" | median)"
+}
+
+OPTIMIZED_JAR="$STARTUP_DIR/$(basename "$JAR")"
+
+run_mode default java -jar "$JAR" --spring.profiles.active="$PROFILES"
+run_mode optimized java -XX:SharedArchiveFile="$STARTUP_DIR/application.jsa" -Dspring.aot.enabled=true \
+    -jar "$OPTIMIZED_JAR" --spring.profiles.active="$PROFILES,startup"
@@ -0,0 +1,89 @@
+package ru.skypro.hogwarts.sova.benchmark;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import ru.skypro.hogwarts.sova.dto.StudentDto;
+import ru.skypro.hogwarts.sova.export.ExportFormat;
+import ru.skypro.hogwarts.sova.repository.StudentRepository;
+import ru.skypro.hogwarts.sova.service.ExportService;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Полная выгрузка студентов в никуда. Базовая линия — как делали раньше:
+ * findAll() в сущности, затем список DTO через ObjectMapper. Остальные —
+ * потоковые выгрузки ExportService; память у них не растёт с числом строк
+ * (смотреть с -prof gc).
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2, time = 5)
+@Measurement(iterations = 3, time = 5)
+@Fork(1)
+@State(Scope.Benchmark)
+public class ExportBenchmark {
+    private ExportService exportService;
+    private StudentRepository studentRepository;
+    private ObjectMapper objectMapper;
+    private TransactionTemplate readOnly;
+
+    @Setup
+    public void setUp(SeededDatabase database) {
+        exportService = database.bean(ExportService.class);
+        studentRepository = database.bean(StudentRepository.class);
+        objectMapper = database.bean(ObjectMapper.class);
+        readOnly = new TransactionTemplate(database.bean(PlatformTransactionManager.class));
+        readOnly.setReadOnly(true);
+    }
+
+    @Benchmark
+    public void findAllJackson() throws IOException {
+        List<StudentDto> students = readOnly.execute(status ->
+                studentRepository.findAll().stream().map(StudentDto::of).toList());
+        objectMapper.writeValue(OutputStream.nullOutputStream(), students);
+    }
+
+    @Benchmark
+    public void csv() throws IOException {
+        exportService.exportStudents(ExportFormat.CSV, null, null, null, OutputStream.nullOutputStream());
+    }
+
+    @Benchmark
+    public void ndjson() throws IOException {
+        exportService.exportStudents(ExportFormat.NDJSON, null, null, null, OutputStream.nullOutputStream());
+    }
+
+    @Benchmark
+    public void columnar() throws IOException {
+        exportService.exportStudents(ExportFormat.COLUMNAR, null, null, null, OutputStream.nullOutputStream());
+    }
+
+    @Benchmark
+    public void csvGzip() throws IOException {
+        try (GZIPOutputStream out = new GZIPOutputStream(OutputStream.nullOutputStream(), 64 * 1024)) {
+            exportService.exportStudents(ExportFormat.CSV, null, null, null, out);
+        }
+    }
+
+    @Benchmark
+    public void columnarGzip() throws IOException {
+        try (GZIPOutputStream out = new GZIPOutputStream(OutputStream.nullOutputStream(), 64 * 1024)) {
+            exportService.exportStudents(ExportFormat.COLUMNAR, null, null, null, out);
+        }
+    }
+}
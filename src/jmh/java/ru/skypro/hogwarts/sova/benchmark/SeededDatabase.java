@@ -0,0 +1,99 @@
+package ru.skypro.hogwarts.sova.benchmark;
+
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.jdbc.core.JdbcTemplate;
+import ru.skypro.hogwarts.sova.Application;
+import ru.skypro.hogwarts.sova.event.StudentsBulkChangedEvent;
+import ru.skypro.hogwarts.sova.service.StudentCohorts;
+import ru.skypro.hogwarts.sova.service.StudentSnapshot;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Контекст приложения поверх встроенной H2 (режим PostgreSQL) с
+ * воспроизводимым набором данных: {@value #FACULTIES} факультетов и
+ * {@code students} студентов, возраст 11..17 по кругу.
+ */
+@State(Scope.Benchmark)
+public class SeededDatabase {
+    public static final int FACULTIES = 100;
+    public static final int MIN_AGE = 11;
+    public static final int AGES = 7;
+    private static final int INSERT_BATCH = 10_000;
+
+    @Param({"1000", "100000", "1000000"})
+    public int students;
+
+    /** Чтения из {@link StudentSnapshot} вместо базы. */
+    @Param({"false"})
+    public boolean snapshot;
+
+    public ConfigurableApplicationContext context;
+
+    @Setup(Level.Trial)
+    public void start() {
+        context = new SpringApplicationBuilder(Application.class)
+                .web(WebApplicationType.NONE)
+                .profiles("test")
+                .properties(
+                        "spring.datasource.url=jdbc:h2:mem:bench;MODE=PostgreSQL;DATABASE_TO_LOWER=TRUE;DB_CLOSE_DELAY=-1",
+                        "spring.jpa.properties.hibernate.generate_statistics=false",
+                        "logging.level.root=WARN",
+                        "hogwarts.student.snapshot.enabled=" + snapshot)
+                .run();
+        seed(context.getBean(JdbcTemplate.class));
+        context.getBean(StudentSnapshot.class).reload();
+    }
+
+    @TearDown(Level.Trial)
+    public void stop() {
+        context.close();
+    }
+
+    public <T> T bean(Class<T> type) {
+        return context.getBean(type);
+    }
+
+    /**
+     * Удаляет студентов, созданных бенчмарками, и их записи в журнале
+     * изменений, чтобы каждая итерация начиналась с тех же {@code students}
+     * строк. Копии в памяти пересобираются как после массового изменения.
+     */
+    public void removeCreatedStudents() {
+        JdbcTemplate jdbc = bean(JdbcTemplate.class);
+        if (jdbc.update("DELETE FROM student WHERE id > ?", students) > 0) {
+            jdbc.update("DELETE FROM change_event");
+            context.publishEvent(new StudentsBulkChangedEvent("benchmark students removed"));
+        }
+    }
+
+    private void seed(JdbcTemplate jdbc) {
+        List<Object[]> faculties = new ArrayList<>(FACULTIES);
+        for (int f = 1; f <= FACULTIES; f++) {
+            faculties.add(new Object[]{f, "Факультет " + f, "цвет " + (f % 4)});
+        }
+        jdbc.batchUpdate("INSERT INTO faculty (id, version, name, color) VALUES (?, 0, ?, ?)", faculties);
+        jdbc.execute("ALTER TABLE faculty ALTER COLUMN id RESTART WITH " + (FACULTIES + 1));
+
+        List<Object[]> batch = new ArrayList<>(INSERT_BATCH);
+        for (int s = 1; s <= students; s++) {
+            int age = MIN_AGE + s % AGES;
+            batch.add(new Object[]{s, "Студент " + s, age, 1 + s % FACULTIES, StudentCohorts.forAge(age)});
+            if (batch.size() == INSERT_BATCH || s == students) {
+                jdbc.batchUpdate("INSERT INTO student (id, version, name, age, faculty_id, cohort) "
+                        + "VALUES (?, 0, ?, ?, ?, ?)", batch);
+                batch.clear();
+            }
+        }
+        jdbc.execute("ALTER SEQUENCE student_seq RESTART WITH " + (students + 50));
+    }
+}
@@ -0,0 +1,99 @@
+package ru.skypro.hogwarts.sova.benchmark;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.fasterxml.jackson.module.blackbird.BlackbirdModule;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+import ru.skypro.hogwarts.sova.dto.FacultyDto;
+import ru.skypro.hogwarts.sova.dto.StudentDto;
+import ru.skypro.hogwarts.sova.model.Faculty;
+import ru.skypro.hogwarts.sova.model.Student;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Сериализация без базы данных: прежний граф сущностей Faculty -> students
+ * (@JsonManagedReference, @JsonIdentityInfo у Student) против DTO-записей,
+ * которые теперь отдают контроллеры. Маппер настроен так же, как в Spring
+ * Boot по умолчанию; варианты blackbird* — с модулем Blackbird и заранее
+ * построенным ObjectWriter, как в приложении.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class SerializationBenchmark {
+    @Param({"10", "1000"})
+    public int studentsPerFaculty;
+
+    private ObjectMapper objectMapper;
+    private ObjectWriter blackbirdStudentsWriter;
+    private ObjectWriter blackbirdFacultyWriter;
+    private Faculty faculty;
+    private List<Student> students;
+    private FacultyDto facultyDto;
+    private List<StudentDto> studentDtos;
+
+    @Setup
+    public void setUp() {
+        objectMapper = Jackson2ObjectMapperBuilder.json().build();
+        faculty = new Faculty(1L, "Гриффиндор", "красный");
+        students = new ArrayList<>(studentsPerFaculty);
+        for (int i = 0; i < studentsPerFaculty; i++) {
+            students.add(new Student((long) i + 1, "Студент " + i, 11 + i % 7, faculty));
+        }
+        faculty.setStudents(students);
+
+        facultyDto = FacultyDto.of(faculty);
+        studentDtos = students.stream().map(StudentDto::of).toList();
+        ObjectMapper blackbird = Jackson2ObjectMapperBuilder.json().modules(new BlackbirdModule()).build();
+        blackbirdStudentsWriter = blackbird.writerFor(
+                blackbird.getTypeFactory().constructCollectionType(List.class, StudentDto.class));
+        blackbirdFacultyWriter = blackbird.writerFor(FacultyDto.class);
+    }
+
+    @Benchmark
+    public byte[] facultyWithStudents() throws Exception {
+        return objectMapper.writeValueAsBytes(faculty);
+    }
+
+    @Benchmark
+    public byte[] studentList() throws Exception {
+        return objectMapper.writeValueAsBytes(students);
+    }
+
+    @Benchmark
+    public byte[] facultyDto() throws Exception {
+        return objectMapper.writeValueAsBytes(facultyDto);
+    }
+
+    @Benchmark
+    public byte[] studentDtoList() throws Exception {
+        return objectMapper.writeValueAsBytes(studentDtos);
+    }
+
+    @Benchmark
+    public byte[] blackbirdFacultyDto() throws Exception {
+        return blackbirdFacultyWriter.writeValueAsBytes(facultyDto);
+    }
+
+    @Benchmark
+    public byte[] blackbirdStudentDtoList() throws Exception {
+        return blackbirdStudentsWriter.writeValueAsBytes(studentDtos);
+    }
+}
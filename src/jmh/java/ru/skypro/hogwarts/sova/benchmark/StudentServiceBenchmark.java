@@ -0,0 +1,76 @@
+package ru.skypro.hogwarts.sova.benchmark;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.data.domain.Sort;
+import ru.skypro.hogwarts.sova.dto.RosterSort;
+import ru.skypro.hogwarts.sova.dto.StudentDto;
+import ru.skypro.hogwarts.sova.model.Faculty;
+import ru.skypro.hogwarts.sova.model.Student;
+import ru.skypro.hogwarts.sova.service.FacultyService;
+import ru.skypro.hogwarts.sova.service.StudentService;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Горячие пути сервисов. Диапазон возрастов в findByAgeBetween охватывает
+ * 2 из 7 возрастов, т.е. ~2/7 таблицы; на факультете ~1/100 студентов.
+ * С {@code -p snapshot=false,true} чтения сравниваются с копией в памяти.
+ * Студенты, созданные createStudent, удаляются после каждой итерации, так
+ * что размер таблицы от итерации к итерации не растёт.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class StudentServiceBenchmark {
+    private SeededDatabase database;
+    private StudentService studentService;
+    private FacultyService facultyService;
+
+    @Setup
+    public void setUp(SeededDatabase database) {
+        this.database = database;
+        studentService = database.bean(StudentService.class);
+        facultyService = database.bean(FacultyService.class);
+    }
+
+    @TearDown(Level.Iteration)
+    public void removeCreatedStudents() {
+        database.removeCreatedStudents();
+    }
+
+    @Benchmark
+    public StudentDto createStudent() {
+        Faculty faculty = new Faculty(1L, null, null);
+        return studentService.createStudent(new Student(null, "Новичок", 11, faculty));
+    }
+
+    @Benchmark
+    public List<StudentDto> findByAgeBetween() {
+        return studentService.findByAgeBetween(SeededDatabase.MIN_AGE + 1, SeededDatabase.MIN_AGE + 2);
+    }
+
+    @Benchmark
+    public List<StudentDto> getStudentsByFacultyId() {
+        return facultyService.getStudentsByFacultyId(42L, RosterSort.ID, Sort.Direction.ASC, 0, null);
+    }
+
+    @Benchmark
+    public List<StudentDto> getStudentsByFacultyIdPage() {
+        return facultyService.getStudentsByFacultyId(42L, RosterSort.NAME, Sort.Direction.ASC, 0, 50);
+    }
+}
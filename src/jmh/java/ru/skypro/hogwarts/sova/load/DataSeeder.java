@@ -0,0 +1,168 @@
+package ru.skypro.hogwarts.sova.load;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ArrayNode;
+
+import java.io.IOException;
+import java.net.URI;
+import java.net.URLEncoder;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.SplittableRandom;
+import java.util.function.Consumer;
+
+/**
+ * Засевает базу через публичный API (POST /faculty, POST /student/bulk),
+ * так что работает против любого развёртывания. Без засева id
+ * существующих факультетов и студентов читаются постранично.
+ */
+public class DataSeeder {
+    private static final String[] HOUSES = {"Гриффиндор", "Слизерин", "Когтевран", "Пуффендуй"};
+    private static final String[] COLORS = {"красный", "зелёный", "синий", "жёлтый"};
+    private static final String[] FIRST_NAMES = {"Гарри", "Гермиона", "Рон", "Драко", "Полумна", "Невилл",
+            "Джинни", "Седрик", "Чжоу", "Симус", "Дин", "Парвати", "Лаванда", "Эрни", "Ханна"};
+    private static final String[] LAST_NAMES = {"Поттер", "Грейнджер", "Уизли", "Малфой", "Лавгуд",
+            "Долгопупс", "Диггори", "Чанг", "Финниган", "Томас", "Патил", "Браун", "Макмиллан", "Аббот"};
+    private static final int MIN_AGE = 11;
+    private static final int AGES = 7;
+    private static final int BULK_ROWS = 1000;
+    private static final int PAGE = 1000;
+
+    private final HttpClient client;
+    private final URI base;
+    private final ObjectMapper mapper = new ObjectMapper();
+
+    public DataSeeder(HttpClient client, URI base) {
+        this.client = client;
+        this.base = base;
+    }
+
+    public SeedData seed(int faculties, int students, SplittableRandom random) throws IOException, InterruptedException {
+        List<Long> facultyIds = new ArrayList<>(faculties);
+        List<String> facultyNames = new ArrayList<>(faculties);
+        for (int i = 0; i < faculties; i++) {
+            String name = HOUSES[i % HOUSES.length] + " " + (i / HOUSES.length + 1);
+            JsonNode created = send(HttpRequest.newBuilder(base.resolve("/faculty"))
+                    .header("Content-Type", "application/json")
+                    .POST(HttpRequest.BodyPublishers.ofString(mapper.createObjectNode()
+                            .put("name", name)
+                            .put("color", COLORS[i % COLORS.length])
+                            .toString()))
+                    .build());
+            facultyIds.add(created.get("id").asLong());
+            facultyNames.add(name);
+        }
+
+        List<Long> studentIds = new ArrayList<>(students);
+        for (int done = 0; done < students; done += BULK_ROWS) {
+            ArrayNode rows = mapper.createArrayNode();
+            for (int i = done; i < Math.min(done + BULK_ROWS, students); i++) {
+                rows.addObject()
+                        .put("name", randomName(random))
+                        .put("age", randomAge(random))
+                        .put("facultyId", facultyIds.get(random.nextInt(facultyIds.size())));
+            }
+            JsonNode report = send(HttpRequest.newBuilder(base.resolve("/student/bulk"))
+                    .header("Content-Type", "application/json")
+                    .POST(HttpRequest.BodyPublishers.ofString(rows.toString()))
+                    .build());
+            for (JsonNode row : report.get("rows")) {
+                if (row.hasNonNull("id")) {
+                    studentIds.add(row.get("id").asLong());
+                }
+            }
+        }
+        return new SeedData(facultyIds, facultyNames, studentIds);
+    }
+
+    /** Id уже существующих данных: все факультеты и первые {@code maxStudents} студентов. */
+    public SeedData discover(int maxStudents) throws IOException, InterruptedException {
+        List<Long> facultyIds = new ArrayList<>();
+        List<String> facultyNames = new ArrayList<>();
+        readPages("/faculty", Integer.MAX_VALUE, item -> {
+            facultyIds.add(item.get("id").asLong());
+            facultyNames.add(item.get("name").asText());
+        });
+        List<Long> studentIds = new ArrayList<>();
+        readPages("/student", maxStudents, item -> studentIds.add(item.get("id").asLong()));
+        return new SeedData(facultyIds, facultyNames, studentIds);
+    }
+
+    private void readPages(String path, int max, Consumer<JsonNode> consumer)
+            throws IOException, InterruptedException {
+        String cursor = null;
+        int read = 0;
+        do {
+            String query = "?limit=" + PAGE + (cursor == null ? "" : "&cursor=" + URLEncoder.encode(cursor, StandardCharsets.UTF_8));
+            JsonNode page = send(HttpRequest.newBuilder(base.resolve(path + query))
+                    .header("Accept", "application/json")
+                    .GET()
+                    .build());
+            for (JsonNode item : page.get("items")) {
+                if (read++ >= max) {
+                    return;
+                }
+                consumer.accept(item);
+            }
+            cursor = page.path("nextCursor").isTextual() ? page.get("nextCursor").asText() : null;
+        } while (cursor != null);
+    }
+
+    private JsonNode send(HttpRequest request) throws IOException, InterruptedException {
+        HttpResponse<String> response = client.send(request, HttpResponse.BodyHandlers.ofString());
+        if (response.statusCode() / 100 != 2) {
+            throw new IOException(request.method() + " " + request.uri() + " -> " + response.statusCode()
+                    + ": " + response.body());
+        }
+        return mapper.readTree(response.body());
+    }
+
+    static String randomName(SplittableRandom random) {
+        return FIRST_NAMES[random.nextInt(FIRST_NAMES.length)] + " " + LAST_NAMES[random.nextInt(LAST_NAMES.length)];
+    }
+
+    static int randomAge(SplittableRandom random) {
+        return MIN_AGE + random.nextInt(AGES);
+    }
+
+    static String randomHousePrefix(SplittableRandom random) {
+        String house = HOUSES[random.nextInt(HOUSES.length)];
+        return house.substring(0, 2 + random.nextInt(house.length() - 2)).toLowerCase();
+    }
+
+    /** Название факультета с одной перепутанной соседней парой букв. */
+    static String randomHouseTypo(SplittableRandom random) {
+        char[] chars = HOUSES[random.nextInt(HOUSES.length)].toLowerCase().toCharArray();
+        int i = 1 + random.nextInt(chars.length - 2);
+        char c = chars[i];
+        chars[i] = chars[i + 1];
+        chars[i + 1] = c;
+        return new String(chars);
+    }
+
+    public record SeedData(List<Long> facultyIds, List<String> facultyNames, List<Long> studentIds) {
+
+        public SeedData {
+            if (facultyIds.isEmpty() || studentIds.isEmpty()) {
+                throw new IllegalStateException("Нет данных для нагрузки: засейте факультеты и студентов");
+            }
+        }
+
+        long randomFaculty(SplittableRandom random) {
+            return facultyIds.get(random.nextInt(facultyIds.size()));
+        }
+
+        String randomFacultyName(SplittableRandom random) {
+            return facultyNames.get(random.nextInt(facultyNames.size()));
+        }
+
+        long randomStudent(SplittableRandom random) {
+            return studentIds.get(random.nextInt(studentIds.size()));
+        }
+    }
+}
@@ -0,0 +1,265 @@
+package ru.skypro.hogwarts.sova.load;
+
+import org.HdrHistogram.Histogram;
+import org.HdrHistogram.Recorder;
+
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.PrintStream;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.LinkedHashMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.SplittableRandom;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Нагрузочный тест в открытой модели: запросы отправляются с заданной
+ * частотой независимо от того, успел ли сервер ответить на предыдущие.
+ * Задержка считается от запланированного момента отправки, а не от
+ * фактического, поэтому отставание генератора и очередь на сервере видны
+ * в процентилях (без coordinated omission, как у wrk и JMH с фиксированным
+ * числом потоков).
+ * <p>
+ * Параметры — {@code --ключ=значение}:
+ * <pre>
+ *   --base-url=http://localhost:8080
+ *   --mix=MIXED                 ROSTER, ENROLLMENT, SEARCH, MIXED ({@link TrafficMix})
+ *   --rate=200                  запросов в секунду
+ *   --duration=PT1M  --warmup=PT10S
+ *   --burst-factor=1 --burst-every=PT30S --burst-length=PT5S
+ *                               всплески: первые burst-length каждого burst-every
+ *                               частота умножается на burst-factor
+ *   --seed-faculties=0 --seed-students=0
+ *                               засеять данные перед тестом; без засева берутся
+ *                               существующие (до --known-students id студентов)
+ *   --max-in-flight=2000        сверх этого запросы не отправляются и считаются ошибками
+ *   --timeout=PT5S  --report-interval=PT10S  --random-seed=42
+ *   --histogram=target/load.hgrm                      распределение задержек всего теста
+ *   --max-p99=PT0.2S  --max-error-rate=0.01          пороги: при превышении код выхода 1
+ * </pre>
+ */
+public class LoadTest {
+    private static final Map<String, String> DEFAULTS = Map.ofEntries(
+            Map.entry("base-url", "http://localhost:8080"),
+            Map.entry("mix", "MIXED"),
+            Map.entry("rate", "200"),
+            Map.entry("duration", "PT1M"),
+            Map.entry("warmup", "PT10S"),
+            Map.entry("burst-factor", "1"),
+            Map.entry("burst-every", "PT30S"),
+            Map.entry("burst-length", "PT5S"),
+            Map.entry("seed-faculties", "0"),
+            Map.entry("seed-students", "0"),
+            Map.entry("known-students", "100000"),
+            Map.entry("max-in-flight", "2000"),
+            Map.entry("timeout", "PT5S"),
+            Map.entry("report-interval", "PT10S"),
+            Map.entry("random-seed", "42"),
+            Map.entry("histogram", ""),
+            Map.entry("max-p99", ""),
+            Map.entry("max-error-rate", ""));
+
+    private final Map<String, String> options;
+    private final PrintStream out;
+    private final Map<String, Stats> stats = new LinkedHashMap<>();
+    private final Recorder progress = new Recorder(3);
+    private final LongAdder dropped = new LongAdder();
+    private volatile long measureFrom;
+
+    public LoadTest(Map<String, String> options, PrintStream out) {
+        for (String key : options.keySet()) {
+            if (!DEFAULTS.containsKey(key)) {
+                throw new IllegalArgumentException("Неизвестный параметр --" + key + ", допустимые: " + DEFAULTS.keySet());
+            }
+        }
+        this.options = new LinkedHashMap<>(DEFAULTS);
+        this.options.putAll(options);
+        this.out = out;
+    }
+
+    public static void main(String[] args) throws Exception {
+        Map<String, String> options = new LinkedHashMap<>();
+        for (String arg : args) {
+            int eq = arg.indexOf('=');
+            if (!arg.startsWith("--") || eq < 0) {
+                throw new IllegalArgumentException("Ожидается --ключ=значение: " + arg);
+            }
+            options.put(arg.substring(2, eq), arg.substring(eq + 1));
+        }
+        System.exit(new LoadTest(options, System.out).run());
+    }
+
+    /** Прогоняет тест и возвращает код выхода: 0 — пороги соблюдены, 1 — нет. */
+    public int run() throws IOException, InterruptedException {
+        URI base = URI.create(option("base-url"));
+        TrafficMix mix = TrafficMix.valueOf(option("mix").toUpperCase(Locale.ROOT));
+        double rate = Double.parseDouble(option("rate"));
+        Duration duration = duration("duration");
+        Duration warmup = duration("warmup");
+        Duration timeout = duration("timeout");
+        SplittableRandom random = new SplittableRandom(Long.parseLong(option("random-seed")));
+
+        HttpClient client = HttpClient.newBuilder()
+                .version(HttpClient.Version.HTTP_1_1)
+                .connectTimeout(timeout)
+                .build();
+        DataSeeder seeder = new DataSeeder(client, base);
+        int seedFaculties = Integer.parseInt(option("seed-faculties"));
+        int seedStudents = Integer.parseInt(option("seed-students"));
+        DataSeeder.SeedData data = seedFaculties > 0 || seedStudents > 0
+                ? seeder.seed(Math.max(seedFaculties, 1), Math.max(seedStudents, 1), random)
+                : seeder.discover(Integer.parseInt(option("known-students")));
+        out.printf("%s: %d faculties, %d students; mix %s at %.0f rps for %s after %s warmup%n",
+                base, data.facultyIds().size(), data.studentIds().size(), mix, rate, duration, warmup);
+        mix.operations().forEach(operation -> stats.putIfAbsent(operation.name(), new Stats()));
+
+        Semaphore inFlight = new Semaphore(Integer.parseInt(option("max-in-flight")));
+        long start = System.nanoTime();
+        measureFrom = start + warmup.toNanos();
+        long end = measureFrom + duration.toNanos();
+        long reportEvery = duration("report-interval").toNanos();
+        long nextReport = start + reportEvery;
+        Burst burst = new Burst(Double.parseDouble(option("burst-factor")),
+                duration("burst-every").toNanos(), duration("burst-length").toNanos());
+        long intended = start;
+        while (intended < end) {
+            long wait = intended - System.nanoTime();
+            if (wait > 0) {
+                LockSupport.parkNanos(wait);
+            }
+            if (intended >= nextReport) {
+                report(intended - start, reportEvery);
+                nextReport += reportEvery;
+            }
+            TrafficMix.Operation operation = mix.pick(random);
+            if (inFlight.tryAcquire()) {
+                send(client, operation.factory().create(random, data, base), timeout, stats.get(operation.name()), intended)
+                        .whenComplete((ignored, e) -> inFlight.release());
+            } else if (intended >= measureFrom) {
+                dropped.increment();
+            }
+            intended += (long) (TimeUnit.SECONDS.toNanos(1) / (rate * burst.factor(intended - start)));
+        }
+        if (!inFlight.tryAcquire(Integer.parseInt(option("max-in-flight")), timeout.toMillis() * 2, TimeUnit.MILLISECONDS)) {
+            out.println("Не дождались всех ответов, незавершённые запросы не учтены");
+        }
+        return summary(duration);
+    }
+
+    private CompletableFuture<?> send(HttpClient client, HttpRequest request, Duration timeout,
+                                   Stats operation, long intended) {
+        HttpRequest timed = HttpRequest.newBuilder(request, (name, value) -> true).timeout(timeout).build();
+        return client.sendAsync(timed, HttpResponse.BodyHandlers.discarding())
+                .handle((response, e) -> {
+                    long micros = TimeUnit.NANOSECONDS.toMicros(System.nanoTime() - intended);
+                    progress.recordValue(micros);
+                    if (intended >= measureFrom) {
+                        operation.latency.recordValue(micros);
+                        if (e != null || response.statusCode() >= 400) {
+                            operation.errors.increment();
+                        }
+                    }
+                    return null;
+                });
+    }
+
+    private void report(long elapsed, long interval) {
+        Histogram histogram = progress.getIntervalHistogram();
+        out.printf("%5ds  %8.1f rps  p50 %8.2f ms  p99 %8.2f ms  max %8.2f ms%n",
+                TimeUnit.NANOSECONDS.toSeconds(elapsed),
+                histogram.getTotalCount() * (double) TimeUnit.SECONDS.toNanos(1) / interval,
+                millis(histogram.getValueAtPercentile(50)),
+                millis(histogram.getValueAtPercentile(99)),
+                millis(histogram.getMaxValue()));
+    }
+
+    private int summary(Duration duration) throws IOException {
+        double seconds = duration.toNanos() / (double) TimeUnit.SECONDS.toNanos(1);
+        Histogram total = new Histogram(3);
+        long errors = 0;
+        out.printf("%n%-36s %9s %7s %9s %9s %9s %9s %9s %9s%n",
+                "operation", "count", "errors", "rps", "p50 ms", "p90 ms", "p99 ms", "p99.9 ms", "max ms");
+        for (Map.Entry<String, Stats> entry : stats.entrySet()) {
+            Histogram histogram = entry.getValue().latency.getIntervalHistogram();
+            long operationErrors = entry.getValue().errors.sum();
+            print(entry.getKey(), histogram, operationErrors, seconds);
+            total.add(histogram);
+            errors += operationErrors;
+        }
+        print("total", total, errors, seconds);
+
+        long attempted = total.getTotalCount() + dropped.sum();
+        double errorRate = attempted == 0 ? 0 : (errors + dropped.sum()) / (double) attempted;
+        out.printf("dropped (max-in-flight): %d, error rate %.4f%n", dropped.sum(), errorRate);
+
+        String histogramFile = option("histogram");
+        if (!histogramFile.isEmpty()) {
+            try (PrintStream file = new PrintStream(new FileOutputStream(histogramFile))) {
+                total.outputPercentileDistribution(file, 1000.0);
+            }
+        }
+
+        int exitCode = 0;
+        if (!option("max-p99").isEmpty()) {
+            double maxP99 = millis(TimeUnit.NANOSECONDS.toMicros(duration("max-p99").toNanos()));
+            double p99 = millis(total.getValueAtPercentile(99));
+            if (p99 > maxP99) {
+                out.printf("FAIL: p99 %.2f ms > %.2f ms%n", p99, maxP99);
+                exitCode = 1;
+            }
+        }
+        if (!option("max-error-rate").isEmpty()) {
+            double maxErrorRate = Double.parseDouble(option("max-error-rate"));
+            if (errorRate > maxErrorRate) {
+                out.printf("FAIL: error rate %.4f > %.4f%n", errorRate, maxErrorRate);
+                exitCode = 1;
+            }
+        }
+        return exitCode;
+    }
+
+    private void print(String name, Histogram histogram, long errors, double seconds) {
+        out.printf("%-36s %9d %7d %9.1f %9.2f %9.2f %9.2f %9.2f %9.2f%n", name,
+                histogram.getTotalCount(), errors, histogram.getTotalCount() / seconds,
+                millis(histogram.getValueAtPercentile(50)),
+                millis(histogram.getValueAtPercentile(90)),
+                millis(histogram.getValueAtPercentile(99)),
+                millis(histogram.getValueAtPercentile(99.9)),
+                millis(histogram.getMaxValue()));
+    }
+
+    private String option(String key) {
+        return options.get(key);
+    }
+
+    private Duration duration(String key) {
+        return Duration.parse(option(key));
+    }
+
+    private static double millis(long micros) {
+        return micros / 1000.0;
+    }
+
+    /** Всплеск: первые {@code length} нс каждого периода {@code every} частота умножается на {@code factor}. */
+    private record Burst(double factor, long every, long length) {
+
+        double factor(long sinceStart) {
+            return sinceStart % every < length ? factor : 1;
+        }
+    }
+
+    /** Задержки в микросекундах и число ответов с ошибкой для одной операции. */
+    private static final class Stats {
+        private final Recorder latency = new Recorder(3);
+        private final LongAdder errors = new LongAdder();
+    }
+}
@@ -0,0 +1,122 @@
+package ru.skypro.hogwarts.sova.load;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.web.server.LocalServerPort;
+import org.springframework.test.context.ActiveProfiles;
+import ru.skypro.hogwarts.sova.repository.FacultyRepository;
+import ru.skypro.hogwarts.sova.repository.StudentRepository;
+
+import java.io.ByteArrayOutputStream;
+import java.io.PrintStream;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.SplittableRandom;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.assertj.core.api.Assertions.within;
+
+/**
+ * Нагрузочный тест против запущенного приложения: засев через API и чтение
+ * засеянного обратно, отправка по расписанию с учётом всплесков (число
+ * запросов задаёт частота, а не скорость ответов), таблица процентилей,
+ * файл .hgrm и пороги p99 и доли ошибок в коде выхода.
+ */
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT)
+@ActiveProfiles("test")
+class LoadTestTests {
+    @LocalServerPort
+    private int port;
+    @Autowired
+    private FacultyRepository facultyRepository;
+    @Autowired
+    private StudentRepository studentRepository;
+
+    private final ByteArrayOutputStream output = new ByteArrayOutputStream();
+
+    @BeforeEach
+    @AfterEach
+    void cleanUp() {
+        studentRepository.deleteAllInBatch();
+        facultyRepository.deleteAllInBatch();
+    }
+
+    @Test
+    void seederCreatesDataAndDiscoverReadsItBack() throws Exception {
+        DataSeeder seeder = new DataSeeder(HttpClient.newHttpClient(), URI.create("http://localhost:" + port));
+
+        DataSeeder.SeedData seeded = seeder.seed(3, 1500, new SplittableRandom(1));
+        DataSeeder.SeedData discovered = seeder.discover(Integer.MAX_VALUE);
+
+        assertThat(seeded.facultyNames()).containsExactly("Гриффиндор 1", "Слизерин 1", "Когтевран 1");
+        assertThat(seeded.studentIds()).hasSize(1500);
+        assertThat(discovered.facultyIds()).containsExactlyElementsOf(seeded.facultyIds());
+        assertThat(discovered.studentIds()).containsExactlyElementsOf(seeded.studentIds());
+        assertThat(seeder.discover(10).studentIds()).containsExactlyElementsOf(seeded.studentIds().subList(0, 10));
+    }
+
+    @Test
+    void sendsOnScheduleAndPassesGates(@TempDir Path dir) throws Exception {
+        Path histogram = dir.resolve("load.hgrm");
+
+        // ROSTER запрашивает студентов возраста страницами 0–2 по 50: засеваем так, чтобы пустых страниц (404) не было
+        int exitCode = run("mix", "ROSTER", "rate", "50", "duration", "PT2S", "warmup", "PT1S",
+                "burst-factor", "3", "burst-every", "PT1S", "burst-length", "PT0.5S",
+                "seed-faculties", "2", "seed-students", "1500",
+                "histogram", histogram.toString(), "max-p99", "PT5S", "max-error-rate", "0");
+
+        // полсекунды по 150 и полсекунды по 50 запросов в секунду — 100 в секунду при любой скорости ответов
+        assertThat(exitCode).as(output()).isZero();
+        String[] total = row("total");
+        assertThat(Long.parseLong(total[0])).isCloseTo(200, within(3L));
+        assertThat(total[1]).isEqualTo("0");
+        assertThat(output()).contains("GET /faculty/{id}/students", "error rate 0.0000");
+        assertThat(Files.readString(histogram)).contains("Value     Percentile TotalCount");
+    }
+
+    @Test
+    void gatesFailTheRun() throws Exception {
+        int exitCode = run("mix", "ENROLLMENT", "rate", "20", "duration", "PT1S", "warmup", "PT0S",
+                "seed-faculties", "1", "seed-students", "10", "max-p99", "PT0S");
+
+        assertThat(exitCode).isEqualTo(1);
+        assertThat(output()).contains("FAIL: p99");
+        assertThatThrownBy(() -> new LoadTest(Map.of("rps", "10"), new PrintStream(output)))
+                .isInstanceOf(IllegalArgumentException.class)
+                .hasMessageContaining("--rps");
+    }
+
+    private int run(String... keysAndValues) throws Exception {
+        Map<String, String> options = new HashMap<>();
+        options.put("base-url", "http://localhost:" + port);
+        options.put("report-interval", "PT1S");
+        for (int i = 0; i < keysAndValues.length; i += 2) {
+            options.put(keysAndValues[i], keysAndValues[i + 1]);
+        }
+        return new LoadTest(options, new PrintStream(output, true, StandardCharsets.UTF_8)).run();
+    }
+
+    private String output() {
+        return output.toString(StandardCharsets.UTF_8);
+    }
+
+    private String[] row(String name) {
+        return output().lines()
+                .filter(line -> line.startsWith(name + " "))
+                .findFirst()
+                .orElseThrow()
+                .substring(name.length())
+                .trim()
+                .split("\\s+", -1);
+    }
+}
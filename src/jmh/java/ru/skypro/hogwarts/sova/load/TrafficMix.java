@@ -0,0 +1,104 @@
+package ru.skypro.hogwarts.sova.load;
+
+import java.net.URI;
+import java.net.URLEncoder;
+import java.net.http.HttpRequest;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.SplittableRandom;
+
+/**
+ * Наборы запросов к StudentController/FacultyController с весами. Запрос
+ * выбирается случайно пропорционально весу; id и поисковые строки берутся
+ * из засеянных данных ({@link DataSeeder.SeedData}).
+ */
+public enum TrafficMix {
+    /** Просмотр списков: страницы факультетов, составы, карточки студентов. */
+    ROSTER(List.of(
+            new Operation("GET /faculty", 10, (r, d, base) -> get(base, "/faculty?limit=20")),
+            new Operation("GET /faculty/{id}", 15, (r, d, base) -> get(base, "/faculty/" + d.randomFaculty(r))),
+            new Operation("GET /faculty/{id}/students", 35, (r, d, base) -> get(base,
+                    "/faculty/" + d.randomFaculty(r) + "/students?sort=NAME&size=20&page=" + r.nextInt(5))),
+            new Operation("GET /student/{id}", 30, (r, d, base) -> get(base, "/student/" + d.randomStudent(r))),
+            new Operation("GET /student/age/{age}", 10, (r, d, base) -> get(base,
+                    "/student/age/" + DataSeeder.randomAge(r) + "?size=50&page=" + r.nextInt(3))))),
+
+    /** Зачисление: волна POST /student и проверка созданного. */
+    ENROLLMENT(List.of(
+            new Operation("POST /student", 70, (r, d, base) -> post(base, "/student",
+                    "{\"name\":\"" + DataSeeder.randomName(r) + "\",\"age\":" + DataSeeder.randomAge(r) + "}")),
+            new Operation("GET /student/{id}", 20, (r, d, base) -> get(base, "/student/" + d.randomStudent(r))),
+            new Operation("GET /faculty/{id}/students/count", 10, (r, d, base) -> get(base,
+                    "/faculty/" + d.randomFaculty(r) + "/students/count")))),
+
+    /** Поиск факультетов всеми режимами. */
+    SEARCH(List.of(
+            new Operation("GET /faculty/search EXACT", 30, (r, d, base) -> get(base,
+                    "/faculty/search?query=" + encode(d.randomFacultyName(r)))),
+            new Operation("GET /faculty/search PREFIX", 50, (r, d, base) -> get(base,
+                    "/faculty/search?mode=PREFIX&query=" + encode(DataSeeder.randomHousePrefix(r)))),
+            new Operation("GET /faculty/search FUZZY", 20, (r, d, base) -> get(base,
+                    "/faculty/search?mode=FUZZY&query=" + encode(DataSeeder.randomHouseTypo(r)))))),
+
+    /** Всё вместе в пропорциях, близких к рабочему дню. */
+    MIXED(concat(ROSTER, 70, ENROLLMENT, 10, SEARCH, 20));
+
+    private final List<Operation> operations;
+    private final int totalWeight;
+
+    TrafficMix(List<Operation> operations) {
+        this.operations = operations;
+        this.totalWeight = operations.stream().mapToInt(Operation::weight).sum();
+    }
+
+    public List<Operation> operations() {
+        return operations;
+    }
+
+    public Operation pick(SplittableRandom random) {
+        int point = random.nextInt(totalWeight);
+        for (Operation operation : operations) {
+            point -= operation.weight();
+            if (point < 0) {
+                return operation;
+            }
+        }
+        throw new IllegalStateException();
+    }
+
+    public interface RequestFactory {
+        HttpRequest create(SplittableRandom random, DataSeeder.SeedData data, URI base);
+    }
+
+    public record Operation(String name, int weight, RequestFactory factory) {
+    }
+
+    /** Веса операций каждого набора масштабируются к его доле в процентах. */
+    private static List<Operation> concat(Object... mixesAndShares) {
+        List<Operation> result = new ArrayList<>();
+        for (int i = 0; i < mixesAndShares.length; i += 2) {
+            TrafficMix mix = (TrafficMix) mixesAndShares[i];
+            int share = (Integer) mixesAndShares[i + 1];
+            for (Operation operation : mix.operations) {
+                result.add(new Operation(operation.name(), operation.weight() * share, operation.factory()));
+            }
+        }
+        return List.copyOf(result);
+    }
+
+    private static HttpRequest get(URI base, String path) {
+        return HttpRequest.newBuilder(base.resolve(path)).GET().build();
+    }
+
+    private static HttpRequest post(URI base, String path, String json) {
+        return HttpRequest.newBuilder(base.resolve(path))
+                .header("Content-Type", "application/json")
+                .POST(HttpRequest.BodyPublishers.ofString(json))
+                .build();
+    }
+
+    private static String encode(String value) {
+        return URLEncoder.encode(value, StandardCharsets.UTF_8);
+    }
+}
@@ -0,0 +1,105 @@
+package ru.skypro.hogwarts.sova.load;
+
+import org.junit.jupiter.api.Test;
+
+import java.net.URI;
+import java.net.http.HttpRequest;
+import java.util.Arrays;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.SplittableRandom;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.within;
+
+/**
+ * Наборы запросов нагрузочного теста: операции выбираются пропорционально
+ * весам, MIXED делит нагрузку между наборами в заявленных долях, а каждая
+ * операция строит запрос к засеянным данным.
+ */
+class TrafficMixTests {
+    private static final URI BASE = URI.create("http://localhost:8080");
+    private static final DataSeeder.SeedData DATA =
+            new DataSeeder.SeedData(List.of(7L, 8L), List.of("Гриффиндор 1", "Слизерин 1"), List.of(41L, 42L, 43L));
+
+    @Test
+    void picksOperationsInProportionToWeights() {
+        SplittableRandom random = new SplittableRandom(42);
+        int picks = 200_000;
+        for (TrafficMix mix : TrafficMix.values()) {
+            Map<TrafficMix.Operation, Integer> counts = new IdentityHashMap<>();
+            for (int i = 0; i < picks; i++) {
+                counts.merge(mix.pick(random), 1, Integer::sum);
+            }
+            double totalWeight = mix.operations().stream().mapToInt(TrafficMix.Operation::weight).sum();
+            for (TrafficMix.Operation operation : mix.operations()) {
+                assertThat(counts.getOrDefault(operation, 0) / (double) picks)
+                        .as("%s %s", mix, operation.name())
+                        .isCloseTo(operation.weight() / totalWeight, within(0.01));
+            }
+        }
+    }
+
+    @Test
+    void mixedSplitsLoadBetweenMixesByShare() {
+        List<TrafficMix.Operation> mixed = TrafficMix.MIXED.operations();
+        double total = mixed.stream().mapToInt(TrafficMix.Operation::weight).sum();
+
+        int roster = TrafficMix.ROSTER.operations().size();
+        int enrollment = roster + TrafficMix.ENROLLMENT.operations().size();
+
+        assertThat(mixed).hasSize(enrollment + TrafficMix.SEARCH.operations().size());
+        assertThat(share(mixed.subList(0, roster), total)).isCloseTo(0.7, within(1e-9));
+        assertThat(share(mixed.subList(roster, enrollment), total)).isCloseTo(0.1, within(1e-9));
+        assertThat(share(mixed.subList(enrollment, mixed.size()), total)).isCloseTo(0.2, within(1e-9));
+    }
+
+    @Test
+    void operationsBuildRequestsFromSeedData() {
+        SplittableRandom random = new SplittableRandom(7);
+        for (TrafficMix mix : TrafficMix.values()) {
+            for (TrafficMix.Operation operation : mix.operations()) {
+                for (int i = 0; i < 50; i++) {
+                    HttpRequest request = operation.factory().create(random, DATA, BASE);
+                    String method = operation.name().substring(0, operation.name().indexOf(' '));
+                    assertThat(request.method()).as(operation.name()).isEqualTo(method);
+                    assertThat(request.uri().getAuthority()).isEqualTo("localhost:8080");
+                    assertThat(request.uri().getPath()).matches(pathPattern(operation.name()));
+                }
+            }
+        }
+    }
+
+    @Test
+    void searchTermsComeFromHouseNames() {
+        SplittableRandom random = new SplittableRandom(3);
+        List<String> houses = List.of("гриффиндор", "слизерин", "когтевран", "пуффендуй");
+        for (int i = 0; i < 100; i++) {
+            String prefix = DataSeeder.randomHousePrefix(random);
+            assertThat(prefix.length()).isGreaterThanOrEqualTo(2);
+            assertThat(houses).anyMatch(house -> house.startsWith(prefix) && !house.equals(prefix));
+
+            String typo = DataSeeder.randomHouseTypo(random);
+            assertThat(houses).anyMatch(house -> sorted(house).equals(sorted(typo)));
+
+            assertThat(DataSeeder.randomAge(random)).isBetween(11, 17);
+        }
+    }
+
+    private static double share(List<TrafficMix.Operation> operations, double total) {
+        return operations.stream().mapToInt(TrafficMix.Operation::weight).sum() / total;
+    }
+
+    /** "GET /faculty/{id}/students" → путь с числовыми id засеянных данных. */
+    private static String pathPattern(String name) {
+        String path = name.split(" ")[1];
+        return path.replace("{id}", "(7|8|41|42|43)").replace("{age}", "1[1-7]");
+    }
+
+    private static String sorted(String value) {
+        char[] chars = value.toCharArray();
+        Arrays.sort(chars);
+        return new String(chars);
+    }
+}
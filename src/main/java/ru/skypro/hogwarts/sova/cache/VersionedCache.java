@@ -0,0 +1,177 @@
+package ru.skypro.hogwarts.sova.cache;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.stats.CacheStats;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.time.Duration;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Function;
+import java.util.function.LongFunction;
+import java.util.function.Supplier;
+import java.util.function.ToIntFunction;
+
+/**
+ * Ограниченный по размеру кэш сущностей по id с TTL.
+ * <p>
+ * Каждая запись хранит версию сущности ({@code @Version}). Запись с меньшей
+ * версией никогда не вытесняет более новую, поэтому медленное чтение,
+ * закончившееся после коммита правки, не вернёт в кэш устаревшие данные.
+ * Удаление оставляет «надгробие», которое так же отсекает опоздавшие чтения.
+ * <p>
+ * Массовые UPDATE версий в кэш не приносят, поэтому после них кэш
+ * сбрасывается целиком, а счётчик поколений растёт — при регистрации сброса
+ * в транзакции и ещё раз в момент сброса. Загруженное значение кладётся,
+ * только если поколение не менялось с начала загрузки: чтение, начатое до
+ * коммита массового изменения, не вернёт в кэш старые данные на весь TTL.
+ */
+public class VersionedCache<V> {
+    private static final int TOMBSTONE_VERSION = Integer.MAX_VALUE;
+
+    private final String name;
+    private final Cache<Long, Entry<V>> cache;
+    private final ToIntFunction<V> versionOf;
+    private final AtomicLong generation = new AtomicLong();
+
+    public VersionedCache(String name, long maximumSize, Duration ttl, ToIntFunction<V> versionOf) {
+        this.name = name;
+        this.versionOf = versionOf;
+        this.cache = Caffeine.newBuilder()
+                .maximumSize(maximumSize)
+                .expireAfterWrite(ttl)
+                .recordStats()
+                .build();
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    /**
+     * Возвращает значение из кэша или загружает его через {@code loader}.
+     * Пустой результат означает, что сущности нет (или она удалена).
+     */
+    public Optional<V> get(long id, LongFunction<Optional<V>> loader) {
+        Entry<V> entry = cache.getIfPresent(id);
+        if (entry != null) {
+            return Optional.ofNullable(entry.value());
+        }
+        long loadedAt = generation.get();
+        Optional<V> loaded = loader.apply(id);
+        loaded.ifPresent(value -> putLoaded(id, value, loadedAt));
+        return loaded;
+    }
+
+    /**
+     * Пакетный вариант {@link #get}: всё, чего нет в кэше, загружается одним
+     * вызовом {@code loader}. Удалённые (надгробия) и не найденные id в
+     * результат не попадают.
+     */
+    public Map<Long, V> getAll(Collection<Long> ids, Function<Set<Long>, Map<Long, V>> loader) {
+        Map<Long, V> result = new HashMap<>(ids.size() * 2);
+        Set<Long> missing = new LinkedHashSet<>();
+        for (Long id : ids) {
+            Entry<V> entry = cache.getIfPresent(id);
+            if (entry == null) {
+                missing.add(id);
+            } else if (entry.value() != null) {
+                result.put(id, entry.value());
+            }
+        }
+        if (!missing.isEmpty()) {
+            long loadedAt = generation.get();
+            loader.apply(missing).forEach((id, value) -> {
+                putLoaded(id, value, loadedAt);
+                result.put(id, value);
+            });
+        }
+        return result;
+    }
+
+    public void put(long id, V value) {
+        merge(id, new Entry<>(value, versionOf.applyAsInt(value)));
+    }
+
+    public void evict(long id) {
+        merge(id, new Entry<>(null, TOMBSTONE_VERSION));
+    }
+
+    public void invalidateAll() {
+        generation.incrementAndGet();
+        cache.invalidateAll();
+    }
+
+    /**
+     * Кладёт значение после коммита текущей транзакции: версия, выставленная
+     * Hibernate при flush, к этому моменту уже известна.
+     */
+    public void putAfterCommit(long id, Supplier<V> value) {
+        afterCommit(() -> put(id, value.get()));
+    }
+
+    public void evictAfterCommit(long id) {
+        afterCommit(() -> evict(id));
+    }
+
+    /**
+     * Сбрасывает кэш после коммита массового изменения. Поколение растёт
+     * сразу: загрузки, начатые до этого, в кэш уже не попадут.
+     */
+    public void invalidateAllAfterCommit() {
+        generation.incrementAndGet();
+        afterCommit(this::invalidateAll);
+    }
+
+    public CacheStats stats() {
+        return cache.stats();
+    }
+
+    public long estimatedSize() {
+        return cache.estimatedSize();
+    }
+
+    public Cache<Long, ?> nativeCache() {
+        return cache;
+    }
+
+    private void putLoaded(long id, V value, long loadedAt) {
+        if (generation.get() != loadedAt) {
+            return;
+        }
+        Entry<V> entry = new Entry<>(value, versionOf.applyAsInt(value));
+        merge(id, entry);
+        // сброс мог пройти мимо этой записи, пока она вставлялась
+        if (generation.get() != loadedAt) {
+            cache.asMap().remove(id, entry);
+        }
+    }
+
+    private void merge(long id, Entry<V> candidate) {
+        cache.asMap().merge(id, candidate,
+                (current, next) -> next.version() >= current.version() ? next : current);
+    }
+
+    private static void afterCommit(Runnable action) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            action.run();
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                action.run();
+            }
+        });
+    }
+
+    private record Entry<V>(V value, int version) {
+    }
+}
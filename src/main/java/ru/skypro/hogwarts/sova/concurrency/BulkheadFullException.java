@@ -0,0 +1,14 @@
+package ru.skypro.hogwarts.sova.concurrency;
+
+import java.sql.SQLTransientConnectionException;
+
+/**
+ * Соединение не выдано: {@link DatabaseBulkhead} не освободился за отведённое
+ * время. Наследует SQLException, чтобы пройти через Hibernate как обычная
+ * ошибка получения соединения; клиенту отдаётся 503.
+ */
+public class BulkheadFullException extends SQLTransientConnectionException {
+    public BulkheadFullException(String message) {
+        super(message);
+    }
+}
@@ -0,0 +1,20 @@
+package ru.skypro.hogwarts.sova.concurrency;
+
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * Ограничивает число одновременно обрабатываемых запросов к эндпоинту.
+ * Методы с одинаковым {@link #name()} делят один лимит; его можно
+ * переопределить свойством {@code hogwarts.concurrency.limits.<name>}.
+ * Сверх лимита клиент сразу получает 503 с заголовком Retry-After.
+ */
+@Target(ElementType.METHOD)
+@Retention(RetentionPolicy.RUNTIME)
+public @interface ConcurrencyLimit {
+    String name();
+
+    int value();
+}
@@ -0,0 +1,69 @@
+package ru.skypro.hogwarts.sova.concurrency;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.servlet.DispatcherType;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.core.env.Environment;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.web.method.HandlerMethod;
+import org.springframework.web.servlet.HandlerInterceptor;
+
+import java.time.Duration;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Semaphore;
+
+/**
+ * Применяет {@link ConcurrencyLimit}. Разрешение берётся без ожидания и
+ * держится до конца обработки, включая асинхронную часть (потоковые ответы).
+ */
+public class ConcurrencyLimitInterceptor implements HandlerInterceptor {
+    private static final String PERMIT_ATTRIBUTE = ConcurrencyLimitInterceptor.class.getName() + ".permit";
+
+    private final Environment environment;
+    private final MeterRegistry meterRegistry;
+    private final long retryAfterSeconds;
+    private final Map<String, Semaphore> limits = new ConcurrentHashMap<>();
+
+    public ConcurrencyLimitInterceptor(Environment environment, MeterRegistry meterRegistry, Duration retryAfter) {
+        this.environment = environment;
+        this.meterRegistry = meterRegistry;
+        this.retryAfterSeconds = Math.max(1, retryAfter.toSeconds());
+    }
+
+    @Override
+    public boolean preHandle(HttpServletRequest request, HttpServletResponse response, Object handler)
+            throws Exception {
+        if (!(handler instanceof HandlerMethod method) || request.getDispatcherType() == DispatcherType.ASYNC) {
+            return true;
+        }
+        ConcurrencyLimit limit = method.getMethodAnnotation(ConcurrencyLimit.class);
+        if (limit == null) {
+            return true;
+        }
+        Semaphore semaphore = limits.computeIfAbsent(limit.name(), name -> new Semaphore(
+                environment.getProperty("hogwarts.concurrency.limits." + name, Integer.class, limit.value())));
+        if (!semaphore.tryAcquire()) {
+            meterRegistry.counter("hogwarts.concurrency.rejected", "limit", limit.name()).increment();
+            response.setHeader(HttpHeaders.RETRY_AFTER, Long.toString(retryAfterSeconds));
+            response.sendError(HttpStatus.SERVICE_UNAVAILABLE.value(), "Слишком много одновременных запросов");
+            return false;
+        }
+        request.setAttribute(PERMIT_ATTRIBUTE, semaphore);
+        return true;
+    }
+
+    @Override
+    public void afterCompletion(HttpServletRequest request, HttpServletResponse response, Object handler,
+                                Exception ex) {
+        if (request.isAsyncStarted()) {
+            return;
+        }
+        if (request.getAttribute(PERMIT_ATTRIBUTE) instanceof Semaphore semaphore) {
+            request.removeAttribute(PERMIT_ATTRIBUTE);
+            semaphore.release();
+        }
+    }
+}
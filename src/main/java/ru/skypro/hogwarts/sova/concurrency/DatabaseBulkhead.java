@@ -0,0 +1,58 @@
+package ru.skypro.hogwarts.sova.concurrency;
+
+import java.time.Duration;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Ограничение числа одновременных обращений к базе. Размер совпадает с
+ * пулом соединений, поэтому лишние потоки (в том числе виртуальные) ждут
+ * разрешения здесь, не дольше {@code maxWait}, а не в очереди пула.
+ * Разрешение означает свободное соединение, поэтому в самом пуле после него
+ * обычно ждать не приходится.
+ */
+public class DatabaseBulkhead {
+    private final Semaphore permits;
+    private final int maxPermits;
+    private final Duration maxWait;
+    private final LongAdder rejected = new LongAdder();
+
+    public DatabaseBulkhead(int maxPermits, Duration maxWait) {
+        this.permits = new Semaphore(maxPermits, true);
+        this.maxPermits = maxPermits;
+        this.maxWait = maxWait;
+    }
+
+    public void acquire() throws BulkheadFullException {
+        try {
+            if (!permits.tryAcquire(maxWait.toNanos(), TimeUnit.NANOSECONDS)) {
+                rejected.increment();
+                throw new BulkheadFullException("Все " + maxPermits + " соединений с базой заняты");
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new BulkheadFullException("Ожидание соединения с базой прервано");
+        }
+    }
+
+    public void release() {
+        permits.release();
+    }
+
+    public int getMaxPermits() {
+        return maxPermits;
+    }
+
+    public int getAvailablePermits() {
+        return permits.availablePermits();
+    }
+
+    public int getQueueLength() {
+        return permits.getQueueLength();
+    }
+
+    public long getRejectedCount() {
+        return rejected.sum();
+    }
+}
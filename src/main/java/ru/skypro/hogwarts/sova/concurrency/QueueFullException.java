@@ -0,0 +1,11 @@
+package ru.skypro.hogwarts.sova.concurrency;
+
+/**
+ * Очередь отложенной записи заполнена и не освободилась за время ожидания;
+ * клиенту отдаётся 503 с Retry-After.
+ */
+public class QueueFullException extends RuntimeException {
+    public QueueFullException(String message) {
+        super(message);
+    }
+}
@@ -0,0 +1,33 @@
+package ru.skypro.hogwarts.sova.config;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import ru.skypro.hogwarts.sova.cache.VersionedCache;
+import ru.skypro.hogwarts.sova.dto.FacultyDto;
+import ru.skypro.hogwarts.sova.dto.StudentDto;
+
+import java.time.Duration;
+
+@Configuration
+public class CacheConfig {
+
+    @Bean
+    public VersionedCache<FacultyDto> facultyCache(
+            @Value("${hogwarts.cache.faculty.maximum-size:1000}") long maximumSize,
+            @Value("${hogwarts.cache.faculty.ttl:30m}") Duration ttl) {
+        return new VersionedCache<>("faculty", maximumSize, ttl, faculty -> versionOf(faculty.version()));
+    }
+
+    @Bean
+    public VersionedCache<StudentDto> studentCache(
+            @Value("${hogwarts.cache.student.maximum-size:100000}") long maximumSize,
+            @Value("${hogwarts.cache.student.ttl:5m}") Duration ttl) {
+        return new VersionedCache<>("student", maximumSize, ttl, student -> versionOf(student.version()));
+    }
+
+    /** Строка без версии (записана мимо Hibernate) уступает в кэше любой версионированной записи. */
+    private static int versionOf(Integer version) {
+        return version == null ? -1 : version;
+    }
+}
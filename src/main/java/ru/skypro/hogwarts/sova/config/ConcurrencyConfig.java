@@ -0,0 +1,73 @@
+package ru.skypro.hogwarts.sova.config;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.env.Environment;
+import org.springframework.jdbc.datasource.DelegatingDataSource;
+import org.springframework.web.servlet.config.annotation.InterceptorRegistry;
+import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
+import ru.skypro.hogwarts.sova.concurrency.BulkheadDataSource;
+import ru.skypro.hogwarts.sova.concurrency.ConcurrencyLimitInterceptor;
+import ru.skypro.hogwarts.sova.concurrency.DatabaseBulkhead;
+
+import javax.sql.DataSource;
+import java.time.Duration;
+
+@Configuration
+public class ConcurrencyConfig implements WebMvcConfigurer {
+    private final Environment environment;
+    private final MeterRegistry meterRegistry;
+    private final Duration retryAfter;
+
+    public ConcurrencyConfig(Environment environment, MeterRegistry meterRegistry,
+                             @Value("${hogwarts.concurrency.retry-after:1s}") Duration retryAfter) {
+        this.environment = environment;
+        this.meterRegistry = meterRegistry;
+        this.retryAfter = retryAfter;
+    }
+
+    /**
+     * Ждать соединения дольше, чем разрешения, смысла нет: разрешений не
+     * больше, чем соединений в пуле, поэтому тайм-аут один — Hikari
+     * connection-timeout (мс, по умолчанию 30 с).
+     */
+    @Bean
+    @ConditionalOnProperty(name = "hogwarts.db.bulkhead.enabled", havingValue = "true", matchIfMissing = true)
+    public static DatabaseBulkhead databaseBulkhead(
+            @Value("${hogwarts.db.bulkhead.permits:${spring.datasource.hikari.maximum-pool-size:10}}") int permits,
+            @Value("${spring.datasource.hikari.connection-timeout:30000}") long connectionTimeoutMillis) {
+        return new DatabaseBulkhead(permits, Duration.ofMillis(connectionTimeoutMillis));
+    }
+
+    /**
+     * Оборачивает DataSource в {@link BulkheadDataSource}, так что ограничение
+     * действует на все репозитории, Flyway и JdbcTemplate одновременно.
+     * Прокси, у которого ограничена уже цель (маршрутизация на реплики),
+     * не оборачивается.
+     */
+    @Bean
+    public static BeanPostProcessor bulkheadDataSourcePostProcessor(ObjectProvider<DatabaseBulkhead> bulkhead) {
+        return new BeanPostProcessor() {
+            @Override
+            public Object postProcessAfterInitialization(Object bean, String beanName) {
+                if (!(bean instanceof DataSource dataSource) || bean instanceof BulkheadDataSource
+                        || bean instanceof DelegatingDataSource delegating
+                        && delegating.getTargetDataSource() instanceof BulkheadDataSource) {
+                    return bean;
+                }
+                DatabaseBulkhead databaseBulkhead = bulkhead.getIfAvailable();
+                return databaseBulkhead == null ? bean : new BulkheadDataSource(dataSource, databaseBulkhead);
+            }
+        };
+    }
+
+    @Override
+    public void addInterceptors(InterceptorRegistry registry) {
+        registry.addInterceptor(new ConcurrencyLimitInterceptor(environment, meterRegistry, retryAfter));
+    }
+}
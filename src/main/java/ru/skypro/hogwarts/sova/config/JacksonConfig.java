@@ -0,0 +1,18 @@
+package ru.skypro.hogwarts.sova.config;
+
+import com.fasterxml.jackson.module.blackbird.BlackbirdModule;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+@Configuration
+public class JacksonConfig {
+
+    /**
+     * Заменяет рефлексивный доступ к геттерам и конструкторам сгенерированными
+     * через LambdaMetafactory; Spring Boot сам регистрирует модуль в ObjectMapper.
+     */
+    @Bean
+    public BlackbirdModule blackbirdModule() {
+        return new BlackbirdModule();
+    }
+}
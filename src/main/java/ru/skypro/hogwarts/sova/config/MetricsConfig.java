@@ -0,0 +1,148 @@
+package ru.skypro.hogwarts.sova.config;
+
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import org.hibernate.cfg.AvailableSettings;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.boot.autoconfigure.orm.jpa.HibernatePropertiesCustomizer;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.data.jpa.repository.support.JpaRepositoryFactoryBean;
+import ru.skypro.hogwarts.sova.cache.VersionedCache;
+import ru.skypro.hogwarts.sova.concurrency.DatabaseBulkhead;
+import ru.skypro.hogwarts.sova.metrics.RepositoryStatementMetrics;
+import ru.skypro.hogwarts.sova.replica.ReplicaSet;
+import ru.skypro.hogwarts.sova.service.StudentSnapshot;
+import ru.skypro.hogwarts.sova.service.StudentWriteBehindQueue;
+
+import java.time.Duration;
+import java.util.List;
+
+/**
+ * Метрики сверх того, что Spring Boot снимает сам (http.server.requests,
+ * spring.data.repository.invocations, hikaricp.*): операторы SQL на метод
+ * репозитория, кэши, ограничитель обращений к базе, очередь отложенной записи,
+ * реплики.
+ */
+@Configuration
+public class MetricsConfig {
+
+    @Bean
+    public RepositoryStatementMetrics repositoryStatementMetrics(
+            MeterRegistry registry,
+            @Value("${hogwarts.metrics.slow-query.sample-rate:0}") double sampleRate,
+            @Value("${hogwarts.metrics.slow-query.threshold:200ms}") Duration threshold) {
+        return new RepositoryStatementMetrics(registry, sampleRate, threshold);
+    }
+
+    @Bean
+    public HibernatePropertiesCustomizer statementInspectorCustomizer(RepositoryStatementMetrics metrics) {
+        return properties -> properties.put(AvailableSettings.STATEMENT_INSPECTOR, metrics);
+    }
+
+    /**
+     * Только JPA-репозитории: запросы R2DBC не проходят через StatementInspector
+     * Hibernate, а реактивный метод возвращает Flux раньше, чем выполнится запрос.
+     */
+    @Bean
+    public static BeanPostProcessor repositoryStatementMetricsPostProcessor(
+            ObjectProvider<RepositoryStatementMetrics> metrics) {
+        return new BeanPostProcessor() {
+            @Override
+            public Object postProcessBeforeInitialization(Object bean, String beanName) {
+                if (bean instanceof JpaRepositoryFactoryBean<?, ?, ?> factoryBean) {
+                    factoryBean.addRepositoryFactoryCustomizer(factory -> factory.addRepositoryProxyPostProcessor(
+                            (proxyFactory, information) -> proxyFactory.addAdvice(metrics.getObject()
+                                    .interceptorFor(information.getRepositoryInterface().getSimpleName()))));
+                }
+                return bean;
+            }
+        };
+    }
+
+    @Bean
+    public MeterBinder versionedCacheMetrics(List<VersionedCache<?>> caches) {
+        return registry -> caches.forEach(cache ->
+                CaffeineCacheMetrics.monitor(registry, cache.nativeCache(), cache.getName()));
+    }
+
+    @Bean
+    public MeterBinder writeBehindQueueMetrics(StudentWriteBehindQueue queue) {
+        return registry -> Gauge.builder("hogwarts.student.write-behind.pending", queue, StudentWriteBehindQueue::size)
+                .description("Студенты с неприменёнными отложенными правками")
+                .register(registry);
+    }
+
+    @Bean
+    public MeterBinder studentSnapshotMetrics(StudentSnapshot snapshot) {
+        return registry -> Gauge.builder("hogwarts.student.snapshot.rows", snapshot, StudentSnapshot::size)
+                .description("Студенты в копии таблицы в памяти")
+                .register(registry);
+    }
+
+    /** Ограничение основной базы и, при маршрутизации, каждой реплики (тег target). */
+    @Bean
+    public MeterBinder databaseBulkheadMetrics(ObjectProvider<DatabaseBulkhead> bulkheads,
+                                               ObjectProvider<ReplicaSet> replicaSets) {
+        return registry -> {
+            bulkheads.ifAvailable(bulkhead -> registerBulkhead(registry, bulkhead, "primary"));
+            replicaSets.ifAvailable(replicaSet -> {
+                for (ReplicaSet.Replica replica : replicaSet.getReplicas()) {
+                    if (replica.getBulkhead() != null) {
+                        registerBulkhead(registry, replica.getBulkhead(), replica.getName());
+                    }
+                }
+            });
+        };
+    }
+
+    private static void registerBulkhead(MeterRegistry registry, DatabaseBulkhead bulkhead, String target) {
+        Gauge.builder("hogwarts.db.bulkhead.available", bulkhead, DatabaseBulkhead::getAvailablePermits)
+                .description("Свободные разрешения на соединение с базой")
+                .tag("target", target)
+                .register(registry);
+        Gauge.builder("hogwarts.db.bulkhead.queued", bulkhead, DatabaseBulkhead::getQueueLength)
+                .description("Потоки, ждущие разрешения")
+                .tag("target", target)
+                .register(registry);
+        FunctionCounter.builder("hogwarts.db.bulkhead.rejected", bulkhead, DatabaseBulkhead::getRejectedCount)
+                .description("Отказы по таймауту ожидания разрешения")
+                .tag("target", target)
+                .register(registry);
+    }
+
+    /**
+     * Пулы реплик регистрируются в hikaricp.* сами (тег pool=replica-N);
+     * сверху — отставание, состояние и куда ушли read-only транзакции.
+     */
+    @Bean
+    public MeterBinder replicaMetrics(ObjectProvider<ReplicaSet> replicaSets) {
+        return registry -> replicaSets.ifAvailable(replicaSet -> {
+            for (ReplicaSet.Replica replica : replicaSet.getReplicas()) {
+                replica.getPool().setMetricRegistry(registry);
+                Gauge.builder("hogwarts.datasource.replica.lag", replica, ReplicaSet.Replica::getLagSeconds)
+                        .description("Отставание реплики по последней проверке")
+                        .baseUnit("seconds")
+                        .tag("replica", replica.getName())
+                        .register(registry);
+                Gauge.builder("hogwarts.datasource.replica.healthy", replica, r -> r.isHealthy() ? 1 : 0)
+                        .description("1, если реплика принимает чтения")
+                        .tag("replica", replica.getName())
+                        .register(registry);
+                FunctionCounter.builder("hogwarts.datasource.reads", replica, ReplicaSet.Replica::getReadCount)
+                        .description("Read-only транзакции по источнику")
+                        .tag("target", replica.getName())
+                        .register(registry);
+            }
+            FunctionCounter.builder("hogwarts.datasource.reads", replicaSet, ReplicaSet::getPrimaryReadCount)
+                    .description("Read-only транзакции по источнику")
+                    .tag("target", "primary")
+                    .register(registry);
+        });
+    }
+}
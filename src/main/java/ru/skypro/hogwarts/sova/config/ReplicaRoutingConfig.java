@@ -0,0 +1,114 @@
+package ru.skypro.hogwarts.sova.config;
+
+import com.zaxxer.hikari.HikariDataSource;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.Ordered;
+import org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy;
+import org.springframework.web.servlet.config.annotation.InterceptorRegistry;
+import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
+import ru.skypro.hogwarts.sova.concurrency.BulkheadDataSource;
+import ru.skypro.hogwarts.sova.concurrency.DatabaseBulkhead;
+import ru.skypro.hogwarts.sova.replica.ReadYourWrites;
+import ru.skypro.hogwarts.sova.replica.ReplicaRoutingDataSource;
+import ru.skypro.hogwarts.sova.replica.ReplicaSet;
+
+import javax.sql.DataSource;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Чтение с реплик PostgreSQL, включается списком
+ * {@code hogwarts.datasource.replica-urls}. Read-only транзакции
+ * ({@code @Transactional(readOnly = true)} и читающие методы репозиториев)
+ * уходят на реплики, остальное — на основную базу.
+ */
+@Configuration
+@ConditionalOnProperty("hogwarts.datasource.replica-urls")
+public class ReplicaRoutingConfig implements WebMvcConfigurer {
+    /**
+     * Отставание в секундах; 0, если реплика проиграла всё полученное
+     * (на простаивающей базе время последней транзакции отстаёт само по себе).
+     */
+    public static final String POSTGRES_LAG_QUERY = "SELECT CASE "
+            + "WHEN pg_last_wal_receive_lsn() = pg_last_wal_replay_lsn() THEN 0 "
+            + "ELSE COALESCE(EXTRACT(EPOCH FROM now() - pg_last_xact_replay_timestamp()), 0) END";
+
+    private final Duration readYourWritesWindow;
+
+    public ReplicaRoutingConfig(@Value("${hogwarts.datasource.read-your-writes:5s}") Duration readYourWritesWindow) {
+        this.readYourWritesWindow = readYourWritesWindow;
+    }
+
+    @Bean
+    public static ReplicaSet replicaSet(
+            DataSourceProperties properties,
+            @Value("${hogwarts.datasource.replica-urls}") List<String> urls,
+            @Value("${hogwarts.datasource.replica-pool-size:${spring.datasource.hikari.maximum-pool-size:10}}") int poolSize,
+            @Value("${hogwarts.datasource.replica-connection-timeout:1s}") Duration connectionTimeout,
+            @Value("${hogwarts.datasource.replica-balance:LEAST_LOADED}") ReplicaSet.Balance balance,
+            @Value("${hogwarts.datasource.replica-max-lag:2s}") Duration maxLag,
+            @Value("${hogwarts.datasource.replica-lag-query:" + POSTGRES_LAG_QUERY + "}") String lagQuery,
+            @Value("${hogwarts.db.bulkhead.enabled:true}") boolean bulkheads) {
+        List<HikariDataSource> pools = new ArrayList<>(urls.size());
+        for (int i = 0; i < urls.size(); i++) {
+            HikariDataSource pool = properties.initializeDataSourceBuilder()
+                    .type(HikariDataSource.class)
+                    .url(urls.get(i).trim())
+                    .build();
+            pool.setPoolName("replica-" + (i + 1));
+            pool.setMaximumPoolSize(poolSize);
+            pool.setConnectionTimeout(connectionTimeout.toMillis());
+            pool.setReadOnly(true);
+            pools.add(pool);
+        }
+        return new ReplicaSet(pools, balance, maxLag, lagQuery, bulkheads);
+    }
+
+    /**
+     * Заворачивает основной пул в LazyConnectionDataSourceProxy с репликами
+     * для read-only соединений. Ограничение {@link DatabaseBulkhead} ставится
+     * здесь же, на основной пул под прокси, а не на весь прокси: иначе чтения
+     * с реплик занимали бы разрешения основной базы. У реплик ограничения
+     * свои, см. {@link ReplicaSet}. Выполняется раньше общей обёртки
+     * {@link BulkheadDataSource} (порядок виден контейнеру только по
+     * объявленному типу бина), и та готовый прокси уже не трогает.
+     */
+    @Bean
+    public static RoutingPostProcessor replicaRoutingPostProcessor(ObjectProvider<ReplicaSet> replicaSet,
+                                                                   ObjectProvider<DatabaseBulkhead> bulkhead) {
+        return new RoutingPostProcessor(replicaSet, bulkhead);
+    }
+
+    @Override
+    public void addInterceptors(InterceptorRegistry registry) {
+        registry.addInterceptor(new ReadYourWrites(readYourWritesWindow));
+    }
+
+    public record RoutingPostProcessor(ObjectProvider<ReplicaSet> replicaSet, ObjectProvider<DatabaseBulkhead> bulkhead)
+            implements BeanPostProcessor, Ordered {
+
+        @Override
+        public Object postProcessAfterInitialization(Object bean, String beanName) {
+            if (!(bean instanceof HikariDataSource primary) || !"dataSource".equals(beanName)) {
+                return bean;
+            }
+            DatabaseBulkhead primaryBulkhead = bulkhead.getIfAvailable();
+            DataSource target = primaryBulkhead == null ? primary : new BulkheadDataSource(primary, primaryBulkhead);
+            LazyConnectionDataSourceProxy proxy = new LazyConnectionDataSourceProxy(target);
+            proxy.setReadOnlyDataSource(new ReplicaRoutingDataSource(target, replicaSet.getObject()));
+            return proxy;
+        }
+
+        @Override
+        public int getOrder() {
+            return Ordered.LOWEST_PRECEDENCE;
+        }
+    }
+}
@@ -0,0 +1,25 @@
+package ru.skypro.hogwarts.sova.config;
+
+import org.springframework.boot.LazyInitializationExcludeFilter;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import ru.skypro.hogwarts.sova.Application;
+
+@Configuration
+public class StartupConfig {
+
+    /**
+     * При spring.main.lazy-initialization=true бины приложения всё равно
+     * создаются сразу: на них висят @Scheduled и слушатели событий, а через
+     * контроллеры поднимаются репозитории, Hibernate и Flyway — ошибки схемы
+     * должны всплыть при старте, а не на первом запросе. Ленивыми остаются
+     * springdoc, эндпоинты actuator и прочая инфраструктура.
+     */
+    @Bean
+    static LazyInitializationExcludeFilter applicationBeansEager() {
+        String basePackage = Application.class.getPackageName();
+        return (beanName, definition, beanType) -> beanType != null
+                && beanType.getPackageName().startsWith(basePackage)
+                && beanType != SwaggerConfig.class;
+    }
+}
@@ -0,0 +1,35 @@
+package ru.skypro.hogwarts.sova.controller;
+
+import com.github.benmanes.caffeine.cache.stats.CacheStats;
+import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.tags.Tag;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+import ru.skypro.hogwarts.sova.cache.VersionedCache;
+import ru.skypro.hogwarts.sova.dto.CacheStatistics;
+
+import java.util.List;
+
+@RestController
+@RequestMapping("cache")
+@Tag(name = "Cache API", description = "Мониторинг кэшей факультетов и студентов")
+public class CacheController {
+    private final List<VersionedCache<?>> caches;
+
+    public CacheController(List<VersionedCache<?>> caches) {
+        this.caches = caches;
+    }
+
+    @Operation(summary = "Получить счётчики попаданий, промахов и вытеснений")
+    @GetMapping("stats")
+    public List<CacheStatistics> getStats() {
+        return caches.stream()
+                .map(cache -> {
+                    CacheStats stats = cache.stats();
+                    return new CacheStatistics(cache.getName(), cache.estimatedSize(),
+                            stats.hitCount(), stats.missCount(), stats.evictionCount(), stats.hitRate());
+                })
+                .toList();
+    }
+}
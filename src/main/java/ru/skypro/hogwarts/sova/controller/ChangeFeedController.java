@@ -0,0 +1,52 @@
+package ru.skypro.hogwarts.sova.controller;
+
+import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.tags.Tag;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestHeader;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.server.ResponseStatusException;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+import ru.skypro.hogwarts.sova.dto.ChangeFeedPage;
+import ru.skypro.hogwarts.sova.dto.CursorPage;
+import ru.skypro.hogwarts.sova.service.ChangeFeedService;
+
+@RestController
+@RequestMapping("changes")
+@Tag(name = "Change feed API", description = "Лента изменений студентов и факультетов")
+public class ChangeFeedController {
+    private final ChangeFeedService changeFeedService;
+
+    public ChangeFeedController(ChangeFeedService changeFeedService) {
+        this.changeFeedService = changeFeedService;
+    }
+
+    @Operation(summary = "Изменения после смещения since; next — since для следующего запроса, 410 — смещение устарело")
+    @GetMapping
+    public ChangeFeedPage getChanges(@RequestParam(defaultValue = "0") long since,
+                                     @RequestParam(defaultValue = "" + CursorPage.DEFAULT_LIMIT) int limit) {
+        return changeFeedService.changesSince(since, limit);
+    }
+
+    @Operation(summary = "Изменения потоком SSE; продолжение с since или заголовка Last-Event-ID")
+    @GetMapping(value = "stream", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public SseEmitter streamChanges(@RequestParam(required = false) Long since,
+                                    @RequestHeader(value = "Last-Event-ID", required = false) String lastEventId) {
+        return changeFeedService.subscribe(since != null ? since : parseEventId(lastEventId));
+    }
+
+    private static Long parseEventId(String lastEventId) {
+        if (lastEventId == null || lastEventId.isBlank()) {
+            return null;
+        }
+        try {
+            return Long.parseLong(lastEventId.trim());
+        } catch (NumberFormatException e) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Некорректный Last-Event-ID");
+        }
+    }
+}
@@ -0,0 +1,51 @@
+package ru.skypro.hogwarts.sova.controller;
+
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.server.ResponseStatusException;
+
+/**
+ * ETag студента и факультета — их {@code @Version} в кавычках.
+ */
+final class ETags {
+    private ETags() {
+    }
+
+    static String of(int version) {
+        return "\"" + version + "\"";
+    }
+
+    /**
+     * 200 с телом и ETag. У строк, записанных мимо Hibernate, версия может
+     * быть null — тогда ETag не ставится, а не превращается в {@code "null"}.
+     */
+    static <T> ResponseEntity<T> ok(T body, Integer version) {
+        ResponseEntity.BodyBuilder ok = ResponseEntity.ok();
+        if (version != null) {
+            ok.eTag(of(version));
+        }
+        return ok.body(body);
+    }
+
+    /**
+     * Версия из If-Match; null, если заголовка нет или он равен {@code *}.
+     * Список из нескольких ETag не поддерживается — у записи одна версия.
+     */
+    static Integer parseIfMatch(String ifMatch) {
+        if (ifMatch == null || ifMatch.isBlank() || ifMatch.trim().equals("*")) {
+            return null;
+        }
+        String value = ifMatch.trim();
+        if (value.startsWith("W/")) {
+            value = value.substring(2);
+        }
+        if (value.length() >= 2 && value.startsWith("\"") && value.endsWith("\"")) {
+            value = value.substring(1, value.length() - 1);
+        }
+        try {
+            return Integer.valueOf(value);
+        } catch (NumberFormatException e) {
+            throw new ResponseStatusException(HttpStatus.PRECONDITION_FAILED, "Некорректный If-Match");
+        }
+    }
+}
@@ -0,0 +1,137 @@
+package ru.skypro.hogwarts.sova.controller;
+
+import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.tags.Tag;
+import org.springframework.http.ContentDisposition;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestHeader;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.server.ResponseStatusException;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+import ru.skypro.hogwarts.sova.concurrency.ConcurrencyLimit;
+import ru.skypro.hogwarts.sova.export.ExportFormat;
+import ru.skypro.hogwarts.sova.service.ExportService;
+
+import java.io.FilterOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.zip.GZIPOutputStream;
+
+@RestController
+@RequestMapping("export")
+@Tag(name = "Export API", description = "Потоковая выгрузка студентов и факультетов")
+public class ExportController {
+    private static final int GZIP_BUFFER_SIZE = 64 * 1024;
+
+    private final ExportService exportService;
+
+    public ExportController(ExportService exportService) {
+        this.exportService = exportService;
+    }
+
+    @Operation(summary = "Выгрузить студентов (CSV, NDJSON или колоночный формат), с gzip по Accept-Encoding")
+    @GetMapping("students")
+    @ConcurrencyLimit(name = "student-export", value = 4)
+    public ResponseEntity<StreamingResponseBody> exportStudents(
+            @RequestParam(defaultValue = "CSV") ExportFormat format,
+            @RequestParam(required = false) Long facultyId,
+            @RequestParam(required = false) Integer minAge,
+            @RequestParam(required = false) Integer maxAge,
+            @RequestHeader(value = HttpHeaders.ACCEPT_ENCODING, required = false) String acceptEncoding) {
+        if (minAge != null && maxAge != null && minAge > maxAge) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "minAge больше maxAge");
+        }
+        boolean gzip = acceptsGzip(acceptEncoding);
+        return response("students", format, gzip, out -> exportService.exportStudents(
+                format, facultyId, minAge, maxAge, out));
+    }
+
+    @Operation(summary = "Выгрузить факультеты с числом студентов, с gzip по Accept-Encoding")
+    @GetMapping("faculties")
+    @ConcurrencyLimit(name = "student-export", value = 4)
+    public ResponseEntity<StreamingResponseBody> exportFaculties(
+            @RequestParam(defaultValue = "CSV") ExportFormat format,
+            @RequestHeader(value = HttpHeaders.ACCEPT_ENCODING, required = false) String acceptEncoding) {
+        boolean gzip = acceptsGzip(acceptEncoding);
+        return response("faculties", format, gzip, out -> exportService.exportFaculties(format, out));
+    }
+
+    private static ResponseEntity<StreamingResponseBody> response(String name, ExportFormat format, boolean gzip,
+                                                                  StreamingResponseBody export) {
+        StreamingResponseBody body = gzip
+                ? out -> {
+                    try (GZIPOutputStream compressed = new GZIPOutputStream(nonClosing(out), GZIP_BUFFER_SIZE)) {
+                        export.writeTo(compressed);
+                    }
+                }
+                : export;
+        ResponseEntity.BodyBuilder builder = ResponseEntity.ok()
+                .contentType(MediaType.parseMediaType(format.getMediaType()))
+                .header(HttpHeaders.CONTENT_DISPOSITION, ContentDisposition.attachment()
+                        .filename(name + "." + format.getExtension())
+                        .build().toString())
+                .header(HttpHeaders.VARY, HttpHeaders.ACCEPT_ENCODING);
+        if (gzip) {
+            builder.header(HttpHeaders.CONTENT_ENCODING, "gzip");
+        }
+        return builder.body(body);
+    }
+
+    /**
+     * Принимает ли клиент gzip: {@code gzip} (или {@code x-gzip}) в
+     * Accept-Encoding, а если он не назван — {@code *}; в обоих случаях с
+     * q больше 0. {@code gzip;q=0} — явный отказ.
+     */
+    private static boolean acceptsGzip(String acceptEncoding) {
+        if (acceptEncoding == null) {
+            return false;
+        }
+        double gzip = -1;
+        double any = -1;
+        for (String coding : acceptEncoding.split(",")) {
+            String[] parts = coding.split(";");
+            String name = parts[0].trim();
+            if (name.equalsIgnoreCase("gzip") || name.equalsIgnoreCase("x-gzip")) {
+                gzip = Math.max(gzip, quality(parts));
+            } else if (name.equals("*")) {
+                any = quality(parts);
+            }
+        }
+        return (gzip >= 0 ? gzip : any) > 0;
+    }
+
+    private static double quality(String[] parts) {
+        for (int i = 1; i < parts.length; i++) {
+            String parameter = parts[i].trim();
+            if (parameter.regionMatches(true, 0, "q=", 0, 2)) {
+                try {
+                    return Double.parseDouble(parameter.substring(2).trim());
+                } catch (NumberFormatException e) {
+                    return 0;
+                }
+            }
+        }
+        return 1;
+    }
+
+    /** Поток ответа закрывает контейнер; gzip закрываем сами, чтобы освободить Deflater. */
+    private static OutputStream nonClosing(OutputStream out) {
+        return new FilterOutputStream(out) {
+            @Override
+            public void write(byte[] b, int off, int len) throws IOException {
+                out.write(b, off, len);
+            }
+
+            @Override
+            public void close() throws IOException {
+                flush();
+            }
+        };
+    }
+}
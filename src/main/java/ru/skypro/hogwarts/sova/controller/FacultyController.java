@@ -2,80 +2,163 @@ package ru.skypro.hogwarts.sova.controller;
 
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.tags.Tag;
+import org.springframework.data.domain.Sort;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import ru.skypro.hogwarts.sova.concurrency.ConcurrencyLimit;
+import ru.skypro.hogwarts.sova.dto.AgeStatistics;
+import ru.skypro.hogwarts.sova.dto.BatchGetResult;
+import ru.skypro.hogwarts.sova.dto.CursorPage;
+import ru.skypro.hogwarts.sova.dto.FacultyDeletionStatus;
+import ru.skypro.hogwarts.sova.dto.FacultyDto;
+import ru.skypro.hogwarts.sova.dto.RosterSort;
+import ru.skypro.hogwarts.sova.dto.SearchMode;
+import ru.skypro.hogwarts.sova.dto.StudentDto;
+import ru.skypro.hogwarts.sova.dto.StudentField;
 import ru.skypro.hogwarts.sova.model.Faculty;
-import ru.skypro.hogwarts.sova.model.Student;
+import ru.skypro.hogwarts.sova.service.FacultyDeletionJobs;
 import ru.skypro.hogwarts.sova.service.FacultyService;
+import ru.skypro.hogwarts.sova.service.StudentService;
 
+import java.net.URI;
 import java.util.Collection;
 import java.util.List;
+import java.util.Set;
 
 @RestController
 @RequestMapping("faculty")
 @Tag(name = "Faculty API", description = "API для работы с факультетами")
 public class FacultyController {
+    static final String TOTAL_COUNT_HEADER = "X-Total-Count";
+
     private final FacultyService facultyService;
+    private final FacultyDeletionJobs facultyDeletionJobs;
+    private final StudentService studentService;
 
-    public FacultyController(FacultyService facultyService) {
+    public FacultyController(FacultyService facultyService, FacultyDeletionJobs facultyDeletionJobs,
+                             StudentService studentService) {
         this.facultyService = facultyService;
+        this.facultyDeletionJobs = facultyDeletionJobs;
+        this.studentService = studentService;
     }
 
     @Operation(summary = "Создать факультет")
     @PostMapping
-    public Faculty createFaculty(@RequestBody Faculty faculty) {
+    public FacultyDto createFaculty(@RequestBody Faculty faculty) {
         return facultyService.createFaculty(faculty);
     }
 
-    @Operation(summary = "Получить факультет по ID")
+    @Operation(summary = "Получить факультет по ID (ETag — версия, If-None-Match даёт 304)")
     @GetMapping("{id}")
-    public ResponseEntity<Faculty> getFaculty(@PathVariable Long id) {
-        Faculty faculty = facultyService.findFaculty(id);
+    public ResponseEntity<FacultyDto> getFaculty(@PathVariable Long id) {
+        FacultyDto faculty = facultyService.findFaculty(id);
         if (faculty == null) {
             return ResponseEntity.notFound().build();
         }
-        return ResponseEntity.ok(faculty);
+        return ETags.ok(faculty, faculty.version());
+    }
+
+    @Operation(summary = "Получить факультеты по списку id (JSON-массив)")
+    @PostMapping(value = "batch-get", consumes = MediaType.APPLICATION_JSON_VALUE)
+    public BatchGetResult<FacultyDto> batchGetFaculties(@RequestBody List<Long> ids) {
+        return facultyService.batchGet(ids);
     }
 
-    @Operation(summary = "Обновить данные факультета")
+    @Operation(summary = "Обновить данные факультета (If-Match — ожидаемая версия, иначе 412)")
     @PutMapping
-    public ResponseEntity<Faculty> editFaculty(@RequestBody Faculty faculty) {
-        Faculty foundFaculty = facultyService.editFaculty(faculty);
+    public ResponseEntity<FacultyDto> editFaculty(@RequestBody Faculty faculty,
+                                                  @RequestHeader(value = HttpHeaders.IF_MATCH, required = false)
+                                                  String ifMatch) {
+        FacultyDto foundFaculty = facultyService.editFaculty(faculty, ETags.parseIfMatch(ifMatch));
         if (foundFaculty == null) {
             return ResponseEntity.notFound().build();
         }
-        return ResponseEntity.ok(foundFaculty);
+        return ETags.ok(foundFaculty, foundFaculty.version());
     }
 
-    @Operation(summary = "Удалить факультет")
+    @Operation(summary = "Удалить факультет (async=true — в фоне, ответ 202 со ссылкой на статус)")
     @DeleteMapping("{id}")
-    public ResponseEntity<Void> deleteFaculty(@PathVariable Long id) {
+    @ConcurrencyLimit(name = "faculty-delete", value = 2)
+    public ResponseEntity<?> deleteFaculty(@PathVariable Long id,
+                                           @RequestParam(defaultValue = "false") boolean async) {
+        if (async) {
+            FacultyDeletionStatus job = facultyDeletionJobs.start(id);
+            return ResponseEntity.accepted()
+                    .location(URI.create("/faculty/delete-jobs/" + job.jobId()))
+                    .body(job);
+        }
         facultyService.deleteFaculty(id);
         return ResponseEntity.ok().build();
     }
 
+    @Operation(summary = "Статус фонового удаления факультета")
+    @GetMapping("delete-jobs/{jobId}")
+    public FacultyDeletionStatus getDeletionStatus(@PathVariable String jobId) {
+        return facultyDeletionJobs.getStatus(jobId);
+    }
+
     @Operation(summary = "Получить факультеты по цвету")
     @GetMapping("color/{color}")
-    public ResponseEntity<Collection<Faculty>> getFacultiesByColor(@PathVariable String color) {
-        Collection<Faculty> faculties = facultyService.findByColor(color);
+    public ResponseEntity<Collection<FacultyDto>> getFacultiesByColor(@PathVariable String color) {
+        Collection<FacultyDto> faculties = facultyService.findByColor(color);
         if (faculties.isEmpty()) {
             return ResponseEntity.notFound().build();
         }
         return ResponseEntity.ok(faculties);
     }
 
-    @Operation(summary = "Получить все факультеты")
+    @Operation(summary = "Получить факультеты постранично (курсор по id)")
     @GetMapping
-    public Collection<Faculty> getAll() {
-        return facultyService.getAllFaculties();
+    public CursorPage<FacultyDto> getAll(
+            @RequestParam(required = false) String cursor,
+            @RequestParam(defaultValue = "" + CursorPage.DEFAULT_LIMIT) int limit) {
+        return facultyService.getFacultiesPage(cursor, limit);
     }
+    @Operation(summary = "Поиск факультетов по названию или цвету")
     @GetMapping("/search")
-    public ResponseEntity<List<Faculty>> searchFaculties(
-            @RequestParam String query) {
-        return ResponseEntity.ok(facultyService.search(query));
+    @ConcurrencyLimit(name = "search", value = 32)
+    public ResponseEntity<List<FacultyDto>> searchFaculties(
+            @RequestParam String query,
+            @RequestParam(defaultValue = "EXACT") SearchMode mode,
+            @RequestParam(defaultValue = "0") int page,
+            @RequestParam(defaultValue = "" + SearchMode.DEFAULT_PAGE_SIZE) int size) {
+        return ResponseEntity.ok(facultyService.search(query, mode, page, size));
     }
+    @Operation(summary = "Статистика по возрасту студентов факультета")
+    @GetMapping("/{id}/stats")
+    public AgeStatistics getFacultyStatistics(@PathVariable Long id) {
+        return studentService.getStatisticsForFaculty(id);
+    }
+    @Operation(summary = "Студенты факультета: с size — постранично, sort/direction — порядок, "
+            + "fields — только перечисленные поля")
     @GetMapping("/{id}/students")
-    public List<Student> getFacultyStudents(@PathVariable Long id) {
-        return facultyService.getStudentsByFacultyId(id);
+    public List<?> getFacultyStudents(@PathVariable Long id,
+                                      @RequestParam(defaultValue = "ID") RosterSort sort,
+                                      @RequestParam(defaultValue = "ASC") Sort.Direction direction,
+                                      @RequestParam(defaultValue = "0") int page,
+                                      @RequestParam(required = false) Integer size,
+                                      @RequestParam(required = false) String fields) {
+        Set<StudentField> selected = fields == null ? null : StudentField.parse(fields);
+        List<StudentDto> students = facultyService.getStudentsByFacultyId(id, sort, direction, page, size);
+        if (selected == null) {
+            return students;
+        }
+        return students.stream().map(student -> StudentField.select(student, selected)).toList();
+    }
+
+    @Operation(summary = "Число студентов факультета в заголовке X-Total-Count, без тела")
+    @RequestMapping(value = "/{id}/students", method = RequestMethod.HEAD)
+    public ResponseEntity<Void> headFacultyStudents(@PathVariable Long id) {
+        return ResponseEntity.ok()
+                .header(TOTAL_COUNT_HEADER, Long.toString(facultyService.countStudentsByFacultyId(id)))
+                .build();
+    }
+
+    @Operation(summary = "Число студентов факультета")
+    @GetMapping("/{id}/students/count")
+    public long countFacultyStudents(@PathVariable Long id) {
+        return facultyService.countStudentsByFacultyId(id);
     }
 }
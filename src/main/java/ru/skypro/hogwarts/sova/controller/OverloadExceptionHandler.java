@@ -0,0 +1,42 @@
+package ru.skypro.hogwarts.sova.controller;
+
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.web.bind.annotation.ExceptionHandler;
+import org.springframework.web.bind.annotation.RestControllerAdvice;
+import ru.skypro.hogwarts.sova.concurrency.BulkheadFullException;
+import ru.skypro.hogwarts.sova.concurrency.QueueFullException;
+
+import java.io.IOException;
+import java.time.Duration;
+
+/**
+ * Переполнение {@link ru.skypro.hogwarts.sova.concurrency.DatabaseBulkhead}
+ * или очереди отложенной записи отдаётся как 503 с Retry-After. Hibernate и
+ * Spring оборачивают исключение, но обработчик находит его среди причин.
+ */
+@RestControllerAdvice
+public class OverloadExceptionHandler {
+    private final long retryAfterSeconds;
+
+    public OverloadExceptionHandler(@Value("${hogwarts.concurrency.retry-after:1s}") Duration retryAfter) {
+        this.retryAfterSeconds = Math.max(1, retryAfter.toSeconds());
+    }
+
+    @ExceptionHandler(BulkheadFullException.class)
+    public void handleBulkheadFull(BulkheadFullException e, HttpServletResponse response) throws IOException {
+        serviceUnavailable(response, "База данных перегружена, повторите позже");
+    }
+
+    @ExceptionHandler(QueueFullException.class)
+    public void handleQueueFull(QueueFullException e, HttpServletResponse response) throws IOException {
+        serviceUnavailable(response, e.getMessage());
+    }
+
+    private void serviceUnavailable(HttpServletResponse response, String message) throws IOException {
+        response.setHeader(HttpHeaders.RETRY_AFTER, Long.toString(retryAfterSeconds));
+        response.sendError(HttpStatus.SERVICE_UNAVAILABLE.value(), message);
+    }
+}
@@ -0,0 +1,61 @@
+package ru.skypro.hogwarts.sova.controller;
+
+import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.tags.Tag;
+import org.springframework.http.MediaType;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+import reactor.core.publisher.Flux;
+import ru.skypro.hogwarts.sova.dto.FacultyDto;
+import ru.skypro.hogwarts.sova.dto.StudentDto;
+import ru.skypro.hogwarts.sova.service.ReactiveReadService;
+
+/**
+ * Реактивные выборки только для чтения. Ответ — Server-Sent Events (в том
+ * числе без явного Accept) или NDJSON при Accept: application/x-ndjson.
+ * Следующая строка запрашивается из базы, когда предыдущая записана в
+ * ответ; поток контейнера на ожидание не занят.
+ */
+@RestController
+@RequestMapping(value = "reactive", produces = {MediaType.TEXT_EVENT_STREAM_VALUE, MediaType.APPLICATION_NDJSON_VALUE})
+@Tag(name = "Reactive read API", description = "Неблокирующее чтение студентов и факультетов потоком")
+public class ReactiveReadController {
+    private final ReactiveReadService readService;
+
+    public ReactiveReadController(ReactiveReadService readService) {
+        this.readService = readService;
+    }
+
+    @Operation(summary = "Все студенты потоком (SSE или NDJSON)")
+    @GetMapping("student")
+    public Flux<StudentDto> getAllStudents() {
+        return readService.findAllStudents();
+    }
+
+    @Operation(summary = "Студенты заданного возраста потоком")
+    @GetMapping("student/age/{age}")
+    public Flux<StudentDto> getByAge(@PathVariable int age) {
+        return readService.findByAge(age);
+    }
+
+    @Operation(summary = "Студенты в диапазоне возрастов потоком")
+    @GetMapping("student/age-between")
+    public Flux<StudentDto> getByAgeBetween(@RequestParam int min, @RequestParam int max) {
+        return readService.findByAgeBetween(min, max);
+    }
+
+    @Operation(summary = "Все факультеты потоком")
+    @GetMapping("faculty")
+    public Flux<FacultyDto> getAllFaculties() {
+        return readService.findAllFaculties();
+    }
+
+    @Operation(summary = "Студенты факультета потоком")
+    @GetMapping("faculty/{id}/students")
+    public Flux<StudentDto> getFacultyStudents(@PathVariable long id) {
+        return readService.getStudentsByFacultyId(id);
+    }
+}
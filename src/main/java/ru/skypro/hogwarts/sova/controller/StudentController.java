@@ -1,15 +1,43 @@
 package ru.skypro.hogwarts.sova.controller;
 
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.fasterxml.jackson.databind.SerializationFeature;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.tags.Tag;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 import org.springframework.web.server.ResponseStatusException;
-import ru.skypro.hogwarts.sova.model.Faculty;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+import ru.skypro.hogwarts.sova.concurrency.ConcurrencyLimit;
+import ru.skypro.hogwarts.sova.dto.AgeStatistics;
+import ru.skypro.hogwarts.sova.dto.BatchGetResult;
+import ru.skypro.hogwarts.sova.dto.BulkImportReport;
+import ru.skypro.hogwarts.sova.dto.BulkUpdateResult;
+import ru.skypro.hogwarts.sova.dto.CursorPage;
+import ru.skypro.hogwarts.sova.dto.FacultyDto;
+import ru.skypro.hogwarts.sova.dto.SearchMode;
+import ru.skypro.hogwarts.sova.dto.StudentDto;
+import ru.skypro.hogwarts.sova.dto.StudentEditStatus;
+import ru.skypro.hogwarts.sova.dto.StudentImportRow;
+import ru.skypro.hogwarts.sova.dto.StudentTransfer;
 import ru.skypro.hogwarts.sova.model.Student;
 import ru.skypro.hogwarts.sova.service.FacultyService;
+import ru.skypro.hogwarts.sova.service.StudentCohorts;
+import ru.skypro.hogwarts.sova.service.StudentCsvReader;
 import ru.skypro.hogwarts.sova.service.StudentService;
+import ru.skypro.hogwarts.sova.service.StudentWriteBehindQueue;
 
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.UncheckedIOException;
+import java.net.URI;
+import java.nio.charset.StandardCharsets;
 import java.util.Collection;
 import java.util.List;
 
@@ -19,48 +47,116 @@ import java.util.List;
 public class StudentController {
     private final StudentService studentService;
     private final FacultyService facultyService;
+    private final ObjectMapper objectMapper;
+    private final StudentWriteBehindQueue writeBehindQueue;
+    private final StudentCohorts cohorts;
+    private final ObjectWriter ndjsonWriter;
 
-    public StudentController(StudentService studentService , FacultyService facultyService) {
+    public StudentController(StudentService studentService , FacultyService facultyService,
+                             ObjectMapper objectMapper, StudentWriteBehindQueue writeBehindQueue,
+                             StudentCohorts cohorts) {
         this.studentService = studentService;
         this.facultyService = facultyService;
+        this.objectMapper = objectMapper;
+        this.writeBehindQueue = writeBehindQueue;
+        this.cohorts = cohorts;
+        this.ndjsonWriter = objectMapper.writerFor(StudentDto.class)
+                .without(SerializationFeature.FLUSH_AFTER_WRITE_VALUE);
     }
 
     @Operation(summary = "Создать студента")
     @PostMapping
-    public ResponseEntity<Student> createStudent(@RequestBody Student student) {
+    public ResponseEntity<StudentDto> createStudent(@RequestBody Student student) {
         try {
-            if (student.getFaculty() != null && student.getFaculty().getId() != null) {
-                Faculty faculty = facultyService.findFaculty(student.getFaculty().getId());
-                student.setFaculty(faculty);
-            }
-
             student.setVersion(0);
 
-            Student createdStudent = studentService.createStudent(student);
+            StudentDto createdStudent = studentService.createStudent(student);
             return ResponseEntity.ok(createdStudent);
         } catch (ResponseStatusException e) {
             return ResponseEntity.status(e.getStatusCode()).build();
         }
     }
 
-    @Operation(summary = "Получить студента по ID")
+    @Operation(summary = "Получить студентов по списку id (JSON-массив); includeFaculties — с их факультетами")
+    @PostMapping(value = "batch-get", consumes = MediaType.APPLICATION_JSON_VALUE)
+    public BatchGetResult<StudentDto> batchGetStudents(@RequestBody List<Long> ids,
+                                                       @RequestParam(defaultValue = "false") boolean includeFaculties) {
+        return studentService.batchGet(ids, includeFaculties);
+    }
+
+    @Operation(summary = "Массовый импорт студентов из JSON-массива")
+    @PostMapping(value = "bulk", consumes = MediaType.APPLICATION_JSON_VALUE)
+    @ConcurrencyLimit(name = "student-bulk", value = 2)
+    public BulkImportReport importStudents(@RequestBody List<StudentImportRow> rows) {
+        return studentService.importStudents(rows.iterator());
+    }
+
+    @Operation(summary = "Массовый импорт студентов из CSV (name,age,facultyId)")
+    @PostMapping(value = "bulk", consumes = "text/csv")
+    @ConcurrencyLimit(name = "student-bulk", value = 2)
+    public BulkImportReport importStudentsCsv(InputStream body) {
+        BufferedReader reader = new BufferedReader(new InputStreamReader(body, StandardCharsets.UTF_8));
+        return studentService.importStudents(new StudentCsvReader(reader));
+    }
+
+    @Operation(summary = "Массовый перевод студентов на другой факультет (все, по возрасту или по списку id)")
+    @PostMapping(value = "transfer", consumes = MediaType.APPLICATION_JSON_VALUE)
+    @ConcurrencyLimit(name = "student-bulk", value = 2)
+    public BulkUpdateResult transferStudents(@RequestBody StudentTransfer transfer) {
+        return studentService.transferStudents(transfer);
+    }
+
+    @Operation(summary = "Годовой переход: возраст всех студентов +1, один раз за год (по умолчанию текущий); "
+            + "прерванный переход продолжается с места остановки, законченный — 409")
+    @PostMapping("age-increment")
+    @ConcurrencyLimit(name = "student-bulk", value = 2)
+    public BulkUpdateResult incrementAges(@RequestParam(required = false) Integer year) {
+        return studentService.incrementAges(year != null ? year : StudentCohorts.current());
+    }
+
+    @Operation(summary = "Архивировать потоки, зачисленные раньше года before: их секции отсоединяются "
+            + "от таблицы студентов в схему student_archive (только PostgreSQL)")
+    @PostMapping("cohorts/archive")
+    @ConcurrencyLimit(name = "student-bulk", value = 2)
+    public List<Integer> archiveCohorts(@RequestParam int before) {
+        return cohorts.archiveBefore(before);
+    }
+
+    @Operation(summary = "Получить студента по ID (ETag — версия, If-None-Match даёт 304)")
     @GetMapping("{id}")
-    public ResponseEntity<Student> getStudent(@PathVariable Long id) {
-        Student student = studentService.findStudent(id);
+    public ResponseEntity<StudentDto> getStudent(@PathVariable Long id) {
+        StudentDto student = studentService.findStudent(id);
         if (student == null) {
             return ResponseEntity.notFound().build();
         }
-        return ResponseEntity.ok(student);
+        return ETags.ok(student, student.version());
     }
 
-    @Operation(summary = "Обновить данные студента")
+    @Operation(summary = "Обновить данные студента (If-Match — ожидаемая версия, иначе 412; "
+            + "async=true — через очередь отложенной записи, ответ 202 со ссылкой на статус)")
     @PutMapping
-    public ResponseEntity<Student> editStudent(@RequestBody Student student) {
-        Student foundStudent = studentService.editStudent(student);
+    public ResponseEntity<?> editStudent(@RequestBody Student student,
+                                         @RequestHeader(value = HttpHeaders.IF_MATCH, required = false)
+                                         String ifMatch,
+                                         @RequestParam(defaultValue = "false") boolean async) {
+        Integer expectedVersion = ETags.parseIfMatch(ifMatch);
+        if (async && writeBehindQueue.isEnabled()) {
+            StudentEditStatus queued = writeBehindQueue.submit(student, expectedVersion);
+            return ResponseEntity.accepted()
+                    .location(URI.create("/student/edits/" + queued.ticketId()))
+                    .body(queued);
+        }
+        StudentDto foundStudent = studentService.editStudent(student, expectedVersion);
         if (foundStudent == null) {
             return ResponseEntity.notFound().build();
         }
-        return ResponseEntity.ok(foundStudent);
+        return ETags.ok(foundStudent, foundStudent.version());
+    }
+
+    @Operation(summary = "Статус отложенной правки студента")
+    @GetMapping("edits/{ticketId}")
+    public StudentEditStatus getEditStatus(@PathVariable String ticketId) {
+        return writeBehindQueue.getStatus(ticketId);
     }
 
     @Operation(summary = "Удалить студента")
@@ -70,30 +166,86 @@ public class StudentController {
         return ResponseEntity.ok().build();
     }
 
-    @Operation(summary = "Получить студентов по возрасту")
+    @Operation(summary = "Получить студентов по возрасту (с size — постранично, в порядке id)")
     @GetMapping("age/{age}")
-    public ResponseEntity<Collection<Student>> getStudentsByAge(@PathVariable int age) {
-        Collection<Student> students = studentService.findByAge(age);
+    public ResponseEntity<Collection<StudentDto>> getStudentsByAge(
+            @PathVariable int age,
+            @RequestParam(defaultValue = "0") int page,
+            @RequestParam(required = false) Integer size) {
+        Collection<StudentDto> students = size == null
+                ? studentService.findByAge(age)
+                : studentService.findByAgeBetween(age, age, page, size);
         if (students.isEmpty()) {
             return ResponseEntity.notFound().build();
         }
         return ResponseEntity.ok(students);
     }
 
-    @Operation(summary = "Получить всех студентов")
+    @Operation(summary = "Получить студентов постранично (курсор по id)")
     @GetMapping
-    public Collection<Student> getAllStudents() {
-        return studentService.getAllStudents();
+    public CursorPage<StudentDto> getAllStudents(
+            @RequestParam(required = false) String cursor,
+            @RequestParam(defaultValue = "" + CursorPage.DEFAULT_LIMIT) int limit) {
+        return studentService.getStudentsPage(cursor, limit);
+    }
+
+    @Operation(summary = "Выгрузить всех студентов потоком NDJSON")
+    @GetMapping(produces = MediaType.APPLICATION_NDJSON_VALUE)
+    @ConcurrencyLimit(name = "student-export", value = 4)
+    public ResponseEntity<StreamingResponseBody> streamAllStudents() {
+        StreamingResponseBody body = out -> {
+            try (JsonGenerator generator = objectMapper.getFactory().createGenerator(out)) {
+                generator.setRootValueSeparator(null);
+                studentService.streamAllStudents(student -> {
+                    try {
+                        ndjsonWriter.writeValue(generator, student);
+                        generator.writeRaw('\n');
+                    } catch (IOException e) {
+                        throw new UncheckedIOException(e);
+                    }
+                });
+            }
+        };
+        return ResponseEntity.ok()
+                .contentType(MediaType.APPLICATION_NDJSON)
+                .body(body);
     }
-    @Operation(summary = "Получить студентов в диапазоне")
+
+    @Operation(summary = "Получить студентов в диапазоне (с size — постранично, в порядке id)")
     @GetMapping("/age-between")
-    public ResponseEntity<List<Student>> getByAgeBetween(
+    public ResponseEntity<List<StudentDto>> getByAgeBetween(
             @RequestParam int min,
-            @RequestParam int max) {
-        return ResponseEntity.ok(studentService.findByAgeBetween(min, max));
+            @RequestParam int max,
+            @RequestParam(defaultValue = "0") int page,
+            @RequestParam(required = false) Integer size) {
+        return ResponseEntity.ok(size == null
+                ? studentService.findByAgeBetween(min, max)
+                : studentService.findByAgeBetween(min, max, page, size));
+    }
+
+    @Operation(summary = "Число студентов в диапазоне возрастов")
+    @GetMapping("/age-between/count")
+    public long countByAgeBetween(@RequestParam int min, @RequestParam int max) {
+        return studentService.countByAgeBetween(min, max);
+    }
+    @Operation(summary = "Статистика по возрасту всех студентов")
+    @GetMapping("/stats")
+    public AgeStatistics getStatistics() {
+        return studentService.getStatistics();
+    }
+
+    @Operation(summary = "Поиск студентов по имени")
+    @GetMapping("/search")
+    @ConcurrencyLimit(name = "search", value = 32)
+    public List<StudentDto> searchStudents(
+            @RequestParam String name,
+            @RequestParam(defaultValue = "EXACT") SearchMode mode,
+            @RequestParam(defaultValue = "0") int page,
+            @RequestParam(defaultValue = "" + SearchMode.DEFAULT_PAGE_SIZE) int size) {
+        return studentService.searchByName(name, mode, page, size);
     }
     @GetMapping("/{id}/faculty")
-    public Faculty getStudentFaculty(@PathVariable Long id) {
+    public FacultyDto getStudentFaculty(@PathVariable Long id) {
         return studentService.getFacultyByStudentId(id);
     }
 }
@@ -0,0 +1,54 @@
+package ru.skypro.hogwarts.sova.dto;
+
+import io.swagger.v3.oas.annotations.media.Schema;
+
+import java.util.List;
+
+@Schema(description = "Статистика по возрасту студентов")
+public record AgeStatistics(
+        long count,
+        Double averageAge,
+        Double medianAge,
+        Integer minAge,
+        Integer maxAge,
+        @Schema(description = "Число студентов каждого возраста, по возрастанию возраста")
+        List<AgeBucket> histogram) {
+
+    public record AgeBucket(int age, long count) {
+    }
+
+    /**
+     * Точные count/avg/median/min/max по гистограмме. Медиана считается как
+     * percentile_cont(0.5): при чётном числе студентов — среднее двух средних.
+     */
+    public static AgeStatistics fromHistogram(List<AgeBucket> histogram) {
+        long count = 0;
+        long sum = 0;
+        for (AgeBucket bucket : histogram) {
+            count += bucket.count();
+            sum += (long) bucket.age() * bucket.count();
+        }
+        if (count == 0) {
+            return new AgeStatistics(0, null, null, null, null, List.of());
+        }
+        return new AgeStatistics(count, (double) sum / count, median(histogram, count),
+                histogram.get(0).age(), histogram.get(histogram.size() - 1).age(), histogram);
+    }
+
+    private static double median(List<AgeBucket> histogram, long count) {
+        long lowerRank = (count - 1) / 2;
+        long upperRank = count / 2;
+        Integer lower = null;
+        long seen = 0;
+        for (AgeBucket bucket : histogram) {
+            seen += bucket.count();
+            if (lower == null && seen > lowerRank) {
+                lower = bucket.age();
+            }
+            if (seen > upperRank) {
+                return (lower + bucket.age()) / 2.0;
+            }
+        }
+        throw new IllegalStateException("Пустая гистограмма");
+    }
+}
@@ -0,0 +1,56 @@
+package ru.skypro.hogwarts.sova.dto;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import io.swagger.v3.oas.annotations.media.Schema;
+import org.springframework.http.HttpStatus;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.util.ArrayList;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+
+@Schema(description = "Ответ пакетного чтения по списку id")
+public record BatchGetResult<T>(
+        @Schema(description = "Найденные записи в порядке запроса (повторы id убраны)")
+        List<T> items,
+        @Schema(description = "id из запроса, которых нет, в порядке запроса")
+        List<Long> missingIds,
+        @Schema(description = "Факультеты найденных студентов по id, только с includeFaculties=true")
+        @JsonInclude(JsonInclude.Include.NON_NULL)
+        Map<Long, FacultyDto> faculties) {
+
+    public static final int MAX_IDS = CursorPage.MAX_LIMIT;
+
+    /** Пустой список, null среди id или больше {@value #MAX_IDS} id — 400. */
+    public static void checkIds(List<Long> ids) {
+        if (ids == null || ids.isEmpty()) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Нужен непустой список id");
+        }
+        if (ids.size() > MAX_IDS) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Не больше " + MAX_IDS + " id за запрос");
+        }
+        if (ids.contains(null)) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "id не может быть null");
+        }
+    }
+
+    /** Раскладывает найденное в порядке запроса, остальные id — в missingIds. */
+    public static <T> BatchGetResult<T> of(List<Long> requestedIds, Map<Long, T> found) {
+        List<T> items = new ArrayList<>(found.size());
+        List<Long> missingIds = new ArrayList<>();
+        for (Long id : new LinkedHashSet<>(requestedIds)) {
+            T item = found.get(id);
+            if (item == null) {
+                missingIds.add(id);
+            } else {
+                items.add(item);
+            }
+        }
+        return new BatchGetResult<>(items, missingIds, null);
+    }
+
+    public BatchGetResult<T> withFaculties(Map<Long, FacultyDto> faculties) {
+        return new BatchGetResult<>(items, missingIds, faculties);
+    }
+}
@@ -0,0 +1,30 @@
+package ru.skypro.hogwarts.sova.dto;
+
+import io.swagger.v3.oas.annotations.media.Schema;
+
+import java.util.List;
+
+@Schema(description = "Результат массового импорта")
+public record BulkImportReport(
+        int total,
+        int imported,
+        int failed,
+        List<RowResult> rows) {
+
+    public static BulkImportReport of(List<RowResult> rows) {
+        int failed = (int) rows.stream().filter(row -> row.error() != null).count();
+        return new BulkImportReport(rows.size(), rows.size() - failed, failed, rows);
+    }
+
+    @Schema(description = "Результат по одной строке: id созданного студента или текст ошибки")
+    public record RowResult(int row, Long id, String error) {
+
+        public static RowResult ok(int row, Long id) {
+            return new RowResult(row, id, null);
+        }
+
+        public static RowResult failed(int row, String error) {
+            return new RowResult(row, null, error);
+        }
+    }
+}
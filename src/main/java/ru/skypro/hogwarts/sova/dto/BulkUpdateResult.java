@@ -0,0 +1,9 @@
+package ru.skypro.hogwarts.sova.dto;
+
+import io.swagger.v3.oas.annotations.media.Schema;
+
+@Schema(description = "Результат массового изменения")
+public record BulkUpdateResult(
+        @Schema(description = "Изменено студентов", example = "250")
+        long updated) {
+}
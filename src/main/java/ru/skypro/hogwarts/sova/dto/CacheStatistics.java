@@ -0,0 +1,13 @@
+package ru.skypro.hogwarts.sova.dto;
+
+import io.swagger.v3.oas.annotations.media.Schema;
+
+@Schema(description = "Счётчики кэша")
+public record CacheStatistics(
+        String name,
+        long size,
+        long hitCount,
+        long missCount,
+        long evictionCount,
+        double hitRate) {
+}
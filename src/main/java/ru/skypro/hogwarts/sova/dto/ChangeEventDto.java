@@ -0,0 +1,32 @@
+package ru.skypro.hogwarts.sova.dto;
+
+import com.fasterxml.jackson.annotation.JsonRawValue;
+import io.swagger.v3.oas.annotations.media.Schema;
+import ru.skypro.hogwarts.sova.model.ChangeEvent;
+
+import java.time.Instant;
+
+@Schema(description = "Изменение студента или факультета")
+public record ChangeEventDto(
+        @Schema(description = "Смещение в ленте изменений (id SSE-события)", example = "42")
+        long position,
+        @Schema(description = "Тип сущности", example = "STUDENT")
+        ChangeEvent.EntityType entityType,
+        @Schema(description = "Идентификатор сущности", example = "1")
+        long entityId,
+        @Schema(description = "Вид изменения", example = "UPDATED")
+        ChangeEvent.Type changeType,
+        @Schema(description = "Версия сущности после изменения (для удалённых — последняя). "
+                + "Лента не упорядочена по версиям: событие с версией не больше известной устарело", example = "3")
+        Integer version,
+        @Schema(description = "Сущность после изменения, null для удалённых")
+        @JsonRawValue
+        String payload,
+        @Schema(description = "Время изменения")
+        Instant createdAt) {
+
+    public static ChangeEventDto of(ChangeEvent event) {
+        return new ChangeEventDto(event.getPosition(), event.getEntityType(), event.getEntityId(),
+                event.getChangeType(), event.getVersion(), event.getPayload(), event.getCreatedAt());
+    }
+}
@@ -0,0 +1,13 @@
+package ru.skypro.hogwarts.sova.dto;
+
+import io.swagger.v3.oas.annotations.media.Schema;
+
+import java.util.List;
+
+@Schema(description = "Изменения после заданного смещения")
+public record ChangeFeedPage(
+        @Schema(description = "Изменения в порядке смещений")
+        List<ChangeEventDto> events,
+        @Schema(description = "Смещение для следующего запроса (since)", example = "42")
+        long next) {
+}
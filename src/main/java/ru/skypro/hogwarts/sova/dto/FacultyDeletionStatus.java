@@ -0,0 +1,17 @@
+package ru.skypro.hogwarts.sova.dto;
+
+import io.swagger.v3.oas.annotations.media.Schema;
+
+@Schema(description = "Состояние фонового удаления факультета")
+public record FacultyDeletionStatus(
+        String jobId,
+        long facultyId,
+        State state,
+        @Schema(description = "Сколько студентов уже отвязано от факультета")
+        long detachedStudents,
+        String error) {
+
+    public enum State {
+        RUNNING, DONE, FAILED
+    }
+}
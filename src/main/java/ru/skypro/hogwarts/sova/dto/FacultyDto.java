@@ -0,0 +1,21 @@
+package ru.skypro.hogwarts.sova.dto;
+
+import com.fasterxml.jackson.annotation.JsonIgnore;
+import io.swagger.v3.oas.annotations.media.Schema;
+import ru.skypro.hogwarts.sova.model.Faculty;
+
+@Schema(description = "Факультет Хогвартса")
+public record FacultyDto(
+        @Schema(description = "Идентификатор факультета", example = "1")
+        Long id,
+        @Schema(description = "Название факультета", example = "Гриффиндор")
+        String name,
+        @Schema(description = "Цвет факультета", example = "красный")
+        String color,
+        @JsonIgnore
+        Integer version) {
+
+    public static FacultyDto of(Faculty faculty) {
+        return new FacultyDto(faculty.getId(), faculty.getName(), faculty.getColor(), faculty.getVersion());
+    }
+}
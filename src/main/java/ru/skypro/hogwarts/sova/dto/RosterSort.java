@@ -0,0 +1,20 @@
+package ru.skypro.hogwarts.sova.dto;
+
+import io.swagger.v3.oas.annotations.media.Schema;
+import org.springframework.data.domain.Sort;
+
+@Schema(description = "Сортировка списка студентов факультета; при равенстве — по id")
+public enum RosterSort {
+    ID("id"), NAME("name"), AGE("age");
+
+    private final String property;
+
+    RosterSort(String property) {
+        this.property = property;
+    }
+
+    public Sort toSort(Sort.Direction direction) {
+        Sort sort = Sort.by(direction, property);
+        return this == ID ? sort : sort.and(Sort.by(direction, ID.property));
+    }
+}
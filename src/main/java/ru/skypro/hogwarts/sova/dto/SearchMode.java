@@ -0,0 +1,25 @@
+package ru.skypro.hogwarts.sova.dto;
+
+import io.swagger.v3.oas.annotations.media.Schema;
+
+import java.util.Locale;
+
+@Schema(description = "Режим поиска: точное совпадение, по префиксу или нечёткий (триграммы)")
+public enum SearchMode {
+    EXACT, PREFIX, FUZZY;
+
+    public static final int DEFAULT_PAGE_SIZE = 20;
+    public static final int MAX_PAGE_SIZE = 100;
+
+    /**
+     * Шаблон LIKE для поиска по началу строки: спецсимволы запроса
+     * экранируются обратной косой чертой.
+     */
+    public static String prefixPattern(String query) {
+        String escaped = query.toLowerCase(Locale.ROOT)
+                .replace("\\", "\\\\")
+                .replace("%", "\\%")
+                .replace("_", "\\_");
+        return escaped + "%";
+    }
+}
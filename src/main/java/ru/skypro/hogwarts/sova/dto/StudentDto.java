@@ -0,0 +1,25 @@
+package ru.skypro.hogwarts.sova.dto;
+
+import com.fasterxml.jackson.annotation.JsonIgnore;
+import io.swagger.v3.oas.annotations.media.Schema;
+import ru.skypro.hogwarts.sova.model.Student;
+
+@Schema(description = "Студент Хогвартса")
+public record StudentDto(
+        @Schema(description = "Идентификатор студента", example = "1")
+        Long id,
+        @Schema(description = "Имя студента", example = "Гарри Поттер")
+        String name,
+        @Schema(description = "Возраст студента", example = "17")
+        int age,
+        @Schema(description = "Идентификатор факультета", example = "1")
+        Long facultyId,
+        @JsonIgnore
+        Integer version) {
+
+    public static StudentDto of(Student student) {
+        return new StudentDto(student.getId(), student.getName(), student.getAge(),
+                student.getFaculty() == null ? null : student.getFaculty().getId(),
+                student.getVersion());
+    }
+}
@@ -0,0 +1,22 @@
+package ru.skypro.hogwarts.sova.dto;
+
+/**
+ * Правка студента из очереди отложенной записи.
+ *
+ * @param expectedVersion версия из If-Match или null
+ */
+public record StudentEdit(long studentId, String name, int age, Long facultyId, Integer expectedVersion) {
+
+    /**
+     * Итог применения правки: новая версия или текст ошибки.
+     */
+    public record Outcome(long studentId, Integer version, String error) {
+        public static Outcome applied(long studentId, int version) {
+            return new Outcome(studentId, version, null);
+        }
+
+        public static Outcome failed(long studentId, String error) {
+            return new Outcome(studentId, null, error);
+        }
+    }
+}
@@ -0,0 +1,23 @@
+package ru.skypro.hogwarts.sova.dto;
+
+import io.swagger.v3.oas.annotations.media.Schema;
+
+@Schema(description = "Состояние отложенной правки студента")
+public record StudentEditStatus(
+        String ticketId,
+        long studentId,
+        State state,
+        @Schema(description = "Версия студента после применения правки")
+        Integer version,
+        String error) {
+
+    public enum State {
+        @Schema(description = "В очереди")
+        QUEUED,
+        @Schema(description = "Записана в базу")
+        APPLIED,
+        @Schema(description = "Заменена более поздней правкой того же студента")
+        SUPERSEDED,
+        FAILED
+    }
+}
@@ -0,0 +1,62 @@
+package ru.skypro.hogwarts.sova.dto;
+
+import org.springframework.http.HttpStatus;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.util.EnumSet;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Function;
+
+/**
+ * Поля StudentDto, которые можно запросить параметром {@code fields}
+ * (через запятую, имена как в JSON).
+ */
+public enum StudentField {
+    ID("id", StudentDto::id),
+    NAME("name", StudentDto::name),
+    AGE("age", StudentDto::age),
+    FACULTY_ID("facultyId", StudentDto::facultyId);
+
+    private final String jsonName;
+    private final Function<StudentDto, Object> accessor;
+
+    StudentField(String jsonName, Function<StudentDto, Object> accessor) {
+        this.jsonName = jsonName;
+        this.accessor = accessor;
+    }
+
+    public static Set<StudentField> parse(String fields) {
+        Set<StudentField> result = EnumSet.noneOf(StudentField.class);
+        for (String name : fields.split(",")) {
+            String trimmed = name.trim();
+            if (trimmed.isEmpty()) {
+                continue;
+            }
+            result.add(byJsonName(trimmed));
+        }
+        if (result.isEmpty()) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Не указано ни одного поля");
+        }
+        return result;
+    }
+
+    /** Только выбранные поля, в порядке объявления. */
+    public static Map<String, Object> select(StudentDto student, Set<StudentField> fields) {
+        Map<String, Object> result = new LinkedHashMap<>(fields.size() * 2);
+        for (StudentField field : fields) {
+            result.put(field.jsonName, field.accessor.apply(student));
+        }
+        return result;
+    }
+
+    private static StudentField byJsonName(String name) {
+        for (StudentField field : values()) {
+            if (field.jsonName.equals(name)) {
+                return field;
+            }
+        }
+        throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Неизвестное поле: " + name);
+    }
+}
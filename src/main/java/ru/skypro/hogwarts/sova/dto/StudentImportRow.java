@@ -0,0 +1,13 @@
+package ru.skypro.hogwarts.sova.dto;
+
+import io.swagger.v3.oas.annotations.media.Schema;
+
+@Schema(description = "Строка массового импорта студентов")
+public record StudentImportRow(
+        @Schema(description = "Имя студента", example = "Гарри Поттер")
+        String name,
+        @Schema(description = "Возраст студента", example = "11")
+        int age,
+        @Schema(description = "Идентификатор факультета", example = "1")
+        Long facultyId) {
+}
@@ -0,0 +1,19 @@
+package ru.skypro.hogwarts.sova.dto;
+
+import io.swagger.v3.oas.annotations.media.Schema;
+
+import java.util.List;
+
+@Schema(description = "Массовый перевод студентов между факультетами")
+public record StudentTransfer(
+        @Schema(description = "Откуда переводить", example = "1")
+        Long fromFacultyId,
+        @Schema(description = "Куда переводить", example = "2")
+        Long toFacultyId,
+        @Schema(description = "Только студенты не младше, необязательно", example = "11")
+        Integer minAge,
+        @Schema(description = "Только студенты не старше, необязательно", example = "12")
+        Integer maxAge,
+        @Schema(description = "Только студенты из списка, необязательно")
+        List<Long> studentIds) {
+}
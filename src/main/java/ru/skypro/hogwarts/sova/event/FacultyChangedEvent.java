@@ -0,0 +1,23 @@
+package ru.skypro.hogwarts.sova.event;
+
+import ru.skypro.hogwarts.sova.dto.FacultyDto;
+
+/**
+ * Изменение одного факультета. {@code before} пуст для созданных,
+ * {@code after} — для удалённых. Удаление факультета отвязывает всех его
+ * студентов; поимённо они не публикуются.
+ */
+public record FacultyChangedEvent(long facultyId, FacultyDto before, FacultyDto after) {
+
+    public static FacultyChangedEvent created(FacultyDto faculty) {
+        return new FacultyChangedEvent(faculty.id(), null, faculty);
+    }
+
+    public static FacultyChangedEvent updated(FacultyDto before, FacultyDto faculty) {
+        return new FacultyChangedEvent(faculty.id(), before, faculty);
+    }
+
+    public static FacultyChangedEvent deleted(FacultyDto before) {
+        return new FacultyChangedEvent(before.id(), before, null);
+    }
+}
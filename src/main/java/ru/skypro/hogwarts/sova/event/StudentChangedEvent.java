@@ -0,0 +1,31 @@
+package ru.skypro.hogwarts.sova.event;
+
+import ru.skypro.hogwarts.sova.model.Student;
+
+/**
+ * Изменение одного студента. {@code before} пуст для созданных,
+ * {@code after} — для удалённых.
+ */
+public record StudentChangedEvent(long studentId, State before, State after) {
+
+    public static StudentChangedEvent created(Student student) {
+        return new StudentChangedEvent(student.getId(), null, State.of(student));
+    }
+
+    public static StudentChangedEvent updated(State before, Student student) {
+        return new StudentChangedEvent(student.getId(), before, State.of(student));
+    }
+
+    public static StudentChangedEvent deleted(State before, long studentId) {
+        return new StudentChangedEvent(studentId, before, null);
+    }
+
+    public record State(String name, int age, Long facultyId, Integer version) {
+
+        public static State of(Student student) {
+            return new State(student.getName(), student.getAge(),
+                    student.getFaculty() == null ? null : student.getFaculty().getId(),
+                    student.getVersion());
+        }
+    }
+}
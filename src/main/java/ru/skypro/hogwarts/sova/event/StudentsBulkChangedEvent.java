@@ -0,0 +1,8 @@
+package ru.skypro.hogwarts.sova.event;
+
+/**
+ * Множество студентов изменено одним set-based запросом, поимённого
+ * списка изменений нет. Производные структуры должны перечитать данные.
+ */
+public record StudentsBulkChangedEvent(String reason) {
+}
@@ -0,0 +1,194 @@
+package ru.skypro.hogwarts.sova.export;
+
+import java.io.BufferedOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Компактный колоночный формат (по мотивам Parquet), двоичный.
+ * <p>
+ * Строки буферизуются группами по {@value #ROW_GROUP_SIZE}, внутри группы
+ * каждая колонка пишется целиком, поэтому память не зависит от объёма
+ * выгрузки. Все целые — беззнаковые varint (LEB128), знаковые значения
+ * предварительно кодируются zigzag.
+ * <pre>
+ * файл      := "HGWC" версия:u8 числоКолонок:varint колонка* группа* 0:varint
+ * колонка   := длинаИмени:varint имя:utf8 тип:u8 (0 LONG, 1 INT, 2 STRING)
+ * группа    := числоСтрок:varint (битовая маска NULL, затем значения)
+ *              для каждой колонки по порядку
+ * маска     := (числоСтрок + 7) / 8 байт, бит i (младший первым) — строка i NULL
+ * LONG      := zigzag(разность с предыдущим не-NULL значением группы) для каждого не-NULL
+ * INT       := zigzag(значение) для каждого не-NULL
+ * STRING    := 0:u8 (длина:varint utf8)* — как есть
+ *            | 1:u8 размерСловаря:varint (длина:varint utf8)* номер:varint* — словарь
+ * </pre>
+ * Словарь выбирается, когда различных значений в группе не больше половины
+ * строк (имена факультетов, цвета).
+ */
+class ColumnarRowWriter implements RowWriter {
+    static final byte[] MAGIC = {'H', 'G', 'W', 'C'};
+    static final int VERSION = 1;
+    static final int ROW_GROUP_SIZE = 8192;
+
+    private final OutputStream out;
+    private final List<ExportColumn> columns;
+    private final long[][] numbers;
+    private final String[][] strings;
+    private final byte[][] nulls;
+    private int rows;
+
+    ColumnarRowWriter(OutputStream out, List<ExportColumn> columns) throws IOException {
+        this.out = new BufferedOutputStream(out, 64 * 1024);
+        this.columns = columns;
+        this.numbers = new long[columns.size()][];
+        this.strings = new String[columns.size()][];
+        this.nulls = new byte[columns.size()][(ROW_GROUP_SIZE + 7) / 8];
+        for (int i = 0; i < columns.size(); i++) {
+            if (columns.get(i).type() == ExportColumn.Type.STRING) {
+                strings[i] = new String[ROW_GROUP_SIZE];
+            } else {
+                numbers[i] = new long[ROW_GROUP_SIZE];
+            }
+        }
+
+        this.out.write(MAGIC);
+        this.out.write(VERSION);
+        writeVarint(columns.size());
+        for (ExportColumn column : columns) {
+            writeBytes(column.name().getBytes(StandardCharsets.UTF_8));
+            this.out.write(column.type().ordinal());
+        }
+    }
+
+    @Override
+    public void write(ResultSet row) throws SQLException, IOException {
+        for (int i = 0; i < columns.size(); i++) {
+            int index = i + 1;
+            boolean isNull;
+            switch (columns.get(i).type()) {
+                case LONG -> {
+                    numbers[i][rows] = row.getLong(index);
+                    isNull = row.wasNull();
+                }
+                case INT -> {
+                    numbers[i][rows] = row.getInt(index);
+                    isNull = row.wasNull();
+                }
+                default -> {
+                    strings[i][rows] = row.getString(index);
+                    isNull = strings[i][rows] == null;
+                }
+            }
+            if (isNull) {
+                nulls[i][rows >>> 3] |= (byte) (1 << (rows & 7));
+            }
+        }
+        if (++rows == ROW_GROUP_SIZE) {
+            writeRowGroup();
+        }
+    }
+
+    @Override
+    public void finish() throws IOException {
+        if (rows > 0) {
+            writeRowGroup();
+        }
+        writeVarint(0);
+        out.flush();
+    }
+
+    private void writeRowGroup() throws IOException {
+        writeVarint(rows);
+        int maskLength = (rows + 7) / 8;
+        for (int i = 0; i < columns.size(); i++) {
+            byte[] mask = nulls[i];
+            out.write(mask, 0, maskLength);
+            switch (columns.get(i).type()) {
+                case LONG -> {
+                    long previous = 0;
+                    for (int r = 0; r < rows; r++) {
+                        if (!isNull(mask, r)) {
+                            writeVarint(zigzag(numbers[i][r] - previous));
+                            previous = numbers[i][r];
+                        }
+                    }
+                }
+                case INT -> {
+                    for (int r = 0; r < rows; r++) {
+                        if (!isNull(mask, r)) {
+                            writeVarint(zigzag(numbers[i][r]));
+                        }
+                    }
+                }
+                case STRING -> writeStrings(strings[i], mask);
+            }
+            Arrays.fill(mask, (byte) 0);
+            if (strings[i] != null) {
+                Arrays.fill(strings[i], 0, rows, null);
+            }
+        }
+        rows = 0;
+    }
+
+    private void writeStrings(String[] values, byte[] mask) throws IOException {
+        Map<String, Integer> dictionary = new HashMap<>();
+        int nonNull = 0;
+        for (int r = 0; r < rows; r++) {
+            if (!isNull(mask, r)) {
+                nonNull++;
+                if (dictionary.size() <= rows / 2) {
+                    dictionary.putIfAbsent(values[r], dictionary.size());
+                }
+            }
+        }
+        if (nonNull > 0 && dictionary.size() <= rows / 2) {
+            out.write(1);
+            writeVarint(dictionary.size());
+            String[] entries = new String[dictionary.size()];
+            dictionary.forEach((value, code) -> entries[code] = value);
+            for (String entry : entries) {
+                writeBytes(entry.getBytes(StandardCharsets.UTF_8));
+            }
+            for (int r = 0; r < rows; r++) {
+                if (!isNull(mask, r)) {
+                    writeVarint(dictionary.get(values[r]));
+                }
+            }
+        } else {
+            out.write(0);
+            for (int r = 0; r < rows; r++) {
+                if (!isNull(mask, r)) {
+                    writeBytes(values[r].getBytes(StandardCharsets.UTF_8));
+                }
+            }
+        }
+    }
+
+    private static boolean isNull(byte[] mask, int row) {
+        return (mask[row >>> 3] & (1 << (row & 7))) != 0;
+    }
+
+    private static long zigzag(long value) {
+        return (value << 1) ^ (value >> 63);
+    }
+
+    private void writeBytes(byte[] bytes) throws IOException {
+        writeVarint(bytes.length);
+        out.write(bytes);
+    }
+
+    private void writeVarint(long value) throws IOException {
+        while ((value & ~0x7FL) != 0) {
+            out.write((int) ((value & 0x7F) | 0x80));
+            value >>>= 7;
+        }
+        out.write((int) value);
+    }
+}
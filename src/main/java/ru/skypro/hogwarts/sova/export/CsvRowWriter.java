@@ -0,0 +1,89 @@
+package ru.skypro.hogwarts.sova.export;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.List;
+
+/**
+ * CSV с заголовком, UTF-8, строки через {@code \n}. NULL — пустое поле;
+ * строки с запятой, кавычкой или переводом строки берутся в кавычки —
+ * так же, как их читает POST /student/bulk (колонки у импорта свои).
+ */
+class CsvRowWriter implements RowWriter {
+    private final Writer out;
+    private final List<ExportColumn> columns;
+
+    CsvRowWriter(OutputStream out, List<ExportColumn> columns) throws IOException {
+        this.out = new BufferedWriter(new OutputStreamWriter(out, StandardCharsets.UTF_8), 64 * 1024);
+        this.columns = columns;
+        for (int i = 0; i < columns.size(); i++) {
+            if (i > 0) {
+                this.out.write(',');
+            }
+            writeString(columns.get(i).name());
+        }
+        this.out.write('\n');
+    }
+
+    @Override
+    public void write(ResultSet row) throws SQLException, IOException {
+        for (int i = 0; i < columns.size(); i++) {
+            if (i > 0) {
+                out.write(',');
+            }
+            int index = i + 1;
+            switch (columns.get(i).type()) {
+                case LONG -> {
+                    long value = row.getLong(index);
+                    if (!row.wasNull()) {
+                        out.write(Long.toString(value));
+                    }
+                }
+                case INT -> {
+                    int value = row.getInt(index);
+                    if (!row.wasNull()) {
+                        out.write(Integer.toString(value));
+                    }
+                }
+                case STRING -> {
+                    String value = row.getString(index);
+                    if (value != null) {
+                        writeString(value);
+                    }
+                }
+            }
+        }
+        out.write('\n');
+    }
+
+    @Override
+    public void finish() throws IOException {
+        out.flush();
+    }
+
+    private void writeString(String value) throws IOException {
+        if (!needsQuotes(value)) {
+            out.write(value);
+            return;
+        }
+        out.write('"');
+        out.write(value.replace("\"", "\"\""));
+        out.write('"');
+    }
+
+    private static boolean needsQuotes(String value) {
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            if (c == ',' || c == '"' || c == '\n' || c == '\r') {
+                return true;
+            }
+        }
+        return false;
+    }
+}
@@ -0,0 +1,24 @@
+package ru.skypro.hogwarts.sova.export;
+
+/**
+ * Колонка выгрузки: имя в заголовке/ключ в JSON и тип значения. Значение
+ * берётся из ResultSet по позиции колонки в списке.
+ */
+public record ExportColumn(String name, Type type) {
+
+    public enum Type {
+        LONG, INT, STRING
+    }
+
+    public static ExportColumn ofLong(String name) {
+        return new ExportColumn(name, Type.LONG);
+    }
+
+    public static ExportColumn ofInt(String name) {
+        return new ExportColumn(name, Type.INT);
+    }
+
+    public static ExportColumn ofString(String name) {
+        return new ExportColumn(name, Type.STRING);
+    }
+}
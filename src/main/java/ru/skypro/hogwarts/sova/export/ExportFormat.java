@@ -0,0 +1,37 @@
+package ru.skypro.hogwarts.sova.export;
+
+import com.fasterxml.jackson.core.JsonFactory;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.List;
+
+public enum ExportFormat {
+    CSV("text/csv", "csv"),
+    NDJSON("application/x-ndjson", "ndjson"),
+    COLUMNAR("application/vnd.hogwarts.columnar", "hgwc");
+
+    private final String mediaType;
+    private final String extension;
+
+    ExportFormat(String mediaType, String extension) {
+        this.mediaType = mediaType;
+        this.extension = extension;
+    }
+
+    public String getMediaType() {
+        return mediaType;
+    }
+
+    public String getExtension() {
+        return extension;
+    }
+
+    public RowWriter writer(OutputStream out, List<ExportColumn> columns, JsonFactory jsonFactory) throws IOException {
+        return switch (this) {
+            case CSV -> new CsvRowWriter(out, columns);
+            case NDJSON -> new NdjsonRowWriter(jsonFactory, out, columns);
+            case COLUMNAR -> new ColumnarRowWriter(out, columns);
+        };
+    }
+}
@@ -0,0 +1,65 @@
+package ru.skypro.hogwarts.sova.export;
+
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.io.SerializedString;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.List;
+
+/**
+ * Один JSON-объект на строку. Пишется потоковым JsonGenerator без
+ * data-binding; имена полей закодированы заранее.
+ */
+class NdjsonRowWriter implements RowWriter {
+    private final JsonGenerator generator;
+    private final List<ExportColumn> columns;
+    private final SerializedString[] names;
+
+    NdjsonRowWriter(JsonFactory jsonFactory, OutputStream out, List<ExportColumn> columns) throws IOException {
+        this.generator = jsonFactory.createGenerator(out);
+        this.generator.setRootValueSeparator(null);
+        this.generator.disable(JsonGenerator.Feature.AUTO_CLOSE_TARGET);
+        this.columns = columns;
+        this.names = columns.stream().map(column -> new SerializedString(column.name()))
+                .toArray(SerializedString[]::new);
+    }
+
+    @Override
+    public void write(ResultSet row) throws SQLException, IOException {
+        generator.writeStartObject();
+        for (int i = 0; i < columns.size(); i++) {
+            generator.writeFieldName(names[i]);
+            int index = i + 1;
+            switch (columns.get(i).type()) {
+                case LONG -> {
+                    long value = row.getLong(index);
+                    if (row.wasNull()) {
+                        generator.writeNull();
+                    } else {
+                        generator.writeNumber(value);
+                    }
+                }
+                case INT -> {
+                    int value = row.getInt(index);
+                    if (row.wasNull()) {
+                        generator.writeNull();
+                    } else {
+                        generator.writeNumber(value);
+                    }
+                }
+                case STRING -> generator.writeString(row.getString(index));
+            }
+        }
+        generator.writeEndObject();
+        generator.writeRaw('\n');
+    }
+
+    @Override
+    public void finish() throws IOException {
+        generator.close();
+    }
+}
@@ -0,0 +1,17 @@
+package ru.skypro.hogwarts.sova.export;
+
+import java.io.IOException;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+
+/**
+ * Пишет строки выгрузки прямо из текущей позиции курсора, без
+ * промежуточных объектов на строку.
+ */
+public interface RowWriter {
+
+    void write(ResultSet row) throws SQLException, IOException;
+
+    /** Дописывает хвост формата и сбрасывает буферы; поток не закрывает. */
+    void finish() throws IOException;
+}
@@ -0,0 +1,106 @@
+package ru.skypro.hogwarts.sova.metrics;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.aopalliance.intercept.MethodInterceptor;
+import org.aopalliance.intercept.MethodInvocation;
+import org.hibernate.resource.jdbc.spi.StatementInspector;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.lang.reflect.Method;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Число SQL-операторов на метод репозитория.
+ * <p>
+ * Как перехватчик прокси репозиториев запоминает текущий метод в потоке,
+ * как {@link StatementInspector} Hibernate засчитывает ему каждый
+ * подготовленный оператор в {@code hogwarts.repository.statements}.
+ * Операторы вне вызова репозитория (flush при коммите, ленивые загрузки)
+ * идут с тегом {@code method=none}.
+ * <p>
+ * Журнал медленных запросов включается {@code sampleRate > 0}: для доли
+ * вызовов собирается текст SQL, и если вызов длился не меньше
+ * {@code slowThreshold}, он пишется в лог {@code ru.skypro.hogwarts.sova.SLOW_QUERY}.
+ */
+public class RepositoryStatementMetrics implements StatementInspector {
+    public static final String STATEMENTS_METRIC = "hogwarts.repository.statements";
+
+    private static final Logger slowQueryLog = LoggerFactory.getLogger("ru.skypro.hogwarts.sova.SLOW_QUERY");
+
+    private final MeterRegistry registry;
+    private final Counter outsideRepository;
+    private final double sampleRate;
+    private final long slowThresholdNanos;
+    private final ThreadLocal<Invocation> current = new ThreadLocal<>();
+
+    public RepositoryStatementMetrics(MeterRegistry registry, double sampleRate, Duration slowThreshold) {
+        this.registry = registry;
+        this.outsideRepository = counter("none", "none");
+        this.sampleRate = sampleRate;
+        this.slowThresholdNanos = slowThreshold.toNanos();
+    }
+
+    /**
+     * Перехватчик для прокси репозитория {@code repository}; счётчики
+     * создаются один раз на метод.
+     */
+    public MethodInterceptor interceptorFor(String repository) {
+        Map<Method, Counter> counters = new ConcurrentHashMap<>();
+        return invocation -> invoke(invocation, repository,
+                counters.computeIfAbsent(invocation.getMethod(), method -> counter(repository, method.getName())));
+    }
+
+    private Object invoke(MethodInvocation invocation, String repository, Counter counter) throws Throwable {
+        boolean sampled = sampleRate > 0 && ThreadLocalRandom.current().nextDouble() < sampleRate;
+        Invocation outer = current.get();
+        Invocation inner = new Invocation(counter, sampled ? new ArrayList<>() : null);
+        current.set(inner);
+        long start = System.nanoTime();
+        try {
+            return invocation.proceed();
+        } finally {
+            long elapsed = System.nanoTime() - start;
+            if (outer == null) {
+                current.remove();
+            } else {
+                current.set(outer);
+            }
+            if (inner.statements != null && elapsed >= slowThresholdNanos) {
+                slowQueryLog.warn("{}.{} took {} ms, {} statements: {}", repository, invocation.getMethod().getName(),
+                        elapsed / 1_000_000, inner.statements.size(), inner.statements);
+            }
+        }
+    }
+
+    @Override
+    public String inspect(String sql) {
+        Invocation invocation = current.get();
+        if (invocation == null) {
+            outsideRepository.increment();
+        } else {
+            invocation.counter.increment();
+            if (invocation.statements != null) {
+                invocation.statements.add(sql);
+            }
+        }
+        return sql;
+    }
+
+    private Counter counter(String repository, String method) {
+        return Counter.builder(STATEMENTS_METRIC)
+                .description("SQL-операторы, подготовленные за вызов метода репозитория")
+                .tag("repository", repository)
+                .tag("method", method)
+                .register(registry);
+    }
+
+    private record Invocation(Counter counter, List<String> statements) {
+    }
+}
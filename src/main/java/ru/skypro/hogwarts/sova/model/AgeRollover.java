@@ -0,0 +1,54 @@
+package ru.skypro.hogwarts.sova.model;
+
+import jakarta.persistence.*;
+
+import java.time.Instant;
+
+/** Годовой переход: до какого id студентов он дошёл и закончен ли. */
+@Entity
+@Table(name = "student_age_rollover")
+public class AgeRollover {
+    @Id
+    @Column(name = "rollover_year")
+    private Integer year;
+
+    @Column(name = "last_student_id", nullable = false)
+    private long lastStudentId;
+
+    @Column(name = "started_at", nullable = false)
+    private Instant startedAt;
+
+    @Column(name = "completed_at")
+    private Instant completedAt;
+
+    public AgeRollover() {
+    }
+
+    public Integer getYear() {
+        return year;
+    }
+
+    public long getLastStudentId() {
+        return lastStudentId;
+    }
+
+    public void setLastStudentId(long lastStudentId) {
+        this.lastStudentId = lastStudentId;
+    }
+
+    public Instant getStartedAt() {
+        return startedAt;
+    }
+
+    public Instant getCompletedAt() {
+        return completedAt;
+    }
+
+    public void setCompletedAt(Instant completedAt) {
+        this.completedAt = completedAt;
+    }
+
+    public boolean isCompleted() {
+        return completedAt != null;
+    }
+}
@@ -0,0 +1,97 @@
+package ru.skypro.hogwarts.sova.model;
+
+import jakarta.persistence.*;
+
+import java.time.Instant;
+
+/**
+ * Строка журнала изменений (outbox). {@code position} пуст, пока
+ * ретранслятор не поставил событие в ленту, см.
+ * {@link ru.skypro.hogwarts.sova.service.ChangeFeedService}.
+ */
+@Entity
+@Table(name = "change_event")
+public class ChangeEvent {
+
+    public enum EntityType {
+        STUDENT, FACULTY
+    }
+
+    public enum Type {
+        CREATED, UPDATED, DELETED
+    }
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "change_event_seq")
+    @SequenceGenerator(name = "change_event_seq", sequenceName = "change_event_seq", allocationSize = 50)
+    private Long id;
+
+    private Long position;
+
+    @Enumerated(EnumType.STRING)
+    @Column(name = "entity_type", length = 16, nullable = false)
+    private EntityType entityType;
+
+    @Column(name = "entity_id", nullable = false)
+    private long entityId;
+
+    @Enumerated(EnumType.STRING)
+    @Column(name = "change_type", length = 16, nullable = false)
+    private Type changeType;
+
+    private Integer version;
+
+    @Column(length = 2000)
+    private String payload;
+
+    @Column(name = "created_at", nullable = false)
+    private Instant createdAt;
+
+    public ChangeEvent() {
+    }
+
+    public ChangeEvent(EntityType entityType, long entityId, Type changeType, Integer version, String payload) {
+        this.entityType = entityType;
+        this.entityId = entityId;
+        this.changeType = changeType;
+        this.version = version;
+        this.payload = payload;
+        this.createdAt = Instant.now();
+    }
+
+    public Long getId() {
+        return id;
+    }
+
+    public Long getPosition() {
+        return position;
+    }
+
+    public void setPosition(Long position) {
+        this.position = position;
+    }
+
+    public EntityType getEntityType() {
+        return entityType;
+    }
+
+    public long getEntityId() {
+        return entityId;
+    }
+
+    public Type getChangeType() {
+        return changeType;
+    }
+
+    public Integer getVersion() {
+        return version;
+    }
+
+    public String getPayload() {
+        return payload;
+    }
+
+    public Instant getCreatedAt() {
+        return createdAt;
+    }
+}
@@ -0,0 +1,36 @@
+package ru.skypro.hogwarts.sova.model;
+
+import jakarta.persistence.*;
+
+/** Последнее смещение, выданное ретранслятором журнала изменений. */
+@Entity
+@Table(name = "change_relay_state")
+public class ChangeRelayState {
+    public static final int SINGLETON_ID = 1;
+
+    @Id
+    private Integer id;
+
+    @Column(name = "last_position", nullable = false)
+    private long lastPosition;
+
+    public ChangeRelayState() {
+    }
+
+    public ChangeRelayState(int id, long lastPosition) {
+        this.id = id;
+        this.lastPosition = lastPosition;
+    }
+
+    public Integer getId() {
+        return id;
+    }
+
+    public long getLastPosition() {
+        return lastPosition;
+    }
+
+    public void setLastPosition(long lastPosition) {
+        this.lastPosition = lastPosition;
+    }
+}
@@ -0,0 +1,32 @@
+package ru.skypro.hogwarts.sova.model;
+
+import java.time.Clock;
+import java.time.Year;
+import java.time.ZoneOffset;
+
+/**
+ * Правило потока (года зачисления) студента: поступают в
+ * {@link #ENROLLMENT_AGE} лет, возраст растёт раз в год, поэтому поток —
+ * текущий год минус годы учёбы. Младше возраста поступления — текущий поток.
+ * <p>
+ * Текущий год берётся по явным часам, по умолчанию {@link #CLOCK} в UTC, а не
+ * в часовом поясе JVM: экземпляры в разных поясах в новогоднюю ночь выводят
+ * один и тот же поток.
+ */
+public final class Cohorts {
+    /** Возраст поступления в Хогвартс. */
+    public static final int ENROLLMENT_AGE = 11;
+
+    public static final Clock CLOCK = Clock.system(ZoneOffset.UTC);
+
+    private Cohorts() {
+    }
+
+    public static int current(Clock clock) {
+        return Year.now(clock).getValue();
+    }
+
+    public static int forAge(int age, Clock clock) {
+        return current(clock) - Math.max(age - ENROLLMENT_AGE, 0);
+    }
+}
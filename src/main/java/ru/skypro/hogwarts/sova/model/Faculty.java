@@ -1,6 +1,7 @@
 package ru.skypro.hogwarts.sova.model;
 
 import com.fasterxml.jackson.annotation.JsonIdentityInfo;
+import com.fasterxml.jackson.annotation.JsonIgnore;
 import com.fasterxml.jackson.annotation.JsonManagedReference;
 import com.fasterxml.jackson.annotation.ObjectIdGenerators;
 import io.swagger.v3.oas.annotations.media.Schema;
@@ -11,8 +12,12 @@ import java.util.Objects;
 
 @Entity
 @Schema(description = "Факультет Хогвартса")
+@NamedEntityGraph(name = Faculty.GRAPH_SUMMARY)
 
 public class Faculty {
+    /** Только поля факультета, студенты не загружаются. */
+    public static final String GRAPH_SUMMARY = "Faculty.summary";
+
     @Id
     @GeneratedValue(strategy = GenerationType.IDENTITY)
     @Schema(description = "Идентификатор факультета", example = "1")
@@ -27,7 +32,7 @@ public class Faculty {
     @Schema(description = "Цвет факультета", example = "красный")
     private String color;
 
-    @OneToMany(mappedBy = "faculty", cascade = CascadeType.ALL)
+    @OneToMany(mappedBy = "faculty", cascade = CascadeType.ALL, fetch = FetchType.LAZY)
     @JsonManagedReference
     private List<Student> students;
 
@@ -49,6 +54,15 @@ public class Faculty {
         this.id = id;
     }
 
+    @JsonIgnore
+    public Integer getVersion() {
+        return version;
+    }
+
+    public void setVersion(Integer version) {
+        this.version = version;
+    }
+
     public String getName() {
         return name;
     }
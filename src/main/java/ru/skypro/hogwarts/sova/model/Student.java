@@ -2,27 +2,38 @@ package ru.skypro.hogwarts.sova.model;
 
 import com.fasterxml.jackson.annotation.JsonBackReference;
 import com.fasterxml.jackson.annotation.JsonIdentityInfo;
+import com.fasterxml.jackson.annotation.JsonIgnore;
 import com.fasterxml.jackson.annotation.ObjectIdGenerators;
 import io.swagger.v3.oas.annotations.media.Schema;
 import jakarta.persistence.*;
+import org.hibernate.annotations.PartitionKey;
 
 import java.util.Objects;
 
 @Entity
 @Schema(description = "Студент Хогвартса")
+@NamedEntityGraph(name = Student.GRAPH_FACULTY_ID_ONLY)
 
 @JsonIdentityInfo(
         generator = ObjectIdGenerators.PropertyGenerator.class,
         property = "id")
 
 public class Student {
+    /** Студент без загрузки факультета: доступен только его id через прокси. */
+    public static final String GRAPH_FACULTY_ID_ONLY = "Student.facultyIdOnly";
+
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "student_seq")
+    @SequenceGenerator(name = "student_seq", sequenceName = "student_seq", allocationSize = 50)
     @Schema(description = "Идентификатор студента", example = "1")
     private Long id;
 
     @Version
     private Integer version = 0;
+    @JsonIgnore
+    public Integer getVersion() {
+        return version;
+    }
     public void setVersion(Integer version) {
         this.version = version;
     }
@@ -34,9 +45,17 @@ public class Student {
     @Schema(description = "Возраст студента", example = "17")
     private int age;
 
+    // Год зачисления: ключ секционирования student (V7). Не меняется после
+    // вставки; Hibernate добавляет его в WHERE у UPDATE/DELETE по id, так что
+    // затрагивается одна секция. Если не задан — Cohorts.forAge(age) по UTC;
+    // значения по умолчанию в базе нет (V9), вставки мимо JPA задают его сами.
+    @PartitionKey
+    @Column(nullable = false, updatable = false)
+    private int cohort;
+
     public Student() {
     }
-    @ManyToOne
+    @ManyToOne(fetch = FetchType.LAZY)
     @JoinColumn(name = "faculty_id")
     @JsonBackReference
     private Faculty faculty;
@@ -73,6 +92,22 @@ public class Student {
         this.age = age;
     }
 
+    @JsonIgnore
+    public int getCohort() {
+        return cohort;
+    }
+
+    public void setCohort(int cohort) {
+        this.cohort = cohort;
+    }
+
+    @PrePersist
+    void assignCohort() {
+        if (cohort == 0) {
+            cohort = Cohorts.forAge(age, Cohorts.CLOCK);
+        }
+    }
+
     @Override
     public boolean equals(Object o) {
         if (this == o) return true;
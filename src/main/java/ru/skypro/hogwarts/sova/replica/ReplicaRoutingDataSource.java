@@ -0,0 +1,60 @@
+package ru.skypro.hogwarts.sova.replica;
+
+import org.springframework.jdbc.datasource.AbstractDataSource;
+import ru.skypro.hogwarts.sova.concurrency.BulkheadFullException;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.SQLException;
+
+/**
+ * Источник соединений для read-only транзакций. Используется как
+ * {@code readOnlyDataSource} у
+ * {@link org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy}:
+ * тот берёт физическое соединение только перед первым запросом, когда уже
+ * известно, что транзакция только читает.
+ * <p>
+ * Соединение берётся с реплики, кроме случаев, когда запрос закреплён за
+ * основной базой ({@link ReadYourWrites}), здоровых реплик нет или реплика
+ * не выдала соединение. Переполненное ограничение реплики
+ * ({@link BulkheadFullException}) — не сбой: оно уходит клиенту как 503,
+ * реплика остаётся включённой, а чтения не перекладываются на основную базу.
+ */
+public class ReplicaRoutingDataSource extends AbstractDataSource {
+    private final DataSource primary;
+    private final ReplicaSet replicas;
+
+    public ReplicaRoutingDataSource(DataSource primary, ReplicaSet replicas) {
+        this.primary = primary;
+        this.replicas = replicas;
+    }
+
+    @Override
+    public Connection getConnection() throws SQLException {
+        ReplicaSet.Replica replica = ReadYourWrites.isPinned() ? null : replicas.choose();
+        if (replica != null) {
+            try {
+                Connection connection = replica.getReadSource().getConnection();
+                replica.countRead();
+                return connection;
+            } catch (BulkheadFullException e) {
+                throw e;
+            } catch (SQLException e) {
+                replicas.markDown(replica, e);
+            }
+        }
+        replicas.countPrimaryRead();
+        return primary.getConnection();
+    }
+
+    /**
+     * Пулы реплик открыты с учётными данными основной базы и других не
+     * принимают, поэтому соединение под явным пользователем берётся с
+     * основной базы — так же, как без маршрутизации.
+     */
+    @Override
+    public Connection getConnection(String username, String password) throws SQLException {
+        replicas.countPrimaryRead();
+        return primary.getConnection(username, password);
+    }
+}
@@ -0,0 +1,177 @@
+package ru.skypro.hogwarts.sova.replica;
+
+import com.zaxxer.hikari.HikariDataSource;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.scheduling.annotation.Scheduled;
+import ru.skypro.hogwarts.sova.concurrency.BulkheadDataSource;
+import ru.skypro.hogwarts.sova.concurrency.DatabaseBulkhead;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Пулы соединений к репликам и их состояние. Реплика получает чтения, только
+ * пока последняя проверка прошла и отставание не больше {@code maxLag};
+ * ошибка при выдаче соединения выключает её до следующей удачной проверки.
+ * <p>
+ * С {@code bulkheads} у каждой реплики свой {@link DatabaseBulkhead} по
+ * размеру её пула и с её тайм-аутом соединения: чтения с реплик не занимают
+ * разрешений основной базы, а перегруженная реплика отвечает 503, не
+ * выключаясь и не перекладывая чтения на основную базу.
+ */
+public class ReplicaSet implements DisposableBean {
+    private static final Logger log = LoggerFactory.getLogger(ReplicaSet.class);
+
+    public enum Balance {
+        /** По кругу. */
+        ROUND_ROBIN,
+        /** Реплика с наименьшим числом занятых соединений. */
+        LEAST_LOADED
+    }
+
+    private final List<Replica> replicas;
+    private final Balance balance;
+    private final Duration maxLag;
+    private final String lagQuery;
+    private final AtomicInteger next = new AtomicInteger();
+    private final LongAdder primaryReads = new LongAdder();
+
+    public ReplicaSet(List<HikariDataSource> pools, Balance balance, Duration maxLag, String lagQuery,
+                      boolean bulkheads) {
+        this.replicas = pools.stream().map(pool -> new Replica(pool, bulkheads)).toList();
+        this.balance = balance;
+        this.maxLag = maxLag;
+        this.lagQuery = lagQuery;
+    }
+
+    public List<Replica> getReplicas() {
+        return replicas;
+    }
+
+    /** Здоровая реплика по стратегии балансировки или null. */
+    Replica choose() {
+        List<Replica> healthy = new ArrayList<>(replicas.size());
+        for (Replica replica : replicas) {
+            if (replica.healthy) {
+                healthy.add(replica);
+            }
+        }
+        if (healthy.isEmpty()) {
+            return null;
+        }
+        return switch (balance) {
+            case ROUND_ROBIN -> healthy.get(Math.floorMod(next.getAndIncrement(), healthy.size()));
+            case LEAST_LOADED -> healthy.stream().min(Comparator.comparingInt(Replica::activeConnections)).orElseThrow();
+        };
+    }
+
+    /** Read-only транзакции, ушедшие на основную базу. */
+    public long getPrimaryReadCount() {
+        return primaryReads.sum();
+    }
+
+    void countPrimaryRead() {
+        primaryReads.increment();
+    }
+
+    void markDown(Replica replica, SQLException e) {
+        if (replica.healthy) {
+            log.warn("Replica {} is down, reads go to the primary: {}", replica.getName(), e.getMessage());
+        }
+        replica.healthy = false;
+    }
+
+    @Scheduled(fixedDelayString = "${hogwarts.datasource.replica-check-interval:PT1S}")
+    public void checkReplicas() {
+        for (Replica replica : replicas) {
+            boolean wasHealthy = replica.healthy;
+            try (Connection connection = replica.pool.getConnection();
+                 Statement statement = connection.createStatement();
+                 ResultSet rs = statement.executeQuery(lagQuery)) {
+                double lag = rs.next() ? rs.getDouble(1) : 0;
+                replica.lagSeconds = lag;
+                replica.healthy = lag * 1000 <= maxLag.toMillis();
+            } catch (SQLException e) {
+                replica.healthy = false;
+                if (wasHealthy) {
+                    log.warn("Replica {} check failed: {}", replica.getName(), e.getMessage());
+                }
+            }
+            if (wasHealthy != replica.healthy) {
+                log.info("Replica {} is {} (lag {}s)", replica.getName(),
+                        replica.healthy ? "up" : "down", replica.lagSeconds);
+            }
+        }
+    }
+
+    @Override
+    public void destroy() {
+        replicas.forEach(replica -> replica.pool.close());
+    }
+
+    public static final class Replica {
+        private final HikariDataSource pool;
+        private final DatabaseBulkhead bulkhead;
+        private final DataSource readSource;
+        private final LongAdder reads = new LongAdder();
+        private volatile boolean healthy;
+        private volatile double lagSeconds = Double.NaN;
+
+        private Replica(HikariDataSource pool, boolean bulkhead) {
+            this.pool = pool;
+            this.bulkhead = bulkhead
+                    ? new DatabaseBulkhead(pool.getMaximumPoolSize(), Duration.ofMillis(pool.getConnectionTimeout()))
+                    : null;
+            this.readSource = bulkhead ? new BulkheadDataSource(pool, this.bulkhead) : pool;
+        }
+
+        public String getName() {
+            return pool.getPoolName();
+        }
+
+        public HikariDataSource getPool() {
+            return pool;
+        }
+
+        /** Ограничение одновременных чтений с реплики или null, если ограничения выключены. */
+        public DatabaseBulkhead getBulkhead() {
+            return bulkhead;
+        }
+
+        /** Откуда брать соединения для чтения: пул, с ограничением, если оно есть. */
+        DataSource getReadSource() {
+            return readSource;
+        }
+
+        public boolean isHealthy() {
+            return healthy;
+        }
+
+        public double getLagSeconds() {
+            return lagSeconds;
+        }
+
+        public long getReadCount() {
+            return reads.sum();
+        }
+
+        void countRead() {
+            reads.increment();
+        }
+
+        private int activeConnections() {
+            return pool.getHikariPoolMXBean() == null ? 0 : pool.getHikariPoolMXBean().getActiveConnections();
+        }
+    }
+}
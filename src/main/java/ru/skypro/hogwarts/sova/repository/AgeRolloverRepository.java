@@ -0,0 +1,26 @@
+package ru.skypro.hogwarts.sova.repository;
+
+import jakarta.persistence.LockModeType;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.transaction.annotation.Transactional;
+import ru.skypro.hogwarts.sova.model.AgeRollover;
+
+import java.util.Optional;
+
+public interface AgeRolloverRepository extends JpaRepository<AgeRollover, Integer> {
+
+    /** Заводит переход года, если его ещё нет; параллельный запуск того же года не падает на ключе. */
+    @Modifying
+    @Transactional
+    @Query(value = "INSERT INTO student_age_rollover (rollover_year, last_student_id, started_at) "
+            + "VALUES (:year, 0, CURRENT_TIMESTAMP) ON CONFLICT DO NOTHING", nativeQuery = true)
+    int start(@Param("year") int year);
+
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("SELECT r FROM AgeRollover r WHERE r.year = :year")
+    Optional<AgeRollover> findForUpdate(@Param("year") int year);
+}
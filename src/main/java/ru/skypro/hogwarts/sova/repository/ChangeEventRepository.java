@@ -0,0 +1,24 @@
+package ru.skypro.hogwarts.sova.repository;
+
+import org.springframework.data.domain.Limit;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import ru.skypro.hogwarts.sova.model.ChangeEvent;
+
+import java.time.Instant;
+import java.util.List;
+
+public interface ChangeEventRepository extends JpaRepository<ChangeEvent, Long> {
+
+    @Query("SELECT e FROM ChangeEvent e WHERE e.position IS NULL ORDER BY e.id")
+    List<ChangeEvent> findPending(Limit limit);
+
+    @Query("SELECT e FROM ChangeEvent e WHERE e.position > :position ORDER BY e.position")
+    List<ChangeEvent> findAfter(@Param("position") long position, Limit limit);
+
+    @Modifying
+    @Query("DELETE FROM ChangeEvent e WHERE e.position IS NOT NULL AND e.createdAt < :before")
+    int deletePublishedBefore(@Param("before") Instant before);
+}
@@ -0,0 +1,17 @@
+package ru.skypro.hogwarts.sova.repository;
+
+import jakarta.persistence.LockModeType;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import ru.skypro.hogwarts.sova.model.ChangeRelayState;
+
+import java.util.Optional;
+
+public interface ChangeRelayStateRepository extends JpaRepository<ChangeRelayState, Integer> {
+
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("SELECT s FROM ChangeRelayState s WHERE s.id = :id")
+    Optional<ChangeRelayState> findForUpdate(@Param("id") int id);
+}
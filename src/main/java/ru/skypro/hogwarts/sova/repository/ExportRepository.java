@@ -0,0 +1,86 @@
+package ru.skypro.hogwarts.sova.repository;
+
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+import ru.skypro.hogwarts.sova.export.ExportColumn;
+import ru.skypro.hogwarts.sova.export.RowWriter;
+
+import javax.sql.DataSource;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Выгрузки идут мимо JPA: строки из курсора сразу отдаются RowWriter-у,
+ * без сущностей и DTO. Курсор PostgreSQL работает только внутри
+ * транзакции, поэтому вызывать из транзакционного метода.
+ */
+@Repository
+public class ExportRepository {
+    public static final List<ExportColumn> STUDENT_COLUMNS = List.of(
+            ExportColumn.ofLong("id"),
+            ExportColumn.ofString("name"),
+            ExportColumn.ofInt("age"),
+            ExportColumn.ofLong("facultyId"),
+            ExportColumn.ofString("facultyName"));
+
+    public static final List<ExportColumn> FACULTY_COLUMNS = List.of(
+            ExportColumn.ofLong("id"),
+            ExportColumn.ofString("name"),
+            ExportColumn.ofString("color"),
+            ExportColumn.ofLong("studentCount"));
+
+    private static final int FETCH_SIZE = 1000;
+
+    private final JdbcTemplate jdbcTemplate;
+
+    public ExportRepository(DataSource dataSource) {
+        this.jdbcTemplate = new JdbcTemplate(dataSource);
+        this.jdbcTemplate.setFetchSize(FETCH_SIZE);
+    }
+
+    public void exportStudents(Long facultyId, Integer minAge, Integer maxAge, RowWriter writer) {
+        StringBuilder sql = new StringBuilder("SELECT s.id, s.name, s.age, s.faculty_id, f.name "
+                + "FROM student s LEFT JOIN faculty f ON f.id = s.faculty_id");
+        List<Object> args = new ArrayList<>(3);
+        String glue = " WHERE ";
+        if (facultyId != null) {
+            sql.append(glue).append("s.faculty_id = ?");
+            args.add(facultyId);
+            glue = " AND ";
+        }
+        if (minAge != null) {
+            sql.append(glue).append("s.age >= ?");
+            args.add(minAge);
+            glue = " AND ";
+        }
+        if (maxAge != null) {
+            sql.append(glue).append("s.age <= ?");
+            args.add(maxAge);
+        }
+        sql.append(" ORDER BY s.id");
+        query(sql.toString(), args.toArray(), writer);
+    }
+
+    public void exportFaculties(RowWriter writer) {
+        query("SELECT f.id, f.name, f.color, COUNT(s.id) FROM faculty f "
+                + "LEFT JOIN student s ON s.faculty_id = f.id "
+                + "GROUP BY f.id, f.name, f.color ORDER BY f.id", new Object[0], writer);
+    }
+
+    private void query(String sql, Object[] args, RowWriter writer) {
+        jdbcTemplate.query(sql, row -> {
+            try {
+                writer.write(row);
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }, args);
+        try {
+            writer.finish();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+}
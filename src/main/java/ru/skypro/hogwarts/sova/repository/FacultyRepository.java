@@ -1,12 +1,60 @@
 package ru.skypro.hogwarts.sova.repository;
 
+import org.springframework.data.domain.Limit;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.EntityGraph;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import ru.skypro.hogwarts.sova.dto.FacultyDto;
 import ru.skypro.hogwarts.sova.model.Faculty;
 
 import java.util.Collection;
 import java.util.List;
+import java.util.Optional;
 
 public interface FacultyRepository extends JpaRepository<Faculty, Long> {
-    Collection<Faculty> findByColorIgnoreCase(String color);
-    List<Faculty> findByNameIgnoreCaseOrColorIgnoreCase(String name, String color);
+    String SELECT_DTO = "SELECT new ru.skypro.hogwarts.sova.dto.FacultyDto(f.id, f.name, f.color, f.version) "
+            + "FROM Faculty f ";
+
+    @Query(SELECT_DTO + "WHERE lower(f.color) = lower(:color) ORDER BY f.id")
+    List<FacultyDto> findByColorIgnoreCase(@Param("color") String color);
+
+    @EntityGraph(Faculty.GRAPH_SUMMARY)
+    Optional<Faculty> findSummaryById(Long id);
+
+    @Query(SELECT_DTO + "WHERE f.id = :id")
+    Optional<FacultyDto> findDtoById(@Param("id") Long id);
+
+    @Query(SELECT_DTO + "WHERE f.id IN :ids")
+    List<FacultyDto> findDtosByIdIn(@Param("ids") Collection<Long> ids);
+
+    @Query(SELECT_DTO + "WHERE f.id > :id ORDER BY f.id")
+    List<FacultyDto> findPageAfter(@Param("id") Long id, Limit limit);
+
+    @Query("SELECT f.id FROM Faculty f WHERE f.id IN :ids")
+    List<Long> findExistingIds(@Param("ids") Collection<Long> ids);
+
+    // Все предикаты поиска идут по lower(...) и обслуживаются индексами
+    // из V3__search_indexes.sql.
+
+    @Query(SELECT_DTO + "WHERE lower(f.name) = lower(:q) OR lower(f.color) = lower(:q) ORDER BY f.id")
+    List<FacultyDto> searchExact(@Param("q") String query, Pageable pageable);
+
+    @Query(SELECT_DTO
+            + "WHERE lower(f.name) LIKE :prefix ESCAPE '\\' OR lower(f.color) LIKE :prefix ESCAPE '\\' "
+            + "ORDER BY length(f.name), f.id")
+    List<FacultyDto> searchByPrefix(@Param("prefix") String prefixPattern, Pageable pageable);
+
+    @Query(value = "SELECT f.id FROM faculty f "
+            + "WHERE lower(f.name) % lower(:q) OR lower(f.color) % lower(:q) "
+            + "ORDER BY greatest(similarity(lower(f.name), lower(:q)), similarity(lower(f.color), lower(:q))) DESC, f.id "
+            + "LIMIT :limit OFFSET :offset",
+            nativeQuery = true)
+    List<Long> searchIdsFuzzy(@Param("q") String query, @Param("limit") int limit, @Param("offset") long offset);
+
+    @Modifying
+    @Query("DELETE FROM Faculty f WHERE f.id = :id")
+    int deleteFacultyById(@Param("id") Long id);
 }
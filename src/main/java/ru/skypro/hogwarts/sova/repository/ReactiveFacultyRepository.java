@@ -0,0 +1,23 @@
+package ru.skypro.hogwarts.sova.repository;
+
+import org.springframework.data.annotation.Id;
+import org.springframework.data.r2dbc.repository.Query;
+import org.springframework.data.r2dbc.repository.R2dbcRepository;
+import org.springframework.data.relational.core.mapping.Table;
+import reactor.core.publisher.Flux;
+import ru.skypro.hogwarts.sova.dto.FacultyDto;
+
+/** Чтение факультетов через R2DBC для /reactive/**. */
+public interface ReactiveFacultyRepository extends R2dbcRepository<ReactiveFacultyRepository.FacultyRow, Long> {
+
+    @Query("SELECT id, name, color, version FROM faculty ORDER BY id")
+    Flux<FacultyRow> findAllOrderById();
+
+    @Table("faculty")
+    record FacultyRow(@Id Long id, String name, String color, Integer version) {
+
+        public FacultyDto toDto() {
+            return new FacultyDto(id, name, color, version);
+        }
+    }
+}
@@ -0,0 +1,37 @@
+package ru.skypro.hogwarts.sova.repository;
+
+import org.springframework.data.annotation.Id;
+import org.springframework.data.r2dbc.repository.Query;
+import org.springframework.data.r2dbc.repository.R2dbcRepository;
+import org.springframework.data.relational.core.mapping.Table;
+import reactor.core.publisher.Flux;
+import ru.skypro.hogwarts.sova.dto.StudentDto;
+
+/**
+ * Чтение студентов через R2DBC для /reactive/**. Та же таблица, что и у
+ * JPA-сущности Student; строки читаются по мере запроса подписчика.
+ */
+public interface ReactiveStudentRepository extends R2dbcRepository<ReactiveStudentRepository.StudentRow, Long> {
+    String SELECT_ROW = "SELECT id, name, age, faculty_id, version FROM student ";
+
+    @Query(SELECT_ROW + "ORDER BY id")
+    Flux<StudentRow> findAllOrderById();
+
+    // fromCohort — окно потоков, как у StudentRepository
+    @Query(SELECT_ROW + "WHERE age = :age AND cohort >= :fromCohort ORDER BY id")
+    Flux<StudentRow> findByAge(int age, int fromCohort);
+
+    @Query(SELECT_ROW + "WHERE age BETWEEN :min AND :max AND cohort >= :fromCohort ORDER BY id")
+    Flux<StudentRow> findByAgeBetween(int min, int max, int fromCohort);
+
+    @Query(SELECT_ROW + "WHERE faculty_id = :facultyId AND cohort >= :fromCohort ORDER BY id")
+    Flux<StudentRow> findByFacultyId(long facultyId, int fromCohort);
+
+    @Table("student")
+    record StudentRow(@Id Long id, String name, int age, Long facultyId, Integer version) {
+
+        public StudentDto toDto() {
+            return new StudentDto(id, name, age, facultyId, version);
+        }
+    }
+}
@@ -0,0 +1,30 @@
+package ru.skypro.hogwarts.sova.repository;
+
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+import ru.skypro.hogwarts.sova.dto.StudentDto;
+
+import javax.sql.DataSource;
+import java.util.List;
+
+/**
+ * Архив потоков (схема student_archive, V7): по таблице student_&lt;год&gt; на
+ * отсоединённый поток. Имя таблицы зависит от потока, поэтому запросы мимо
+ * JPA; поток — число, в SQL подставляется как есть.
+ */
+@Repository
+public class StudentArchiveRepository {
+    private final JdbcTemplate jdbcTemplate;
+
+    public StudentArchiveRepository(DataSource dataSource) {
+        this.jdbcTemplate = new JdbcTemplate(dataSource);
+    }
+
+    /** Студенты архивированного потока {@code cohort} по возрастанию id. */
+    public List<StudentDto> findStudents(int cohort) {
+        return jdbcTemplate.query("SELECT id, name, age, faculty_id, version FROM student_archive.student_" + cohort
+                        + " ORDER BY id",
+                (rs, row) -> new StudentDto(rs.getLong(1), rs.getString(2), rs.getInt(3),
+                        rs.getObject(4, Long.class), rs.getObject(5, Integer.class)));
+    }
+}
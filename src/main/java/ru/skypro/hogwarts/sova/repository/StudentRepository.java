@@ -1,24 +1,182 @@
 package ru.skypro.hogwarts.sova.repository;
 
+import jakarta.persistence.QueryHint;
 import jakarta.transaction.Transactional;
+import org.hibernate.jpa.HibernateHints;
+import org.springframework.data.domain.Limit;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.EntityGraph;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
 import org.springframework.data.repository.query.Param;
+import ru.skypro.hogwarts.sova.dto.StudentDto;
 import ru.skypro.hogwarts.sova.model.Student;
 
 import java.util.Collection;
 import java.util.List;
+import java.util.Optional;
+import java.util.stream.Stream;
 
 public interface StudentRepository extends JpaRepository<Student, Long> {
-    Collection<Student> findByAge(int age);
-    List<Student> findByAgeBetween(int min, int max);
+    String SELECT_DTO = "SELECT new ru.skypro.hogwarts.sova.dto.StudentDto(s.id, s.name, s.age, s.faculty.id, s.version) "
+            + "FROM Student s ";
 
+    // fromCohort — StudentCohorts.from(): условие на ключ секционирования
+    // отсекает секции потоков раньше окна; при 0 читаются все секции.
+
+    @Query(SELECT_DTO + "WHERE s.age = :age AND s.cohort >= :fromCohort ORDER BY s.id")
+    List<StudentDto> findByAge(@Param("age") int age, @Param("fromCohort") int fromCohort);
+
+    @Query(SELECT_DTO + "WHERE s.age BETWEEN :min AND :max AND s.cohort >= :fromCohort ORDER BY s.id")
+    List<StudentDto> findByAgeBetween(@Param("min") int min, @Param("max") int max,
+                                      @Param("fromCohort") int fromCohort);
+
+    @Query(SELECT_DTO + "WHERE s.age BETWEEN :min AND :max AND s.cohort >= :fromCohort ORDER BY s.id")
+    List<StudentDto> findByAgeBetween(@Param("min") int min, @Param("max") int max,
+                                      @Param("fromCohort") int fromCohort, Pageable pageable);
+
+    @Query("SELECT COUNT(s) FROM Student s WHERE s.age BETWEEN :min AND :max AND s.cohort >= :fromCohort")
+    long countByAgeBetween(@Param("min") int min, @Param("max") int max, @Param("fromCohort") int fromCohort);
+
+    @Query(SELECT_DTO + "WHERE s.id > :id ORDER BY s.id")
+    List<StudentDto> findPageAfter(@Param("id") Long id, Limit limit);
+
+    @EntityGraph(Student.GRAPH_FACULTY_ID_ONLY)
+    Optional<Student> findSummaryById(Long id);
+
+    @Query(SELECT_DTO + "WHERE s.id = :id")
+    Optional<StudentDto> findDtoById(@Param("id") Long id);
+
+    @Query(SELECT_DTO + "WHERE s.id IN :ids")
+    List<StudentDto> findDtosByIdIn(@Param("ids") Collection<Long> ids);
+
+    /** Порядок и страница задаются через Pageable (может быть unpaged с сортировкой). */
+    @Query(SELECT_DTO + "WHERE s.faculty.id = :facultyId AND s.cohort >= :fromCohort")
+    List<StudentDto> findByFacultyId(@Param("facultyId") Long facultyId, @Param("fromCohort") int fromCohort,
+                                     Pageable pageable);
+
+    @Query("SELECT COUNT(s) FROM Student s WHERE s.faculty.id = :facultyId AND s.cohort >= :fromCohort")
+    long countByFacultyId(@Param("facultyId") Long facultyId, @Param("fromCohort") int fromCohort);
+
+    @Query(SELECT_DTO + "WHERE lower(s.name) = lower(:q) ORDER BY s.id")
+    List<StudentDto> searchByNameExact(@Param("q") String query, Pageable pageable);
+
+    @Query(SELECT_DTO + "WHERE lower(s.name) LIKE :prefix ESCAPE '\\' ORDER BY length(s.name), s.id")
+    List<StudentDto> searchByNamePrefix(@Param("prefix") String prefixPattern, Pageable pageable);
+
+    @Query(value = "SELECT s.id FROM student s WHERE lower(s.name) % lower(:q) "
+            + "ORDER BY similarity(lower(s.name), lower(:q)) DESC, s.id "
+            + "LIMIT :limit OFFSET :offset",
+            nativeQuery = true)
+    List<Long> searchIdsByNameFuzzy(@Param("q") String query, @Param("limit") int limit, @Param("offset") long offset);
+
+    @Query("SELECT s.age AS age, COUNT(s) AS count FROM Student s GROUP BY s.age ORDER BY s.age")
+    List<AgeCount> countByAge();
+
+    @Query("SELECT s.age AS age, COUNT(s) AS count FROM Student s "
+            + "WHERE s.faculty.id = :facultyId GROUP BY s.age ORDER BY s.age")
+    List<AgeCount> countByAgeForFaculty(@Param("facultyId") Long facultyId);
+
+    @Query("SELECT s.faculty.id AS facultyId, s.age AS age, COUNT(s) AS count FROM Student s "
+            + "GROUP BY s.faculty.id, s.age")
+    List<FacultyAgeCount> countByFacultyAndAge();
+
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "500"))
+    @Query(SELECT_DTO + "ORDER BY s.id")
+    Stream<StudentDto> streamAll();
+
+    /**
+     * Пары (возраст, id) всех студентов для загрузки индекса по возрасту,
+     * упорядоченные так, что id внутри возраста идут по возрастанию.
+     */
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "10000"))
+    @Query("SELECT s.age, s.id FROM Student s ORDER BY s.age, s.id")
+    Stream<Object[]> streamAgeAndId();
+
+    /**
+     * Id студентов факультета по возрастанию. Окна потоков здесь нет:
+     * отвязать нужно и выпускников, иначе удаление факультета упрётся во
+     * внешний ключ.
+     */
+    @Query("SELECT s.id FROM Student s WHERE s.faculty.id = :facultyId ORDER BY s.id")
+    List<Long> findIdsByFaculty(@Param("facultyId") Long facultyId, Limit limit);
+
+    /**
+     * Отвязывает от факультета студентов из списка, всё ещё числящихся на
+     * нём, и увеличивает их версию. Возвращает число затронутых строк.
+     * Условие по faculty_id оставляет в каждой секции поиск по его индексу.
+     */
     @Modifying
     @Transactional
-    @Query("UPDATE Student s SET s.faculty = null WHERE s.faculty.id = :facultyId")
-    void detachStudentsFromFaculty(@Param("facultyId") Long facultyId);
-}
+    @Query(value = "UPDATE student SET faculty_id = NULL, version = COALESCE(version, 0) + 1 "
+            + "WHERE faculty_id = :facultyId AND id IN (:ids)",
+            nativeQuery = true)
+    int detachStudents(@Param("ids") Collection<Long> ids, @Param("facultyId") Long facultyId);
+
+    /** Секционирована ли student по потокам: есть ли функции из V7 (только PostgreSQL). */
+    @Query(value = "SELECT COUNT(*) > 0 FROM information_schema.routines "
+            + "WHERE routine_name = 'student_cohort_partition'", nativeQuery = true)
+    boolean isPartitionedByCohort();
+
+    /** Создаёт секцию потока, если её нет. */
+    @Transactional
+    @Query(value = "SELECT student_cohort_partition(:cohort)", nativeQuery = true)
+    Object createCohortPartition(@Param("cohort") int cohort);
+
+    /** Потоки, строки которых лежат в секции по умолчанию: своей секции у них ещё нет (V7). */
+    @Query(value = "SELECT DISTINCT cohort FROM student_cohort_default ORDER BY cohort", nativeQuery = true)
+    List<Integer> findUnpartitionedCohorts();
+
+    /** Отсоединяет секции потоков раньше {@code beforeCohort} в схему student_archive (V7). */
+    @Transactional
+    @Query(value = "SELECT cohort FROM student_archive_cohorts(:beforeCohort) AS cohort ORDER BY cohort",
+            nativeQuery = true)
+    List<Integer> archiveCohortsBefore(@Param("beforeCohort") int beforeCohort);
+
+    // Массовые операции: id пачки выбираются отдельно, UPDATE идёт по списку
+    // id, так что блокировки держатся только на строках одной пачки.
 
+    @Query("SELECT s.id FROM Student s WHERE s.faculty.id = :facultyId "
+            + "AND s.age BETWEEN :minAge AND :maxAge ORDER BY s.id")
+    List<Long> findIdsByFacultyAndAge(@Param("facultyId") Long facultyId, @Param("minAge") int minAge,
+                                      @Param("maxAge") int maxAge, Limit limit);
 
+    @Query("SELECT s.id FROM Student s WHERE s.id IN :ids AND s.faculty.id = :facultyId "
+            + "AND s.age BETWEEN :minAge AND :maxAge")
+    List<Long> findIdsByFacultyAndAgeIn(@Param("ids") Collection<Long> ids, @Param("facultyId") Long facultyId,
+                                        @Param("minAge") int minAge, @Param("maxAge") int maxAge);
 
+    @Query("SELECT s.id FROM Student s WHERE s.id > :id ORDER BY s.id")
+    List<Long> findIdsAfter(@Param("id") long id, Limit limit);
+
+    /**
+     * Переводит студентов из списка, всё ещё числящихся на {@code fromFacultyId},
+     * и увеличивает их версию. Возвращает число затронутых строк.
+     */
+    @Modifying
+    @Transactional
+    @Query(value = "UPDATE student SET faculty_id = :toFacultyId, version = COALESCE(version, 0) + 1 "
+            + "WHERE id IN (:ids) AND faculty_id = :fromFacultyId",
+            nativeQuery = true)
+    int transferStudents(@Param("ids") Collection<Long> ids, @Param("fromFacultyId") Long fromFacultyId,
+                         @Param("toFacultyId") Long toFacultyId);
+
+    @Modifying
+    @Transactional
+    @Query(value = "UPDATE student SET age = age + 1, version = COALESCE(version, 0) + 1 WHERE id IN (:ids)",
+            nativeQuery = true)
+    int incrementAges(@Param("ids") Collection<Long> ids);
+
+    interface AgeCount {
+        int getAge();
+        long getCount();
+    }
+
+    interface FacultyAgeCount {
+        Long getFacultyId();
+        int getAge();
+        long getCount();
+    }
+}
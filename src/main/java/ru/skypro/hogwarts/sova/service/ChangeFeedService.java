@@ -0,0 +1,303 @@
+package ru.skypro.hogwarts.sova.service;
+
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.event.ContextClosedEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.Limit;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.springframework.web.server.ResponseStatusException;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+import ru.skypro.hogwarts.sova.dto.ChangeEventDto;
+import ru.skypro.hogwarts.sova.dto.ChangeFeedPage;
+import ru.skypro.hogwarts.sova.dto.CursorPage;
+import ru.skypro.hogwarts.sova.model.ChangeEvent;
+import ru.skypro.hogwarts.sova.model.ChangeRelayState;
+import ru.skypro.hogwarts.sova.repository.ChangeEventRepository;
+import ru.skypro.hogwarts.sova.repository.ChangeRelayStateRepository;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Лента изменений из журнала change_event (см. {@link ChangeOutbox}).
+ * <p>
+ * Порядковые id строк журнала выдаются при INSERT, а коммитятся транзакции
+ * в другом порядке, поэтому читать ленту по id нельзя: можно проскочить
+ * строку, закоммиченную позже соседней. Ретранслятор раз в
+ * {@code hogwarts.outbox.relay-interval} берёт уже закоммиченные строки без
+ * смещения и нумерует их подряд под блокировкой строки change_relay_state,
+ * так что смещения растут в порядке появления и без пропусков. Клиент
+ * продолжает с последнего увиденного смещения: GET /changes?since= или
+ * SSE с Last-Event-ID.
+ * <p>
+ * Смещения упорядочивают ленту по ретрансляции, а не по коммитам: в одну
+ * выборку попадают строки нескольких транзакций, а id из последовательности
+ * с allocationSize=50 у разных экземпляров приложения не растут в порядке
+ * коммитов. Поэтому две правки одной сущности могут стоять в ленте не в
+ * порядке версий. Контракт для потребителей: событие применяется, только
+ * если его версия больше уже известной для этой сущности; версия удаления —
+ * последняя версия строки, и правка с версией не больше неё устарела.
+ * Так поступает {@link StudentSnapshot}.
+ * <p>
+ * Подписчики SSE обслуживаются тем же ретранслятором: подписчики на одном
+ * смещении получают события из одной выборки. Сами отправки идут в
+ * отдельном пуле {@code hogwarts.outbox.stream.send-threads}: медленный
+ * клиент не держит поток планировщика, а пока его предыдущая отправка не
+ * закончилась, новых ему не назначается — он догонит ленту со своего
+ * смещения, когда освободится. Строки старше
+ * {@code hogwarts.outbox.retention} удаляются; запрос смещения, которое
+ * уже удалено, получает 410 — клиенту нужно перечитать данные целиком.
+ * <p>
+ * Журнал и смещение ретранслятора читаются только с основной базы, в
+ * транзакции на запись: с реплик, отстающих по-разному, страница и
+ * последнее смещение могли бы прийти из разных моментов и дать ложный 410.
+ */
+@Service
+public class ChangeFeedService {
+    private static final Logger log = LoggerFactory.getLogger(ChangeFeedService.class);
+
+    private final ChangeEventRepository changeEventRepository;
+    private final ChangeRelayStateRepository relayStateRepository;
+    private final TransactionTemplate transactionTemplate;
+    private final int batchSize;
+    private final Duration retention;
+    private final int maxSubscribers;
+    private final Duration streamTimeout;
+    private final ThreadPoolTaskExecutor sendExecutor;
+
+    private final List<Subscriber> subscribers = new CopyOnWriteArrayList<>();
+
+    public ChangeFeedService(ChangeEventRepository changeEventRepository,
+                             ChangeRelayStateRepository relayStateRepository,
+                             PlatformTransactionManager transactionManager,
+                             @Value("${hogwarts.outbox.batch-size:500}") int batchSize,
+                             @Value("${hogwarts.outbox.retention:P7D}") Duration retention,
+                             @Value("${hogwarts.outbox.stream.max-subscribers:100}") int maxSubscribers,
+                             @Value("${hogwarts.outbox.stream.timeout:PT30M}") Duration streamTimeout,
+                             @Value("${hogwarts.outbox.stream.send-threads:4}") int sendThreads) {
+        this.changeEventRepository = changeEventRepository;
+        this.relayStateRepository = relayStateRepository;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.batchSize = batchSize;
+        this.retention = retention;
+        this.maxSubscribers = maxSubscribers;
+        this.streamTimeout = streamTimeout;
+        // у подписчика не больше одной отправки в очереди, так что очередь длиной в max-subscribers не переполняется
+        this.sendExecutor = new ThreadPoolTaskExecutor();
+        sendExecutor.setCorePoolSize(sendThreads);
+        sendExecutor.setMaxPoolSize(sendThreads);
+        sendExecutor.setQueueCapacity(maxSubscribers);
+        sendExecutor.setThreadNamePrefix("change-feed-");
+        sendExecutor.initialize();
+    }
+
+    /** Открытые потоки SSE иначе держали бы плавную остановку Tomcat до её тайм-аута. */
+    @EventListener(ContextClosedEvent.class)
+    public void completeSubscribers() {
+        subscribers.forEach(subscriber -> subscriber.emitter.complete());
+        subscribers.clear();
+    }
+
+    @PreDestroy
+    void shutdown() {
+        sendExecutor.shutdown();
+    }
+
+    @Scheduled(fixedDelayString = "${hogwarts.outbox.relay-interval:PT0.2S}",
+            initialDelayString = "${hogwarts.outbox.relay-interval:PT0.2S}")
+    public void relay() {
+        int assigned;
+        do {
+            assigned = assignPositions();
+        } while (assigned == batchSize);
+        if (!subscribers.isEmpty()) {
+            publishToSubscribers();
+        }
+    }
+
+    /**
+     * Нумерует до {@code batch-size} строк без смещения. Пустой журнал стоит
+     * одного запроса по частичному индексу, блокировка берётся только когда
+     * есть работа.
+     */
+    int assignPositions() {
+        if (Boolean.TRUE.equals(transactionTemplate.execute(
+                status -> changeEventRepository.findPending(Limit.of(1)).isEmpty()))) {
+            return 0;
+        }
+        Integer assigned = transactionTemplate.execute(status -> {
+            ChangeRelayState state = relayStateRepository.findForUpdate(ChangeRelayState.SINGLETON_ID)
+                    .orElseGet(() -> relayStateRepository.save(new ChangeRelayState(ChangeRelayState.SINGLETON_ID, 0)));
+            List<ChangeEvent> pending = changeEventRepository.findPending(Limit.of(batchSize));
+            long position = state.getLastPosition();
+            for (ChangeEvent event : pending) {
+                event.setPosition(++position);
+            }
+            state.setLastPosition(position);
+            return pending.size();
+        });
+        return assigned == null ? 0 : assigned;
+    }
+
+    /** Изменения со смещением больше {@code since}, не более {@code limit}. */
+    public ChangeFeedPage changesSince(long since, int limit) {
+        List<ChangeEventDto> events = readAfter(since, CursorPage.normalizeLimit(limit));
+        return new ChangeFeedPage(events, events.isEmpty() ? since : events.get(events.size() - 1).position());
+    }
+
+    /** Последнее выданное смещение ленты (с основной базы). */
+    public long lastPosition() {
+        Long position = transactionTemplate.execute(status -> readLastPosition());
+        return position == null ? 0 : position;
+    }
+
+    private long readLastPosition() {
+        return relayStateRepository.findById(ChangeRelayState.SINGLETON_ID)
+                .map(ChangeRelayState::getLastPosition)
+                .orElse(0L);
+    }
+
+    /**
+     * Подписка на ленту через SSE. Без {@code since} — только новые
+     * изменения; с ним — сначала пропущенные, затем новые.
+     */
+    public SseEmitter subscribe(Long since) {
+        if (subscribers.size() >= maxSubscribers) {
+            throw new ResponseStatusException(HttpStatus.SERVICE_UNAVAILABLE, "Слишком много подписчиков ленты изменений");
+        }
+        long position;
+        if (since == null) {
+            position = lastPosition();
+        } else {
+            readAfter(since, 1);
+            position = since;
+        }
+        SseEmitter emitter = new SseEmitter(streamTimeout.toMillis());
+        Subscriber subscriber = new Subscriber(emitter, position);
+        emitter.onCompletion(() -> subscribers.remove(subscriber));
+        emitter.onTimeout(() -> subscribers.remove(subscriber));
+        emitter.onError(e -> subscribers.remove(subscriber));
+        subscribers.add(subscriber);
+        return emitter;
+    }
+
+    @Scheduled(fixedDelayString = "PT1H", initialDelayString = "PT1H")
+    public void purge() {
+        Instant before = Instant.now().minus(retention);
+        Integer deleted = transactionTemplate.execute(status -> changeEventRepository.deletePublishedBefore(before));
+        log.debug("Purged {} change events older than {}", deleted, before);
+    }
+
+    /**
+     * Смещения идут подряд, поэтому разрыв между {@code since} и первым
+     * найденным событием (или выданные, но не найденные события) означает,
+     * что нужные строки уже удалены. Последнее смещение читается до строк,
+     * на том же соединении основной базы: ретранслятор коммитит его вместе
+     * со смещениями строк, так что все строки до него уже видны.
+     */
+    private List<ChangeEventDto> readAfter(long since, int limit) {
+        if (since < 0) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Смещение не может быть отрицательным");
+        }
+        List<ChangeEventDto> events = transactionTemplate.execute(status -> {
+            long last = readLastPosition();
+            List<ChangeEventDto> found = changeEventRepository.findAfter(since, Limit.of(limit)).stream()
+                    .map(ChangeEventDto::of)
+                    .toList();
+            boolean purged = found.isEmpty()
+                    ? last > since
+                    : found.get(0).position() > since + 1;
+            if (purged) {
+                throw new ResponseStatusException(HttpStatus.GONE,
+                        "Изменения после смещения " + since + " уже удалены, перечитайте данные целиком");
+            }
+            return found;
+        });
+        return events == null ? List.of() : events;
+    }
+
+    private void publishToSubscribers() {
+        Map<Long, List<Subscriber>> byPosition = new HashMap<>();
+        for (Subscriber subscriber : subscribers) {
+            if (subscriber.sending.get()) {
+                continue;
+            }
+            byPosition.computeIfAbsent(subscriber.position, p -> new ArrayList<>()).add(subscriber);
+        }
+        byPosition.forEach((position, group) -> {
+            List<ChangeEventDto> events;
+            try {
+                events = readAfter(position, batchSize);
+            } catch (ResponseStatusException e) {
+                group.forEach(subscriber -> subscriber.emitter.completeWithError(e));
+                return;
+            }
+            if (!events.isEmpty()) {
+                group.forEach(subscriber -> sendAsync(subscriber, events));
+            }
+        });
+    }
+
+    private void sendAsync(Subscriber subscriber, List<ChangeEventDto> events) {
+        if (!subscriber.sending.compareAndSet(false, true)) {
+            return;
+        }
+        try {
+            sendExecutor.execute(() -> {
+                try {
+                    send(subscriber, events);
+                } finally {
+                    subscriber.sending.set(false);
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            // пул остановлен: приложение завершается
+            subscriber.sending.set(false);
+        }
+    }
+
+    private void send(Subscriber subscriber, List<ChangeEventDto> events) {
+        try {
+            for (ChangeEventDto event : events) {
+                subscriber.emitter.send(SseEmitter.event()
+                        .id(Long.toString(event.position()))
+                        .name(event.entityType().name().toLowerCase(Locale.ROOT))
+                        .data(event, MediaType.APPLICATION_JSON));
+                subscriber.position = event.position();
+            }
+        } catch (IOException | IllegalStateException e) {
+            subscribers.remove(subscriber);
+            subscriber.emitter.completeWithError(e);
+        }
+    }
+
+    private static final class Subscriber {
+        private final SseEmitter emitter;
+        // пока идёт отправка, смещение меняет только она; ретранслятор читает его после
+        private final AtomicBoolean sending = new AtomicBoolean();
+        private volatile long position;
+
+        private Subscriber(SseEmitter emitter, long position) {
+            this.emitter = emitter;
+            this.position = position;
+        }
+    }
+}
@@ -0,0 +1,95 @@
+package ru.skypro.hogwarts.sova.service;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import ru.skypro.hogwarts.sova.dto.FacultyDto;
+import ru.skypro.hogwarts.sova.dto.StudentDto;
+import ru.skypro.hogwarts.sova.event.FacultyChangedEvent;
+import ru.skypro.hogwarts.sova.event.StudentChangedEvent;
+import ru.skypro.hogwarts.sova.model.ChangeEvent;
+import ru.skypro.hogwarts.sova.model.ChangeEvent.EntityType;
+import ru.skypro.hogwarts.sova.repository.ChangeEventRepository;
+
+import java.util.Collection;
+
+/**
+ * Пишет изменения в журнал change_event синхронно, в транзакции самого
+ * изменения: запись в журнале есть тогда и только тогда, когда изменение
+ * закоммичено. Публиковать события вне транзакции нельзя (MANDATORY).
+ * <p>
+ * Строки только добавляются в контекст персистентности и уходят в базу
+ * вместе с остальными INSERT/UPDATE при flush, пакетом.
+ */
+@Component
+public class ChangeOutbox {
+    private final ChangeEventRepository changeEventRepository;
+    private final ObjectMapper objectMapper;
+
+    public ChangeOutbox(ChangeEventRepository changeEventRepository, ObjectMapper objectMapper) {
+        this.changeEventRepository = changeEventRepository;
+        this.objectMapper = objectMapper;
+    }
+
+    @EventListener
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void onStudentChanged(StudentChangedEvent event) {
+        StudentChangedEvent.State after = event.after();
+        StudentDto payload = after == null ? null
+                : new StudentDto(event.studentId(), after.name(), after.age(), after.facultyId(), after.version());
+        Integer version = after != null ? after.version() : event.before().version();
+        record(EntityType.STUDENT, event.studentId(), type(event.before(), after), version, payload);
+    }
+
+    @EventListener
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void onFacultyChanged(FacultyChangedEvent event) {
+        FacultyDto after = event.after();
+        Integer version = after != null ? after.version() : event.before().version();
+        record(EntityType.FACULTY, event.facultyId(), type(event.before(), after), version, after);
+    }
+
+    /**
+     * Студенты, изменённые set-based UPDATE: событий на каждую строку нет,
+     * состояние после изменения перечитано вызывающим.
+     */
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void studentsUpdated(Collection<StudentDto> students) {
+        for (StudentDto student : students) {
+            record(EntityType.STUDENT, student.id(), ChangeEvent.Type.UPDATED, student.version(), student);
+        }
+    }
+
+    /** Студенты, убранные из student целиком (архивирование потоков): события DELETED. */
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void studentsDeleted(Collection<StudentDto> students) {
+        for (StudentDto student : students) {
+            record(EntityType.STUDENT, student.id(), ChangeEvent.Type.DELETED, student.version(), null);
+        }
+    }
+
+    private void record(EntityType entityType, long entityId, ChangeEvent.Type type, Integer version, Object payload) {
+        changeEventRepository.save(new ChangeEvent(entityType, entityId, type, version, toJson(payload)));
+    }
+
+    private static ChangeEvent.Type type(Object before, Object after) {
+        if (before == null) {
+            return ChangeEvent.Type.CREATED;
+        }
+        return after == null ? ChangeEvent.Type.DELETED : ChangeEvent.Type.UPDATED;
+    }
+
+    private String toJson(Object payload) {
+        if (payload == null) {
+            return null;
+        }
+        try {
+            return objectMapper.writeValueAsString(payload);
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("Не удалось сериализовать изменение", e);
+        }
+    }
+}
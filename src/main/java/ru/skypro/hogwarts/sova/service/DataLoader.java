@@ -0,0 +1,123 @@
+package ru.skypro.hogwarts.sova.service;
+
+import org.springframework.web.context.request.RequestAttributes;
+import org.springframework.web.context.request.RequestContextHolder;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.function.Function;
+import java.util.function.ToLongFunction;
+
+/**
+ * Загрузчик по id на время одного HTTP-запроса. {@link #load} только
+ * регистрирует id и возвращает future; {@link #dispatch} забирает все
+ * накопленные id и грузит их одним пакетом. Повторный или одновременный
+ * запрос того же id получает тот же future, поэтому каждый id читается
+ * не больше одного раза за запрос, из какого бы потока его ни спросили.
+ */
+public final class DataLoader<V> {
+    /** Размер IN-списка: больше — длиннее разбор запроса и план, меньше — больше обращений к базе. */
+    static final int CHUNK_SIZE = 500;
+
+    private final Function<Set<Long>, Map<Long, V>> batchLoader;
+    private final Map<Long, CompletableFuture<Optional<V>>> futures = new HashMap<>();
+    private final Set<Long> pending = new LinkedHashSet<>();
+
+    DataLoader(Function<Set<Long>, Map<Long, V>> batchLoader) {
+        this.batchLoader = batchLoader;
+    }
+
+    /**
+     * Загрузчик текущего запроса (атрибут запроса {@code name}); вне
+     * HTTP-запроса — новый на каждый вызов.
+     */
+    @SuppressWarnings("unchecked")
+    static <V> DataLoader<V> forCurrentRequest(String name, Function<Set<Long>, Map<Long, V>> batchLoader) {
+        RequestAttributes attributes = RequestContextHolder.getRequestAttributes();
+        if (attributes == null) {
+            return new DataLoader<>(batchLoader);
+        }
+        String key = DataLoader.class.getName() + "." + name;
+        synchronized (attributes) {
+            DataLoader<V> loader = (DataLoader<V>) attributes.getAttribute(key, RequestAttributes.SCOPE_REQUEST);
+            if (loader == null) {
+                loader = new DataLoader<>(batchLoader);
+                attributes.setAttribute(key, loader, RequestAttributes.SCOPE_REQUEST);
+            }
+            return loader;
+        }
+    }
+
+    /** Грузит {@code ids} через {@code query} порциями по {@value #CHUNK_SIZE}. */
+    static <V> Map<Long, V> loadInChunks(Collection<Long> ids, Function<Collection<Long>, List<V>> query,
+                                         ToLongFunction<V> idOf) {
+        Map<Long, V> result = new HashMap<>(ids.size() * 2);
+        List<Long> chunk = new ArrayList<>(Math.min(ids.size(), CHUNK_SIZE));
+        for (Long id : ids) {
+            chunk.add(id);
+            if (chunk.size() == CHUNK_SIZE) {
+                query.apply(chunk).forEach(value -> result.put(idOf.applyAsLong(value), value));
+                chunk.clear();
+            }
+        }
+        if (!chunk.isEmpty()) {
+            query.apply(chunk).forEach(value -> result.put(idOf.applyAsLong(value), value));
+        }
+        return result;
+    }
+
+    public synchronized CompletableFuture<Optional<V>> load(long id) {
+        CompletableFuture<Optional<V>> future = futures.get(id);
+        if (future == null) {
+            future = new CompletableFuture<>();
+            futures.put(id, future);
+            pending.add(id);
+        }
+        return future;
+    }
+
+    /** Загружает всё, что накопилось с прошлого вызова; пустая очередь — ничего не делает. */
+    public void dispatch() {
+        Map<Long, CompletableFuture<Optional<V>>> batch;
+        synchronized (this) {
+            if (pending.isEmpty()) {
+                return;
+            }
+            batch = new LinkedHashMap<>(pending.size() * 2);
+            for (Long id : pending) {
+                batch.put(id, futures.get(id));
+            }
+            pending.clear();
+        }
+        try {
+            Map<Long, V> loaded = batchLoader.apply(batch.keySet());
+            batch.forEach((id, future) -> future.complete(Optional.ofNullable(loaded.get(id))));
+        } catch (RuntimeException e) {
+            synchronized (this) {
+                batch.keySet().forEach(futures::remove);
+            }
+            batch.values().forEach(future -> future.completeExceptionally(e));
+            throw e;
+        }
+    }
+
+    /** Все {@code ids} за один dispatch; не найденных в результате нет. */
+    public Map<Long, V> loadMany(Collection<Long> ids) {
+        Map<Long, CompletableFuture<Optional<V>>> requested = new LinkedHashMap<>(ids.size() * 2);
+        for (Long id : ids) {
+            requested.put(id, load(id));
+        }
+        dispatch();
+        Map<Long, V> result = new LinkedHashMap<>(requested.size() * 2);
+        requested.forEach((id, future) -> future.join().ifPresent(value -> result.put(id, value)));
+        return result;
+    }
+}
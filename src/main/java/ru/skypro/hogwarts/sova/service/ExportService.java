@@ -0,0 +1,41 @@
+package ru.skypro.hogwarts.sova.service;
+
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import ru.skypro.hogwarts.sova.export.ExportFormat;
+import ru.skypro.hogwarts.sova.export.RowWriter;
+import ru.skypro.hogwarts.sova.repository.ExportRepository;
+
+import java.io.IOException;
+import java.io.OutputStream;
+
+@Service
+public class ExportService {
+    private final ExportRepository exportRepository;
+    private final JsonFactory jsonFactory;
+
+    public ExportService(ExportRepository exportRepository, ObjectMapper objectMapper) {
+        this.exportRepository = exportRepository;
+        this.jsonFactory = objectMapper.getFactory();
+    }
+
+    /**
+     * Пишет студентов в поток в порядке id. Фильтры необязательны;
+     * память не зависит от числа строк.
+     */
+    @Transactional(readOnly = true)
+    public void exportStudents(ExportFormat format, Long facultyId, Integer minAge, Integer maxAge,
+                               OutputStream out) throws IOException {
+        RowWriter writer = format.writer(out, ExportRepository.STUDENT_COLUMNS, jsonFactory);
+        exportRepository.exportStudents(facultyId, minAge, maxAge, writer);
+    }
+
+    /** Пишет факультеты с числом студентов в порядке id. */
+    @Transactional(readOnly = true)
+    public void exportFaculties(ExportFormat format, OutputStream out) throws IOException {
+        RowWriter writer = format.writer(out, ExportRepository.FACULTY_COLUMNS, jsonFactory);
+        exportRepository.exportFaculties(writer);
+    }
+}
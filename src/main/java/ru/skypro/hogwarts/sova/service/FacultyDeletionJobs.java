@@ -0,0 +1,61 @@
+package ru.skypro.hogwarts.sova.service;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.core.task.TaskExecutor;
+import org.springframework.http.HttpStatus;
+import org.springframework.stereotype.Service;
+import org.springframework.web.server.ResponseStatusException;
+import ru.skypro.hogwarts.sova.dto.FacultyDeletionStatus;
+import ru.skypro.hogwarts.sova.dto.FacultyDeletionStatus.State;
+
+import java.time.Duration;
+import java.util.UUID;
+
+/**
+ * Фоновое удаление больших факультетов. Статус задания хранится в памяти
+ * час после последнего обновления.
+ */
+@Service
+public class FacultyDeletionJobs {
+    private final FacultyService facultyService;
+    private final TaskExecutor taskExecutor;
+    private final Cache<String, FacultyDeletionStatus> jobs = Caffeine.newBuilder()
+            .expireAfterWrite(Duration.ofHours(1))
+            .build();
+
+    public FacultyDeletionJobs(FacultyService facultyService,
+                               @Qualifier("applicationTaskExecutor") TaskExecutor taskExecutor) {
+        this.facultyService = facultyService;
+        this.taskExecutor = taskExecutor;
+    }
+
+    public FacultyDeletionStatus start(long facultyId) {
+        facultyService.findFacultyById(facultyId);
+
+        String jobId = UUID.randomUUID().toString();
+        FacultyDeletionStatus started = new FacultyDeletionStatus(jobId, facultyId, State.RUNNING, 0, null);
+        jobs.put(jobId, started);
+        taskExecutor.execute(() -> {
+            try {
+                long detached = facultyService.deleteFaculty(facultyId, progress -> jobs.put(jobId,
+                        new FacultyDeletionStatus(jobId, facultyId, State.RUNNING, progress, null)));
+                jobs.put(jobId, new FacultyDeletionStatus(jobId, facultyId, State.DONE, detached, null));
+            } catch (RuntimeException e) {
+                FacultyDeletionStatus last = jobs.getIfPresent(jobId);
+                jobs.put(jobId, new FacultyDeletionStatus(jobId, facultyId, State.FAILED,
+                        last == null ? 0 : last.detachedStudents(), e.getMessage()));
+            }
+        });
+        return started;
+    }
+
+    public FacultyDeletionStatus getStatus(String jobId) {
+        FacultyDeletionStatus status = jobs.getIfPresent(jobId);
+        if (status == null) {
+            throw new ResponseStatusException(HttpStatus.NOT_FOUND, "Задание не найдено");
+        }
+        return status;
+    }
+}
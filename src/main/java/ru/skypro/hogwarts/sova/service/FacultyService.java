@@ -1,12 +1,28 @@
 package ru.skypro.hogwarts.sova.service;
 
-import jakarta.transaction.Transactional;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.data.crossstore.ChangeSetPersister;
+import org.springframework.data.domain.Limit;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
 import org.springframework.http.HttpStatus;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
 import org.springframework.web.server.ResponseStatusException;
+import ru.skypro.hogwarts.sova.cache.VersionedCache;
+import ru.skypro.hogwarts.sova.dto.BatchGetResult;
+import ru.skypro.hogwarts.sova.dto.CursorPage;
+import ru.skypro.hogwarts.sova.dto.FacultyDto;
+import ru.skypro.hogwarts.sova.dto.RosterSort;
+import ru.skypro.hogwarts.sova.dto.SearchMode;
+import ru.skypro.hogwarts.sova.dto.StudentDto;
+import ru.skypro.hogwarts.sova.event.FacultyChangedEvent;
+import ru.skypro.hogwarts.sova.event.StudentsBulkChangedEvent;
 import ru.skypro.hogwarts.sova.model.Faculty;
-import ru.skypro.hogwarts.sova.model.Student;
 import ru.skypro.hogwarts.sova.repository.FacultyRepository;
 import ru.skypro.hogwarts.sova.repository.StudentRepository;
 
@@ -14,70 +30,258 @@ import java.util.Collection;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.function.LongConsumer;
 import java.util.stream.Collectors;
 
 @Service
 public class FacultyService {
     private final FacultyRepository facultyRepository;
     private final StudentRepository studentRepository;
+    private final VersionedCache<FacultyDto> facultyCache;
+    private final VersionedCache<StudentDto> studentCache;
+    private final TransactionTemplate transactionTemplate;
+    private final int deleteChunkSize;
+    private final ApplicationEventPublisher eventPublisher;
+    private final int editMaxAttempts;
+    private final StudentSnapshot snapshot;
+    private final StudentCohorts cohorts;
+    private final ChangeOutbox changeOutbox;
 
-    public FacultyService(FacultyRepository facultyRepository, StudentRepository studentRepository) {
+    public FacultyService(FacultyRepository facultyRepository, StudentRepository studentRepository,
+                          VersionedCache<FacultyDto> facultyCache, VersionedCache<StudentDto> studentCache,
+                          PlatformTransactionManager transactionManager,
+                          @Value("${hogwarts.faculty.delete.chunk-size:1000}") int deleteChunkSize,
+                          ApplicationEventPublisher eventPublisher,
+                          @Value("${hogwarts.edit.max-attempts:5}") int editMaxAttempts,
+                          StudentSnapshot snapshot, StudentCohorts cohorts, ChangeOutbox changeOutbox) {
         this.facultyRepository = facultyRepository;
         this.studentRepository = studentRepository;
+        this.facultyCache = facultyCache;
+        this.studentCache = studentCache;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        if (deleteChunkSize < 1) {
+            throw new IllegalArgumentException(
+                    "hogwarts.faculty.delete.chunk-size должен быть не меньше 1, задано " + deleteChunkSize);
+        }
+        this.deleteChunkSize = deleteChunkSize;
+        this.eventPublisher = eventPublisher;
+        this.editMaxAttempts = editMaxAttempts;
+        this.snapshot = snapshot;
+        this.cohorts = cohorts;
+        this.changeOutbox = changeOutbox;
     }
 
-    public Faculty createFaculty(Faculty faculty) {
-        return facultyRepository.save(faculty);
+    public FacultyDto createFaculty(Faculty faculty) {
+        return transactionTemplate.execute(status -> {
+            FacultyDto saved = FacultyDto.of(facultyRepository.save(faculty));
+            eventPublisher.publishEvent(FacultyChangedEvent.created(saved));
+            facultyCache.putAfterCommit(saved.id(), () -> saved);
+            return saved;
+        });
     }
 
-    public Faculty findFaculty(long id) {
-        return facultyRepository.findById(id)
+    public FacultyDto findFaculty(long id) {
+        return facultyCache.get(id, facultyRepository::findDtoById)
                 .orElseThrow(() -> new ResponseStatusException(HttpStatus.NOT_FOUND, "Факультет не найден"));
     }
-    @Transactional
-    public Faculty editFaculty(Faculty faculty) {
-        Faculty existing = facultyRepository.findById(faculty.getId())
-                .orElseThrow(() -> new ResponseStatusException(HttpStatus.NOT_FOUND, "Факультет не найден"));
+    public FacultyDto editFaculty(Faculty faculty) {
+        return editFaculty(faculty, null);
+    }
+
+    /**
+     * Правка с оптимистической блокировкой; {@code expectedVersion} — версия
+     * из If-Match или null. См. {@link OptimisticRetry}.
+     */
+    public FacultyDto editFaculty(Faculty faculty, Integer expectedVersion) {
+        return OptimisticRetry.execute(transactionTemplate, editMaxAttempts, expectedVersion, () -> {
+            Faculty existing = facultyRepository.findSummaryById(faculty.getId())
+                    .orElseThrow(() -> new ResponseStatusException(HttpStatus.NOT_FOUND, "Факультет не найден"));
+            OptimisticRetry.checkVersion(expectedVersion, existing.getVersion());
+
+            FacultyDto before = FacultyDto.of(existing);
+            existing.setName(faculty.getName());
+            existing.setColor(faculty.getColor());
+
+            FacultyDto saved = FacultyDto.of(facultyRepository.saveAndFlush(existing));
+            eventPublisher.publishEvent(FacultyChangedEvent.updated(before, saved));
+            facultyCache.putAfterCommit(saved.id(), () -> saved);
+            return saved;
+        });
+    }
+    public long deleteFaculty(long id) {
+        return deleteFaculty(id, detached -> {
+        });
+    }
 
-        existing.setName(faculty.getName());
-        existing.setColor(faculty.getColor());
+    /**
+     * Удаляет факультет без загрузки его студентов. Студенты отвязываются
+     * пачками по {@code hogwarts.faculty.delete.chunk-size}, каждая пачка в
+     * своей короткой транзакции, чтобы блокировки строк не держались долго.
+     * Остаток (если кто-то успел записаться на факультет) отвязывается в
+     * одной транзакции с удалением самого факультета. Каждая пачка пишет в
+     * журнал изменений события отвязанных студентов в своей же транзакции.
+     */
+    public long deleteFaculty(long id, LongConsumer progress) {
+        FacultyDto faculty = findFacultyById(id);
 
-        return facultyRepository.save(existing);
+        long detached = 0;
+        DetachedChunk chunk;
+        do {
+            chunk = transactionTemplate.execute(status -> detachChunk(id, Limit.of(deleteChunkSize)));
+            detached += chunk.detached();
+            progress.accept(detached);
+        } while (chunk.matched() == deleteChunkSize);
+
+        DetachedChunk remaining = transactionTemplate.execute(status -> {
+            DetachedChunk rest = detachChunk(id, Limit.unlimited());
+            if (facultyRepository.deleteFacultyById(id) > 0) {
+                eventPublisher.publishEvent(FacultyChangedEvent.deleted(faculty));
+            }
+            return rest;
+        });
+        detached += remaining.detached();
+        progress.accept(detached);
+
+        facultyCache.evict(id);
+        studentCache.invalidateAll();
+        eventPublisher.publishEvent(new StudentsBulkChangedEvent("faculty " + id + " deleted"));
+        return detached;
     }
-    @Transactional
-    public void deleteFaculty(long id) {
-        Faculty faculty = facultyRepository.findById(id)
-                .orElseThrow(() -> new ResponseStatusException(HttpStatus.NOT_FOUND));
 
-        faculty.getStudents().forEach(s -> s.setFaculty(null));
-        studentRepository.saveAll(faculty.getStudents());
+    /** Отвязывает пачку студентов факультета и пишет их события в журнал. */
+    private DetachedChunk detachChunk(long facultyId, Limit limit) {
+        List<Long> ids = studentRepository.findIdsByFaculty(facultyId, limit);
+        if (ids.isEmpty()) {
+            return new DetachedChunk(0, 0);
+        }
+        int updated = studentRepository.detachStudents(ids, facultyId);
+        if (updated > 0) {
+            changeOutbox.studentsUpdated(studentRepository.findDtosByIdIn(ids).stream()
+                    .filter(student -> student.facultyId() == null)
+                    .toList());
+        }
+        return new DetachedChunk(ids.size(), updated);
+    }
 
-        facultyRepository.delete(faculty);
+    private record DetachedChunk(int matched, int detached) {
     }
 
-    public Collection<Faculty> findByColor(String color) {
+    @Transactional(readOnly = true)
+    public Collection<FacultyDto> findByColor(String color) {
         return facultyRepository.findByColorIgnoreCase(color);
     }
 
-    public Collection<Faculty> getAllFaculties() {
-        return facultyRepository.findAll();
+    @Transactional(readOnly = true)
+    public CursorPage<FacultyDto> getFacultiesPage(String cursor, int limit) {
+        int pageSize = CursorPage.normalizeLimit(limit);
+        List<FacultyDto> rows = facultyRepository.findPageAfter(
+                CursorPage.decodeCursor(cursor), Limit.of(pageSize + 1));
+        return CursorPage.of(rows, pageSize, FacultyDto::id);
     }
 
-    public List<Faculty> search(String query) {
-        return facultyRepository.findByNameIgnoreCaseOrColorIgnoreCase(query, query);
+    @Transactional(readOnly = true)
+    public List<FacultyDto> search(String query) {
+        return search(query, SearchMode.EXACT, 0, SearchMode.DEFAULT_PAGE_SIZE);
     }
 
-    public List<Student> getStudentsByFacultyId(Long facultyId) {
-        return facultyRepository.findById(facultyId)
-                .orElseThrow(() -> new ResponseStatusException(
-                        HttpStatus.NOT_FOUND, "Факультет не найден"))
-                .getStudents();
+    /**
+     * Поиск по названию и цвету. Точный и префиксный режимы сразу читают
+     * проекции; нечёткий сначала выбирает страницу id в порядке
+     * релевантности, затем догружает факультеты одним запросом.
+     */
+    @Transactional(readOnly = true)
+    public List<FacultyDto> search(String query, SearchMode mode, int page, int size) {
+        Pageable pageable = PageRequest.of(Math.max(page, 0), Math.max(1, Math.min(size, SearchMode.MAX_PAGE_SIZE)));
+        return switch (mode) {
+            case EXACT -> facultyRepository.searchExact(query, pageable);
+            case PREFIX -> facultyRepository.searchByPrefix(SearchMode.prefixPattern(query), pageable);
+            case FUZZY -> findInOrder(
+                    facultyRepository.searchIdsFuzzy(query, pageable.getPageSize(), pageable.getOffset()));
+        };
+    }
+
+    private List<FacultyDto> findInOrder(List<Long> ids) {
+        if (ids.isEmpty()) {
+            return List.of();
+        }
+        Map<Long, FacultyDto> byId = facultyRepository.findDtosByIdIn(ids).stream()
+                .collect(Collectors.toMap(FacultyDto::id, faculty -> faculty));
+        return ids.stream().map(byId::get).filter(Objects::nonNull).toList();
+    }
+
+    /**
+     * Студенты факультета одним запросом по faculty_id; сам факультет и его
+     * коллекция не загружаются, существование проверяется через кэш.
+     * Без size возвращаются все студенты в заданном порядке. При готовом
+     * {@link StudentSnapshot} состав берётся из памяти.
+     */
+    public List<StudentDto> getStudentsByFacultyId(Long facultyId, RosterSort sort, Sort.Direction direction,
+                                                   int page, Integer size) {
+        findFacultyById(facultyId);
+        if (snapshot.isReady()) {
+            Integer limit = size == null ? null : CursorPage.normalizeLimit(size);
+            long offset = limit == null ? 0 : (long) Math.max(page, 0) * limit;
+            return snapshot.findByFacultyId(facultyId, sort, direction, offset, limit);
+        }
+        Sort order = sort.toSort(direction);
+        Pageable pageable = size == null
+                ? Pageable.unpaged(order)
+                : PageRequest.of(Math.max(page, 0), CursorPage.normalizeLimit(size), order);
+        return studentRepository.findByFacultyId(facultyId, cohorts.from(), pageable);
+    }
+
+    public long countStudentsByFacultyId(Long facultyId) {
+        findFacultyById(facultyId);
+        return snapshot.isReady() ? snapshot.countByFacultyId(facultyId) : studentRepository.countByFacultyId(facultyId, cohorts.from());
+    }
+
+    /**
+     * Факультеты по списку id: сначала кэш, остальное IN-запросами по
+     * {@value DataLoader#CHUNK_SIZE} id. Не найденных в результате нет.
+     */
+    public Map<Long, FacultyDto> findFacultiesByIds(Collection<Long> ids) {
+        return facultyCache.getAll(ids, missing ->
+                DataLoader.loadInChunks(missing, facultyRepository::findDtosByIdIn, FacultyDto::id));
+    }
+
+    /** Загрузчик факультетов текущего HTTP-запроса, см. {@link DataLoader}. */
+    public DataLoader<FacultyDto> facultyLoader() {
+        return DataLoader.forCurrentRequest("faculty", this::findFacultiesByIds);
     }
-    public Faculty findFacultyById(Long id) {
-        return facultyRepository.findById(id)
+
+    public BatchGetResult<FacultyDto> batchGet(List<Long> ids) {
+        BatchGetResult.checkIds(ids);
+        return BatchGetResult.of(ids, facultyLoader().loadMany(ids));
+    }
+
+    public FacultyDto findFacultyById(Long id) {
+        return facultyCache.get(id, facultyRepository::findDtoById)
                 .orElseThrow(() -> new ResponseStatusException(
                         HttpStatus.NOT_FOUND,
                         "Факультет с ID " + id + " не найден"
                 ));
     }
+
+    /**
+     * Ссылка на факультет для привязки студента. Существование проверяется
+     * через кэш, сам факультет из базы не читается.
+     */
+    public Faculty getFacultyReference(Long id) {
+        findFacultyById(id);
+        return facultyRepository.getReferenceById(id);
+    }
+
+    /**
+     * Ссылки на все существующие факультеты из {@code ids} одним запросом;
+     * отсутствующих id в результате нет.
+     */
+    public Map<Long, Faculty> getFacultyReferences(Collection<Long> ids) {
+        if (ids.isEmpty()) {
+            return Map.of();
+        }
+        return facultyRepository.findExistingIds(ids).stream()
+                .collect(Collectors.toMap(id -> id, facultyRepository::getReferenceById));
+    }
 }
@@ -0,0 +1,58 @@
+package ru.skypro.hogwarts.sova.service;
+
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.http.HttpStatus;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.locks.LockSupport;
+import java.util.function.Supplier;
+
+/**
+ * Правка «прочитать — изменить — записать» с повтором при конфликте версий.
+ * <p>
+ * Каждая попытка идёт в своей транзакции и заново читает строку, так что
+ * обновление конкурента не теряется. Если клиент прислал ожидаемую версию
+ * (If-Match), конфликт означает, что он правил устаревшие данные: повтора
+ * нет, ответ 412. Без If-Match после {@code maxAttempts} неудач — 409.
+ */
+final class OptimisticRetry {
+    private static final long BACKOFF_NANOS = 2_000_000;
+
+    private OptimisticRetry() {
+    }
+
+    static <T> T execute(TransactionTemplate transactionTemplate, int maxAttempts, Integer expectedVersion,
+                         Supplier<T> attempt) {
+        for (int i = 1; ; i++) {
+            try {
+                return transactionTemplate.execute(status -> attempt.get());
+            } catch (OptimisticLockingFailureException e) {
+                if (expectedVersion != null) {
+                    throw versionMismatch();
+                }
+                if (i >= maxAttempts) {
+                    throw new ResponseStatusException(HttpStatus.CONFLICT,
+                            "Запись одновременно изменяется, повторите запрос");
+                }
+                LockSupport.parkNanos(ThreadLocalRandom.current().nextLong(BACKOFF_NANOS * i));
+            }
+        }
+    }
+
+    /**
+     * Проверка If-Match внутри попытки: версия строки должна совпасть с той,
+     * что видел клиент.
+     */
+    static void checkVersion(Integer expectedVersion, Integer actualVersion) {
+        if (expectedVersion != null && !expectedVersion.equals(actualVersion)) {
+            throw versionMismatch();
+        }
+    }
+
+    private static ResponseStatusException versionMismatch() {
+        return new ResponseStatusException(HttpStatus.PRECONDITION_FAILED,
+                "Запись изменена другим запросом, получите актуальную версию");
+    }
+}
@@ -0,0 +1,57 @@
+package ru.skypro.hogwarts.sova.service;
+
+import org.springframework.http.HttpStatus;
+import org.springframework.stereotype.Service;
+import org.springframework.web.server.ResponseStatusException;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import ru.skypro.hogwarts.sova.dto.FacultyDto;
+import ru.skypro.hogwarts.sova.dto.StudentDto;
+import ru.skypro.hogwarts.sova.repository.ReactiveFacultyRepository;
+import ru.skypro.hogwarts.sova.repository.ReactiveStudentRepository;
+import ru.skypro.hogwarts.sova.repository.ReactiveStudentRepository.StudentRow;
+
+/**
+ * Неблокирующие выборки для дашбордов: R2DBC без потоков на ожидание
+ * базы и без кэшей — данные идут из базы потоком, с обратным давлением
+ * от клиента. Формы ответов те же DTO, что и у блокирующих эндпоинтов.
+ */
+@Service
+public class ReactiveReadService {
+    private final ReactiveStudentRepository studentRepository;
+    private final ReactiveFacultyRepository facultyRepository;
+    private final StudentCohorts cohorts;
+
+    public ReactiveReadService(ReactiveStudentRepository studentRepository,
+                               ReactiveFacultyRepository facultyRepository,
+                               StudentCohorts cohorts) {
+        this.studentRepository = studentRepository;
+        this.facultyRepository = facultyRepository;
+        this.cohorts = cohorts;
+    }
+
+    public Flux<StudentDto> findAllStudents() {
+        return studentRepository.findAllOrderById().map(StudentRow::toDto);
+    }
+
+    public Flux<StudentDto> findByAge(int age) {
+        return studentRepository.findByAge(age, cohorts.from()).map(StudentRow::toDto);
+    }
+
+    public Flux<StudentDto> findByAgeBetween(int min, int max) {
+        return studentRepository.findByAgeBetween(min, max, cohorts.from()).map(StudentRow::toDto);
+    }
+
+    public Flux<FacultyDto> findAllFaculties() {
+        return facultyRepository.findAllOrderById().map(ReactiveFacultyRepository.FacultyRow::toDto);
+    }
+
+    /** Несуществующий факультет — 404 до первой строки, как у GET /faculty/{id}/students. */
+    public Flux<StudentDto> getStudentsByFacultyId(long facultyId) {
+        return facultyRepository.existsById(facultyId)
+                .flatMapMany(exists -> exists
+                        ? studentRepository.findByFacultyId(facultyId, cohorts.from()).map(StudentRow::toDto)
+                        : Mono.error(new ResponseStatusException(
+                                HttpStatus.NOT_FOUND, "Факультет с ID " + facultyId + " не найден")));
+    }
+}
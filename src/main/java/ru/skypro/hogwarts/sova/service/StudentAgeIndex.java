@@ -0,0 +1,320 @@
+package ru.skypro.hogwarts.sova.service;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.core.task.TaskExecutor;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.transaction.support.TransactionTemplate;
+import ru.skypro.hogwarts.sova.event.StudentChangedEvent;
+import ru.skypro.hogwarts.sova.event.StudentsBulkChangedEvent;
+import ru.skypro.hogwarts.sova.repository.StudentRepository;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.TreeMap;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * Индекс «возраст → отсортированные id студентов» в памяти. Включается
+ * {@code hogwarts.student.age-index.enabled=true}.
+ * <p>
+ * Для каждого возраста хранится отсортированный массив {@code long[]} без
+ * упаковки в Long; корзины лежат в {@link TreeMap} по возрасту, так что
+ * память зависит от числа разных возрастов, а не от наибольшего. Число студентов
+ * в диапазоне считается без обращения к базе, страница id в порядке
+ * возрастания id собирается слиянием корзин, и из базы читается только она.
+ * <p>
+ * Индекс загружается при старте, затем обновляется событиями после коммита
+ * и периодически пересобирается. События, пришедшие во время пересборки,
+ * повторно применяются к новому индексу. После массового изменения индекс
+ * сразу перестаёт быть готовым (чтения идут в базу) и пересобирается в
+ * фоне, а не в потоке запроса, который это изменение сделал.
+ */
+@Component
+public class StudentAgeIndex {
+    private static final Logger log = LoggerFactory.getLogger(StudentAgeIndex.class);
+
+    private final StudentRepository studentRepository;
+    private final TransactionTemplate readOnlyTransaction;
+    private final TaskExecutor taskExecutor;
+    private final boolean enabled;
+    private final AtomicBoolean rebuildRequested = new AtomicBoolean();
+
+    private final Object reloadLock = new Object();
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+    // возраст -> id студентов этого возраста по возрастанию
+    private TreeMap<Integer, SortedLongArray> byAge = new TreeMap<>();
+    private boolean ready;
+    // растёт с каждым массовым изменением; пересборка, начатая до него, не делает индекс готовым
+    private int bulkChanges;
+    // правки, пришедшие во время пересборки; null — пересборки нет
+    private List<StudentChangedEvent> missedDuringReload;
+
+    public StudentAgeIndex(StudentRepository studentRepository, PlatformTransactionManager transactionManager,
+                           StudentCohorts cohorts,
+                           @Qualifier("applicationTaskExecutor") TaskExecutor taskExecutor,
+                           @Value("${hogwarts.student.age-index.enabled:false}") boolean enabled) {
+        this.studentRepository = studentRepository;
+        this.taskExecutor = taskExecutor;
+        this.readOnlyTransaction = new TransactionTemplate(transactionManager);
+        this.readOnlyTransaction.setReadOnly(true);
+        if (enabled && cohorts.windowed()) {
+            log.warn("Student age index disabled: it holds all cohorts, hogwarts.student.active-cohorts is set");
+        }
+        this.enabled = enabled && !cohorts.windowed();
+    }
+
+    public boolean isReady() {
+        lock.readLock().lock();
+        try {
+            return ready;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    @Scheduled(fixedDelayString = "${hogwarts.student.age-index.resync-interval:PT10M}",
+            initialDelayString = "${hogwarts.student.age-index.resync-interval:PT10M}")
+    public void reload() {
+        if (!enabled) {
+            return;
+        }
+        synchronized (reloadLock) {
+            int bulkChangesAtStart;
+            lock.writeLock().lock();
+            try {
+                missedDuringReload = new ArrayList<>();
+                bulkChangesAtStart = bulkChanges;
+            } finally {
+                lock.writeLock().unlock();
+            }
+
+            TreeMap<Integer, SortedLongArray> loaded;
+            try {
+                loaded = readOnlyTransaction.execute(status -> load());
+            } catch (RuntimeException e) {
+                lock.writeLock().lock();
+                try {
+                    missedDuringReload = null;
+                } finally {
+                    lock.writeLock().unlock();
+                }
+                throw e;
+            }
+
+            lock.writeLock().lock();
+            try {
+                byAge = loaded;
+                missedDuringReload.forEach(this::apply);
+                missedDuringReload = null;
+                ready = bulkChangesAtStart == bulkChanges;
+            } finally {
+                lock.writeLock().unlock();
+            }
+            log.debug("Student age index loaded, {} distinct ages", loaded.size());
+        }
+    }
+
+    private TreeMap<Integer, SortedLongArray> load() {
+        TreeMap<Integer, SortedLongArray> buckets = new TreeMap<>();
+        try (var rows = studentRepository.streamAgeAndId()) {
+            for (var iterator = rows.iterator(); iterator.hasNext(); ) {
+                Object[] row = iterator.next();
+                int age = ((Number) row[0]).intValue();
+                if (age < 0) {
+                    continue;
+                }
+                buckets.computeIfAbsent(age, key -> new SortedLongArray()).append(((Number) row[1]).longValue());
+            }
+        }
+        return buckets;
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onStudentChanged(StudentChangedEvent event) {
+        if (!enabled) {
+            return;
+        }
+        lock.writeLock().lock();
+        try {
+            if (missedDuringReload != null) {
+                missedDuringReload.add(event);
+            }
+            if (ready) {
+                apply(event);
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onStudentsBulkChanged(StudentsBulkChangedEvent event) {
+        if (!enabled) {
+            return;
+        }
+        lock.writeLock().lock();
+        try {
+            ready = false;
+            bulkChanges++;
+        } finally {
+            lock.writeLock().unlock();
+        }
+        if (rebuildRequested.compareAndSet(false, true)) {
+            taskExecutor.execute(() -> {
+                rebuildRequested.set(false);
+                try {
+                    reload();
+                } catch (RuntimeException e) {
+                    log.warn("Student age index rebuild after {} failed, next try on schedule", event.reason(), e);
+                }
+            });
+        }
+    }
+
+    /**
+     * Число студентов с возрастом в [{@code min}, {@code max}].
+     */
+    public long count(int min, int max) {
+        lock.readLock().lock();
+        try {
+            long count = 0;
+            for (SortedLongArray bucket : range(min, max)) {
+                count += bucket.size;
+            }
+            return count;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Id студентов с возрастом в [{@code min}, {@code max}] по возрастанию,
+     * начиная с позиции {@code offset}, не больше {@code limit} штук.
+     */
+    public long[] page(int min, int max, long offset, int limit) {
+        if (limit <= 0) {
+            return new long[0];
+        }
+        lock.readLock().lock();
+        try {
+            List<SortedLongArray> buckets = new ArrayList<>();
+            for (SortedLongArray bucket : range(min, max)) {
+                if (bucket.size > 0) {
+                    buckets.add(bucket);
+                }
+            }
+            long skip = Math.max(offset, 0);
+            if (buckets.size() == 1) {
+                SortedLongArray bucket = buckets.get(0);
+                int from = (int) Math.min(skip, bucket.size);
+                return Arrays.copyOfRange(bucket.values, from, (int) Math.min(bucket.size, (long) from + limit));
+            }
+            // массив страницы не больше того, что реально осталось после offset
+            long remaining = buckets.stream().mapToLong(bucket -> bucket.size).sum() - skip;
+            return merge(buckets, skip, (int) Math.max(Math.min(limit, remaining), 0));
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    private Iterable<SortedLongArray> range(int min, int max) {
+        if (min > max) {
+            return List.of();
+        }
+        return byAge.subMap(min, true, max, true).values();
+    }
+
+    private static long[] merge(List<SortedLongArray> buckets, long offset, int limit) {
+        int[] positions = new int[buckets.size()];
+        long[] page = new long[limit];
+        int taken = 0;
+        for (long skipped = 0; taken < limit; ) {
+            int next = -1;
+            for (int i = 0; i < positions.length; i++) {
+                SortedLongArray bucket = buckets.get(i);
+                if (positions[i] < bucket.size
+                        && (next < 0 || bucket.values[positions[i]] < buckets.get(next).values[positions[next]])) {
+                    next = i;
+                }
+            }
+            if (next < 0) {
+                break;
+            }
+            long id = buckets.get(next).values[positions[next]++];
+            if (skipped++ >= offset) {
+                page[taken++] = id;
+            }
+        }
+        return taken == limit ? page : Arrays.copyOf(page, taken);
+    }
+
+    private void apply(StudentChangedEvent event) {
+        if (event.before() != null) {
+            SortedLongArray bucket = byAge.get(event.before().age());
+            if (bucket != null) {
+                bucket.remove(event.studentId());
+                if (bucket.size == 0) {
+                    byAge.remove(event.before().age());
+                }
+            }
+        }
+        if (event.after() != null) {
+            int age = event.after().age();
+            if (age >= 0) {
+                byAge.computeIfAbsent(age, key -> new SortedLongArray()).add(event.studentId());
+            }
+        }
+    }
+
+    /**
+     * Растущий отсортированный массив long без повторов.
+     */
+    private static final class SortedLongArray {
+        private long[] values = new long[16];
+        private int size;
+
+        /** Добавление в конец; id приходят по возрастанию. */
+        void append(long value) {
+            grow();
+            values[size++] = value;
+        }
+
+        void add(long value) {
+            int position = Arrays.binarySearch(values, 0, size, value);
+            if (position >= 0) {
+                return;
+            }
+            position = -position - 1;
+            grow();
+            System.arraycopy(values, position, values, position + 1, size - position);
+            values[position] = value;
+            size++;
+        }
+
+        void remove(long value) {
+            int position = Arrays.binarySearch(values, 0, size, value);
+            if (position < 0) {
+                return;
+            }
+            System.arraycopy(values, position + 1, values, position, size - position - 1);
+            size--;
+        }
+
+        private void grow() {
+            if (size == values.length) {
+                values = Arrays.copyOf(values, values.length * 2);
+            }
+        }
+    }
+}
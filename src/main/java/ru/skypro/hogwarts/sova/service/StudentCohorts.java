@@ -0,0 +1,153 @@
+package ru.skypro.hogwarts.sova.service;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.context.event.EventListener;
+import org.springframework.http.HttpStatus;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.springframework.web.server.ResponseStatusException;
+import ru.skypro.hogwarts.sova.cache.VersionedCache;
+import ru.skypro.hogwarts.sova.dto.StudentDto;
+import ru.skypro.hogwarts.sova.event.StudentsBulkChangedEvent;
+import ru.skypro.hogwarts.sova.model.Cohorts;
+import ru.skypro.hogwarts.sova.repository.StudentArchiveRepository;
+import ru.skypro.hogwarts.sova.repository.StudentRepository;
+
+import java.util.List;
+
+/**
+ * Потоки (годы зачисления, {@code student.cohort}). В PostgreSQL таблица
+ * student секционирована по cohort (V7), по секции на год.
+ * <p>
+ * С {@code hogwarts.student.active-cohorts=N} выборки по возрасту и составы
+ * факультетов видят только последние N потоков: условие
+ * {@code cohort >= from()} отсекает секции выпускников при планировании или,
+ * для подготовленных запросов с generic-планом, при старте выполнения.
+ * По умолчанию окна нет, {@link #from()} равен 0 и читаются все секции.
+ * <p>
+ * Поток студента выводится из возраста одним правилом, {@link Cohorts#forAge}:
+ * его применяет {@link ru.skypro.hogwarts.sova.model.Student} при вставке,
+ * и ему же следует V7 для студентов, заведённых до секционирования. Год
+ * везде берётся по {@link Cohorts#CLOCK} (UTC).
+ * In-memory копии ({@link StudentSnapshot}, {@link StudentAgeIndex}) держат
+ * все потоки, поэтому при заданном окне они не включаются.
+ */
+@Component
+public class StudentCohorts {
+    private static final Logger log = LoggerFactory.getLogger(StudentCohorts.class);
+
+    private final StudentRepository studentRepository;
+    private final StudentArchiveRepository archiveRepository;
+    private final ChangeOutbox changeOutbox;
+    private final VersionedCache<StudentDto> studentCache;
+    private final ApplicationEventPublisher eventPublisher;
+    private final TransactionTemplate transactionTemplate;
+    private final int activeCohorts;
+    private final int partitionsAhead;
+
+    public StudentCohorts(StudentRepository studentRepository,
+                          StudentArchiveRepository archiveRepository,
+                          ChangeOutbox changeOutbox,
+                          VersionedCache<StudentDto> studentCache,
+                          ApplicationEventPublisher eventPublisher,
+                          PlatformTransactionManager transactionManager,
+                          @Value("${hogwarts.student.active-cohorts:0}") int activeCohorts,
+                          @Value("${hogwarts.student.partitions-ahead:1}") int partitionsAhead) {
+        this.studentRepository = studentRepository;
+        this.archiveRepository = archiveRepository;
+        this.changeOutbox = changeOutbox;
+        this.studentCache = studentCache;
+        this.eventPublisher = eventPublisher;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.activeCohorts = Math.max(activeCohorts, 0);
+        this.partitionsAhead = Math.max(partitionsAhead, 0);
+    }
+
+    /** Текущий год по {@link Cohorts#CLOCK}. */
+    public static int current() {
+        return Cohorts.current(Cohorts.CLOCK);
+    }
+
+    /** Поток студента возраста {@code age} по {@link Cohorts#CLOCK}, см. {@link Cohorts#forAge}. */
+    public static int forAge(int age) {
+        return Cohorts.forAge(age, Cohorts.CLOCK);
+    }
+
+    public boolean windowed() {
+        return activeCohorts > 0;
+    }
+
+    /** Самый ранний видимый поток; 0 — окна нет. */
+    public int from() {
+        return windowed() ? current() - activeCohorts + 1 : 0;
+    }
+
+    /**
+     * Заводит секции текущего и следующих {@code partitions-ahead} потоков,
+     * чтобы новые студенты не копились в секции по умолчанию, и секции
+     * потоков, уже попавших в неё (например, студентов старше возраста
+     * поступления). Без секционирования (H2, база до V7) ничего не делает.
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    @Scheduled(cron = "${hogwarts.student.partition-cron:0 0 3 * * *}")
+    public void createPartitions() {
+        if (!studentRepository.isPartitionedByCohort()) {
+            log.debug("Student table is not partitioned by cohort, no partitions to create");
+            return;
+        }
+        for (int cohort = current(); cohort <= current() + partitionsAhead; cohort++) {
+            studentRepository.createCohortPartition(cohort);
+        }
+        for (int cohort : studentRepository.findUnpartitionedCohorts()) {
+            studentRepository.createCohortPartition(cohort);
+        }
+    }
+
+    /**
+     * Отсоединяет секции потоков раньше {@code beforeCohort} и переносит их в
+     * схему student_archive: строки остаются в базе отдельными таблицами, но
+     * из student и всех выборок пропадают. Возвращает архивированные потоки.
+     * <p>
+     * В той же транзакции архивированные студенты записываются в журнал
+     * изменений как удалённые: копии в памяти и потребители ленты убирают
+     * их так же, как после DELETE. Пока транзакция не закоммичена, секции
+     * заблокированы отсоединением, поэтому список студентов полный.
+     * Потоки без своей секции сначала получают её, иначе их студенты
+     * остались бы в секции по умолчанию.
+     */
+    public List<Integer> archiveBefore(int beforeCohort) {
+        if (beforeCohort > current()) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Нельзя архивировать текущий и будущие потоки");
+        }
+        if (!studentRepository.isPartitionedByCohort()) {
+            throw new ResponseStatusException(HttpStatus.NOT_IMPLEMENTED,
+                    "Таблица студентов не секционирована по потокам (нужен PostgreSQL и миграция V7)");
+        }
+        List<Integer> archived = transactionTemplate.execute(status -> {
+            for (int cohort : studentRepository.findUnpartitionedCohorts()) {
+                if (cohort < beforeCohort) {
+                    studentRepository.createCohortPartition(cohort);
+                }
+            }
+            List<Integer> cohorts = studentRepository.archiveCohortsBefore(beforeCohort);
+            for (int cohort : cohorts) {
+                changeOutbox.studentsDeleted(archiveRepository.findStudents(cohort));
+            }
+            if (!cohorts.isEmpty()) {
+                studentCache.invalidateAllAfterCommit();
+            }
+            return cohorts;
+        });
+        if (archived == null || archived.isEmpty()) {
+            return List.of();
+        }
+        eventPublisher.publishEvent(new StudentsBulkChangedEvent("cohorts " + archived + " archived"));
+        return archived;
+    }
+}
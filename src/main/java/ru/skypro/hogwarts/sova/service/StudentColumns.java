@@ -0,0 +1,602 @@
+package ru.skypro.hogwarts.sova.service;
+
+import ru.skypro.hogwarts.sova.dto.StudentDto;
+
+import java.io.EOFException;
+import java.io.IOException;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.stream.IntStream;
+
+/**
+ * Таблица студентов по столбцам: строки отсортированы по id, каждый
+ * столбец — массив примитивов. Имена закодированы словарём: в строке
+ * хранится номер имени, одинаковые имена хранятся один раз. У номера
+ * считаются ссылки; имя, на которое не ссылается ни одна строка, из
+ * словаря удаляется, а номер достаётся следующему новому имени, так что
+ * словарь не растёт от переименований. Отсутствующий факультет —
+ * {@value #NO_FACULTY}, отсутствующая версия — {@value #NO_VERSION}.
+ * <p>
+ * Лента изменений упорядочена не по коммитам, поэтому события из неё
+ * применяются только с версией новее известной ({@link #putIfNewer},
+ * {@link #removeIfNewer}). Для удалённых строк помнится последняя версия,
+ * чтобы запоздавшая правка не вернула строку; эти отметки в файл не
+ * пишутся и пропадают со следующей загрузкой из базы.
+ * <p>
+ * Не потокобезопасна, синхронизация — у {@link StudentSnapshot}.
+ */
+final class StudentColumns {
+    static final long NO_FACULTY = 0L;
+    static final int NO_VERSION = Integer.MIN_VALUE;
+
+    private static final int MAGIC = 0x48535343;
+    private static final int FORMAT = 1;
+    private static final int HEADER_BYTES = 24;
+    private static final long WINDOW_BYTES = 64L << 20;
+
+    private long[] ids;
+    private long[] facultyIds;
+    private int[] ages;
+    private int[] versions;
+    private int[] names;
+    private int size;
+    // id удалённой строки -> её последняя версия
+    private final Map<Long, Integer> deletedVersions = new HashMap<>();
+
+    private String[] dictionary;
+    private int[] references;
+    private int dictionarySize;
+    private final Map<String, Integer> codes;
+    // освободившиеся номера словаря
+    private int[] freeCodes;
+    private int freeCount;
+
+    StudentColumns(int capacity) {
+        this(new long[capacity], new long[capacity], new int[capacity], new int[capacity], new int[capacity], 0,
+                new String[16], 0);
+    }
+
+    private StudentColumns(long[] ids, long[] facultyIds, int[] ages, int[] versions, int[] names, int size,
+                           String[] dictionary, int dictionarySize) {
+        this.ids = ids;
+        this.facultyIds = facultyIds;
+        this.ages = ages;
+        this.versions = versions;
+        this.names = names;
+        this.size = size;
+        this.dictionary = dictionary;
+        this.references = new int[dictionary.length];
+        this.dictionarySize = dictionarySize;
+        this.codes = new HashMap<>(Math.max(16, dictionarySize * 2));
+        this.freeCodes = new int[16];
+        for (int row = 0; row < size; row++) {
+            references[names[row]]++;
+        }
+        for (int code = 0; code < dictionarySize; code++) {
+            if (references[code] > 0) {
+                codes.put(dictionary[code], code);
+            } else {
+                free(code);
+            }
+        }
+    }
+
+    int size() {
+        return size;
+    }
+
+    /** Добавление в конец при загрузке; строки приходят по возрастанию id. */
+    void append(StudentDto student) {
+        grow();
+        set(size++, student.id(), student.name(), student.age(), student.facultyId(), student.version(), false);
+    }
+
+    /** Вставка или замена строки с этим id. */
+    void put(long id, String name, int age, Long facultyId, Integer version) {
+        int position = Arrays.binarySearch(ids, 0, size, id);
+        boolean replacing = position >= 0;
+        if (!replacing) {
+            position = -position - 1;
+            grow();
+            int tail = size - position;
+            System.arraycopy(ids, position, ids, position + 1, tail);
+            System.arraycopy(facultyIds, position, facultyIds, position + 1, tail);
+            System.arraycopy(ages, position, ages, position + 1, tail);
+            System.arraycopy(versions, position, versions, position + 1, tail);
+            System.arraycopy(names, position, names, position + 1, tail);
+            size++;
+        }
+        set(position, id, name, age, facultyId, version, replacing);
+    }
+
+    /**
+     * {@link #put}, если {@code version} больше версии строки или её
+     * удаления; событие без версии применяется всегда.
+     *
+     * @return false — событие устарело и пропущено
+     */
+    boolean putIfNewer(long id, String name, int age, Long facultyId, Integer version) {
+        if (version != null && version <= knownVersion(id)) {
+            return false;
+        }
+        deletedVersions.remove(id);
+        put(id, name, age, facultyId, version);
+        return true;
+    }
+
+    /**
+     * {@link #remove}, если {@code version} — последняя версия удалённой
+     * строки — не меньше версии строки; запоминает её для {@link #putIfNewer}.
+     *
+     * @return false — событие устарело и пропущено
+     */
+    boolean removeIfNewer(long id, Integer version) {
+        if (version != null && version < knownVersion(id)) {
+            return false;
+        }
+        remove(id);
+        if (version != null) {
+            deletedVersions.merge(id, version, Math::max);
+        }
+        return true;
+    }
+
+    private int knownVersion(long id) {
+        int position = Arrays.binarySearch(ids, 0, size, id);
+        if (position >= 0) {
+            return versions[position];
+        }
+        Integer deleted = deletedVersions.get(id);
+        return deleted == null ? NO_VERSION : deleted;
+    }
+
+    void remove(long id) {
+        int position = Arrays.binarySearch(ids, 0, size, id);
+        if (position < 0) {
+            return;
+        }
+        release(names[position]);
+        int tail = size - position - 1;
+        System.arraycopy(ids, position + 1, ids, position, tail);
+        System.arraycopy(facultyIds, position + 1, facultyIds, position, tail);
+        System.arraycopy(ages, position + 1, ages, position, tail);
+        System.arraycopy(versions, position + 1, versions, position, tail);
+        System.arraycopy(names, position + 1, names, position, tail);
+        size--;
+    }
+
+    /** Отвязка всех студентов удалённого факультета; версия растёт, как в базе. */
+    void detachFaculty(long facultyId) {
+        for (int row = 0; row < size; row++) {
+            if (facultyIds[row] == facultyId) {
+                facultyIds[row] = NO_FACULTY;
+                versions[row] = versions[row] == NO_VERSION ? 1 : versions[row] + 1;
+            }
+        }
+    }
+
+    StudentDto get(int row) {
+        return new StudentDto(ids[row], dictionary[names[row]], ages[row],
+                facultyIds[row] == NO_FACULTY ? null : facultyIds[row],
+                versions[row] == NO_VERSION ? null : versions[row]);
+    }
+
+    /** Номер первой строки с id больше {@code id}. */
+    int rowAfter(long id) {
+        int position = Arrays.binarySearch(ids, 0, size, id);
+        return position < 0 ? -position - 1 : position + 1;
+    }
+
+    /**
+     * Строки с возрастом в [{@code min}, {@code max}] по возрастанию id. От
+     * {@code parallelThreshold} строк таблица сканируется частями в
+     * общем ForkJoinPool.
+     */
+    int[] rowsWithAge(int min, int max, int parallelThreshold) {
+        if (size < parallelThreshold) {
+            return rowsWithAgeIn(min, max, 0, size);
+        }
+        int partSize = partSize();
+        int[][] found = IntStream.range(0, (size + partSize - 1) / partSize).parallel()
+                .mapToObj(part -> rowsWithAgeIn(min, max, part * partSize, Math.min(size, (part + 1) * partSize)))
+                .toArray(int[][]::new);
+        return concat(found);
+    }
+
+    long countWithAge(int min, int max, int parallelThreshold) {
+        if (size < parallelThreshold) {
+            return countWithAgeIn(min, max, 0, size);
+        }
+        int partSize = partSize();
+        return IntStream.range(0, (size + partSize - 1) / partSize).parallel()
+                .mapToLong(part -> countWithAgeIn(min, max, part * partSize, Math.min(size, (part + 1) * partSize)))
+                .sum();
+    }
+
+    /** Не больше {@code limit} строк с возрастом в диапазоне, пропустив первые {@code offset}. */
+    int[] pageWithAge(int min, int max, long offset, int limit) {
+        int[] rows = new int[Math.min(limit, size)];
+        int taken = 0;
+        long skipped = 0;
+        for (int row = 0; row < size && taken < limit; row++) {
+            int age = ages[row];
+            if (age >= min && age <= max && skipped++ >= offset) {
+                rows[taken++] = row;
+            }
+        }
+        return taken == rows.length ? rows : Arrays.copyOf(rows, taken);
+    }
+
+    int[] rowsOfFaculty(long facultyId) {
+        int count = 0;
+        for (int row = 0; row < size; row++) {
+            if (facultyIds[row] == facultyId) {
+                count++;
+            }
+        }
+        int[] rows = new int[count];
+        for (int row = 0, taken = 0; taken < count; row++) {
+            if (facultyIds[row] == facultyId) {
+                rows[taken++] = row;
+            }
+        }
+        return rows;
+    }
+
+    /**
+     * Сортирует номера строк по возрасту, при равенстве — по id (порядок
+     * строк и есть порядок id): ключ — возраст в старших 32 битах и номер
+     * строки в младших, сортируется массив long без упаковки.
+     */
+    void sortByAge(int[] rows) {
+        long[] keys = new long[rows.length];
+        for (int i = 0; i < rows.length; i++) {
+            keys[i] = ((long) ages[rows[i]] << 32) | rows[i];
+        }
+        Arrays.sort(keys);
+        for (int i = 0; i < rows.length; i++) {
+            rows[i] = (int) keys[i];
+        }
+    }
+
+    /** По имени (посимвольно, как COLLATE "C"), при равенстве — по id. */
+    void sortByName(int[] rows) {
+        Integer[] boxed = new Integer[rows.length];
+        for (int i = 0; i < rows.length; i++) {
+            boxed[i] = rows[i];
+        }
+        Arrays.sort(boxed, Comparator.<Integer, String>comparing(row -> dictionary[names[row]],
+                        Comparator.nullsLast(Comparator.naturalOrder()))
+                .thenComparingInt(row -> row));
+        for (int i = 0; i < rows.length; i++) {
+            rows[i] = boxed[i];
+        }
+    }
+
+    /** Номера в словаре, включая освободившиеся. */
+    int dictionarySize() {
+        return dictionarySize;
+    }
+
+    /**
+     * Пишет таблицу и смещение ленты изменений, на котором она снята, во
+     * временный файл рядом с {@code file} и атомарно подменяет им {@code file}.
+     */
+    void write(Path file, long feedPosition) throws IOException {
+        write(file, feedPosition, WINDOW_BYTES);
+    }
+
+    /**
+     * Файл отображается в память окнами по {@code windowBytes}: одно
+     * отображение ограничено 2 ГБ, а таблица может быть больше.
+     */
+    void write(Path file, long feedPosition, long windowBytes) throws IOException {
+        byte[][] encoded = new byte[dictionarySize][];
+        long dictionaryBytes = 0;
+        for (int code = 0; code < dictionarySize; code++) {
+            encoded[code] = dictionary[code] == null ? new byte[0] : dictionary[code].getBytes(StandardCharsets.UTF_8);
+            dictionaryBytes += 4 + encoded[code].length;
+        }
+        long bytes = HEADER_BYTES + (long) size * (8 + 8 + 4 + 4 + 4) + dictionaryBytes;
+
+        Path temporary = file.resolveSibling(file.getFileName() + ".tmp");
+        try (FileChannel channel = FileChannel.open(temporary, StandardOpenOption.CREATE,
+                StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+            MappedWindows out = new MappedWindows(channel, FileChannel.MapMode.READ_WRITE, bytes, windowBytes);
+            out.putInt(MAGIC);
+            out.putInt(FORMAT);
+            out.putLong(feedPosition);
+            out.putInt(size);
+            out.putInt(dictionarySize);
+            out.putLongs(ids, size);
+            out.putLongs(facultyIds, size);
+            out.putInts(ages, size);
+            out.putInts(versions, size);
+            out.putInts(names, size);
+            for (int code = 0; code < dictionarySize; code++) {
+                // свободный номер пишется как имя null: при чтении на него не сошлётся ни одна строка
+                out.putInt(dictionary[code] == null ? -1 : encoded[code].length);
+                out.putBytes(encoded[code]);
+            }
+            out.force();
+        }
+        Files.move(temporary, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    /** Таблица из файла {@link #write} и смещение ленты, на котором она снята. */
+    static Restored read(Path file) throws IOException {
+        return read(file, WINDOW_BYTES);
+    }
+
+    static Restored read(Path file, long windowBytes) throws IOException {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            MappedWindows in = new MappedWindows(channel, FileChannel.MapMode.READ_ONLY, channel.size(), windowBytes);
+            if (in.getInt() != MAGIC || in.getInt() != FORMAT) {
+                throw new IOException("Файл " + file + " не является снимком студентов этой версии");
+            }
+            long feedPosition = in.getLong();
+            int size = in.getInt();
+            int dictionarySize = in.getInt();
+            // запас под строки, добавленные при догоне по ленте
+            int capacity = (int) Math.min(Integer.MAX_VALUE - 8, Math.max(16, size + (long) size / 8));
+
+            long[] ids = new long[capacity];
+            long[] facultyIds = new long[capacity];
+            int[] ages = new int[capacity];
+            int[] versions = new int[capacity];
+            int[] names = new int[capacity];
+            in.getLongs(ids, size);
+            in.getLongs(facultyIds, size);
+            in.getInts(ages, size);
+            in.getInts(versions, size);
+            in.getInts(names, size);
+
+            String[] dictionary = new String[Math.max(16, dictionarySize)];
+            for (int code = 0; code < dictionarySize; code++) {
+                int length = in.getInt();
+                if (length >= 0) {
+                    byte[] name = new byte[length];
+                    in.getBytes(name);
+                    dictionary[code] = new String(name, StandardCharsets.UTF_8);
+                }
+            }
+            return new Restored(new StudentColumns(ids, facultyIds, ages, versions, names, size,
+                    dictionary, dictionarySize), feedPosition);
+        }
+    }
+
+    record Restored(StudentColumns columns, long feedPosition) {
+    }
+
+    private int[] rowsWithAgeIn(int min, int max, int from, int to) {
+        int[] rows = new int[(int) countWithAgeIn(min, max, from, to)];
+        for (int row = from, taken = 0; taken < rows.length; row++) {
+            int age = ages[row];
+            if (age >= min && age <= max) {
+                rows[taken++] = row;
+            }
+        }
+        return rows;
+    }
+
+    private long countWithAgeIn(int min, int max, int from, int to) {
+        long count = 0;
+        for (int row = from; row < to; row++) {
+            int age = ages[row];
+            if (age >= min && age <= max) {
+                count++;
+            }
+        }
+        return count;
+    }
+
+    private void set(int row, long id, String name, int age, Long facultyId, Integer version, boolean replacing) {
+        int code = code(name);
+        if (replacing) {
+            release(names[row]);
+        }
+        ids[row] = id;
+        facultyIds[row] = facultyId == null ? NO_FACULTY : facultyId;
+        ages[row] = age;
+        versions[row] = version == null ? NO_VERSION : version;
+        names[row] = code;
+    }
+
+    /** Номер имени со ссылкой от новой строки. */
+    private int code(String name) {
+        Integer existing = codes.get(name);
+        if (existing != null) {
+            references[existing]++;
+            return existing;
+        }
+        int code;
+        if (freeCount > 0) {
+            code = freeCodes[--freeCount];
+        } else {
+            if (dictionarySize == dictionary.length) {
+                dictionary = Arrays.copyOf(dictionary, dictionary.length * 2);
+                references = Arrays.copyOf(references, dictionary.length);
+            }
+            code = dictionarySize++;
+        }
+        dictionary[code] = name;
+        references[code] = 1;
+        codes.put(name, code);
+        return code;
+    }
+
+    private void release(int code) {
+        if (--references[code] == 0) {
+            codes.remove(dictionary[code]);
+            free(code);
+        }
+    }
+
+    private void free(int code) {
+        dictionary[code] = null;
+        if (freeCount == freeCodes.length) {
+            freeCodes = Arrays.copyOf(freeCodes, freeCodes.length * 2);
+        }
+        freeCodes[freeCount++] = code;
+    }
+
+    private void grow() {
+        if (size == ids.length) {
+            int capacity = Math.max(16, ids.length + (ids.length >> 1));
+            ids = Arrays.copyOf(ids, capacity);
+            facultyIds = Arrays.copyOf(facultyIds, capacity);
+            ages = Arrays.copyOf(ages, capacity);
+            versions = Arrays.copyOf(versions, capacity);
+            names = Arrays.copyOf(names, capacity);
+        }
+    }
+
+    /** Части параллельного скана: по несколько на ядро, чтобы неравные части выровнялись. */
+    private int partSize() {
+        int parts = Runtime.getRuntime().availableProcessors() * 4;
+        return Math.max(1, (size + parts - 1) / parts);
+    }
+
+    /**
+     * Последовательное чтение или запись файла через отображение окнами не
+     * больше {@code windowBytes}. Следующее окно начинается ровно там, где
+     * остановилось предыдущее, поэтому значения не разрезаются границей.
+     */
+    private static final class MappedWindows {
+        private final FileChannel channel;
+        private final FileChannel.MapMode mode;
+        private final long length;
+        private final long windowBytes;
+        private MappedByteBuffer window;
+        private long windowStart;
+
+        private MappedWindows(FileChannel channel, FileChannel.MapMode mode, long length, long windowBytes) {
+            this.channel = channel;
+            this.mode = mode;
+            this.length = length;
+            this.windowBytes = Math.max(8, windowBytes);
+        }
+
+        void putInt(int value) throws IOException {
+            room(4).putInt(value);
+        }
+
+        void putLong(long value) throws IOException {
+            room(8).putLong(value);
+        }
+
+        int getInt() throws IOException {
+            return room(4).getInt();
+        }
+
+        long getLong() throws IOException {
+            return room(8).getLong();
+        }
+
+        void putLongs(long[] values, int count) throws IOException {
+            for (int done = 0; done < count; ) {
+                MappedByteBuffer buffer = room(8);
+                int n = Math.min(count - done, buffer.remaining() / 8);
+                buffer.asLongBuffer().put(values, done, n);
+                buffer.position(buffer.position() + n * 8);
+                done += n;
+            }
+        }
+
+        void getLongs(long[] values, int count) throws IOException {
+            for (int done = 0; done < count; ) {
+                MappedByteBuffer buffer = room(8);
+                int n = Math.min(count - done, buffer.remaining() / 8);
+                buffer.asLongBuffer().get(values, done, n);
+                buffer.position(buffer.position() + n * 8);
+                done += n;
+            }
+        }
+
+        void putInts(int[] values, int count) throws IOException {
+            for (int done = 0; done < count; ) {
+                MappedByteBuffer buffer = room(4);
+                int n = Math.min(count - done, buffer.remaining() / 4);
+                buffer.asIntBuffer().put(values, done, n);
+                buffer.position(buffer.position() + n * 4);
+                done += n;
+            }
+        }
+
+        void getInts(int[] values, int count) throws IOException {
+            for (int done = 0; done < count; ) {
+                MappedByteBuffer buffer = room(4);
+                int n = Math.min(count - done, buffer.remaining() / 4);
+                buffer.asIntBuffer().get(values, done, n);
+                buffer.position(buffer.position() + n * 4);
+                done += n;
+            }
+        }
+
+        void putBytes(byte[] values) throws IOException {
+            for (int done = 0; done < values.length; ) {
+                MappedByteBuffer buffer = room(1);
+                int n = Math.min(values.length - done, buffer.remaining());
+                buffer.put(values, done, n);
+                done += n;
+            }
+        }
+
+        void getBytes(byte[] values) throws IOException {
+            for (int done = 0; done < values.length; ) {
+                MappedByteBuffer buffer = room(1);
+                int n = Math.min(values.length - done, buffer.remaining());
+                buffer.get(values, done, n);
+                done += n;
+            }
+        }
+
+        void force() {
+            if (window != null) {
+                window.force();
+            }
+        }
+
+        /** Текущее окно, если в нём есть {@code bytes} байт, иначе следующее с текущей позиции. */
+        private MappedByteBuffer room(int bytes) throws IOException {
+            if (window != null && window.remaining() >= bytes) {
+                return window;
+            }
+            long start = window == null ? 0 : windowStart + window.position();
+            if (start + bytes > length) {
+                throw new EOFException("Файл снимка короче, чем следует из его заголовка");
+            }
+            if (mode == FileChannel.MapMode.READ_WRITE) {
+                force();
+            }
+            window = channel.map(mode, start, Math.min(windowBytes, length - start));
+            window.order(ByteOrder.LITTLE_ENDIAN);
+            windowStart = start;
+            return window;
+        }
+    }
+
+    private static int[] concat(int[][] parts) {
+        int total = 0;
+        for (int[] part : parts) {
+            total += part.length;
+        }
+        int[] rows = new int[total];
+        int position = 0;
+        for (int[] part : parts) {
+            System.arraycopy(part, 0, rows, position, part.length);
+            position += part.length;
+        }
+        return rows;
+    }
+}
@@ -0,0 +1,96 @@
+package ru.skypro.hogwarts.sova.service;
+
+import ru.skypro.hogwarts.sova.dto.StudentImportRow;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Locale;
+import java.util.NoSuchElementException;
+
+/**
+ * Построчно читает CSV вида {@code name,age,facultyId}; заголовок необязателен.
+ * Имя может быть в двойных кавычках. Если строку разобрать не удалось,
+ * {@link #next()} бросает {@link IllegalArgumentException}, но курсор уже
+ * сдвинут, так что чтение можно продолжать со следующей строки.
+ */
+public class StudentCsvReader implements Iterator<StudentImportRow> {
+    private final BufferedReader reader;
+    private String nextLine;
+    private boolean first = true;
+
+    public StudentCsvReader(BufferedReader reader) {
+        this.reader = reader;
+    }
+
+    @Override
+    public boolean hasNext() {
+        try {
+            while (nextLine == null) {
+                String line = reader.readLine();
+                if (line == null) {
+                    return false;
+                }
+                boolean header = first && line.toLowerCase(Locale.ROOT).startsWith("name");
+                first = false;
+                if (!line.isBlank() && !header) {
+                    nextLine = line;
+                }
+            }
+            return true;
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    @Override
+    public StudentImportRow next() {
+        if (!hasNext()) {
+            throw new NoSuchElementException();
+        }
+        String line = nextLine;
+        nextLine = null;
+        List<String> fields = split(line);
+        if (fields.size() < 2 || fields.size() > 3) {
+            throw new IllegalArgumentException("Ожидается name,age[,facultyId]");
+        }
+        try {
+            int age = Integer.parseInt(fields.get(1).trim());
+            String facultyId = fields.size() == 3 ? fields.get(2).trim() : "";
+            return new StudentImportRow(fields.get(0), age, facultyId.isEmpty() ? null : Long.valueOf(facultyId));
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("Некорректное число: " + e.getMessage());
+        }
+    }
+
+    private static List<String> split(String line) {
+        List<String> fields = new ArrayList<>(3);
+        StringBuilder field = new StringBuilder();
+        boolean quoted = false;
+        for (int i = 0; i < line.length(); i++) {
+            char c = line.charAt(i);
+            if (quoted) {
+                if (c == '"' && i + 1 < line.length() && line.charAt(i + 1) == '"') {
+                    field.append('"');
+                    i++;
+                } else if (c == '"') {
+                    quoted = false;
+                } else {
+                    field.append(c);
+                }
+            } else if (c == '"') {
+                quoted = true;
+            } else if (c == ',') {
+                fields.add(field.toString());
+                field.setLength(0);
+            } else {
+                field.append(c);
+            }
+        }
+        fields.add(field.toString());
+        return fields;
+    }
+}
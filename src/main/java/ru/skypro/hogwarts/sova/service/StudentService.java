@@ -1,93 +1,574 @@
 package ru.skypro.hogwarts.sova.service;
 
-import jakarta.transaction.Transactional;
-import lombok.RequiredArgsConstructor;
+import jakarta.persistence.EntityManager;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.dao.DataAccessException;
 import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.data.domain.Limit;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.crossstore.ChangeSetPersister;
 import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 import org.springframework.http.HttpStatus;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
 import org.springframework.web.server.ResponseStatusException;
+import ru.skypro.hogwarts.sova.cache.VersionedCache;
+import ru.skypro.hogwarts.sova.dto.AgeStatistics;
+import ru.skypro.hogwarts.sova.dto.BatchGetResult;
+import ru.skypro.hogwarts.sova.dto.BulkImportReport;
+import ru.skypro.hogwarts.sova.dto.BulkImportReport.RowResult;
+import ru.skypro.hogwarts.sova.dto.BulkUpdateResult;
+import ru.skypro.hogwarts.sova.dto.CursorPage;
+import ru.skypro.hogwarts.sova.dto.FacultyDto;
+import ru.skypro.hogwarts.sova.dto.SearchMode;
+import ru.skypro.hogwarts.sova.dto.StudentDto;
+import ru.skypro.hogwarts.sova.dto.StudentEdit;
+import ru.skypro.hogwarts.sova.dto.StudentImportRow;
+import ru.skypro.hogwarts.sova.dto.StudentTransfer;
+import ru.skypro.hogwarts.sova.event.StudentChangedEvent;
+import ru.skypro.hogwarts.sova.event.StudentsBulkChangedEvent;
+import ru.skypro.hogwarts.sova.model.AgeRollover;
 import ru.skypro.hogwarts.sova.model.Faculty;
 import ru.skypro.hogwarts.sova.model.Student;
+import ru.skypro.hogwarts.sova.repository.AgeRolloverRepository;
 import ru.skypro.hogwarts.sova.repository.StudentRepository;
 
+import java.time.Instant;
 import java.util.*;
+import java.util.function.Consumer;
+import java.util.function.Predicate;
+import java.util.function.Supplier;
+import java.util.function.ToIntFunction;
 import java.util.stream.Collectors;
 
 @Service
 public class StudentService {
     private final StudentRepository studentRepository;
     private final FacultyService facultyService;
+    private final EntityManager entityManager;
+    private final VersionedCache<StudentDto> studentCache;
+    private final TransactionTemplate transactionTemplate;
+    private final int importBatchSize;
+    private final ApplicationEventPublisher eventPublisher;
+    private final StudentStatsCounters statsCounters;
+    private final StudentAgeIndex ageIndex;
+    private final StudentSnapshot snapshot;
+    private final StudentCohorts cohorts;
+    private final TransactionTemplate readOnlyTransaction;
+    private final int editMaxAttempts;
+    private final ChangeOutbox changeOutbox;
+    private final int bulkChunkSize;
+    private final AgeRolloverRepository ageRolloverRepository;
 
     public StudentService(StudentRepository studentRepository,
-                          FacultyService facultyService) {
+                          FacultyService facultyService,
+                          EntityManager entityManager,
+                          VersionedCache<StudentDto> studentCache,
+                          PlatformTransactionManager transactionManager,
+                          @Value("${hogwarts.student.import.batch-size:500}") int importBatchSize,
+                          ApplicationEventPublisher eventPublisher,
+                          StudentStatsCounters statsCounters,
+                          StudentAgeIndex ageIndex,
+                          StudentSnapshot snapshot,
+                          StudentCohorts cohorts,
+                          @Value("${hogwarts.edit.max-attempts:5}") int editMaxAttempts,
+                          ChangeOutbox changeOutbox,
+                          @Value("${hogwarts.student.bulk-update.chunk-size:1000}") int bulkChunkSize,
+                          AgeRolloverRepository ageRolloverRepository) {
         this.studentRepository = studentRepository;
         this.facultyService = facultyService;
+        this.entityManager = entityManager;
+        this.studentCache = studentCache;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.importBatchSize = importBatchSize;
+        this.eventPublisher = eventPublisher;
+        this.statsCounters = statsCounters;
+        this.ageIndex = ageIndex;
+        this.snapshot = snapshot;
+        this.cohorts = cohorts;
+        this.readOnlyTransaction = new TransactionTemplate(transactionManager);
+        this.readOnlyTransaction.setReadOnly(true);
+        this.editMaxAttempts = editMaxAttempts;
+        this.changeOutbox = changeOutbox;
+        this.bulkChunkSize = bulkChunkSize;
+        this.ageRolloverRepository = ageRolloverRepository;
     }
 
 
 
     @Transactional
-    public Student createStudent(Student student) {
-        if (student.getName() == null || student.getName().isBlank()) {
-            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Нужно имя");
-        }
-        if (student.getAge() <= 0) {
-            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Возраст должен быть больше 0");
+    public StudentDto createStudent(Student student) {
+        String error = validationError(student.getName(), student.getAge());
+        if (error != null) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, error);
         }
 
         if (student.getFaculty() != null && student.getFaculty().getId() != null) {
-            Faculty faculty = facultyService.findFacultyById(student.getFaculty().getId());
-            student.setFaculty(faculty);
+            student.setFaculty(facultyService.getFacultyReference(student.getFaculty().getId()));
         }
 
-        return studentRepository.save(student);
+        Student saved = studentRepository.save(student);
+        eventPublisher.publishEvent(StudentChangedEvent.created(saved));
+        StudentDto dto = StudentDto.of(saved);
+        studentCache.putAfterCommit(dto.id(), () -> dto);
+        return dto;
     }
 
-    public Student findStudent(long id) {
-        return studentRepository.findById(id)
-                .orElseThrow(() -> new ResponseStatusException(HttpStatus.NOT_FOUND, "Студент не найден"));
+    /**
+     * Импортирует студентов пакетами по {@code hogwarts.student.import.batch-size}
+     * строк, каждый пакет в своей транзакции. Строки проверяются по тем же
+     * правилам, что и в {@link #createStudent}; факультеты пакета разрешаются
+     * одним запросом. Ошибка записи пакета помечает ошибочными все его строки.
+     */
+    public BulkImportReport importStudents(Iterator<StudentImportRow> rows) {
+        List<RowResult> results = new ArrayList<>();
+        Map<Integer, StudentImportRow> batch = new LinkedHashMap<>();
+        int rowNumber = 0;
+        while (rows.hasNext()) {
+            rowNumber++;
+            try {
+                StudentImportRow row = rows.next();
+                String error = row == null ? "Пустая строка импорта" : validationError(row.name(), row.age());
+                if (error != null) {
+                    results.add(RowResult.failed(rowNumber, error));
+                } else {
+                    batch.put(rowNumber, row);
+                }
+            } catch (IllegalArgumentException e) {
+                results.add(RowResult.failed(rowNumber, e.getMessage()));
+            }
+            if (batch.size() >= importBatchSize) {
+                results.addAll(importBatch(batch));
+                batch.clear();
+            }
+        }
+        if (!batch.isEmpty()) {
+            results.addAll(importBatch(batch));
+        }
+        results.sort(Comparator.comparingInt(RowResult::row));
+        return BulkImportReport.of(results);
     }
 
-    @Transactional
-    public Student editStudent(Student student) {
-        Student existing = studentRepository.findById(student.getId())
+    private List<RowResult> importBatch(Map<Integer, StudentImportRow> batch) {
+        try {
+            return transactionTemplate.execute(status -> {
+                Set<Long> facultyIds = batch.values().stream()
+                        .map(StudentImportRow::facultyId)
+                        .filter(Objects::nonNull)
+                        .collect(Collectors.toSet());
+                Map<Long, Faculty> faculties = facultyService.getFacultyReferences(facultyIds);
+
+                List<RowResult> results = new ArrayList<>(batch.size());
+                List<Integer> rowNumbers = new ArrayList<>(batch.size());
+                List<Student> students = new ArrayList<>(batch.size());
+                batch.forEach((rowNumber, row) -> {
+                    Faculty faculty = row.facultyId() == null ? null : faculties.get(row.facultyId());
+                    if (row.facultyId() != null && faculty == null) {
+                        results.add(RowResult.failed(rowNumber, "Факультет с ID " + row.facultyId() + " не найден"));
+                        return;
+                    }
+                    rowNumbers.add(rowNumber);
+                    students.add(new Student(null, row.name(), row.age(), faculty));
+                });
+
+                List<Student> saved = studentRepository.saveAll(students);
+                studentRepository.flush();
+                for (int i = 0; i < saved.size(); i++) {
+                    results.add(RowResult.ok(rowNumbers.get(i), saved.get(i).getId()));
+                    eventPublisher.publishEvent(StudentChangedEvent.created(saved.get(i)));
+                }
+                // записи журнала изменений ещё не сброшены, clear их бы потерял
+                studentRepository.flush();
+                entityManager.clear();
+                return results;
+            });
+        } catch (DataAccessException e) {
+            String error = "Ошибка записи пакета: " + e.getMostSpecificCause().getMessage();
+            return batch.keySet().stream()
+                    .map(rowNumber -> RowResult.failed(rowNumber, error))
+                    .toList();
+        }
+    }
+
+    public StudentDto findStudent(long id) {
+        return studentCache.get(id, studentRepository::findDtoById)
                 .orElseThrow(() -> new ResponseStatusException(HttpStatus.NOT_FOUND, "Студент не найден"));
+    }
+
+    /**
+     * Студенты по списку id: сначала кэш, остальное IN-запросами по
+     * {@value DataLoader#CHUNK_SIZE} id. Не найденных в результате нет.
+     */
+    public Map<Long, StudentDto> findStudentsByIds(Collection<Long> ids) {
+        return studentCache.getAll(ids, missing ->
+                DataLoader.loadInChunks(missing, studentRepository::findDtosByIdIn, StudentDto::id));
+    }
 
-        existing.setName(student.getName());
-        existing.setAge(student.getAge());
-        if (student.getFaculty() != null) {
-            existing.setFaculty(student.getFaculty());
+    /** Загрузчик студентов текущего HTTP-запроса, см. {@link DataLoader}. */
+    public DataLoader<StudentDto> studentLoader() {
+        return DataLoader.forCurrentRequest("student", this::findStudentsByIds);
+    }
+
+    /**
+     * Пакетное чтение вместо GET /student/{id} и /student/{id}/faculty на
+     * каждую строку: студенты одним пакетом, их факультеты (каждый один раз)
+     * — вторым.
+     */
+    public BatchGetResult<StudentDto> batchGet(List<Long> ids, boolean includeFaculties) {
+        BatchGetResult.checkIds(ids);
+        Map<Long, StudentDto> found = studentLoader().loadMany(ids);
+        BatchGetResult<StudentDto> result = BatchGetResult.of(ids, found);
+        if (!includeFaculties) {
+            return result;
         }
+        Set<Long> facultyIds = found.values().stream()
+                .map(StudentDto::facultyId)
+                .filter(Objects::nonNull)
+                .collect(Collectors.toCollection(LinkedHashSet::new));
+        return result.withFaculties(facultyIds.isEmpty()
+                ? Map.of()
+                : facultyService.facultyLoader().loadMany(facultyIds));
+    }
 
-        return studentRepository.save(existing);
+    public StudentDto editStudent(Student student) {
+        return editStudent(student, null);
     }
+
+    /**
+     * Правка с оптимистической блокировкой; {@code expectedVersion} — версия
+     * из If-Match или null. См. {@link OptimisticRetry}.
+     */
+    public StudentDto editStudent(Student student, Integer expectedVersion) {
+        return OptimisticRetry.execute(transactionTemplate, editMaxAttempts, expectedVersion, () -> {
+            Student existing = studentRepository.findSummaryById(student.getId())
+                    .orElseThrow(() -> new ResponseStatusException(HttpStatus.NOT_FOUND, "Студент не найден"));
+            OptimisticRetry.checkVersion(expectedVersion, existing.getVersion());
+
+            StudentChangedEvent.State before = StudentChangedEvent.State.of(existing);
+            existing.setName(student.getName());
+            existing.setAge(student.getAge());
+            if (student.getFaculty() != null && student.getFaculty().getId() != null) {
+                existing.setFaculty(facultyService.getFacultyReference(student.getFaculty().getId()));
+            }
+
+            Student saved = studentRepository.saveAndFlush(existing);
+            eventPublisher.publishEvent(StudentChangedEvent.updated(before, saved));
+            StudentDto dto = StudentDto.of(saved);
+            studentCache.putAfterCommit(dto.id(), () -> dto);
+            return dto;
+        });
+    }
+    /**
+     * Применяет пачку правок из очереди отложенной записи одной транзакцией:
+     * студенты и факультеты читаются двумя запросами, UPDATE уходят JDBC-пакетом.
+     * Несовпадение версии или отсутствие студента/факультета отклоняет только
+     * свою правку. Конфликт версий при flush откатывает всю пачку
+     * ({@link org.springframework.dao.OptimisticLockingFailureException}).
+     */
+    public List<StudentEdit.Outcome> applyEdits(Collection<StudentEdit> edits) {
+        return transactionTemplate.execute(status -> {
+            Map<Long, Student> students = studentRepository.findAllById(
+                            edits.stream().map(StudentEdit::studentId).toList()).stream()
+                    .collect(Collectors.toMap(Student::getId, student -> student));
+            Map<Long, Faculty> faculties = facultyService.getFacultyReferences(edits.stream()
+                    .map(StudentEdit::facultyId)
+                    .filter(Objects::nonNull)
+                    .collect(Collectors.toSet()));
+
+            List<StudentEdit.Outcome> outcomes = new ArrayList<>(edits.size());
+            List<Student> changed = new ArrayList<>(edits.size());
+            List<StudentChangedEvent.State> before = new ArrayList<>(edits.size());
+            for (StudentEdit edit : edits) {
+                Student student = students.get(edit.studentId());
+                Faculty faculty = edit.facultyId() == null ? null : faculties.get(edit.facultyId());
+                if (student == null) {
+                    outcomes.add(StudentEdit.Outcome.failed(edit.studentId(), "Студент не найден"));
+                } else if (edit.expectedVersion() != null && !edit.expectedVersion().equals(student.getVersion())) {
+                    outcomes.add(StudentEdit.Outcome.failed(edit.studentId(), "Версия не совпадает с If-Match"));
+                } else if (edit.facultyId() != null && faculty == null) {
+                    outcomes.add(StudentEdit.Outcome.failed(edit.studentId(),
+                            "Факультет с ID " + edit.facultyId() + " не найден"));
+                } else {
+                    before.add(StudentChangedEvent.State.of(student));
+                    student.setName(edit.name());
+                    student.setAge(edit.age());
+                    if (faculty != null) {
+                        student.setFaculty(faculty);
+                    }
+                    changed.add(student);
+                }
+            }
+
+            studentRepository.flush();
+            for (int i = 0; i < changed.size(); i++) {
+                Student saved = changed.get(i);
+                eventPublisher.publishEvent(StudentChangedEvent.updated(before.get(i), saved));
+                StudentDto dto = StudentDto.of(saved);
+                studentCache.putAfterCommit(dto.id(), () -> dto);
+                outcomes.add(StudentEdit.Outcome.applied(dto.id(), dto.version()));
+            }
+            return outcomes;
+        });
+    }
+
+    /**
+     * Переводит студентов факультета (всех или отобранных по возрасту и/или
+     * списку id) на другой факультет. Пачки по
+     * {@code hogwarts.student.bulk-update.chunk-size} переводятся одним UPDATE
+     * каждая, в своей транзакции; версия строк увеличивается, так что
+     * правки с устаревшим If-Match получат 412. Кэш студентов сбрасывается
+     * целиком после каждой пачки, счётчики и индекс — один раз в конце.
+     */
+    public BulkUpdateResult transferStudents(StudentTransfer transfer) {
+        if (transfer.fromFacultyId() == null || transfer.toFacultyId() == null) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Нужны fromFacultyId и toFacultyId");
+        }
+        if (transfer.fromFacultyId().equals(transfer.toFacultyId())) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Факультеты совпадают");
+        }
+        int minAge = transfer.minAge() == null ? 0 : transfer.minAge();
+        int maxAge = transfer.maxAge() == null ? Integer.MAX_VALUE : transfer.maxAge();
+        if (minAge > maxAge) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "minAge больше maxAge");
+        }
+        long from = facultyService.findFacultyById(transfer.fromFacultyId()).id();
+        long to = facultyService.findFacultyById(transfer.toFacultyId()).id();
+
+        long updated = 0;
+        try {
+            if (transfer.studentIds() != null) {
+                List<Long> ids = transfer.studentIds().stream().filter(Objects::nonNull).distinct().toList();
+                for (int i = 0; i < ids.size(); i += bulkChunkSize) {
+                    List<Long> chunk = ids.subList(i, Math.min(i + bulkChunkSize, ids.size()));
+                    updated += updateChunk(() -> studentRepository.findIdsByFacultyAndAgeIn(chunk, from, minAge, maxAge),
+                            matched -> studentRepository.transferStudents(matched, from, to),
+                            student -> Objects.equals(student.facultyId(), to)).updated();
+                }
+            } else {
+                ChunkResult chunk;
+                do {
+                    chunk = updateChunk(() -> studentRepository.findIdsByFacultyAndAge(from, minAge, maxAge,
+                                    Limit.of(bulkChunkSize)),
+                            matched -> studentRepository.transferStudents(matched, from, to),
+                            student -> Objects.equals(student.facultyId(), to));
+                    updated += chunk.updated();
+                } while (chunk.matched() == bulkChunkSize);
+            }
+        } finally {
+            eventPublisher.publishEvent(new StudentsBulkChangedEvent(
+                    "students transferred from faculty " + from + " to " + to));
+        }
+        return new BulkUpdateResult(updated);
+    }
+
+    /**
+     * Годовой переход {@code year}: возраст всех студентов +1. Студенты
+     * обходятся пачками в порядке id; каждая пачка — один UPDATE в своей
+     * транзакции, и в ней же под блокировкой строки года в
+     * student_age_rollover запоминается последний id. Поэтому переход
+     * выполняется ровно один раз: повтор после сбоя продолжает с места
+     * остановки, параллельные запуски делят пачки между собой, а запуск
+     * уже законченного года получает 409. Студенты, добавленные во время
+     * перехода, тоже в него попадают.
+     */
+    public BulkUpdateResult incrementAges(int year) {
+        ageRolloverRepository.start(year);
+        if (ageRolloverRepository.findById(year).map(AgeRollover::isCompleted).orElse(false)) {
+            throw new ResponseStatusException(HttpStatus.CONFLICT, "Возраст за " + year + " год уже увеличен");
+        }
+        long updated = 0;
+        try {
+            ChunkResult chunk;
+            do {
+                chunk = updateChunk(() -> {
+                    AgeRollover rollover = ageRolloverRepository.findForUpdate(year).orElseThrow();
+                    if (rollover.isCompleted()) {
+                        return List.of();
+                    }
+                    List<Long> ids = studentRepository.findIdsAfter(rollover.getLastStudentId(),
+                            Limit.of(bulkChunkSize));
+                    if (!ids.isEmpty()) {
+                        rollover.setLastStudentId(ids.get(ids.size() - 1));
+                    }
+                    if (ids.size() < bulkChunkSize) {
+                        rollover.setCompletedAt(Instant.now());
+                    }
+                    return ids;
+                }, studentRepository::incrementAges, student -> true);
+                updated += chunk.updated();
+            } while (chunk.matched() == bulkChunkSize);
+        } finally {
+            eventPublisher.publishEvent(new StudentsBulkChangedEvent("ages incremented"));
+        }
+        return new BulkUpdateResult(updated);
+    }
+
+    /**
+     * Одна пачка массового изменения: id, UPDATE по ним, перечитанное
+     * состояние для журнала изменений. {@code changed} отбирает строки,
+     * которые UPDATE действительно затронул.
+     */
+    private ChunkResult updateChunk(Supplier<List<Long>> selectIds, ToIntFunction<List<Long>> update,
+                                    Predicate<StudentDto> changed) {
+        ChunkResult result = transactionTemplate.execute(status -> {
+            List<Long> ids = selectIds.get();
+            if (ids.isEmpty()) {
+                return new ChunkResult(0, 0);
+            }
+            int count = update.applyAsInt(ids);
+            if (count > 0) {
+                changeOutbox.studentsUpdated(studentRepository.findDtosByIdIn(ids).stream()
+                        .filter(changed)
+                        .toList());
+                studentCache.invalidateAllAfterCommit();
+            }
+            return new ChunkResult(ids.size(), count);
+        });
+        return result == null ? new ChunkResult(0, 0) : result;
+    }
+
+    private record ChunkResult(int matched, int updated) {
+    }
+
     @Transactional
     public void deleteStudent(long id) {
-        studentRepository.deleteById(id);
-        studentRepository.flush();
+        studentRepository.findSummaryById(id).ifPresent(student -> {
+            StudentChangedEvent.State before = StudentChangedEvent.State.of(student);
+            studentRepository.delete(student);
+            studentRepository.flush();
+            eventPublisher.publishEvent(StudentChangedEvent.deleted(before, id));
+        });
+        studentCache.evictAfterCommit(id);
+    }
+
+    /**
+     * Статистика по возрасту: из счётчиков в памяти, если они включены,
+     * иначе одним GROUP BY по базе.
+     */
+    public AgeStatistics getStatistics() {
+        return statsCounters.totals()
+                .orElseGet(() -> AgeStatistics.fromHistogram(toBuckets(studentRepository.countByAge())));
+    }
+
+    public AgeStatistics getStatisticsForFaculty(long facultyId) {
+        facultyService.findFacultyById(facultyId);
+        return statsCounters.forFaculty(facultyId)
+                .orElseGet(() -> AgeStatistics.fromHistogram(toBuckets(studentRepository.countByAgeForFaculty(facultyId))));
+    }
+
+    private static List<AgeStatistics.AgeBucket> toBuckets(List<StudentRepository.AgeCount> rows) {
+        return rows.stream()
+                .map(row -> new AgeStatistics.AgeBucket(row.getAge(), row.getCount()))
+                .toList();
+    }
+
+    /**
+     * При готовом {@link StudentSnapshot} — из памяти, без транзакции; иначе
+     * из базы в read-only транзакции (на реплике, если она настроена). Так же
+     * устроены остальные чтения по возрасту и постраничный список.
+     */
+    public Collection<StudentDto> findByAge(int age) {
+        if (snapshot.isReady()) {
+            return snapshot.findByAgeBetween(age, age);
+        }
+        return readOnlyTransaction.execute(status -> studentRepository.findByAge(age, cohorts.from()));
+    }
+
+    public CursorPage<StudentDto> getStudentsPage(String cursor, int limit) {
+        int pageSize = CursorPage.normalizeLimit(limit);
+        long afterId = CursorPage.decodeCursor(cursor);
+        List<StudentDto> rows = snapshot.isReady()
+                ? snapshot.findPageAfter(afterId, pageSize + 1)
+                : readOnlyTransaction.execute(status -> studentRepository.findPageAfter(afterId, Limit.of(pageSize + 1)));
+        return CursorPage.of(rows, pageSize, StudentDto::id);
+    }
+
+    /**
+     * Отдаёт всех студентов по одному, не держа таблицу в памяти:
+     * строки читаются курсором сразу в проекции, сущности в контекст
+     * персистентности не попадают.
+     */
+    @Transactional(readOnly = true)
+    public void streamAllStudents(Consumer<StudentDto> consumer) {
+        try (var students = studentRepository.streamAll()) {
+            students.forEach(consumer);
+        }
+    }
+
+    public List<StudentDto> searchByName(String query, SearchMode mode, int page, int size) {
+        Pageable pageable = PageRequest.of(Math.max(page, 0), Math.max(1, Math.min(size, SearchMode.MAX_PAGE_SIZE)));
+        return switch (mode) {
+            case EXACT -> studentRepository.searchByNameExact(query, pageable);
+            case PREFIX -> studentRepository.searchByNamePrefix(SearchMode.prefixPattern(query), pageable);
+            case FUZZY -> findInOrder(
+                    studentRepository.searchIdsByNameFuzzy(query, pageable.getPageSize(), pageable.getOffset()));
+        };
+    }
+
+    private List<StudentDto> findInOrder(List<Long> ids) {
+        if (ids.isEmpty()) {
+            return List.of();
+        }
+        Map<Long, StudentDto> byId = studentRepository.findDtosByIdIn(ids).stream()
+                .collect(Collectors.toMap(StudentDto::id, student -> student));
+        return ids.stream().map(byId::get).filter(Objects::nonNull).toList();
+    }
+
+    public List<StudentDto> findByAgeBetween(int min, int max) {
+        if (snapshot.isReady()) {
+            return snapshot.findByAgeBetween(min, max);
+        }
+        return readOnlyTransaction.execute(status -> studentRepository.findByAgeBetween(min, max, cohorts.from()));
     }
 
-    public Collection<Student> findByAge(int age) {
-        return studentRepository.findByAge(age);
+    /**
+     * Страница студентов с возрастом в [min, max] в порядке id. Без
+     * {@link StudentSnapshot}, но при готовом {@link StudentAgeIndex} id
+     * страницы берутся из памяти, из базы читается только сама страница;
+     * студенты, сменившие возраст после построения страницы, в неё не попадают.
+     */
+    public List<StudentDto> findByAgeBetween(int min, int max, int page, int size) {
+        Pageable pageable = PageRequest.of(Math.max(page, 0), CursorPage.normalizeLimit(size));
+        if (snapshot.isReady()) {
+            return snapshot.findByAgeBetween(min, max, pageable.getOffset(), pageable.getPageSize());
+        }
+        return readOnlyTransaction.execute(status -> {
+            if (!ageIndex.isReady()) {
+                return studentRepository.findByAgeBetween(min, max, cohorts.from(), pageable);
+            }
+            long[] ids = ageIndex.page(min, max, pageable.getOffset(), pageable.getPageSize());
+            return findInOrder(Arrays.stream(ids).boxed().toList()).stream()
+                    .filter(student -> student.age() >= min && student.age() <= max)
+                    .toList();
+        });
     }
 
-    public Collection<Student> getAllStudents() {
-        return studentRepository.findAll();
+    public long countByAgeBetween(int min, int max) {
+        if (snapshot.isReady()) {
+            return snapshot.countByAgeBetween(min, max);
+        }
+        return ageIndex.isReady() ? ageIndex.count(min, max) : studentRepository.countByAgeBetween(min, max, cohorts.from());
     }
 
-    public List<Student> findByAgeBetween(int min, int max) {
-        return studentRepository.findByAgeBetween(min, max);
+    public FacultyDto getFacultyByStudentId(Long studentId) {
+        Long facultyId = findStudent(studentId).facultyId();
+        return facultyId == null ? null : facultyService.findFaculty(facultyId);
     }
 
-    public Faculty getFacultyByStudentId(Long studentId) {
-        return studentRepository.findById(studentId)
-                .orElseThrow(() -> new ResponseStatusException(
-                        HttpStatus.NOT_FOUND, "Студент не найден"))
-                .getFaculty();
+    static String validationError(String name, int age) {
+        if (name == null || name.isBlank()) {
+            return "Нужно имя";
+        }
+        if (age <= 0) {
+            return "Возраст должен быть больше 0";
+        }
+        return null;
     }
 
 }
@@ -0,0 +1,378 @@
+package ru.skypro.hogwarts.sova.service;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.Sort;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.springframework.web.server.ResponseStatusException;
+import ru.skypro.hogwarts.sova.dto.ChangeEventDto;
+import ru.skypro.hogwarts.sova.dto.ChangeFeedPage;
+import ru.skypro.hogwarts.sova.dto.CursorPage;
+import ru.skypro.hogwarts.sova.dto.RosterSort;
+import ru.skypro.hogwarts.sova.dto.StudentDto;
+import ru.skypro.hogwarts.sova.model.ChangeEvent;
+import ru.skypro.hogwarts.sova.repository.StudentRepository;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.Supplier;
+
+/**
+ * Копия таблицы студентов в памяти по столбцам ({@link StudentColumns}),
+ * из которой отвечают чтения по возрасту, по факультету и постраничный
+ * список без Hibernate и базы. Включается
+ * {@code hogwarts.student.snapshot.enabled=true}.
+ * <p>
+ * Копия загружается при старте и периодически пересобирается, а между
+ * пересборками раз в {@code hogwarts.student.snapshot.follow-interval}
+ * догоняет ленту изменений ({@link ChangeFeedService}) от смещения, на
+ * котором снята. В ленту попадают и правки других экземпляров приложения, и
+ * массовые UPDATE (перевод, годовой переход), и отвязка студентов удалённого
+ * факультета, поэтому локальные события копии не нужны; цена — своя правка
+ * видна в копии с задержкой до relay-interval плюс follow-interval. Если
+ * нужные изменения уже удалены из журнала (410), копия загружается заново.
+ * Правки одного студента могут прийти в ленте не в порядке версий,
+ * поэтому событие с версией не новее известной пропускается.
+ * <p>
+ * Каждая загрузка из базы записывается в {@code hogwarts.student.snapshot.file}
+ * вместе со смещением ленты, взятым до чтения таблицы. При следующем старте
+ * файл отображается в память и догоняется по ленте от этого смещения —
+ * таблица целиком не читается.
+ */
+@Component
+public class StudentSnapshot {
+    private static final Logger log = LoggerFactory.getLogger(StudentSnapshot.class);
+
+    private final StudentRepository studentRepository;
+    private final ChangeFeedService changeFeedService;
+    private final ObjectMapper objectMapper;
+    // загрузка читает с основной базы: смещение и таблица из одного источника
+    private final TransactionTemplate primaryTransaction;
+    private final boolean enabled;
+    private final Path file;
+    private final int parallelThreshold;
+
+    // загрузка и догон по ленте; смещение меняется только под ней
+    private final ReentrantLock reloadLock = new ReentrantLock();
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+    private StudentColumns columns = new StudentColumns(0);
+    private boolean ready;
+    private long feedPosition;
+
+    public StudentSnapshot(StudentRepository studentRepository, ChangeFeedService changeFeedService,
+                           ObjectMapper objectMapper, PlatformTransactionManager transactionManager,
+                           StudentCohorts cohorts,
+                           @Value("${hogwarts.student.snapshot.enabled:false}") boolean enabled,
+                           @Value("${hogwarts.student.snapshot.file:}") String file,
+                           @Value("${hogwarts.student.snapshot.parallel-threshold:200000}") int parallelThreshold) {
+        this.studentRepository = studentRepository;
+        this.changeFeedService = changeFeedService;
+        this.objectMapper = objectMapper;
+        this.primaryTransaction = new TransactionTemplate(transactionManager);
+        if (enabled && cohorts.windowed()) {
+            log.warn("Student snapshot disabled: it holds all cohorts, hogwarts.student.active-cohorts is set");
+        }
+        this.enabled = enabled && !cohorts.windowed();
+        this.file = file.isBlank() ? null : Path.of(file);
+        this.parallelThreshold = parallelThreshold;
+    }
+
+    public boolean isReady() {
+        lock.readLock().lock();
+        try {
+            return ready;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    public int size() {
+        lock.readLock().lock();
+        try {
+            return columns.size();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void start() {
+        if (!enabled) {
+            return;
+        }
+        if (file != null && Files.isReadable(file)) {
+            try {
+                replace(this::restore);
+                return;
+            } catch (RuntimeException e) {
+                log.warn("Student snapshot {} not restored, loading from the database: {}", file, e.getMessage());
+            }
+        }
+        reload();
+    }
+
+    @Scheduled(fixedDelayString = "${hogwarts.student.snapshot.resync-interval:PT10M}",
+            initialDelayString = "${hogwarts.student.snapshot.resync-interval:PT10M}")
+    public void reload() {
+        if (!enabled) {
+            return;
+        }
+        replace(this::load);
+    }
+
+    /**
+     * Применяет изменения ленты после смещения копии. Пока идёт загрузка,
+     * ничего не делает: новая копия сама догонит ленту.
+     */
+    @Scheduled(fixedDelayString = "${hogwarts.student.snapshot.follow-interval:PT0.5S}",
+            initialDelayString = "${hogwarts.student.snapshot.follow-interval:PT0.5S}")
+    public void follow() {
+        if (!enabled || !reloadLock.tryLock()) {
+            return;
+        }
+        try {
+            if (!ready) {
+                return;
+            }
+            ChangeFeedPage page;
+            do {
+                try {
+                    page = changeFeedService.changesSince(feedPosition, CursorPage.MAX_LIMIT);
+                } catch (ResponseStatusException e) {
+                    log.warn("Student snapshot fell behind the change feed, reloading: {}", e.getReason());
+                    replace(this::load);
+                    return;
+                }
+                if (!page.events().isEmpty()) {
+                    lock.writeLock().lock();
+                    try {
+                        page.events().forEach(event -> apply(columns, event));
+                    } finally {
+                        lock.writeLock().unlock();
+                    }
+                }
+                feedPosition = page.next();
+            } while (!page.events().isEmpty());
+        } finally {
+            reloadLock.unlock();
+        }
+    }
+
+    /** Студенты с возрастом в [{@code min}, {@code max}] по возрастанию id. */
+    public List<StudentDto> findByAgeBetween(int min, int max) {
+        lock.readLock().lock();
+        try {
+            return toDtos(columns.rowsWithAge(min, max, parallelThreshold));
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    public List<StudentDto> findByAgeBetween(int min, int max, long offset, int limit) {
+        lock.readLock().lock();
+        try {
+            return toDtos(columns.pageWithAge(min, max, offset, limit));
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    public long countByAgeBetween(int min, int max) {
+        lock.readLock().lock();
+        try {
+            return columns.countWithAge(min, max, parallelThreshold);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /** Как {@link StudentRepository#findPageAfter}: до {@code limit} студентов с id больше {@code afterId}. */
+    public List<StudentDto> findPageAfter(long afterId, int limit) {
+        lock.readLock().lock();
+        try {
+            int from = columns.rowAfter(afterId);
+            int to = (int) Math.min(columns.size(), (long) from + limit);
+            List<StudentDto> page = new ArrayList<>(Math.max(to - from, 0));
+            for (int row = from; row < to; row++) {
+                page.add(columns.get(row));
+            }
+            return page;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Студенты факультета в порядке {@link RosterSort#toSort}; {@code limit}
+     * null — все. Имена сравниваются посимвольно, поэтому порядок по NAME
+     * может отличаться от порядка по правилам сортировки базы.
+     */
+    public List<StudentDto> findByFacultyId(long facultyId, RosterSort sort, Sort.Direction direction,
+                                            long offset, Integer limit) {
+        lock.readLock().lock();
+        try {
+            int[] rows = columns.rowsOfFaculty(facultyId);
+            switch (sort) {
+                case NAME -> columns.sortByName(rows);
+                case AGE -> columns.sortByAge(rows);
+                case ID -> {
+                }
+            }
+            if (direction.isDescending()) {
+                reverse(rows);
+            }
+            int from = (int) Math.min(offset, rows.length);
+            int to = limit == null ? rows.length : (int) Math.min(rows.length, (long) from + limit);
+            return toDtos(Arrays.copyOfRange(rows, from, to));
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    public long countByFacultyId(long facultyId) {
+        lock.readLock().lock();
+        try {
+            return columns.rowsOfFaculty(facultyId).length;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Подменяет копию загруженной {@code loader} вместе со смещением ленты,
+     * на котором она снята; изменения после него применит {@link #follow}.
+     */
+    private void replace(Supplier<StudentColumns.Restored> loader) {
+        reloadLock.lock();
+        try {
+            StudentColumns.Restored loaded = loader.get();
+            lock.writeLock().lock();
+            try {
+                columns = loaded.columns();
+                ready = true;
+            } finally {
+                lock.writeLock().unlock();
+            }
+            feedPosition = loaded.feedPosition();
+            log.debug("Student snapshot loaded, {} students at feed position {}",
+                    loaded.columns().size(), loaded.feedPosition());
+        } finally {
+            reloadLock.unlock();
+        }
+    }
+
+    /**
+     * Таблица целиком и смещение ленты в одной транзакции на запись, то есть
+     * на одном соединении основной базы: read-only транзакции ушли бы на
+     * реплики, и таблица с реплики, отстающей сильнее, оказалась бы старше
+     * смещения — изменения между ними копия бы потеряла.
+     */
+    private StudentColumns.Restored load() {
+        StudentColumns.Restored restored = primaryTransaction.execute(status -> {
+            // смещение до чтения таблицы: всё, что закоммичено до него, в таблице уже есть
+            long position = changeFeedService.lastPosition();
+            StudentColumns result = new StudentColumns(Math.toIntExact(studentRepository.count()) + 16);
+            try (var students = studentRepository.streamAll()) {
+                students.forEach(result::append);
+            }
+            return new StudentColumns.Restored(result, position);
+        });
+        StudentColumns loaded = restored.columns();
+        long position = restored.feedPosition();
+        if (file != null) {
+            try {
+                loaded.write(file, position);
+            } catch (IOException e) {
+                log.warn("Student snapshot not written to {}: {}", file, e.getMessage());
+            }
+        }
+        return new StudentColumns.Restored(loaded, position);
+    }
+
+    /**
+     * Файл плюс изменения ленты после его смещения. Изменения, уже
+     * попавшие в файл, применяются повторно — результат тот же. Изменения,
+     * которым ретранслятор ещё не выдал смещения, сначала их получают.
+     */
+    private StudentColumns.Restored restore() {
+        StudentColumns.Restored restored;
+        try {
+            restored = StudentColumns.read(file);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        StudentColumns loaded = restored.columns();
+        changeFeedService.relay();
+        long position = restored.feedPosition();
+        if (position > changeFeedService.lastPosition()) {
+            throw new IllegalStateException("Смещение файла " + position + " впереди ленты изменений: файл от другой базы");
+        }
+        int applied = 0;
+        ChangeFeedPage page;
+        do {
+            try {
+                page = changeFeedService.changesSince(position, CursorPage.MAX_LIMIT);
+            } catch (ResponseStatusException e) {
+                throw new IllegalStateException(e.getReason(), e);
+            }
+            for (ChangeEventDto event : page.events()) {
+                apply(loaded, event);
+            }
+            applied += page.events().size();
+            position = page.next();
+        } while (!page.events().isEmpty());
+        log.info("Student snapshot restored from {} with {} students, {} changes replayed",
+                file, loaded.size(), applied);
+        return new StudentColumns.Restored(loaded, position);
+    }
+
+    private void apply(StudentColumns target, ChangeEventDto event) {
+        if (event.entityType() == ChangeEvent.EntityType.FACULTY) {
+            if (event.changeType() == ChangeEvent.Type.DELETED) {
+                target.detachFaculty(event.entityId());
+            }
+            return;
+        }
+        if (event.payload() == null) {
+            target.removeIfNewer(event.entityId(), event.version());
+            return;
+        }
+        try {
+            StudentDto student = objectMapper.readValue(event.payload(), StudentDto.class);
+            target.putIfNewer(event.entityId(), student.name(), student.age(), student.facultyId(), event.version());
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("Не удалось прочитать изменение " + event.position(), e);
+        }
+    }
+
+    private List<StudentDto> toDtos(int[] rows) {
+        List<StudentDto> students = new ArrayList<>(rows.length);
+        for (int row : rows) {
+            students.add(columns.get(row));
+        }
+        return students;
+    }
+
+    private static void reverse(int[] rows) {
+        for (int i = 0, j = rows.length - 1; i < j; i++, j--) {
+            int row = rows[i];
+            rows[i] = rows[j];
+            rows[j] = row;
+        }
+    }
+}
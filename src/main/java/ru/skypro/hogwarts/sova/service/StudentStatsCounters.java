@@ -0,0 +1,158 @@
+package ru.skypro.hogwarts.sova.service;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.core.task.TaskExecutor;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+import ru.skypro.hogwarts.sova.dto.AgeStatistics;
+import ru.skypro.hogwarts.sova.dto.AgeStatistics.AgeBucket;
+import ru.skypro.hogwarts.sova.event.StudentChangedEvent;
+import ru.skypro.hogwarts.sova.event.StudentsBulkChangedEvent;
+import ru.skypro.hogwarts.sova.repository.StudentRepository;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.TreeMap;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Счётчики студентов по (факультет, возраст) в памяти для дешёвого опроса
+ * статистики дашбордами. Включаются {@code hogwarts.stats.in-memory=true}.
+ * <p>
+ * Заполняются одним GROUP BY при старте, затем обновляются событиями после
+ * коммита. Периодическая пересинхронизация с базой убирает расхождения,
+ * которые могут возникнуть, если правка попала между запросом и применением
+ * событий. После массового изменения счётчики сразу перестают быть готовыми
+ * (статистика считается по базе) и перечитываются в фоне, а не в потоке
+ * запроса, который это изменение сделал.
+ * <p>
+ * Окна потоков ({@code hogwarts.student.active-cohorts}) здесь нет:
+ * статистика, как и GROUP BY по базе, считается по всем потокам.
+ */
+@Component
+public class StudentStatsCounters {
+    private static final Logger log = LoggerFactory.getLogger(StudentStatsCounters.class);
+    private static final long NO_FACULTY = 0L;
+
+    private final StudentRepository studentRepository;
+    private final TaskExecutor taskExecutor;
+    private final boolean enabled;
+    private final AtomicBoolean reloadRequested = new AtomicBoolean();
+    private final Object reloadLock = new Object();
+
+    // facultyId (0 — без факультета) -> возраст -> число студентов
+    private final Map<Long, TreeMap<Integer, Long>> counts = new HashMap<>();
+    private boolean ready;
+    // растёт с каждым массовым изменением; перечитывание, начатое до него, не делает счётчики готовыми
+    private int bulkChanges;
+
+    public StudentStatsCounters(StudentRepository studentRepository,
+                                @Qualifier("applicationTaskExecutor") TaskExecutor taskExecutor,
+                                @Value("${hogwarts.stats.in-memory:false}") boolean enabled) {
+        this.studentRepository = studentRepository;
+        this.taskExecutor = taskExecutor;
+        this.enabled = enabled;
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    @Scheduled(fixedDelayString = "${hogwarts.stats.resync-interval:PT10M}",
+            initialDelayString = "${hogwarts.stats.resync-interval:PT10M}")
+    public void reload() {
+        if (!enabled) {
+            return;
+        }
+        synchronized (reloadLock) {
+            int bulkChangesAtStart;
+            synchronized (this) {
+                bulkChangesAtStart = bulkChanges;
+            }
+            Map<Long, TreeMap<Integer, Long>> loaded = new HashMap<>();
+            for (StudentRepository.FacultyAgeCount row : studentRepository.countByFacultyAndAge()) {
+                loaded.computeIfAbsent(key(row.getFacultyId()), k -> new TreeMap<>())
+                        .merge(row.getAge(), row.getCount(), Long::sum);
+            }
+            synchronized (this) {
+                counts.clear();
+                counts.putAll(loaded);
+                ready = bulkChangesAtStart == bulkChanges;
+            }
+            log.debug("Student stats counters loaded for {} faculties", loaded.size());
+        }
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public synchronized void onStudentChanged(StudentChangedEvent event) {
+        if (!ready) {
+            return;
+        }
+        if (event.before() != null) {
+            add(event.before().facultyId(), event.before().age(), -1);
+        }
+        if (event.after() != null) {
+            add(event.after().facultyId(), event.after().age(), 1);
+        }
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onStudentsBulkChanged(StudentsBulkChangedEvent event) {
+        if (!enabled) {
+            return;
+        }
+        synchronized (this) {
+            ready = false;
+            bulkChanges++;
+        }
+        if (reloadRequested.compareAndSet(false, true)) {
+            taskExecutor.execute(() -> {
+                reloadRequested.set(false);
+                try {
+                    reload();
+                } catch (RuntimeException e) {
+                    log.warn("Student stats counters reload after {} failed, next try on schedule", event.reason(), e);
+                }
+            });
+        }
+    }
+
+    public synchronized Optional<AgeStatistics> totals() {
+        if (!ready) {
+            return Optional.empty();
+        }
+        TreeMap<Integer, Long> total = new TreeMap<>();
+        counts.values().forEach(byAge -> byAge.forEach((age, count) -> total.merge(age, count, Long::sum)));
+        return Optional.of(AgeStatistics.fromHistogram(buckets(total)));
+    }
+
+    public synchronized Optional<AgeStatistics> forFaculty(long facultyId) {
+        if (!ready) {
+            return Optional.empty();
+        }
+        return Optional.of(AgeStatistics.fromHistogram(buckets(counts.getOrDefault(facultyId, new TreeMap<>()))));
+    }
+
+    private void add(Long facultyId, int age, long delta) {
+        TreeMap<Integer, Long> byAge = counts.computeIfAbsent(key(facultyId), k -> new TreeMap<>());
+        if (byAge.merge(age, delta, Long::sum) <= 0) {
+            byAge.remove(age);
+        }
+    }
+
+    private static List<AgeBucket> buckets(TreeMap<Integer, Long> byAge) {
+        List<AgeBucket> buckets = new ArrayList<>(byAge.size());
+        byAge.forEach((age, count) -> buckets.add(new AgeBucket(age, count)));
+        return buckets;
+    }
+
+    private static long key(Long facultyId) {
+        return facultyId == null ? NO_FACULTY : facultyId;
+    }
+}
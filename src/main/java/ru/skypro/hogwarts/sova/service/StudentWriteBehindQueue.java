@@ -0,0 +1,252 @@
+package ru.skypro.hogwarts.sova.service;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.task.TaskExecutor;
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.http.HttpStatus;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.web.server.ResponseStatusException;
+import ru.skypro.hogwarts.sova.concurrency.QueueFullException;
+import ru.skypro.hogwarts.sova.dto.StudentEdit;
+import ru.skypro.hogwarts.sova.dto.StudentEditStatus;
+import ru.skypro.hogwarts.sova.dto.StudentEditStatus.State;
+import ru.skypro.hogwarts.sova.model.Faculty;
+import ru.skypro.hogwarts.sova.model.Student;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+/**
+ * Отложенная запись правок студентов (PUT /student?async=true). Включается
+ * {@code hogwarts.student.write-behind.enabled=true}.
+ * <p>
+ * Правки копятся в памяти, по одной на студента: более поздняя заменяет
+ * ожидающую (её статус — SUPERSEDED), версия из If-Match проверяется при
+ * записи. Очередь сбрасывается пачками по {@code batch-size} в одной
+ * транзакции — по расписанию и сразу, как только набралась пачка. Когда в
+ * очереди {@code capacity} студентов, новая правка ждёт не дольше
+ * {@code offer-timeout}, затем 503. При остановке приложения очередь
+ * дописывается; при аварийном завершении неприменённые правки теряются.
+ */
+@Service
+public class StudentWriteBehindQueue {
+    private static final Logger log = LoggerFactory.getLogger(StudentWriteBehindQueue.class);
+
+    private final StudentService studentService;
+    private final TaskExecutor taskExecutor;
+    private final boolean enabled;
+    private final int capacity;
+    private final int batchSize;
+    private final Duration offerTimeout;
+    private final Cache<String, StudentEditStatus> statuses = Caffeine.newBuilder()
+            .expireAfterWrite(Duration.ofHours(1))
+            .build();
+
+    private final ReentrantLock lock = new ReentrantLock();
+    private final Condition notFull = lock.newCondition();
+    // studentId -> ожидающая правка, в порядке поступления
+    private final LinkedHashMap<Long, Pending> pending = new LinkedHashMap<>();
+    private boolean closed;
+
+    private final ReentrantLock flushLock = new ReentrantLock();
+    private final AtomicBoolean flushRequested = new AtomicBoolean();
+
+    public StudentWriteBehindQueue(StudentService studentService,
+                                   @Qualifier("applicationTaskExecutor") TaskExecutor taskExecutor,
+                                   @Value("${hogwarts.student.write-behind.enabled:false}") boolean enabled,
+                                   @Value("${hogwarts.student.write-behind.capacity:10000}") int capacity,
+                                   @Value("${hogwarts.student.write-behind.batch-size:500}") int batchSize,
+                                   @Value("${hogwarts.student.write-behind.offer-timeout:500ms}") Duration offerTimeout) {
+        this.studentService = studentService;
+        this.taskExecutor = taskExecutor;
+        this.enabled = enabled;
+        this.capacity = capacity;
+        this.batchSize = batchSize;
+        this.offerTimeout = offerTimeout;
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    public int size() {
+        lock.lock();
+        try {
+            return pending.size();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public StudentEditStatus submit(Student student, Integer expectedVersion) {
+        if (student.getId() == null) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Нужен id студента");
+        }
+        String error = StudentService.validationError(student.getName(), student.getAge());
+        if (error != null) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, error);
+        }
+        long studentId = studentService.findStudent(student.getId()).id();
+        Long facultyId = student.getFaculty() == null ? null : student.getFaculty().getId();
+        Pending edit = new Pending(UUID.randomUUID().toString(), new StudentEdit(
+                studentId, student.getName(), student.getAge(), facultyId, expectedVersion));
+
+        StudentEditStatus queued = new StudentEditStatus(edit.ticketId(), studentId, State.QUEUED, null, null);
+        int size;
+        lock.lock();
+        try {
+            long nanos = offerTimeout.toNanos();
+            while (!closed && pending.size() >= capacity && !pending.containsKey(studentId)) {
+                if (nanos <= 0) {
+                    throw new QueueFullException("Очередь правок заполнена, повторите позже");
+                }
+                nanos = notFull.awaitNanos(nanos);
+            }
+            if (closed) {
+                throw new QueueFullException("Приложение останавливается, повторите позже");
+            }
+            // статусы пишутся под замком: как только замок отпущен, flush может забрать правку
+            // и записать APPLIED, а QUEUED после этого затёр бы его
+            statuses.put(edit.ticketId(), queued);
+            Pending superseded = pending.put(studentId, edit);
+            if (superseded != null) {
+                statuses.put(superseded.ticketId(),
+                        new StudentEditStatus(superseded.ticketId(), studentId, State.SUPERSEDED, null, null));
+            }
+            size = pending.size();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new QueueFullException("Ожидание места в очереди прервано");
+        } finally {
+            lock.unlock();
+        }
+
+        if (size >= batchSize) {
+            requestFlush();
+        }
+        return queued;
+    }
+
+    public StudentEditStatus getStatus(String ticketId) {
+        StudentEditStatus status = statuses.getIfPresent(ticketId);
+        if (status == null) {
+            throw new ResponseStatusException(HttpStatus.NOT_FOUND, "Правка не найдена");
+        }
+        return status;
+    }
+
+    private void requestFlush() {
+        if (flushRequested.compareAndSet(false, true)) {
+            taskExecutor.execute(() -> {
+                flushRequested.set(false);
+                flush();
+            });
+        }
+    }
+
+    /**
+     * Записывает всё, что накопилось, пачками по {@code batch-size}.
+     * Пачки пишутся строго по очереди.
+     */
+    @Scheduled(fixedDelayString = "${hogwarts.student.write-behind.flush-interval:PT1S}")
+    public void flush() {
+        if (!enabled) {
+            return;
+        }
+        flushLock.lock();
+        try {
+            for (List<Pending> batch = take(); !batch.isEmpty(); batch = take()) {
+                apply(batch);
+            }
+        } finally {
+            flushLock.unlock();
+        }
+    }
+
+    @PreDestroy
+    public void drain() {
+        lock.lock();
+        try {
+            closed = true;
+            notFull.signalAll();
+        } finally {
+            lock.unlock();
+        }
+        flush();
+    }
+
+    private List<Pending> take() {
+        lock.lock();
+        try {
+            List<Pending> batch = new ArrayList<>(Math.min(batchSize, pending.size()));
+            Iterator<Pending> iterator = pending.values().iterator();
+            while (iterator.hasNext() && batch.size() < batchSize) {
+                batch.add(iterator.next());
+                iterator.remove();
+            }
+            notFull.signalAll();
+            return batch;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private void apply(List<Pending> batch) {
+        List<StudentEdit.Outcome> outcomes;
+        try {
+            outcomes = studentService.applyEdits(batch.stream().map(Pending::edit).toList());
+        } catch (OptimisticLockingFailureException e) {
+            // Кто-то правил тех же студентов напрямую: по одной, с повтором.
+            outcomes = batch.stream().map(pending -> applySingly(pending.edit())).toList();
+        } catch (RuntimeException e) {
+            log.error("Failed to write {} queued student edits", batch.size(), e);
+            outcomes = batch.stream()
+                    .map(pending -> StudentEdit.Outcome.failed(pending.edit().studentId(), e.getMessage()))
+                    .toList();
+        }
+
+        Map<Long, StudentEdit.Outcome> byStudent = outcomes.stream()
+                .collect(Collectors.toMap(StudentEdit.Outcome::studentId, Function.identity()));
+        for (Pending pending : batch) {
+            StudentEdit.Outcome outcome = byStudent.get(pending.edit().studentId());
+            State state = outcome.error() == null ? State.APPLIED : State.FAILED;
+            statuses.put(pending.ticketId(), new StudentEditStatus(pending.ticketId(), pending.edit().studentId(),
+                    state, outcome.version(), outcome.error()));
+        }
+    }
+
+    private StudentEdit.Outcome applySingly(StudentEdit edit) {
+        Faculty faculty = edit.facultyId() == null ? null : new Faculty(edit.facultyId(), null, null);
+        try {
+            int version = studentService.editStudent(
+                    new Student(edit.studentId(), edit.name(), edit.age(), faculty), edit.expectedVersion()).version();
+            return StudentEdit.Outcome.applied(edit.studentId(), version);
+        } catch (ResponseStatusException e) {
+            return StudentEdit.Outcome.failed(edit.studentId(), e.getReason());
+        } catch (RuntimeException e) {
+            // Ошибка одной правки не должна оставить остальные из пачки в QUEUED
+            log.error("Failed to write queued edit of student {}", edit.studentId(), e);
+            return StudentEdit.Outcome.failed(edit.studentId(), e.getMessage());
+        }
+    }
+
+    private record Pending(String ticketId, StudentEdit edit) {
+    }
+}
@@ -0,0 +1,18 @@
+-- Схема, которую раньше создавал ddl-auto=update. IF NOT EXISTS позволяет
+-- накатить миграцию поверх уже существующей базы (baseline-on-migrate).
+CREATE TABLE IF NOT EXISTS faculty
+(
+    id      BIGINT GENERATED BY DEFAULT AS IDENTITY PRIMARY KEY,
+    version INTEGER,
+    name    VARCHAR(255),
+    color   VARCHAR(255)
+);
+
+CREATE TABLE IF NOT EXISTS student
+(
+    id         BIGINT GENERATED BY DEFAULT AS IDENTITY PRIMARY KEY,
+    version    INTEGER,
+    name       VARCHAR(255),
+    age        INTEGER NOT NULL,
+    faculty_id BIGINT REFERENCES faculty (id)
+);
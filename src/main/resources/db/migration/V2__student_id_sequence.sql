@@ -0,0 +1,7 @@
+-- Пул идентификаторов для студентов: Hibernate берёт из последовательности
+-- по 50 id за раз, что позволяет пакетные INSERT (IDENTITY их отключает).
+CREATE SEQUENCE IF NOT EXISTS student_seq INCREMENT BY 50;
+
+SELECT setval('student_seq', (SELECT COALESCE(MAX(id), 0) + 50 FROM student), false);
+
+ALTER TABLE student ALTER COLUMN id DROP IDENTITY IF EXISTS;
@@ -0,0 +1,13 @@
+-- Индексы для регистронезависимого поиска. Запросы в репозиториях
+-- сравнивают lower(col), поэтому индексы функциональные:
+--  * btree text_pattern_ops обслуживает "=" и LIKE 'префикс%';
+--  * GIN gin_trgm_ops обслуживает нечёткий поиск (оператор %, similarity).
+CREATE EXTENSION IF NOT EXISTS pg_trgm;
+
+CREATE INDEX IF NOT EXISTS faculty_name_lower_idx ON faculty (lower(name) text_pattern_ops);
+CREATE INDEX IF NOT EXISTS faculty_color_lower_idx ON faculty (lower(color) text_pattern_ops);
+CREATE INDEX IF NOT EXISTS faculty_name_trgm_idx ON faculty USING gin (lower(name) gin_trgm_ops);
+CREATE INDEX IF NOT EXISTS faculty_color_trgm_idx ON faculty USING gin (lower(color) gin_trgm_ops);
+
+CREATE INDEX IF NOT EXISTS student_name_lower_idx ON student (lower(name) text_pattern_ops);
+CREATE INDEX IF NOT EXISTS student_name_trgm_idx ON student USING gin (lower(name) gin_trgm_ops);
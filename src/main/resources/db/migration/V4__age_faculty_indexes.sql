@@ -0,0 +1,8 @@
+-- Индексы для выборок по возрасту и факультету:
+--  * (age, id) обслуживает /student/age/{age} и /student/age-between
+--    вместе с ORDER BY id, а также постраничную выдачу;
+--  * (faculty_id, age) обслуживает /faculty/{id}/students, отвязку студентов
+--    при удалении факультета (поиск по внешнему ключу) и статистику по
+--    возрасту внутри факультета.
+CREATE INDEX IF NOT EXISTS student_age_id_idx ON student (age, id);
+CREATE INDEX IF NOT EXISTS student_faculty_id_age_idx ON student (faculty_id, age);
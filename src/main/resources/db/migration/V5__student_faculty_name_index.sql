@@ -0,0 +1,5 @@
+-- Постраничный список студентов факультета с сортировкой по имени
+-- (/faculty/{id}/students?sort=NAME) читается по индексу, без сортировки
+-- всего факультета; id — для устойчивого порядка при одинаковых именах.
+-- Сортировку по возрасту обслуживает student_faculty_id_age_idx.
+CREATE INDEX IF NOT EXISTS student_faculty_id_name_idx ON student (faculty_id, name, id);
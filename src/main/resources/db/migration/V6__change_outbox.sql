@@ -0,0 +1,33 @@
+-- Журнал изменений студентов и факультетов (transactional outbox). Строка
+-- пишется в той же транзакции, что и само изменение; position (смещение в
+-- ленте) ей позже присваивает ретранслятор, строго по порядку коммитов.
+CREATE SEQUENCE IF NOT EXISTS change_event_seq INCREMENT BY 50;
+
+CREATE TABLE IF NOT EXISTS change_event
+(
+    id          BIGINT PRIMARY KEY,
+    position    BIGINT,
+    entity_type VARCHAR(16)              NOT NULL,
+    entity_id   BIGINT                   NOT NULL,
+    change_type VARCHAR(16)              NOT NULL,
+    version     INTEGER,
+    payload     VARCHAR(2000),
+    created_at  TIMESTAMP WITH TIME ZONE NOT NULL
+);
+
+-- Чтение ленты: WHERE position > ? ORDER BY position
+CREATE UNIQUE INDEX IF NOT EXISTS change_event_position_idx ON change_event (position);
+-- Ретранслятор ищет ещё не упорядоченные строки; их обычно единицы
+CREATE INDEX IF NOT EXISTS change_event_pending_idx ON change_event (id) WHERE position IS NULL;
+
+-- Последнее выданное смещение. Блокировка этой строки делает ретранслятор
+-- единственным даже при нескольких экземплярах приложения.
+CREATE TABLE IF NOT EXISTS change_relay_state
+(
+    id            INTEGER PRIMARY KEY,
+    last_position BIGINT NOT NULL
+);
+
+INSERT INTO change_relay_state (id, last_position)
+SELECT 1, 0
+WHERE NOT EXISTS (SELECT 1 FROM change_relay_state WHERE id = 1);
@@ -0,0 +1,114 @@
+-- Секционирование student по потоку (cohort — год зачисления), по секции
+-- на год. Выборки с условием на cohort (окно hogwarts.student.active-cohorts)
+-- читают только нужные секции; VACUUM, перестроение индексов и архивирование
+-- выпусков идут по одной небольшой секции, а не по всей таблице.
+--
+-- Первичный ключ секционированной таблицы обязан включать ключ
+-- секционирования, поэтому он (id, cohort); уникальность id по-прежнему
+-- обеспечивает student_seq. Вся миграция — одна транзакция, таблица
+-- переписывается целиком: на большой базе это окно обслуживания.
+ALTER TABLE student RENAME TO student_unpartitioned;
+
+CREATE TABLE student
+(
+    id         BIGINT  NOT NULL,
+    version    INTEGER,
+    name       VARCHAR(255),
+    age        INTEGER NOT NULL,
+    faculty_id BIGINT,
+    cohort     INTEGER NOT NULL DEFAULT EXTRACT(YEAR FROM CURRENT_DATE)
+) PARTITION BY RANGE (cohort);
+
+-- Потоки без своей секции (например, если секцию года не успели создать).
+-- student_cohort_partition() переносит их строки в новую секцию.
+CREATE TABLE student_cohort_default PARTITION OF student DEFAULT;
+
+-- Создаёт секцию student_<год>, если её ещё нет. Секцию нельзя просто
+-- создать через PARTITION OF, пока строки этого года лежат в секции по
+-- умолчанию, поэтому таблица создаётся отдельно, строки переносятся в неё,
+-- и только потом она присоединяется; CHECK заранее избавляет ATTACH от
+-- проверки всей секции. Индексы, первичный и внешний ключ наследуются от
+-- student при присоединении.
+CREATE OR REPLACE FUNCTION student_cohort_partition(p_cohort INTEGER) RETURNS VOID
+    LANGUAGE plpgsql AS
+$$
+DECLARE
+    partition_name TEXT := 'student_' || p_cohort;
+BEGIN
+    PERFORM pg_advisory_xact_lock(hashtext('student_cohort_partition'));
+    IF to_regclass(partition_name) IS NOT NULL THEN
+        RETURN;
+    END IF;
+    EXECUTE format('CREATE TABLE %I (LIKE student INCLUDING DEFAULTS)', partition_name);
+    EXECUTE format('ALTER TABLE %I ADD CONSTRAINT %I CHECK (cohort >= %s AND cohort < %s)',
+                   partition_name, partition_name || '_range', p_cohort, p_cohort + 1);
+    EXECUTE format('WITH moved AS (DELETE FROM student_cohort_default WHERE cohort = %s RETURNING *) '
+                       || 'INSERT INTO %I SELECT * FROM moved', p_cohort, partition_name);
+    EXECUTE format('ALTER TABLE student ATTACH PARTITION %I FOR VALUES FROM (%s) TO (%s)',
+                   partition_name, p_cohort, p_cohort + 1);
+    EXECUTE format('ALTER TABLE %I DROP CONSTRAINT %I', partition_name, partition_name || '_range');
+END
+$$;
+
+-- Архив выпусков: секции потоков раньше p_before отсоединяются от student и
+-- переносятся в схему student_archive как обычные таблицы (внешний ключ на
+-- faculty снимается, чтобы не мешать удалению факультетов). Возвращает
+-- архивированные потоки. DETACH берёт короткую эксклюзивную блокировку
+-- student; CONCURRENTLY внутри функции недоступен.
+CREATE SCHEMA IF NOT EXISTS student_archive;
+
+CREATE OR REPLACE FUNCTION student_archive_cohorts(p_before INTEGER) RETURNS SETOF INTEGER
+    LANGUAGE plpgsql AS
+$$
+DECLARE
+    part RECORD;
+    fk   RECORD;
+BEGIN
+    PERFORM pg_advisory_xact_lock(hashtext('student_cohort_partition'));
+    FOR part IN
+        SELECT c.oid, c.relname, substring(c.relname FROM 9)::INTEGER AS cohort
+        FROM pg_inherits i
+                 JOIN pg_class c ON c.oid = i.inhrelid
+        WHERE i.inhparent = 'student'::REGCLASS
+          AND c.relname ~ '^student_[0-9]+$'
+          AND substring(c.relname FROM 9)::INTEGER < p_before
+        ORDER BY 3
+        LOOP
+            EXECUTE format('ALTER TABLE student DETACH PARTITION %I', part.relname);
+            FOR fk IN SELECT conname FROM pg_constraint WHERE conrelid = part.oid AND contype = 'f'
+                LOOP
+                    EXECUTE format('ALTER TABLE %I DROP CONSTRAINT %I', part.relname, fk.conname);
+                END LOOP;
+            EXECUTE format('ALTER TABLE %I SET SCHEMA student_archive', part.relname);
+            RETURN NEXT part.cohort;
+        END LOOP;
+END
+$$;
+
+-- Поток существующих студентов не хранился: считаем, что поступают в 11 лет,
+-- а возраст растёт раз в год (POST /student/age-increment).
+SELECT student_cohort_partition(cohort)
+FROM (SELECT DISTINCT EXTRACT(YEAR FROM CURRENT_DATE)::INTEGER - GREATEST(age - 11, 0) AS cohort
+      FROM student_unpartitioned
+      UNION
+      SELECT EXTRACT(YEAR FROM CURRENT_DATE)::INTEGER + g
+      FROM generate_series(0, 1) g) cohorts;
+
+INSERT INTO student (id, version, name, age, faculty_id, cohort)
+SELECT id, version, name, age, faculty_id, EXTRACT(YEAR FROM CURRENT_DATE)::INTEGER - GREATEST(age - 11, 0)
+FROM student_unpartitioned;
+
+DROP TABLE student_unpartitioned;
+
+-- Ограничения и индексы V1–V5 заново, уже на секционированной таблице:
+-- создаются в каждой секции и в секциях, присоединённых позже.
+ALTER TABLE student ADD CONSTRAINT student_pkey PRIMARY KEY (id, cohort);
+ALTER TABLE student ADD CONSTRAINT student_faculty_id_fkey FOREIGN KEY (faculty_id) REFERENCES faculty (id);
+
+CREATE INDEX student_name_lower_idx ON student (lower(name) text_pattern_ops);
+CREATE INDEX student_name_trgm_idx ON student USING gin (lower(name) gin_trgm_ops);
+CREATE INDEX student_age_id_idx ON student (age, id);
+CREATE INDEX student_faculty_id_age_idx ON student (faculty_id, age);
+CREATE INDEX student_faculty_id_name_idx ON student (faculty_id, name, id);
+
+ANALYZE student;
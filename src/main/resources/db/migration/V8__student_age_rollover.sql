@@ -0,0 +1,12 @@
+-- Годовые переходы (POST /student/age-increment). Строка года появляется с
+-- первым запуском; last_student_id двигается в той же транзакции, что и
+-- UPDATE очередной пачки, так что повтор после сбоя продолжает с места
+-- остановки, а не увеличивает возраст второй раз. completed_at заполняется
+-- после последней пачки: повторный переход того же года получает 409.
+CREATE TABLE IF NOT EXISTS student_age_rollover
+(
+    rollover_year   INTEGER PRIMARY KEY,
+    last_student_id BIGINT                   NOT NULL,
+    started_at      TIMESTAMP WITH TIME ZONE NOT NULL,
+    completed_at    TIMESTAMP WITH TIME ZONE
+);
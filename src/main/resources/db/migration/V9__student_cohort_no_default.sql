@@ -0,0 +1,5 @@
+-- Поток выводится из возраста (StudentCohorts.forAge, как при переносе
+-- строк в V7), а значение по умолчанию столбца на возраст сослаться не
+-- может и давало бы текущий год любому студенту. Поэтому умолчания нет:
+-- вставки мимо приложения задают cohort явно.
+ALTER TABLE student ALTER COLUMN cohort DROP DEFAULT;
@@ -0,0 +1,175 @@
+package ru.skypro.hogwarts.sova;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.HttpStatus;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.web.server.ResponseStatusException;
+import ru.skypro.hogwarts.sova.dto.StudentDto;
+import ru.skypro.hogwarts.sova.dto.StudentTransfer;
+import ru.skypro.hogwarts.sova.model.Faculty;
+import ru.skypro.hogwarts.sova.model.Student;
+import ru.skypro.hogwarts.sova.repository.FacultyRepository;
+import ru.skypro.hogwarts.sova.repository.StudentRepository;
+import ru.skypro.hogwarts.sova.service.StudentService;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.assertj.core.api.Assertions.tuple;
+
+/**
+ * Массовые изменения пачками по 2 строки: перевод между факультетами и
+ * годовой переход. Проверяются границы пачек, рост версий, сброс кэша
+ * студентов и однократность перехода за год.
+ */
+@SpringBootTest(properties = "hogwarts.student.bulk-update.chunk-size=2")
+@ActiveProfiles("test")
+class BulkUpdateTests {
+    @Autowired
+    private StudentService studentService;
+    @Autowired
+    private StudentRepository studentRepository;
+    @Autowired
+    private FacultyRepository facultyRepository;
+    @Autowired
+    private JdbcTemplate jdbc;
+
+    private Faculty gryffindor;
+    private Faculty ravenclaw;
+
+    @BeforeEach
+    void seed() {
+        gryffindor = facultyRepository.save(new Faculty(null, "Гриффиндор", "красный"));
+        ravenclaw = facultyRepository.save(new Faculty(null, "Когтевран", "синий"));
+    }
+
+    @AfterEach
+    void cleanUp() {
+        studentRepository.deleteAllInBatch();
+        facultyRepository.deleteAllInBatch();
+        jdbc.update("DELETE FROM change_event");
+        jdbc.update("DELETE FROM student_age_rollover");
+    }
+
+    @Test
+    void incrementAgesTouchesEveryChunkOncePerYear() {
+        List<Long> ids = students(gryffindor, 11, 12, 13, 14, 15);
+        StudentDto cached = studentService.findStudent(ids.get(4));
+
+        assertThat(studentService.incrementAges(2026).updated()).isEqualTo(5);
+
+        assertThat(studentRepository.findDtosByIdIn(ids))
+                .allSatisfy(student -> assertThat(student.version()).isEqualTo(1))
+                .extracting(StudentDto::age)
+                .containsExactlyInAnyOrder(12, 13, 14, 15, 16);
+        assertThat(studentService.findStudent(ids.get(4)))
+                .extracting(StudentDto::age, StudentDto::version)
+                .containsExactly(cached.age() + 1, cached.version() + 1);
+        assertThat(jdbc.queryForObject("SELECT count(*) FROM change_event WHERE change_type = 'UPDATED'",
+                Integer.class)).isEqualTo(5);
+
+        assertThatThrownBy(() -> studentService.incrementAges(2026))
+                .isInstanceOfSatisfying(ResponseStatusException.class,
+                        e -> assertThat(e.getStatusCode()).isEqualTo(HttpStatus.CONFLICT));
+        assertThat(ages(ids)).containsExactlyInAnyOrder(12, 13, 14, 15, 16);
+
+        assertThat(studentService.incrementAges(2027).updated()).isEqualTo(5);
+        assertThat(ages(ids)).containsExactlyInAnyOrder(13, 14, 15, 16, 17);
+    }
+
+    @Test
+    void lastFullChunkCompletesRollover() {
+        List<Long> ids = students(gryffindor, 11, 12, 13, 14);
+
+        assertThat(studentService.incrementAges(2026).updated()).isEqualTo(4);
+
+        assertThat(jdbc.queryForObject("SELECT last_student_id FROM student_age_rollover "
+                + "WHERE rollover_year = 2026 AND completed_at IS NOT NULL", Long.class)).isEqualTo(ids.get(3));
+        assertThatThrownBy(() -> studentService.incrementAges(2026)).isInstanceOf(ResponseStatusException.class);
+    }
+
+    @Test
+    void interruptedRolloverResumesAfterLastProcessedId() {
+        List<Long> ids = students(gryffindor, 11, 12, 13, 14, 15);
+        // первые три студента уже переведены, дальше переход упал
+        jdbc.update("UPDATE student SET age = age + 1, version = version + 1 WHERE id <= ?", ids.get(2));
+        jdbc.update("INSERT INTO student_age_rollover (rollover_year, last_student_id, started_at) "
+                + "VALUES (2026, ?, CURRENT_TIMESTAMP)", ids.get(2));
+
+        assertThat(studentService.incrementAges(2026).updated()).isEqualTo(2);
+
+        assertThat(ages(ids)).containsExactlyInAnyOrder(12, 13, 14, 15, 16);
+        assertThat(studentRepository.findDtosByIdIn(ids)).extracting(StudentDto::version).containsOnly(1);
+    }
+
+    @Test
+    void transferMovesMatchingStudentsAcrossChunks() {
+        List<Long> ids = students(gryffindor, 11, 12, 13, 14, 15);
+        long ravenclawStudent = students(ravenclaw, 13).get(0);
+        StudentDto cached = studentService.findStudent(ids.get(2));
+
+        long updated = studentService.transferStudents(
+                new StudentTransfer(gryffindor.getId(), ravenclaw.getId(), 12, 14, null)).updated();
+
+        assertThat(updated).isEqualTo(3);
+        assertThat(studentRepository.findDtosByIdIn(ids))
+                .extracting(StudentDto::age, StudentDto::facultyId, StudentDto::version)
+                .containsExactlyInAnyOrder(
+                        tuple(11, gryffindor.getId(), 0),
+                        tuple(12, ravenclaw.getId(), 1),
+                        tuple(13, ravenclaw.getId(), 1),
+                        tuple(14, ravenclaw.getId(), 1),
+                        tuple(15, gryffindor.getId(), 0));
+        assertThat(studentService.findStudent(ids.get(2)))
+                .extracting(StudentDto::facultyId, StudentDto::version)
+                .containsExactly(ravenclaw.getId(), cached.version() + 1);
+        assertThat(studentService.findStudent(ravenclawStudent).version()).isZero();
+    }
+
+    @Test
+    void transferByIdsSkipsStudentsOfOtherFaculties() {
+        List<Long> ids = students(gryffindor, 11, 12, 13);
+        long ravenclawStudent = students(ravenclaw, 12).get(0);
+        List<Long> requested = new ArrayList<>(List.of(ids.get(0), ravenclawStudent, ids.get(2), ids.get(2)));
+        requested.add(null);
+
+        long updated = studentService.transferStudents(
+                new StudentTransfer(gryffindor.getId(), ravenclaw.getId(), null, null, requested)).updated();
+
+        assertThat(updated).isEqualTo(2);
+        assertThat(studentService.findStudent(ids.get(1)).facultyId()).isEqualTo(gryffindor.getId());
+        assertThat(studentRepository.findDtosByIdIn(List.of(ids.get(0), ids.get(2), ravenclawStudent)))
+                .allSatisfy(student -> assertThat(student.facultyId()).isEqualTo(ravenclaw.getId()))
+                .extracting(StudentDto::version)
+                .containsExactlyInAnyOrder(1, 1, 0);
+    }
+
+    @Test
+    void transferRejectsSameFaculty() {
+        assertThatThrownBy(() -> studentService.transferStudents(
+                new StudentTransfer(gryffindor.getId(), gryffindor.getId(), null, null, null)))
+                .isInstanceOfSatisfying(ResponseStatusException.class,
+                        e -> assertThat(e.getStatusCode()).isEqualTo(HttpStatus.BAD_REQUEST));
+    }
+
+    private List<Long> students(Faculty faculty, int... ages) {
+        return studentRepository.saveAll(Arrays.stream(ages)
+                        .mapToObj(age -> new Student(null, "Студент " + age, age, faculty))
+                        .toList())
+                .stream()
+                .map(Student::getId)
+                .toList();
+    }
+
+    private List<Integer> ages(List<Long> ids) {
+        return studentRepository.findDtosByIdIn(ids).stream().map(StudentDto::age).toList();
+    }
+}
@@ -0,0 +1,170 @@
+package ru.skypro.hogwarts.sova;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.MediaType;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.RequestBuilder;
+import org.springframework.test.web.servlet.ResultMatcher;
+import ru.skypro.hogwarts.sova.cache.VersionedCache;
+import ru.skypro.hogwarts.sova.dto.StudentDto;
+import ru.skypro.hogwarts.sova.model.Faculty;
+import ru.skypro.hogwarts.sova.model.Student;
+import ru.skypro.hogwarts.sova.repository.FacultyRepository;
+import ru.skypro.hogwarts.sova.repository.StudentRepository;
+import ru.skypro.hogwarts.sova.service.StudentService;
+
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.hamcrest.Matchers.contains;
+import static org.hamcrest.Matchers.hasSize;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.delete;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.put;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+/**
+ * Кэш факультетов и студентов через HTTP: повторное чтение по id идёт без
+ * запросов к базе и видно в счётчиках попаданий, правка кладёт в кэш новую
+ * версию, удаление оставляет метку, а загрузка, закончившаяся после правки,
+ * не возвращает в кэш старую версию.
+ */
+@SpringBootTest
+@AutoConfigureMockMvc
+@ActiveProfiles("test")
+class CacheTests {
+    @Autowired
+    private MockMvc mockMvc;
+    @Autowired
+    private ObjectMapper objectMapper;
+    @Autowired
+    private MeterRegistry meterRegistry;
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+    @Autowired
+    private FacultyRepository facultyRepository;
+    @Autowired
+    private StudentRepository studentRepository;
+    @Autowired
+    private StudentService studentService;
+    @Autowired
+    private VersionedCache<StudentDto> studentCache;
+    @Autowired
+    private List<VersionedCache<?>> caches;
+
+    private Faculty gryffindor;
+    private Student harry;
+
+    @BeforeEach
+    void seed() {
+        // схема пересоздаётся с каждым контекстом, и id повторяются: кэши общего контекста начинаем пустыми
+        caches.forEach(VersionedCache::invalidateAll);
+        gryffindor = facultyRepository.save(new Faculty(null, "Гриффиндор", "красный"));
+        harry = studentRepository.save(new Student(null, "Гарри", 11, gryffindor));
+    }
+
+    @AfterEach
+    void cleanUp() {
+        studentRepository.deleteAllInBatch();
+        facultyRepository.deleteAllInBatch();
+    }
+
+    @Test
+    void repeatedReadsHitCache() throws Exception {
+        double hits = cacheGets("student", "hit");
+        double misses = cacheGets("student", "miss");
+
+        assertStatements(1, get("/student/{id}", harry.getId()), jsonPath("$.name").value("Гарри"));
+        assertStatements(0, get("/student/{id}", harry.getId()), jsonPath("$.name").value("Гарри"));
+        assertStatements(0, get("/student/{id}", harry.getId()), jsonPath("$.name").value("Гарри"));
+
+        assertThat(cacheGets("student", "miss") - misses).isEqualTo(1);
+        assertThat(cacheGets("student", "hit") - hits).isEqualTo(2);
+        mockMvc.perform(get("/cache/stats"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$[?(@.name == 'student')].hitCount")
+                        .value(contains((int) studentCache.stats().hitCount())))
+                .andExpect(jsonPath("$[?(@.name == 'faculty')].size").value(hasSize(1)));
+    }
+
+    @Test
+    void editPutsNewVersionIntoCache() throws Exception {
+        assertStatements(1, get("/faculty/{id}", gryffindor.getId()), jsonPath("$.color").value("красный"));
+        mockMvc.perform(put("/faculty").contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(new Faculty(gryffindor.getId(), "Гриффиндор", "алый"))))
+                .andExpect(status().isOk());
+        assertStatements(0, get("/faculty/{id}", gryffindor.getId()), jsonPath("$.color").value("алый"));
+
+        assertStatements(1, get("/student/{id}", harry.getId()), jsonPath("$.age").value(11));
+        mockMvc.perform(put("/student").contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(new Student(harry.getId(), "Гарри Поттер", 12, null))))
+                .andExpect(status().isOk());
+        assertStatements(0, get("/student/{id}", harry.getId()), jsonPath("$.name").value("Гарри Поттер"));
+    }
+
+    @Test
+    void deleteLeavesTombstone() throws Exception {
+        assertStatements(1, get("/student/{id}", harry.getId()), status().isOk());
+        mockMvc.perform(delete("/student/{id}", harry.getId())).andExpect(status().isOk());
+
+        // метка удаления отвечает 404 без запроса к базе и не даёт положить в кэш старую копию
+        assertStatements(0, get("/student/{id}", harry.getId()), status().isNotFound());
+        studentCache.put(harry.getId(), new StudentDto(harry.getId(), "Гарри", 11, gryffindor.getId(), 0));
+        assertStatements(0, get("/student/{id}", harry.getId()), status().isNotFound());
+    }
+
+    @Test
+    void facultyDeleteDropsCachedStudents() throws Exception {
+        assertStatements(1, get("/student/{id}", harry.getId()), jsonPath("$.facultyId").value(gryffindor.getId()));
+        mockMvc.perform(delete("/faculty/{id}", gryffindor.getId())).andExpect(status().isOk());
+
+        assertStatements(1, get("/student/{id}", harry.getId()), jsonPath("$.facultyId").doesNotExist());
+        assertStatements(0, get("/faculty/{id}", gryffindor.getId()), status().isNotFound());
+    }
+
+    @Test
+    void loadFinishingAfterEditKeepsNewerVersion() {
+        // чтение сняло версию 0, а правка успела закоммититься и положить в кэш версию 1
+        Optional<StudentDto> stale = studentCache.get(harry.getId(), id -> {
+            Optional<StudentDto> loaded = studentRepository.findDtoById(id);
+            studentService.editStudent(new Student(harry.getId(), "Гарри Поттер", 12, null));
+            return loaded;
+        });
+        assertThat(stale).map(StudentDto::version).contains(0);
+
+        Map<Long, StudentDto> cached = studentCache.getAll(List.of(harry.getId()), missing -> Map.of());
+        assertThat(cached.get(harry.getId()))
+                .extracting(StudentDto::name, StudentDto::version)
+                .containsExactly("Гарри Поттер", 1);
+    }
+
+    private double cacheGets(String cache, String result) {
+        FunctionCounter counter = meterRegistry.find("cache.gets").tag("cache", cache).tag("result", result)
+                .functionCounter();
+        return counter == null ? 0 : counter.count();
+    }
+
+    private void assertStatements(long expected, RequestBuilder request, ResultMatcher matcher) throws Exception {
+        Statistics statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        statistics.clear();
+        mockMvc.perform(request).andExpect(matcher);
+        assertThat(statistics.getPrepareStatementCount())
+                .as("SQL statements for %s", request)
+                .isEqualTo(expected);
+    }
+}
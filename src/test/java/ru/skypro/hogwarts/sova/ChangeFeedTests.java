@@ -0,0 +1,207 @@
+package ru.skypro.hogwarts.sova;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.core.ParameterizedTypeReference;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.codec.ServerSentEvent;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.web.reactive.server.WebTestClient;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.springframework.web.server.ResponseStatusException;
+import ru.skypro.hogwarts.sova.dto.ChangeEventDto;
+import ru.skypro.hogwarts.sova.dto.ChangeFeedPage;
+import ru.skypro.hogwarts.sova.dto.StudentDto;
+import ru.skypro.hogwarts.sova.model.ChangeEvent;
+import ru.skypro.hogwarts.sova.model.ChangeEvent.EntityType;
+import ru.skypro.hogwarts.sova.model.Student;
+import ru.skypro.hogwarts.sova.repository.ChangeEventRepository;
+import ru.skypro.hogwarts.sova.service.ChangeFeedService;
+import ru.skypro.hogwarts.sova.service.StudentService;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.BooleanSupplier;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.assertj.core.api.Assertions.tuple;
+
+/**
+ * Журнал изменений и лента: строки пишутся только закоммиченными изменениями,
+ * ретранслятор нумерует их подряд в порядке коммита, смещения читаются
+ * страницами, удалённые смещения дают 410. Ретранслятор в профиле test
+ * не запускается по расписанию, тесты вызывают его сами.
+ */
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT,
+        properties = "hogwarts.outbox.batch-size=2")
+@ActiveProfiles("test")
+class ChangeFeedTests {
+    @Autowired
+    private ChangeFeedService changeFeedService;
+    @Autowired
+    private StudentService studentService;
+    @Autowired
+    private ChangeEventRepository changeEventRepository;
+    @Autowired
+    private JdbcTemplate jdbc;
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+    @Autowired
+    private WebTestClient webTestClient;
+
+    @BeforeEach
+    void cleanUp() {
+        jdbc.update("DELETE FROM change_event");
+        jdbc.update("DELETE FROM change_relay_state");
+        jdbc.update("DELETE FROM student");
+    }
+
+    @Test
+    void outboxRecordsCommittedChangesOnly() {
+        StudentDto harry = studentService.createStudent(new Student(null, "Гарри", 11, null));
+        studentService.editStudent(new Student(harry.id(), "Гарри Поттер", 12, null));
+        studentService.deleteStudent(harry.id());
+        new TransactionTemplate(transactionManager).executeWithoutResult(status -> {
+            studentService.createStudent(new Student(null, "Призрак", 11, null));
+            status.setRollbackOnly();
+        });
+
+        assertThat(changeEventRepository.findAll()).allSatisfy(event -> assertThat(event.getPosition()).isNull());
+        changeFeedService.relay();
+
+        List<ChangeEventDto> events = changeFeedService.changesSince(0, 100).events();
+        assertThat(events).extracting(ChangeEventDto::position).containsExactly(1L, 2L, 3L);
+        assertThat(events).extracting(ChangeEventDto::changeType)
+                .containsExactly(ChangeEvent.Type.CREATED, ChangeEvent.Type.UPDATED, ChangeEvent.Type.DELETED);
+        assertThat(events).extracting(ChangeEventDto::entityId).containsOnly(harry.id());
+        assertThat(events).extracting(ChangeEventDto::version).containsExactly(0, 1, 1);
+        assertThat(events.get(1).payload()).contains("\"name\":\"Гарри Поттер\"");
+        assertThat(events.get(2).payload()).isNull();
+        assertThat(changeFeedService.lastPosition()).isEqualTo(3);
+    }
+
+    @Test
+    void relayNumbersRowsInCommitOrder() throws Exception {
+        CountDownLatch inserted = new CountDownLatch(1);
+        CountDownLatch commit = new CountDownLatch(1);
+        CompletableFuture<Void> slow = CompletableFuture.runAsync(() ->
+                new TransactionTemplate(transactionManager).executeWithoutResult(status -> {
+                    changeEventRepository.saveAndFlush(event(1));
+                    inserted.countDown();
+                    await(commit);
+                }));
+        assertThat(inserted.await(10, TimeUnit.SECONDS)).isTrue();
+        for (long id = 2; id <= 4; id++) {
+            changeEventRepository.save(event(id));
+        }
+
+        // пакет по 2 строки: ретранслятор повторяет, пока не разберёт всё закоммиченное
+        changeFeedService.relay();
+        assertThat(changeFeedService.changesSince(0, 100).events())
+                .extracting(ChangeEventDto::entityId).containsExactly(2L, 3L, 4L);
+
+        commit.countDown();
+        slow.get(10, TimeUnit.SECONDS);
+        changeFeedService.relay();
+        assertThat(changeFeedService.changesSince(0, 100).events())
+                .extracting(ChangeEventDto::position, ChangeEventDto::entityId)
+                .containsExactly(tuple(1L, 2L), tuple(2L, 3L), tuple(3L, 4L), tuple(4L, 1L));
+    }
+
+    @Test
+    void offsetsArePagedAndPurgedOnesAreGone() {
+        for (long id = 1; id <= 5; id++) {
+            changeEventRepository.save(event(id));
+        }
+        changeFeedService.relay();
+
+        ChangeFeedPage first = changeFeedService.changesSince(0, 2);
+        assertThat(first.events()).extracting(ChangeEventDto::position).containsExactly(1L, 2L);
+        ChangeFeedPage second = changeFeedService.changesSince(first.next(), 2);
+        assertThat(second.events()).extracting(ChangeEventDto::position).containsExactly(3L, 4L);
+        ChangeFeedPage last = changeFeedService.changesSince(5, 2);
+        assertThat(last.events()).isEmpty();
+        assertThat(last.next()).isEqualTo(5);
+
+        assertThatThrownBy(() -> changeFeedService.changesSince(-1, 2))
+                .isInstanceOfSatisfying(ResponseStatusException.class,
+                        e -> assertThat(e.getStatusCode()).isEqualTo(HttpStatus.BAD_REQUEST));
+
+        jdbc.update("DELETE FROM change_event WHERE position <= 2");
+        assertThatThrownBy(() -> changeFeedService.changesSince(0, 2))
+                .isInstanceOfSatisfying(ResponseStatusException.class,
+                        e -> assertThat(e.getStatusCode()).isEqualTo(HttpStatus.GONE));
+        assertThat(changeFeedService.changesSince(2, 2).events())
+                .extracting(ChangeEventDto::position).containsExactly(3L, 4L);
+
+        jdbc.update("DELETE FROM change_event");
+        assertThatThrownBy(() -> changeFeedService.changesSince(4, 2))
+                .isInstanceOfSatisfying(ResponseStatusException.class,
+                        e -> assertThat(e.getStatusCode()).isEqualTo(HttpStatus.GONE));
+        webTestClient.get().uri("/changes?since=4").exchange().expectStatus().isEqualTo(HttpStatus.GONE);
+    }
+
+    @Test
+    void streamResumesAfterLastEventIdAndFollowsNewChanges() throws Exception {
+        for (long id = 1; id <= 3; id++) {
+            changeEventRepository.save(event(id));
+        }
+        changeFeedService.relay();
+
+        AtomicInteger seen = new AtomicInteger();
+        CompletableFuture<List<ServerSentEvent<String>>> received = CompletableFuture.supplyAsync(() ->
+                webTestClient.get().uri("/changes/stream")
+                        .header("Last-Event-ID", "1")
+                        .accept(MediaType.TEXT_EVENT_STREAM)
+                        .exchange()
+                        .expectStatus().isOk()
+                        .returnResult(new ParameterizedTypeReference<ServerSentEvent<String>>() {
+                        })
+                        .getResponseBody()
+                        .doOnNext(event -> seen.incrementAndGet())
+                        .take(3)
+                        .collectList()
+                        .block(Duration.ofSeconds(10)));
+
+        relayUntil(() -> seen.get() >= 2);
+        changeEventRepository.save(event(4));
+        relayUntil(received::isDone);
+
+        List<ServerSentEvent<String>> events = received.get();
+        assertThat(events).extracting(ServerSentEvent::id).containsExactly("2", "3", "4");
+        assertThat(events).extracting(ServerSentEvent::event).containsOnly("student");
+        assertThat(events.get(2).data()).contains("\"entityId\":4");
+    }
+
+    /** Запускает ретранслятор, как это делало бы расписание, пока не выполнится условие. */
+    private void relayUntil(BooleanSupplier condition) throws InterruptedException {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(10);
+        while (!condition.getAsBoolean() && System.nanoTime() < deadline) {
+            changeFeedService.relay();
+            Thread.sleep(50);
+        }
+        assertThat(condition.getAsBoolean()).isTrue();
+    }
+
+    private static ChangeEvent event(long studentId) {
+        return new ChangeEvent(EntityType.STUDENT, studentId, ChangeEvent.Type.UPDATED, 1, null);
+    }
+
+    private static void await(CountDownLatch latch) {
+        try {
+            latch.await(10, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
@@ -0,0 +1,141 @@
+package ru.skypro.hogwarts.sova;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIf;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.HttpStatus;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+import org.springframework.web.server.ResponseStatusException;
+import ru.skypro.hogwarts.sova.dto.ChangeEventDto;
+import ru.skypro.hogwarts.sova.dto.StudentDto;
+import ru.skypro.hogwarts.sova.model.ChangeEvent;
+import ru.skypro.hogwarts.sova.model.Faculty;
+import ru.skypro.hogwarts.sova.model.Student;
+import ru.skypro.hogwarts.sova.repository.FacultyRepository;
+import ru.skypro.hogwarts.sova.repository.StudentRepository;
+import ru.skypro.hogwarts.sova.service.ChangeFeedService;
+import ru.skypro.hogwarts.sova.service.FacultyService;
+import ru.skypro.hogwarts.sova.service.StudentCohorts;
+import ru.skypro.hogwarts.sova.service.StudentService;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.assertj.core.api.Assertions.tuple;
+
+/**
+ * Секционирование student по потокам на PostgreSQL (V7): секции заводятся
+ * заранее и для потоков, чьи строки попали в секцию по умолчанию; старые
+ * потоки уходят в схему student_archive, а их студенты — в ленту изменений
+ * как удалённые.
+ */
+@SpringBootTest(properties = "hogwarts.student.partitions-ahead=2")
+@ActiveProfiles("test")
+@EnabledIf("ru.skypro.hogwarts.sova.PostgresDatabase#available")
+class CohortPartitionTests {
+    private static final int CURRENT = StudentCohorts.current();
+
+    @Autowired
+    private StudentCohorts cohorts;
+    @Autowired
+    private StudentService studentService;
+    @Autowired
+    private FacultyService facultyService;
+    @Autowired
+    private ChangeFeedService changeFeedService;
+    @Autowired
+    private StudentRepository studentRepository;
+    @Autowired
+    private FacultyRepository facultyRepository;
+    @Autowired
+    private JdbcTemplate jdbc;
+
+    @DynamicPropertySource
+    static void postgres(DynamicPropertyRegistry registry) {
+        PostgresDatabase.create("hogwarts_cohorts").register(registry);
+    }
+
+    @AfterEach
+    void cleanUp() {
+        studentRepository.deleteAllInBatch();
+        facultyRepository.deleteAllInBatch();
+        jdbc.update("DELETE FROM change_event");
+        jdbc.queryForList("SELECT table_name FROM information_schema.tables WHERE table_schema = 'student_archive'",
+                        String.class)
+                .forEach(table -> jdbc.execute("DROP TABLE student_archive." + table));
+    }
+
+    @Test
+    void createPartitionsCoversAheadAndDefaultCohorts() {
+        StudentDto ron = studentService.createStudent(new Student(null, "Рон Уизли", 12, null));
+        assertThat(partitionOf(ron.id())).isEqualTo("student_cohort_default");
+
+        cohorts.createPartitions();
+
+        assertThat(partitionOf(ron.id())).isEqualTo("student_" + (CURRENT - 1));
+        assertThat(jdbc.queryForObject("SELECT count(*) FROM student_cohort_default", Integer.class)).isZero();
+        for (int cohort = CURRENT; cohort <= CURRENT + 2; cohort++) {
+            assertThat(jdbc.queryForObject("SELECT to_regclass(?)::text", String.class, "student_" + cohort))
+                    .isEqualTo("student_" + cohort);
+        }
+
+        // повторный вызов ничего не меняет, перенесённая строка правится как обычно
+        studentRepository.createCohortPartition(CURRENT - 1);
+        studentService.editStudent(new Student(ron.id(), "Рональд Уизли", 12, null));
+        assertThat(studentService.findStudent(ron.id()))
+                .extracting(StudentDto::name, StudentDto::version)
+                .containsExactly("Рональд Уизли", 1);
+        assertThat(partitionOf(ron.id())).isEqualTo("student_" + (CURRENT - 1));
+    }
+
+    @Test
+    void archiveBeforeDetachesOldCohortsAndFeedsDeletions() {
+        Faculty gryffindor = facultyRepository.save(new Faculty(null, "Гриффиндор", "красный"));
+        StudentDto ginny = studentService.createStudent(new Student(null, "Джинни Уизли", 11, gryffindor));
+        StudentDto ron = studentService.createStudent(new Student(null, "Рон Уизли", 13, gryffindor));
+        StudentDto percy = studentService.createStudent(new Student(null, "Перси Уизли", 16, gryffindor));
+        studentService.editStudent(new Student(percy.id(), "Перси Игнатиус Уизли", 16, gryffindor));
+        changeFeedService.relay();
+        long position = changeFeedService.lastPosition();
+
+        // потоки CURRENT-2 и CURRENT-5 лежат в секции по умолчанию: секции им заводятся при архивировании;
+        // пустые секции других тестов архивируются вместе с ними
+        assertThat(cohorts.archiveBefore(CURRENT)).contains(CURRENT - 5, CURRENT - 2).doesNotContain(CURRENT);
+
+        assertThat(studentRepository.findAll()).extracting(Student::getId).containsExactly(ginny.id());
+        assertThatThrownBy(() -> studentService.findStudent(ron.id()))
+                .isInstanceOfSatisfying(ResponseStatusException.class,
+                        e -> assertThat(e.getStatusCode()).isEqualTo(HttpStatus.NOT_FOUND));
+        assertThat(jdbc.queryForObject("SELECT name FROM student_archive.student_" + (CURRENT - 5), String.class))
+                .isEqualTo("Перси Игнатиус Уизли");
+        assertThat(jdbc.queryForObject("SELECT name FROM student_archive.student_" + (CURRENT - 2), String.class))
+                .isEqualTo("Рон Уизли");
+
+        changeFeedService.relay();
+        assertThat(changeFeedService.changesSince(position, 100).events())
+                .extracting(ChangeEventDto::changeType, ChangeEventDto::entityId, ChangeEventDto::version,
+                        ChangeEventDto::payload)
+                .containsExactly(
+                        tuple(ChangeEvent.Type.DELETED, percy.id(), 1, null),
+                        tuple(ChangeEvent.Type.DELETED, ron.id(), 0, null));
+
+        // внешний ключ архива снят: факультет с архивированными студентами удаляется
+        studentRepository.deleteAllInBatch();
+        facultyService.deleteFaculty(gryffindor.getId());
+        assertThat(jdbc.queryForObject("SELECT faculty_id FROM student_archive.student_" + (CURRENT - 2), Long.class))
+                .isEqualTo(gryffindor.getId());
+
+        assertThat(cohorts.archiveBefore(CURRENT)).isEmpty();
+        assertThatThrownBy(() -> cohorts.archiveBefore(CURRENT + 1))
+                .isInstanceOfSatisfying(ResponseStatusException.class,
+                        e -> assertThat(e.getStatusCode()).isEqualTo(HttpStatus.BAD_REQUEST));
+    }
+
+    private String partitionOf(long studentId) {
+        return jdbc.queryForObject("SELECT tableoid::regclass::text FROM student WHERE id = ?", String.class, studentId);
+    }
+}
@@ -0,0 +1,133 @@
+package ru.skypro.hogwarts.sova;
+
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.web.servlet.MockMvc;
+import ru.skypro.hogwarts.sova.dto.StudentDto;
+import ru.skypro.hogwarts.sova.model.Faculty;
+import ru.skypro.hogwarts.sova.model.Student;
+import ru.skypro.hogwarts.sova.repository.FacultyRepository;
+import ru.skypro.hogwarts.sova.repository.StudentRepository;
+import ru.skypro.hogwarts.sova.service.ReactiveReadService;
+import ru.skypro.hogwarts.sova.service.StudentCohorts;
+import ru.skypro.hogwarts.sova.service.StudentSnapshot;
+
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.tuple;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+/**
+ * Окно потоков {@code hogwarts.student.active-cohorts=3}: выборки по
+ * возрасту и составы факультетов видят только три последних потока, а
+ * копия студентов в памяти при окне не включается. Поток выводится из
+ * возраста ({@link StudentCohorts#forAge}), поэтому старшие студенты
+ * оказываются в потоках за окном.
+ */
+@SpringBootTest(properties = {
+        "hogwarts.student.active-cohorts=3",
+        "hogwarts.student.snapshot.enabled=true"})
+@AutoConfigureMockMvc
+@ActiveProfiles("test")
+class CohortWindowTests {
+    @Autowired
+    private MockMvc mockMvc;
+    @Autowired
+    private ObjectMapper objectMapper;
+    @Autowired
+    private StudentCohorts cohorts;
+    @Autowired
+    private StudentSnapshot snapshot;
+    @Autowired
+    private ReactiveReadService reactiveReadService;
+    @Autowired
+    private FacultyRepository facultyRepository;
+    @Autowired
+    private StudentRepository studentRepository;
+
+    private Faculty gryffindor;
+
+    @BeforeEach
+    void seed() {
+        gryffindor = facultyRepository.save(new Faculty(null, "Гриффиндор", "красный"));
+        studentRepository.saveAll(List.of(
+                new Student(null, "Джинни Уизли", 11, gryffindor),
+                new Student(null, "Рон Уизли", 13, gryffindor),
+                new Student(null, "Перси Уизли", 14, gryffindor),
+                new Student(null, "Билл Уизли", 17, gryffindor)));
+    }
+
+    @AfterEach
+    void cleanUp() {
+        studentRepository.deleteAllInBatch();
+        facultyRepository.deleteAllInBatch();
+    }
+
+    @Test
+    void cohortIsDerivedFromAge() {
+        int current = StudentCohorts.current();
+
+        assertThat(studentRepository.findAll())
+                .extracting(Student::getAge, Student::getCohort)
+                .containsExactlyInAnyOrder(
+                        tuple(11, current),
+                        tuple(13, current - 2),
+                        tuple(14, current - 3),
+                        tuple(17, current - 6));
+        assertThat(StudentCohorts.forAge(9)).isEqualTo(current);
+        assertThat(cohorts.from()).isEqualTo(current - 2);
+        assertThat(snapshot.isReady()).isFalse();
+    }
+
+    @Test
+    void readsByAgeSeeOnlyActiveCohorts() throws Exception {
+        assertThat(names("/student/age/13")).containsExactly("Рон Уизли");
+        mockMvc.perform(get("/student/age/14")).andExpect(status().isNotFound());
+        mockMvc.perform(get("/student/age/14?size=10")).andExpect(status().isNotFound());
+        assertThat(names("/student/age-between?min=11&max=17"))
+                .containsExactlyInAnyOrder("Джинни Уизли", "Рон Уизли");
+        assertThat(names("/student/age-between?min=11&max=17&size=10"))
+                .containsExactlyInAnyOrder("Джинни Уизли", "Рон Уизли");
+        assertThat(body("/student/age-between/count?min=11&max=17")).isEqualTo("2");
+
+        assertThat(reactiveReadService.findByAgeBetween(11, 17).map(StudentDto::name).collectList().block())
+                .containsExactlyInAnyOrder("Джинни Уизли", "Рон Уизли");
+        assertThat(reactiveReadService.findByAge(17).collectList().block()).isEmpty();
+    }
+
+    @Test
+    void facultyRosterSeesOnlyActiveCohorts() throws Exception {
+        String roster = "/faculty/" + gryffindor.getId() + "/students";
+
+        assertThat(names(roster + "?sort=AGE")).containsExactly("Джинни Уизли", "Рон Уизли");
+        assertThat(names(roster + "?size=1&page=1")).hasSize(1);
+        assertThat(body(roster + "/count")).isEqualTo("2");
+        assertThat(reactiveReadService.getStudentsByFacultyId(gryffindor.getId())
+                .map(StudentDto::name).collectList().block())
+                .containsExactly("Джинни Уизли", "Рон Уизли");
+    }
+
+    private List<String> names(String url) throws Exception {
+        List<StudentDto> students = objectMapper.readValue(body(url), new TypeReference<>() {
+        });
+        return students.stream().map(StudentDto::name).toList();
+    }
+
+    private String body(String url) throws Exception {
+        return mockMvc.perform(get(url))
+                .andExpect(status().isOk())
+                .andReturn()
+                .getResponse()
+                .getContentAsString(StandardCharsets.UTF_8);
+    }
+}
@@ -0,0 +1,99 @@
+package ru.skypro.hogwarts.sova;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.web.servlet.MockMvc;
+import ru.skypro.hogwarts.sova.model.Faculty;
+import ru.skypro.hogwarts.sova.model.Student;
+import ru.skypro.hogwarts.sova.repository.FacultyRepository;
+import ru.skypro.hogwarts.sova.repository.StudentRepository;
+
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.put;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+/** ETag из @Version: 304 на If-None-Match, 412 на устаревший If-Match, без ETag при пустой версии. */
+@SpringBootTest
+@AutoConfigureMockMvc
+@ActiveProfiles("test")
+class ConditionalRequestTests {
+    @Autowired
+    private MockMvc mockMvc;
+    @Autowired
+    private JdbcTemplate jdbc;
+    @Autowired
+    private FacultyRepository facultyRepository;
+    @Autowired
+    private StudentRepository studentRepository;
+
+    @AfterEach
+    void cleanUp() {
+        studentRepository.deleteAllInBatch();
+        facultyRepository.deleteAllInBatch();
+    }
+
+    @Test
+    void studentNotModifiedWhileVersionIsTheSame() throws Exception {
+        Student student = studentRepository.save(new Student(null, "Гарри", 11, null));
+
+        mockMvc.perform(get("/student/{id}", student.getId()))
+                .andExpect(status().isOk())
+                .andExpect(header().string(HttpHeaders.ETAG, "\"0\""));
+        mockMvc.perform(get("/student/{id}", student.getId()).header(HttpHeaders.IF_NONE_MATCH, "\"0\""))
+                .andExpect(status().isNotModified());
+
+        mockMvc.perform(put("/student").header(HttpHeaders.IF_MATCH, "\"0\"")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"id\": %d, \"name\": \"Гарри Поттер\", \"age\": 12}".formatted(student.getId())))
+                .andExpect(status().isOk())
+                .andExpect(header().string(HttpHeaders.ETAG, "\"1\""));
+        mockMvc.perform(get("/student/{id}", student.getId()).header(HttpHeaders.IF_NONE_MATCH, "\"0\""))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.name").value("Гарри Поттер"));
+    }
+
+    @Test
+    void staleIfMatchIsRejected() throws Exception {
+        Student student = studentRepository.save(new Student(null, "Рон", 11, null));
+        Faculty faculty = facultyRepository.save(new Faculty(null, "Гриффиндор", "красный"));
+
+        mockMvc.perform(put("/student").header(HttpHeaders.IF_MATCH, "\"3\"")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"id\": %d, \"name\": \"Рональд\", \"age\": 11}".formatted(student.getId())))
+                .andExpect(status().isPreconditionFailed());
+        mockMvc.perform(put("/faculty").header(HttpHeaders.IF_MATCH, "W/\"1\"")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"id\": %d, \"name\": \"Гриффиндор\", \"color\": \"алый\"}"
+                                .formatted(faculty.getId())))
+                .andExpect(status().isPreconditionFailed());
+        mockMvc.perform(put("/faculty").header(HttpHeaders.IF_MATCH, "not-a-version")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"id\": %d, \"name\": \"Гриффиндор\", \"color\": \"алый\"}"
+                                .formatted(faculty.getId())))
+                .andExpect(status().isPreconditionFailed());
+
+        mockMvc.perform(get("/faculty/{id}", faculty.getId()))
+                .andExpect(header().string(HttpHeaders.ETAG, "\"0\""))
+                .andExpect(jsonPath("$.color").value("красный"));
+        mockMvc.perform(get("/student/{id}", student.getId()))
+                .andExpect(jsonPath("$.name").value("Рон"));
+    }
+
+    @Test
+    void rowWithoutVersionHasNoETag() throws Exception {
+        jdbc.update("INSERT INTO student (id, version, name, age, cohort) VALUES (1000000, NULL, 'Невилл', 11, 2026)");
+
+        mockMvc.perform(get("/student/{id}", 1000000))
+                .andExpect(status().isOk())
+                .andExpect(header().doesNotExist(HttpHeaders.ETAG));
+    }
+}
@@ -0,0 +1,145 @@
+package ru.skypro.hogwarts.sova;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.RequestBuilder;
+import ru.skypro.hogwarts.sova.cache.VersionedCache;
+import ru.skypro.hogwarts.sova.model.Faculty;
+import ru.skypro.hogwarts.sova.model.Student;
+import ru.skypro.hogwarts.sova.repository.FacultyRepository;
+import ru.skypro.hogwarts.sova.repository.StudentRepository;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.put;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.content;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+/**
+ * Ответы о студентах и факультетах — DTO: ровно поля записи, без версии
+ * (она уходит в ETag), без коллекции студентов факультета и служебных полей
+ * прокси Hibernate. Неизвестный id даёт 404.
+ */
+@SpringBootTest
+@AutoConfigureMockMvc
+@ActiveProfiles("test")
+class DtoResponseTests {
+    private static final List<String> STUDENT_FIELDS = List.of("id", "name", "age", "facultyId");
+    private static final List<String> FACULTY_FIELDS = List.of("id", "name", "color");
+
+    @Autowired
+    private MockMvc mockMvc;
+    @Autowired
+    private ObjectMapper objectMapper;
+    @Autowired
+    private FacultyRepository facultyRepository;
+    @Autowired
+    private StudentRepository studentRepository;
+    @Autowired
+    private List<VersionedCache<?>> caches;
+
+    private Faculty gryffindor;
+    private Student harry;
+    private Student neville;
+
+    @BeforeEach
+    void seed() {
+        caches.forEach(VersionedCache::invalidateAll);
+        gryffindor = facultyRepository.save(new Faculty(null, "Гриффиндор", "красный"));
+        harry = studentRepository.save(new Student(null, "Гарри Поттер", 11, gryffindor));
+        neville = studentRepository.save(new Student(null, "Невилл Долгопупс", 11, null));
+    }
+
+    @AfterEach
+    void cleanUp() {
+        studentRepository.deleteAllInBatch();
+        facultyRepository.deleteAllInBatch();
+    }
+
+    @Test
+    void studentResponsesCarryOnlyDtoFields() throws Exception {
+        JsonNode student = json(get("/student/{id}", harry.getId()));
+        assertThat(fieldNames(student)).containsExactlyElementsOf(STUDENT_FIELDS);
+        assertThat(student.get("name").asText()).isEqualTo("Гарри Поттер");
+        assertThat(student.get("facultyId").asLong()).isEqualTo(gryffindor.getId());
+
+        JsonNode byAge = json(get("/student/age/{age}", 11));
+        assertThat(byAge).hasSize(2);
+        byAge.forEach(node -> assertThat(fieldNames(node)).containsExactlyElementsOf(STUDENT_FIELDS));
+
+        JsonNode created = json(post("/student").contentType(MediaType.APPLICATION_JSON)
+                .content(objectMapper.writeValueAsString(new Student(null, "Рон Уизли", 11, gryffindor))));
+        assertThat(fieldNames(created)).containsExactlyElementsOf(STUDENT_FIELDS);
+    }
+
+    @Test
+    void facultyResponsesDoNotEmbedStudents() throws Exception {
+        JsonNode faculty = json(get("/faculty/{id}", gryffindor.getId()));
+        assertThat(fieldNames(faculty)).containsExactlyElementsOf(FACULTY_FIELDS);
+        assertThat(faculty.get("color").asText()).isEqualTo("красный");
+
+        assertThat(fieldNames(json(get("/student/{id}/faculty", harry.getId())))).containsExactlyElementsOf(FACULTY_FIELDS);
+        json(get("/faculty/color/{color}", "красный"))
+                .forEach(node -> assertThat(fieldNames(node)).containsExactlyElementsOf(FACULTY_FIELDS));
+
+        JsonNode edited = json(put("/faculty").contentType(MediaType.APPLICATION_JSON)
+                .content(objectMapper.writeValueAsString(new Faculty(gryffindor.getId(), "Гриффиндор", "алый"))));
+        assertThat(fieldNames(edited)).containsExactlyElementsOf(FACULTY_FIELDS);
+    }
+
+    @Test
+    void versionGoesToETagOnly() throws Exception {
+        mockMvc.perform(put("/student").contentType(MediaType.APPLICATION_JSON)
+                        .content(objectMapper.writeValueAsString(new Student(harry.getId(), "Гарри Поттер", 12, null))))
+                .andExpect(status().isOk())
+                .andExpect(header().string(HttpHeaders.ETAG, "\"1\""));
+        mockMvc.perform(get("/faculty/{id}", gryffindor.getId()))
+                .andExpect(status().isOk())
+                .andExpect(header().string(HttpHeaders.ETAG, "\"0\""));
+    }
+
+    @Test
+    void unknownIdsAreNotFound() throws Exception {
+        long missing = neville.getId() + 1000;
+        mockMvc.perform(get("/student/{id}", missing)).andExpect(status().isNotFound());
+        mockMvc.perform(get("/faculty/{id}", missing)).andExpect(status().isNotFound());
+        mockMvc.perform(get("/student/{id}/faculty", missing)).andExpect(status().isNotFound());
+        mockMvc.perform(get("/faculty/color/{color}", "фиолетовый")).andExpect(status().isNotFound());
+
+        // студент без факультета: 200 с пустым телом
+        mockMvc.perform(get("/student/{id}/faculty", neville.getId()))
+                .andExpect(status().isOk())
+                .andExpect(content().string(""));
+    }
+
+    private JsonNode json(RequestBuilder request) throws Exception {
+        String body = mockMvc.perform(request)
+                .andExpect(status().isOk())
+                .andReturn()
+                .getResponse()
+                .getContentAsString(StandardCharsets.UTF_8);
+        return objectMapper.readTree(body);
+    }
+
+    private static List<String> fieldNames(JsonNode node) {
+        List<String> names = new ArrayList<>();
+        node.fieldNames().forEachRemaining(names::add);
+        return names;
+    }
+}
@@ -0,0 +1,174 @@
+package ru.skypro.hogwarts.sova;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.HttpHeaders;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+import ru.skypro.hogwarts.sova.model.Faculty;
+import ru.skypro.hogwarts.sova.model.Student;
+import ru.skypro.hogwarts.sova.repository.FacultyRepository;
+import ru.skypro.hogwarts.sova.repository.StudentRepository;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.zip.GZIPInputStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.asyncDispatch;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.request;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+/** Выгрузка /export/*: строки CSV и NDJSON читаются обратно без потерь, gzip — по Accept-Encoding. */
+@SpringBootTest
+@AutoConfigureMockMvc
+@ActiveProfiles("test")
+class ExportTests {
+    private static final String TRICKY_NAME = "Аластор \"Грозный Глаз\", Грюм";
+
+    @Autowired
+    private MockMvc mockMvc;
+    @Autowired
+    private ObjectMapper objectMapper;
+    @Autowired
+    private FacultyRepository facultyRepository;
+    @Autowired
+    private StudentRepository studentRepository;
+
+    private Faculty gryffindor;
+    private List<Student> students;
+
+    @BeforeEach
+    void seed() {
+        gryffindor = facultyRepository.save(new Faculty(null, "Гриффиндор", "красный"));
+        students = studentRepository.saveAll(List.of(
+                new Student(null, "Гарри Поттер", 11, gryffindor),
+                new Student(null, TRICKY_NAME, 60, null),
+                new Student(null, "Луна\nЛавгуд", 12, null)));
+    }
+
+    @AfterEach
+    void cleanUp() {
+        studentRepository.deleteAllInBatch();
+        facultyRepository.deleteAllInBatch();
+    }
+
+    @Test
+    void csvRoundTrip() throws Exception {
+        MockHttpServletResponse response = export("/export/students?format=CSV", null);
+
+        assertThat(response.getContentType()).startsWith("text/csv");
+        assertThat(response.getHeader(HttpHeaders.CONTENT_ENCODING)).isNull();
+        List<List<String>> rows = parseCsv(response.getContentAsString(StandardCharsets.UTF_8));
+        assertThat(rows.get(0)).containsExactly("id", "name", "age", "facultyId", "facultyName");
+        assertThat(rows.subList(1, rows.size())).containsExactlyInAnyOrder(
+                List.of(id(0), "Гарри Поттер", "11", String.valueOf(gryffindor.getId()), "Гриффиндор"),
+                List.of(id(1), TRICKY_NAME, "60", "", ""),
+                List.of(id(2), "Луна\nЛавгуд", "12", "", ""));
+    }
+
+    @Test
+    void ndjsonRoundTrip() throws Exception {
+        String body = export("/export/students?format=NDJSON&minAge=11&maxAge=59", null)
+                .getContentAsString(StandardCharsets.UTF_8);
+
+        List<JsonNode> rows = new ArrayList<>();
+        for (String line : body.split("\n")) {
+            rows.add(objectMapper.readTree(line));
+        }
+        assertThat(rows).hasSize(2);
+        assertThat(rows).extracting(row -> row.get("name").asText())
+                .containsExactlyInAnyOrder("Гарри Поттер", "Луна\nЛавгуд");
+        JsonNode harry = rows.stream().filter(row -> row.get("age").asInt() == 11).findFirst().orElseThrow();
+        assertThat(harry.get("id").asLong()).isEqualTo(students.get(0).getId());
+        assertThat(harry.get("facultyId").asLong()).isEqualTo(gryffindor.getId());
+        JsonNode luna = rows.stream().filter(row -> row.get("age").asInt() == 12).findFirst().orElseThrow();
+        assertThat(luna.get("facultyId").isNull()).isTrue();
+    }
+
+    @Test
+    void gzipFollowsAcceptEncoding() throws Exception {
+        byte[] plain = export("/export/faculties?format=NDJSON", null).getContentAsByteArray();
+
+        for (String accepted : List.of("gzip", "GZIP", "deflate, gzip;q=0.5", "br;q=1.0, *;q=0.1", "x-gzip")) {
+            MockHttpServletResponse response = export("/export/faculties?format=NDJSON", accepted);
+            assertThat(response.getHeader(HttpHeaders.CONTENT_ENCODING)).as(accepted).isEqualTo("gzip");
+            assertThat(gunzip(response.getContentAsByteArray())).as(accepted).isEqualTo(plain);
+        }
+        for (String refused : List.of("gzip;q=0", "identity", "*;q=0", "gzip;q=0, *", "br, *;q=0.5, gzip; q=0.0")) {
+            MockHttpServletResponse response = export("/export/faculties?format=NDJSON", refused);
+            assertThat(response.getHeader(HttpHeaders.CONTENT_ENCODING)).as(refused).isNull();
+            assertThat(response.getContentAsByteArray()).as(refused).isEqualTo(plain);
+        }
+    }
+
+    private MockHttpServletResponse export(String url, String acceptEncoding) throws Exception {
+        var builder = get(url);
+        if (acceptEncoding != null) {
+            builder.header(HttpHeaders.ACCEPT_ENCODING, acceptEncoding);
+        }
+        MvcResult started = mockMvc.perform(builder)
+                .andExpect(request().asyncStarted())
+                .andReturn();
+        return mockMvc.perform(asyncDispatch(started))
+                .andExpect(status().isOk())
+                .andReturn()
+                .getResponse();
+    }
+
+    private String id(int index) {
+        return String.valueOf(students.get(index).getId());
+    }
+
+    private static byte[] gunzip(byte[] compressed) throws IOException {
+        try (GZIPInputStream in = new GZIPInputStream(new ByteArrayInputStream(compressed))) {
+            return in.readAllBytes();
+        }
+    }
+
+    /** CSV по RFC 4180: поля в кавычках могут содержать запятые, кавычки ("") и переводы строк. */
+    private static List<List<String>> parseCsv(String csv) {
+        List<List<String>> rows = new ArrayList<>();
+        List<String> row = new ArrayList<>();
+        StringBuilder field = new StringBuilder();
+        boolean quoted = false;
+        for (int i = 0; i < csv.length(); i++) {
+            char c = csv.charAt(i);
+            if (quoted) {
+                if (c == '"' && i + 1 < csv.length() && csv.charAt(i + 1) == '"') {
+                    field.append('"');
+                    i++;
+                } else if (c == '"') {
+                    quoted = false;
+                } else {
+                    field.append(c);
+                }
+            } else if (c == '"') {
+                quoted = true;
+            } else if (c == ',') {
+                row.add(field.toString());
+                field.setLength(0);
+            } else if (c == '\n') {
+                row.add(field.toString());
+                field.setLength(0);
+                rows.add(row);
+                row = new ArrayList<>();
+            } else {
+                field.append(c);
+            }
+        }
+        return rows;
+    }
+}
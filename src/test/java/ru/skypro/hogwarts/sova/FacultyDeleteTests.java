@@ -0,0 +1,104 @@
+package ru.skypro.hogwarts.sova;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+import ru.skypro.hogwarts.sova.dto.ChangeEventDto;
+import ru.skypro.hogwarts.sova.model.ChangeEvent;
+import ru.skypro.hogwarts.sova.model.Faculty;
+import ru.skypro.hogwarts.sova.model.Student;
+import ru.skypro.hogwarts.sova.repository.FacultyRepository;
+import ru.skypro.hogwarts.sova.repository.StudentRepository;
+import ru.skypro.hogwarts.sova.service.ChangeFeedService;
+import ru.skypro.hogwarts.sova.service.FacultyService;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.LongStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.assertj.core.api.Assertions.tuple;
+
+/**
+ * Удаление факультета с отвязкой студентов пачками меньше числа студентов;
+ * каждый отвязанный студент попадает в ленту изменений.
+ */
+@SpringBootTest(properties = "hogwarts.faculty.delete.chunk-size=2")
+@ActiveProfiles("test")
+class FacultyDeleteTests {
+    @Autowired
+    private FacultyService facultyService;
+    @Autowired
+    private FacultyRepository facultyRepository;
+    @Autowired
+    private StudentRepository studentRepository;
+    @Autowired
+    private ChangeFeedService changeFeedService;
+    @Autowired
+    private JdbcTemplate jdbc;
+
+    @AfterEach
+    void cleanUp() {
+        studentRepository.deleteAllInBatch();
+        facultyRepository.deleteAllInBatch();
+        jdbc.update("DELETE FROM change_event");
+    }
+
+    @Test
+    void detachesStudentsInChunks() {
+        Faculty deleted = facultyRepository.save(new Faculty(null, "Слизерин", "зелёный"));
+        Faculty kept = facultyRepository.save(new Faculty(null, "Пуффендуй", "жёлтый"));
+        for (int i = 0; i < 5; i++) {
+            studentRepository.save(new Student(null, "Студент " + i, 11 + i, deleted));
+        }
+        Student other = studentRepository.save(new Student(null, "Седрик", 17, kept));
+        changeFeedService.relay();
+        long position = changeFeedService.lastPosition();
+
+        List<Long> progress = new ArrayList<>();
+        long detached = facultyService.deleteFaculty(deleted.getId(), progress::add);
+
+        assertThat(detached).isEqualTo(5);
+        assertThat(progress).containsExactly(2L, 4L, 5L, 5L);
+        assertThat(facultyRepository.existsById(deleted.getId())).isFalse();
+        assertThat(studentRepository.findAll())
+                .filteredOn(student -> !student.getId().equals(other.getId()))
+                .hasSize(5)
+                .allSatisfy(student -> {
+                    assertThat(studentRepository.findDtoById(student.getId()).orElseThrow().facultyId()).isNull();
+                    assertThat(student.getVersion()).isEqualTo(1);
+                });
+        assertThat(studentRepository.findDtoById(other.getId()).orElseThrow().facultyId()).isEqualTo(kept.getId());
+
+        changeFeedService.relay();
+        List<ChangeEventDto> events = changeFeedService.changesSince(position, 100).events();
+        long[] detachedIds = studentRepository.findAll().stream()
+                .mapToLong(Student::getId)
+                .filter(studentId -> studentId != other.getId())
+                .toArray();
+        assertThat(events)
+                .filteredOn(event -> event.entityType() == ChangeEvent.EntityType.STUDENT)
+                .allSatisfy(event -> {
+                    assertThat(event.changeType()).isEqualTo(ChangeEvent.Type.UPDATED);
+                    assertThat(event.version()).isEqualTo(1);
+                    assertThat(event.payload()).contains("\"facultyId\":null");
+                })
+                .extracting(ChangeEventDto::entityId)
+                .containsExactlyInAnyOrderElementsOf(LongStream.of(detachedIds).boxed().toList());
+        assertThat(events)
+                .filteredOn(event -> event.entityType() == ChangeEvent.EntityType.FACULTY)
+                .extracting(ChangeEventDto::entityId, ChangeEventDto::changeType)
+                .containsExactly(tuple(deleted.getId(), ChangeEvent.Type.DELETED));
+    }
+
+    @Test
+    void rejectsChunkSizeBelowOne() {
+        assertThatThrownBy(() -> new FacultyService(null, null, null, null, null, 0, null, 5, null, null, null))
+                .isInstanceOf(IllegalArgumentException.class)
+                .hasMessageContaining("hogwarts.faculty.delete.chunk-size");
+    }
+}
@@ -0,0 +1,94 @@
+package ru.skypro.hogwarts.sova;
+
+import org.flywaydb.core.Flyway;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIf;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+import ru.skypro.hogwarts.sova.dto.StudentDto;
+import ru.skypro.hogwarts.sova.model.Faculty;
+import ru.skypro.hogwarts.sova.model.Student;
+import ru.skypro.hogwarts.sova.repository.FacultyRepository;
+import ru.skypro.hogwarts.sova.repository.StudentRepository;
+import ru.skypro.hogwarts.sova.service.StudentCohorts;
+
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.tuple;
+
+/**
+ * Миграции V1–V9 на PostgreSQL поверх уже заполненной базы (строки
+ * вставлены после V1, как в базе, созданной ещё ddl-auto=update), затем
+ * запуск приложения с ddl-auto=validate: сущности должны совпасть со схемой.
+ * V7 раскладывает существующих студентов по секциям потоков по тому же
+ * правилу, что и {@link StudentCohorts#forAge}.
+ */
+@SpringBootTest
+@ActiveProfiles("test")
+@EnabledIf("ru.skypro.hogwarts.sova.PostgresDatabase#available")
+class FlywayMigrationTests {
+    @Autowired
+    private Flyway flyway;
+    @Autowired
+    private JdbcTemplate jdbc;
+    @Autowired
+    private FacultyRepository facultyRepository;
+    @Autowired
+    private StudentRepository studentRepository;
+
+    @DynamicPropertySource
+    static void postgres(DynamicPropertyRegistry registry) {
+        PostgresDatabase database = PostgresDatabase.create("hogwarts_migration");
+        database.migrate("1");
+        JdbcTemplate seed = database.jdbc();
+        seed.update("INSERT INTO faculty (version, name, color) VALUES (0, 'Гриффиндор', 'красный')");
+        seed.update("INSERT INTO student (version, name, age, faculty_id) VALUES "
+                + "(0, 'Гарри', 11, 1), (3, 'Рон', 14, 1), (0, 'Луна', 30, NULL)");
+        database.register(registry);
+    }
+
+    @Test
+    void appliesAllMigrations() {
+        assertThat(flyway.info().current().getVersion().getVersion()).isEqualTo("9");
+        assertThat(flyway.info().pending()).isEmpty();
+    }
+
+    @Test
+    void keepsExistingRows() {
+        assertThat(studentRepository.findDtosByIdIn(List.of(1L, 2L, 3L)))
+                .extracting(StudentDto::name, StudentDto::age, StudentDto::facultyId, StudentDto::version)
+                .containsExactlyInAnyOrder(
+                        tuple("Гарри", 11, 1L, 0),
+                        tuple("Рон", 14, 1L, 3),
+                        tuple("Луна", 30, null, 0));
+        assertThat(jdbc.queryForObject("SELECT count(*) FROM change_relay_state", Integer.class)).isEqualTo(1);
+    }
+
+    @Test
+    void placesExistingRowsIntoCohortPartitions() {
+        assertThat(jdbc.query("SELECT id, cohort, tableoid::regclass::text FROM student WHERE id <= 3 ORDER BY id",
+                (rs, row) -> tuple(rs.getLong(1), rs.getInt(2), rs.getString(3))))
+                .containsExactly(
+                        tuple(1L, StudentCohorts.forAge(11), "student_" + StudentCohorts.forAge(11)),
+                        tuple(2L, StudentCohorts.forAge(14), "student_" + StudentCohorts.forAge(14)),
+                        tuple(3L, StudentCohorts.forAge(30), "student_" + StudentCohorts.forAge(30)));
+        assertThat(jdbc.queryForObject("SELECT column_default FROM information_schema.columns "
+                + "WHERE table_name = 'student' AND column_name = 'cohort'", String.class)).isNull();
+    }
+
+    @Test
+    void savesNewRowsAfterMigratedOnes() {
+        Faculty faculty = facultyRepository.save(new Faculty(null, "Когтевран", "синий"));
+        Student student = studentRepository.save(new Student(null, "Чжоу", 12, faculty));
+
+        assertThat(faculty.getId()).isGreaterThan(1L);
+        assertThat(student.getId()).isGreaterThan(3L);
+        assertThat(student.getCohort()).isEqualTo(StudentCohorts.forAge(12));
+        assertThat(studentRepository.findDtoById(student.getId()).orElseThrow().facultyId()).isEqualTo(faculty.getId());
+    }
+}
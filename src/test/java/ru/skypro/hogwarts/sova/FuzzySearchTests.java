@@ -0,0 +1,78 @@
+package ru.skypro.hogwarts.sova;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIf;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+import ru.skypro.hogwarts.sova.dto.FacultyDto;
+import ru.skypro.hogwarts.sova.dto.SearchMode;
+import ru.skypro.hogwarts.sova.dto.StudentDto;
+import ru.skypro.hogwarts.sova.model.Faculty;
+import ru.skypro.hogwarts.sova.model.Student;
+import ru.skypro.hogwarts.sova.repository.FacultyRepository;
+import ru.skypro.hogwarts.sova.repository.StudentRepository;
+import ru.skypro.hogwarts.sova.service.FacultyService;
+import ru.skypro.hogwarts.sova.service.StudentService;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/** Нечёткий поиск по триграммам (pg_trgm) на PostgreSQL: опечатки, порядок по сходству, страницы. */
+@SpringBootTest
+@ActiveProfiles("test")
+@EnabledIf("ru.skypro.hogwarts.sova.PostgresDatabase#available")
+class FuzzySearchTests {
+    @Autowired
+    private StudentService studentService;
+    @Autowired
+    private FacultyService facultyService;
+    @Autowired
+    private FacultyRepository facultyRepository;
+    @Autowired
+    private StudentRepository studentRepository;
+
+    @DynamicPropertySource
+    static void postgres(DynamicPropertyRegistry registry) {
+        PostgresDatabase.create("hogwarts_search").register(registry);
+    }
+
+    @BeforeEach
+    void seed() {
+        Faculty gryffindor = facultyRepository.save(new Faculty(null, "Гриффиндор", "красный"));
+        facultyRepository.save(new Faculty(null, "Когтевран", "синий"));
+        studentRepository.save(new Student(null, "Гарри Поттер", 11, gryffindor));
+        studentRepository.save(new Student(null, "Гарри Поттер-младший", 11, gryffindor));
+        studentRepository.save(new Student(null, "Драко Малфой", 11, null));
+    }
+
+    @AfterEach
+    void cleanUp() {
+        studentRepository.deleteAllInBatch();
+        facultyRepository.deleteAllInBatch();
+    }
+
+    @Test
+    void findsStudentsDespiteTyposMostSimilarFirst() {
+        assertThat(studentService.searchByName("гари потер", SearchMode.FUZZY, 0, 20))
+                .extracting(StudentDto::name)
+                .containsExactly("Гарри Поттер", "Гарри Поттер-младший");
+        assertThat(studentService.searchByName("гари потер", SearchMode.FUZZY, 1, 1))
+                .extracting(StudentDto::name)
+                .containsExactly("Гарри Поттер-младший");
+        assertThat(studentService.searchByName("Гермиона", SearchMode.FUZZY, 0, 20)).isEmpty();
+    }
+
+    @Test
+    void findsFacultiesByNameOrColor() {
+        assertThat(facultyService.search("Когтевнар", SearchMode.FUZZY, 0, 20))
+                .extracting(FacultyDto::name)
+                .containsExactly("Когтевран");
+        assertThat(facultyService.search("красны", SearchMode.FUZZY, 0, 20))
+                .extracting(FacultyDto::name)
+                .containsExactly("Гриффиндор");
+    }
+}
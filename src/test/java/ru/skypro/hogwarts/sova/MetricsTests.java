@@ -0,0 +1,136 @@
+package ru.skypro.hogwarts.sova;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.persistence.EntityManager;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.actuate.observability.AutoConfigureObservability;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.transaction.support.TransactionTemplate;
+import ru.skypro.hogwarts.sova.metrics.RepositoryStatementMetrics;
+import ru.skypro.hogwarts.sova.model.Faculty;
+import ru.skypro.hogwarts.sova.model.Student;
+import ru.skypro.hogwarts.sova.repository.FacultyRepository;
+import ru.skypro.hogwarts.sova.repository.StudentRepository;
+
+import java.nio.charset.StandardCharsets;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+/**
+ * Метрики через весь стек: операторы SQL засчитываются методу репозитория,
+ * который их подготовил, а flush при коммите — в method=none; запросы к
+ * контроллерам попадают в http.server.requests по шаблону URI; счётчики
+ * кэшей и операторов видны в /actuator/prometheus и /actuator/metrics.
+ */
+@SpringBootTest
+@AutoConfigureMockMvc
+@AutoConfigureObservability(tracing = false)
+@ActiveProfiles("test")
+class MetricsTests {
+    @Autowired
+    private MockMvc mockMvc;
+    @Autowired
+    private MeterRegistry meterRegistry;
+    @Autowired
+    private FacultyRepository facultyRepository;
+    @Autowired
+    private StudentRepository studentRepository;
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+    @Autowired
+    private EntityManager entityManager;
+
+    private Faculty gryffindor;
+    private Student harry;
+
+    @BeforeEach
+    void seed() {
+        gryffindor = facultyRepository.save(new Faculty(null, "Гриффиндор", "красный"));
+        harry = studentRepository.save(new Student(null, "Гарри Поттер", 11, gryffindor));
+    }
+
+    @AfterEach
+    void cleanUp() {
+        studentRepository.deleteAllInBatch();
+        facultyRepository.deleteAllInBatch();
+    }
+
+    @Test
+    void statementsAreCountedPerRepositoryMethod() throws Exception {
+        double byId = statements("StudentRepository", "findDtoById");
+        double byFaculty = statements("StudentRepository", "findByFacultyId");
+
+        mockMvc.perform(get("/student/{id}", harry.getId())).andExpect(status().isOk());
+        mockMvc.perform(get("/student/{id}", harry.getId())).andExpect(status().isOk());
+        mockMvc.perform(get("/faculty/{id}/students", gryffindor.getId())).andExpect(status().isOk());
+
+        // второе чтение студента обслужил кэш
+        assertThat(statements("StudentRepository", "findDtoById") - byId).isEqualTo(1);
+        assertThat(statements("StudentRepository", "findByFacultyId") - byFaculty).isEqualTo(1);
+    }
+
+    @Test
+    void flushAtCommitIsCountedOutsideRepositories() {
+        double outside = statements("none", "none");
+        double save = statements("FacultyRepository", "save");
+
+        transactionTemplate.executeWithoutResult(status -> entityManager.persist(new Faculty(null, "Когтевран", "синий")));
+
+        assertThat(statements("none", "none") - outside).isEqualTo(1);
+        assertThat(statements("FacultyRepository", "save") - save).isZero();
+    }
+
+    @Test
+    void httpRequestsAreTimedByUriTemplate() throws Exception {
+        mockMvc.perform(get("/student/{id}", harry.getId())).andExpect(status().isOk());
+        mockMvc.perform(get("/student/{id}", harry.getId() + 1000)).andExpect(status().isNotFound());
+
+        Timer ok = meterRegistry.find("http.server.requests").tag("uri", "/student/{id}").tag("status", "200").timer();
+        Timer notFound = meterRegistry.find("http.server.requests").tag("uri", "/student/{id}").tag("status", "404")
+                .timer();
+        assertThat(ok).isNotNull();
+        assertThat(ok.count()).isPositive();
+        assertThat(notFound).isNotNull();
+    }
+
+    @Test
+    void prometheusAndMetricsEndpointsExposeCustomMeters() throws Exception {
+        mockMvc.perform(get("/student/{id}", harry.getId())).andExpect(status().isOk());
+
+        String scrape = mockMvc.perform(get("/actuator/prometheus"))
+                .andExpect(status().isOk())
+                .andReturn()
+                .getResponse()
+                .getContentAsString(StandardCharsets.UTF_8);
+        assertThat(scrape)
+                .contains("hogwarts_repository_statements_total{method=\"findDtoById\",repository=\"StudentRepository\"}")
+                .contains("cache_gets_total{cache=\"student\"")
+                .contains("http_server_requests_seconds_bucket{")
+                .contains("spring_data_repository_invocations_seconds_bucket{")
+                .contains("hogwarts_db_bulkhead_available{target=\"primary\"}");
+
+        mockMvc.perform(get("/actuator/metrics/{name}", RepositoryStatementMetrics.STATEMENTS_METRIC)
+                        .param("tag", "repository:StudentRepository"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.availableTags[?(@.tag == 'method')].values[*]").isNotEmpty());
+    }
+
+    private double statements(String repository, String method) {
+        Counter counter = meterRegistry.find(RepositoryStatementMetrics.STATEMENTS_METRIC)
+                .tag("repository", repository)
+                .tag("method", method)
+                .counter();
+        return counter == null ? 0 : counter.count();
+    }
+}
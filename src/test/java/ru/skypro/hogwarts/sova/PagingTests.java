@@ -0,0 +1,160 @@
+package ru.skypro.hogwarts.sova;
+
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.MediaType;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+import ru.skypro.hogwarts.sova.dto.CursorPage;
+import ru.skypro.hogwarts.sova.dto.FacultyDto;
+import ru.skypro.hogwarts.sova.dto.StudentDto;
+import ru.skypro.hogwarts.sova.metrics.RepositoryStatementMetrics;
+import ru.skypro.hogwarts.sova.model.Faculty;
+import ru.skypro.hogwarts.sova.model.Student;
+import ru.skypro.hogwarts.sova.repository.FacultyRepository;
+import ru.skypro.hogwarts.sova.repository.StudentRepository;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.asyncDispatch;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.request;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+/**
+ * GET /student и GET /faculty постранично по курсору: обход страниц отдаёт
+ * каждую строку один раз в порядке id, а выгрузка NDJSON — все строки одним
+ * запросом к базе, сколько бы их ни было.
+ */
+@SpringBootTest
+@AutoConfigureMockMvc
+@ActiveProfiles("test")
+class PagingTests {
+    private static final int STUDENTS = 7;
+
+    @Autowired
+    private MockMvc mockMvc;
+    @Autowired
+    private ObjectMapper objectMapper;
+    @Autowired
+    private MeterRegistry meterRegistry;
+    @Autowired
+    private FacultyRepository facultyRepository;
+    @Autowired
+    private StudentRepository studentRepository;
+
+    private final List<Long> studentIds = new ArrayList<>();
+    private final List<Long> facultyIds = new ArrayList<>();
+
+    @BeforeEach
+    void seed() {
+        for (int f = 0; f < 3; f++) {
+            facultyIds.add(facultyRepository.save(new Faculty(null, "Факультет " + f, "цвет " + f)).getId());
+        }
+        for (int s = 0; s < STUDENTS; s++) {
+            studentIds.add(studentRepository.save(new Student(null, "Студент " + s, 11 + s % 7, null)).getId());
+        }
+    }
+
+    @AfterEach
+    void cleanUp() {
+        studentRepository.deleteAllInBatch();
+        facultyRepository.deleteAllInBatch();
+    }
+
+    @Test
+    void studentPagesFollowCursorToTheEnd() throws Exception {
+        List<Long> seen = new ArrayList<>();
+        List<Integer> pageSizes = new ArrayList<>();
+        String cursor = null;
+        do {
+            CursorPage<StudentDto> page = page("/student?limit=3" + (cursor == null ? "" : "&cursor=" + cursor),
+                    new TypeReference<>() {
+                    });
+            page.items().forEach(student -> seen.add(student.id()));
+            pageSizes.add(page.items().size());
+            cursor = page.nextCursor();
+        } while (cursor != null);
+
+        assertThat(seen).containsExactlyElementsOf(studentIds);
+        assertThat(pageSizes).containsExactly(3, 3, 1);
+    }
+
+    @Test
+    void facultyPagesFollowCursorToTheEnd() throws Exception {
+        CursorPage<FacultyDto> first = page("/faculty?limit=2", new TypeReference<>() {
+        });
+        CursorPage<FacultyDto> last = page("/faculty?limit=2&cursor=" + first.nextCursor(), new TypeReference<>() {
+        });
+
+        assertThat(first.items()).extracting(FacultyDto::id).containsExactlyElementsOf(facultyIds.subList(0, 2));
+        assertThat(last.items()).extracting(FacultyDto::id).containsExactly(facultyIds.get(2));
+        assertThat(last.nextCursor()).isNull();
+    }
+
+    @Test
+    void limitIsClampedAndBadCursorRejected() throws Exception {
+        CursorPage<StudentDto> single = page("/student?limit=0", new TypeReference<>() {
+        });
+        assertThat(single.items()).extracting(StudentDto::id).containsExactly(studentIds.get(0));
+        assertThat(single.nextCursor()).isEqualTo(CursorPage.encodeCursor(studentIds.get(0)));
+
+        CursorPage<StudentDto> all = page("/student?limit=100000", new TypeReference<>() {
+        });
+        assertThat(all.items()).hasSize(STUDENTS);
+        assertThat(all.nextCursor()).isNull();
+
+        mockMvc.perform(get("/student").param("cursor", "не курсор")).andExpect(status().isBadRequest());
+    }
+
+    @Test
+    void ndjsonStreamsEveryStudentWithOneStatement() throws Exception {
+        double before = streamAllStatements();
+
+        MvcResult started = mockMvc.perform(get("/student").accept(MediaType.APPLICATION_NDJSON))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+        String body = mockMvc.perform(asyncDispatch(started))
+                .andExpect(status().isOk())
+                .andReturn()
+                .getResponse()
+                .getContentAsString(StandardCharsets.UTF_8);
+
+        List<StudentDto> streamed = new ArrayList<>();
+        for (String line : body.split("\n")) {
+            streamed.add(objectMapper.readValue(line, StudentDto.class));
+        }
+        assertThat(streamed).extracting(StudentDto::id).containsExactlyElementsOf(studentIds);
+        assertThat(streamed.get(0)).isEqualTo(new StudentDto(studentIds.get(0), "Студент 0", 11, null, null));
+        assertThat(streamAllStatements() - before).isEqualTo(1);
+    }
+
+    private double streamAllStatements() {
+        Counter counter = meterRegistry.find(RepositoryStatementMetrics.STATEMENTS_METRIC)
+                .tag("repository", "StudentRepository")
+                .tag("method", "streamAll")
+                .counter();
+        return counter == null ? 0 : counter.count();
+    }
+
+    private <T> T page(String url, TypeReference<T> type) throws Exception {
+        String body = mockMvc.perform(get(url))
+                .andExpect(status().isOk())
+                .andReturn()
+                .getResponse()
+                .getContentAsString(StandardCharsets.UTF_8);
+        return objectMapper.readValue(body, type);
+    }
+}
@@ -0,0 +1,88 @@
+package ru.skypro.hogwarts.sova;
+
+import org.flywaydb.core.Flyway;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.testcontainers.DockerClientFactory;
+import org.testcontainers.containers.PostgreSQLContainer;
+
+/**
+ * Отдельная база PostgreSQL для тестов того, что на H2 не проверить:
+ * миграций Flyway, ddl-auto=validate, секционирования и функций V7.
+ * <p>
+ * Сервер берётся из {@code HOGWARTS_TEST_POSTGRES_URL} (jdbc-url любой его
+ * базы, пользователь с правом CREATE DATABASE в
+ * {@code HOGWARTS_TEST_POSTGRES_USER} / {@code HOGWARTS_TEST_POSTGRES_PASSWORD}),
+ * иначе поднимается контейнер Testcontainers, если доступен Docker. Без того
+ * и другого такие тесты пропускаются ({@code @EnabledIf} на {@link #available()}),
+ * кроме сборки {@code mvn -Ppostgres test}: там они обязательны и без сервера
+ * падают, а не пропускаются.
+ * Локаль сервера не должна быть C: в ней pg_trgm не видит в кириллице букв,
+ * и нечёткий поиск ничего не находит.
+ */
+public record PostgresDatabase(String url, String username, String password) {
+    private static final String URL_ENV = "HOGWARTS_TEST_POSTGRES_URL";
+    private static final String REQUIRED_PROPERTY = "hogwarts.test.postgres.required";
+    private static final String IMAGE = "postgres:16";
+
+    private static PostgreSQLContainer<?> container;
+
+    public static boolean available() {
+        return Boolean.getBoolean(REQUIRED_PROPERTY)
+                || System.getenv(URL_ENV) != null
+                || DockerClientFactory.instance().isDockerAvailable();
+    }
+
+    /** Пересоздаёт пустую базу {@code name} на тестовом сервере. */
+    public static PostgresDatabase create(String name) {
+        PostgresDatabase server = server();
+        server.jdbc().execute("DROP DATABASE IF EXISTS " + name + " WITH (FORCE)");
+        server.jdbc().execute("CREATE DATABASE " + name);
+        return new PostgresDatabase(server.url.replaceFirst("/[^/?]*(\\?|$)", "/" + name + "$1"),
+                server.username, server.password);
+    }
+
+    private static synchronized PostgresDatabase server() {
+        String url = System.getenv(URL_ENV);
+        if (url != null) {
+            return new PostgresDatabase(url,
+                    System.getenv().getOrDefault("HOGWARTS_TEST_POSTGRES_USER", "postgres"),
+                    System.getenv().getOrDefault("HOGWARTS_TEST_POSTGRES_PASSWORD", ""));
+        }
+        if (container == null) {
+            container = new PostgreSQLContainer<>(IMAGE);
+            container.start();
+        }
+        return new PostgresDatabase(container.getJdbcUrl(), container.getUsername(), container.getPassword());
+    }
+
+    public JdbcTemplate jdbc() {
+        return new JdbcTemplate(new DriverManagerDataSource(url, username, password));
+    }
+
+    /** Накатывает миграции из db/migration до версии {@code target} включительно. */
+    public void migrate(String target) {
+        Flyway.configure()
+                .dataSource(url, username, password)
+                .target(target)
+                .load()
+                .migrate();
+    }
+
+    /**
+     * Направляет приложение в эту базу поверх профиля test: схему дальше
+     * накатывает Flyway самого приложения, Hibernate её только проверяет.
+     */
+    public void register(DynamicPropertyRegistry registry) {
+        registry.add("spring.datasource.url", this::url);
+        registry.add("spring.datasource.username", this::username);
+        registry.add("spring.datasource.password", this::password);
+        registry.add("spring.datasource.driver-class-name", () -> "org.postgresql.Driver");
+        registry.add("spring.r2dbc.url", () -> "r2dbc:" + url.substring("jdbc:".length()).replaceFirst("\\?.*", ""));
+        registry.add("spring.r2dbc.username", this::username);
+        registry.add("spring.r2dbc.password", this::password);
+        registry.add("spring.flyway.enabled", () -> "true");
+        registry.add("spring.jpa.hibernate.ddl-auto", () -> "validate");
+    }
+}
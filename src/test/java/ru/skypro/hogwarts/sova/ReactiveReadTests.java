@@ -0,0 +1,110 @@
+package ru.skypro.hogwarts.sova;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.MediaType;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.web.reactive.server.WebTestClient;
+import ru.skypro.hogwarts.sova.dto.FacultyDto;
+import ru.skypro.hogwarts.sova.dto.StudentDto;
+import ru.skypro.hogwarts.sova.model.Faculty;
+import ru.skypro.hogwarts.sova.model.Student;
+import ru.skypro.hogwarts.sova.repository.FacultyRepository;
+import ru.skypro.hogwarts.sova.repository.StudentRepository;
+
+import java.time.Duration;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.tuple;
+
+/** /reactive/** через R2DBC на работающем сервере: NDJSON, SSE, фильтры и 404 до первой строки. */
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT)
+@ActiveProfiles("test")
+class ReactiveReadTests {
+    @Autowired
+    private WebTestClient webTestClient;
+    @Autowired
+    private FacultyRepository facultyRepository;
+    @Autowired
+    private StudentRepository studentRepository;
+
+    private Faculty gryffindor;
+    private List<Student> students;
+
+    @BeforeEach
+    void seed() {
+        gryffindor = facultyRepository.save(new Faculty(null, "Гриффиндор", "красный"));
+        facultyRepository.save(new Faculty(null, "Слизерин", "зелёный"));
+        students = studentRepository.saveAll(List.of(
+                new Student(null, "Гарри", 11, gryffindor),
+                new Student(null, "Драко", 12, null),
+                new Student(null, "Рон", 13, gryffindor)));
+    }
+
+    @AfterEach
+    void cleanUp() {
+        studentRepository.deleteAllInBatch();
+        facultyRepository.deleteAllInBatch();
+    }
+
+    @Test
+    void streamsStudentsAsNdjsonInIdOrder() {
+        webTestClient.get().uri("/reactive/student")
+                .accept(MediaType.APPLICATION_NDJSON)
+                .exchange()
+                .expectStatus().isOk()
+                .expectHeader().contentTypeCompatibleWith(MediaType.APPLICATION_NDJSON)
+                .expectBodyList(StudentDto.class)
+                .value(list -> assertThat(list)
+                        .extracting(StudentDto::id, StudentDto::name, StudentDto::facultyId)
+                        .containsExactly(
+                                tuple(students.get(0).getId(), "Гарри", gryffindor.getId()),
+                                tuple(students.get(1).getId(), "Драко", null),
+                                tuple(students.get(2).getId(), "Рон", gryffindor.getId())));
+    }
+
+    @Test
+    void streamsServerSentEventsByDefault() {
+        List<StudentDto> received = webTestClient.get().uri("/reactive/student/age-between?min=12&max=13")
+                .exchange()
+                .expectStatus().isOk()
+                .expectHeader().contentTypeCompatibleWith(MediaType.TEXT_EVENT_STREAM)
+                .returnResult(StudentDto.class)
+                .getResponseBody()
+                .collectList()
+                .block(Duration.ofSeconds(10));
+
+        assertThat(received).extracting(StudentDto::name).containsExactly("Драко", "Рон");
+    }
+
+    @Test
+    void filtersByAgeAndFaculty() {
+        webTestClient.get().uri("/reactive/student/age/{age}", 11)
+                .accept(MediaType.APPLICATION_NDJSON)
+                .exchange()
+                .expectBodyList(StudentDto.class)
+                .value(list -> assertThat(list).extracting(StudentDto::name).containsExactly("Гарри"));
+        webTestClient.get().uri("/reactive/faculty/{id}/students", gryffindor.getId())
+                .accept(MediaType.APPLICATION_NDJSON)
+                .exchange()
+                .expectBodyList(StudentDto.class)
+                .value(list -> assertThat(list).extracting(StudentDto::name).containsExactly("Гарри", "Рон"));
+        webTestClient.get().uri("/reactive/faculty")
+                .accept(MediaType.APPLICATION_NDJSON)
+                .exchange()
+                .expectBodyList(FacultyDto.class)
+                .value(list -> assertThat(list).extracting(FacultyDto::name).containsExactly("Гриффиндор", "Слизерин"));
+    }
+
+    @Test
+    void unknownFacultyIsNotFoundBeforeAnyRow() {
+        webTestClient.get().uri("/reactive/faculty/{id}/students", -1)
+                .accept(MediaType.APPLICATION_NDJSON)
+                .exchange()
+                .expectStatus().isNotFound();
+    }
+}
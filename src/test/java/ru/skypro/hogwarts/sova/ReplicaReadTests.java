@@ -0,0 +1,140 @@
+package ru.skypro.hogwarts.sova;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import ru.skypro.hogwarts.sova.dto.ChangeEventDto;
+import ru.skypro.hogwarts.sova.dto.StudentDto;
+import ru.skypro.hogwarts.sova.model.Student;
+import ru.skypro.hogwarts.sova.replica.ReplicaSet;
+import ru.skypro.hogwarts.sova.repository.StudentRepository;
+import ru.skypro.hogwarts.sova.service.ChangeFeedService;
+import ru.skypro.hogwarts.sova.service.StudentCohorts;
+import ru.skypro.hogwarts.sova.service.StudentService;
+import ru.skypro.hogwarts.sova.service.StudentSnapshot;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.tuple;
+
+/**
+ * Реплика через весь стек: JpaTransactionManager, LazyConnectionDataSourceProxy
+ * и маршрутизацию. Реплика — отдельная база H2, в которую скопировано
+ * состояние основной и дальше не обновляется, то есть реплика с отставанием.
+ * Read-only транзакции читают с неё старые строки; лента изменений и
+ * загрузка копии студентов читают с основной базы и видят новые.
+ */
+@SpringBootTest(properties = {
+        "hogwarts.datasource.replica-urls=" + ReplicaReadTests.REPLICA_URL,
+        "hogwarts.datasource.replica-lag-query=SELECT 0"})
+@ActiveProfiles("test")
+class ReplicaReadTests {
+    static final String REPLICA_URL = "jdbc:h2:mem:hogwarts_replica;MODE=PostgreSQL;DATABASE_TO_LOWER=TRUE;DB_CLOSE_DELAY=-1";
+
+    @Autowired
+    private StudentService studentService;
+    @Autowired
+    private StudentRepository studentRepository;
+    @Autowired
+    private ChangeFeedService changeFeedService;
+    @Autowired
+    private ReplicaSet replicaSet;
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+    @Autowired
+    private ObjectMapper objectMapper;
+    @Autowired
+    private StudentCohorts cohorts;
+    @Autowired
+    private JdbcTemplate jdbc;
+
+    private final JdbcTemplate replica = new JdbcTemplate(new DriverManagerDataSource(REPLICA_URL, "sa", ""));
+
+    private StudentDto harry;
+    private long replicatedPosition;
+
+    @BeforeEach
+    void replicateThenChangePrimary() throws IOException {
+        harry = studentService.createStudent(new Student(null, "Гарри", 11, null));
+        changeFeedService.relay();
+        replicatedPosition = changeFeedService.lastPosition();
+
+        Path script = Files.createTempFile("replica", ".sql");
+        try {
+            jdbc.execute("SCRIPT TO '" + script + "'");
+            replica.execute("DROP ALL OBJECTS");
+            replica.execute("RUNSCRIPT FROM '" + script + "'");
+        } finally {
+            Files.deleteIfExists(script);
+        }
+        replicaSet.checkReplicas();
+
+        studentService.editStudent(new Student(harry.id(), "Гарри Поттер", 12, null));
+        changeFeedService.relay();
+    }
+
+    @AfterEach
+    void cleanUp() {
+        jdbc.update("DELETE FROM student");
+        jdbc.update("DELETE FROM change_event");
+        jdbc.update("DELETE FROM change_relay_state");
+    }
+
+    @Test
+    void readOnlyJpaTransactionsGoToReplica() {
+        ReplicaSet.Replica replica = replicaSet.getReplicas().get(0);
+        long reads = replica.getReadCount();
+        TransactionTemplate readOnly = new TransactionTemplate(transactionManager);
+        readOnly.setReadOnly(true);
+
+        StudentDto fromReplica = readOnly.execute(status -> studentRepository.findDtoById(harry.id()).orElseThrow());
+        StudentDto fromPrimary = new TransactionTemplate(transactionManager)
+                .execute(status -> studentRepository.findDtoById(harry.id()).orElseThrow());
+
+        assertThat(replica.isHealthy()).isTrue();
+        assertThat(fromReplica.name()).isEqualTo("Гарри");
+        assertThat(fromPrimary.name()).isEqualTo("Гарри Поттер");
+        assertThat(replica.getReadCount()).isEqualTo(reads + 1);
+    }
+
+    @Test
+    void changeFeedReadsPrimary() {
+        long reads = replicaSet.getReplicas().get(0).getReadCount();
+
+        List<ChangeEventDto> events = changeFeedService.changesSince(replicatedPosition, 100).events();
+
+        assertThat(events).extracting(ChangeEventDto::entityId, ChangeEventDto::version)
+                .containsExactly(tuple(harry.id(), 1));
+        assertThat(changeFeedService.lastPosition()).isEqualTo(replicatedPosition + 1);
+        assertThat(replicaSet.getReplicas().get(0).getReadCount()).isEqualTo(reads);
+    }
+
+    @Test
+    void snapshotLoadsTableAndPositionFromPrimary() {
+        long reads = replicaSet.getReplicas().get(0).getReadCount();
+        StudentSnapshot snapshot = new StudentSnapshot(studentRepository, changeFeedService, objectMapper,
+                transactionManager, cohorts, true, "", 200_000);
+
+        snapshot.reload();
+        studentService.editStudent(new Student(harry.id(), "Гарри Джеймс Поттер", 17, null));
+        changeFeedService.relay();
+        snapshot.follow();
+
+        assertThat(snapshot.findPageAfter(0, 10))
+                .extracting(StudentDto::name, StudentDto::version)
+                .containsExactly(tuple("Гарри Джеймс Поттер", 2));
+        assertThat(replicaSet.getReplicas().get(0).getReadCount()).isEqualTo(reads);
+    }
+}
@@ -0,0 +1,171 @@
+package ru.skypro.hogwarts.sova;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.RequestBuilder;
+import org.springframework.test.web.servlet.request.MockHttpServletRequestBuilder;
+import ru.skypro.hogwarts.sova.metrics.RepositoryStatementMetrics;
+import ru.skypro.hogwarts.sova.cache.VersionedCache;
+import ru.skypro.hogwarts.sova.model.Faculty;
+import ru.skypro.hogwarts.sova.model.Student;
+import ru.skypro.hogwarts.sova.repository.FacultyRepository;
+import ru.skypro.hogwarts.sova.repository.StudentRepository;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.head;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.content;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+/**
+ * Студенты факультета: сортировка по имени и возрасту в обе стороны с
+ * доразбором по id, страницы, выбор полей, число студентов в HEAD и
+ * /students/count. Каждый ответ — один запрос StudentRepository; студенты
+ * других факультетов в список не попадают.
+ */
+@SpringBootTest
+@AutoConfigureMockMvc
+@ActiveProfiles("test")
+class RosterTests {
+    @Autowired
+    private MockMvc mockMvc;
+    @Autowired
+    private ObjectMapper objectMapper;
+    @Autowired
+    private MeterRegistry meterRegistry;
+    @Autowired
+    private FacultyRepository facultyRepository;
+    @Autowired
+    private StudentRepository studentRepository;
+    @Autowired
+    private List<VersionedCache<?>> caches;
+
+    private Faculty gryffindor;
+
+    @BeforeEach
+    void seed() throws Exception {
+        caches.forEach(VersionedCache::invalidateAll);
+        gryffindor = facultyRepository.save(new Faculty(null, "Гриффиндор", "красный"));
+        Faculty slytherin = facultyRepository.save(new Faculty(null, "Слизерин", "зелёный"));
+        studentRepository.save(new Student(null, "Гарри", 11, gryffindor));
+        studentRepository.save(new Student(null, "Рон", 11, gryffindor));
+        studentRepository.save(new Student(null, "Гермиона", 12, gryffindor));
+        studentRepository.save(new Student(null, "Невилл", 12, gryffindor));
+        studentRepository.save(new Student(null, "Джинни", 11, gryffindor));
+        studentRepository.save(new Student(null, "Драко", 11, slytherin));
+
+        // факультет проверяется через кэш: прогреваем, чтобы считать только запросы списка
+        mockMvc.perform(get("/faculty/{id}", gryffindor.getId())).andExpect(status().isOk());
+    }
+
+    @AfterEach
+    void cleanUp() {
+        studentRepository.deleteAllInBatch();
+        facultyRepository.deleteAllInBatch();
+    }
+
+    @Test
+    void sortsByNameAndAgeWithIdTieBreak() throws Exception {
+        assertThat(names(roster())).containsExactly("Гарри", "Рон", "Гермиона", "Невилл", "Джинни");
+        assertThat(names(roster("sort", "NAME"))).containsExactly("Гарри", "Гермиона", "Джинни", "Невилл", "Рон");
+        assertThat(names(roster("sort", "NAME", "direction", "DESC")))
+                .containsExactly("Рон", "Невилл", "Джинни", "Гермиона", "Гарри");
+        assertThat(names(roster("sort", "AGE"))).containsExactly("Гарри", "Рон", "Джинни", "Гермиона", "Невилл");
+        assertThat(names(roster("sort", "AGE", "direction", "DESC")))
+                .containsExactly("Невилл", "Гермиона", "Джинни", "Рон", "Гарри");
+    }
+
+    @Test
+    void pagesFollowRequestedOrder() throws Exception {
+        assertThat(names(roster("sort", "NAME", "size", "2"))).containsExactly("Гарри", "Гермиона");
+        assertThat(names(roster("sort", "NAME", "size", "2", "page", "1"))).containsExactly("Джинни", "Невилл");
+        assertThat(names(roster("sort", "NAME", "size", "2", "page", "2"))).containsExactly("Рон");
+        assertThat(names(roster("sort", "NAME", "size", "2", "page", "3"))).isEmpty();
+    }
+
+    @Test
+    void fieldsSelectOnlyRequestedKeys() throws Exception {
+        JsonNode roster = roster("sort", "AGE", "size", "1", "fields", "name, age");
+        assertThat(roster).hasSize(1);
+        List<String> keys = new ArrayList<>();
+        roster.get(0).fieldNames().forEachRemaining(keys::add);
+        assertThat(keys).containsExactly("name", "age");
+        assertThat(roster.get(0).get("name").asText()).isEqualTo("Гарри");
+
+        mockMvc.perform(get("/faculty/{id}/students", gryffindor.getId()).param("fields", "id,house"))
+                .andExpect(status().isBadRequest());
+        mockMvc.perform(get("/faculty/{id}/students", gryffindor.getId()).param("fields", " , "))
+                .andExpect(status().isBadRequest());
+    }
+
+    @Test
+    void countComesFromHeadAndCountEndpoint() throws Exception {
+        double before = statements();
+        mockMvc.perform(head("/faculty/{id}/students", gryffindor.getId()))
+                .andExpect(status().isOk())
+                .andExpect(header().string("X-Total-Count", "5"))
+                .andExpect(content().string(""));
+        assertThat(statements() - before).isEqualTo(1);
+
+        before = statements();
+        mockMvc.perform(get("/faculty/{id}/students/count", gryffindor.getId()))
+                .andExpect(status().isOk())
+                .andExpect(content().string("5"));
+        assertThat(statements() - before).isEqualTo(1);
+    }
+
+    @Test
+    void unknownFacultyIsNotFound() throws Exception {
+        long missing = gryffindor.getId() + 1000;
+        mockMvc.perform(get("/faculty/{id}/students", missing)).andExpect(status().isNotFound());
+        mockMvc.perform(head("/faculty/{id}/students", missing)).andExpect(status().isNotFound());
+        mockMvc.perform(get("/faculty/{id}/students/count", missing)).andExpect(status().isNotFound());
+    }
+
+    private JsonNode roster(String... params) throws Exception {
+        MockHttpServletRequestBuilder request = get("/faculty/{id}/students", gryffindor.getId());
+        for (int i = 0; i < params.length; i += 2) {
+            request.param(params[i], params[i + 1]);
+        }
+        double before = statements();
+        JsonNode roster = json(request);
+        assertThat(statements() - before).as("statements for %s", List.of(params)).isEqualTo(1);
+        return roster;
+    }
+
+    private JsonNode json(RequestBuilder request) throws Exception {
+        String body = mockMvc.perform(request)
+                .andExpect(status().isOk())
+                .andReturn()
+                .getResponse()
+                .getContentAsString(StandardCharsets.UTF_8);
+        return objectMapper.readTree(body);
+    }
+
+    private static List<String> names(JsonNode roster) {
+        List<String> names = new ArrayList<>();
+        roster.forEach(student -> names.add(student.get("name").asText()));
+        return names;
+    }
+
+    private double statements() {
+        return meterRegistry.find(RepositoryStatementMetrics.STATEMENTS_METRIC).counters().stream()
+                .mapToDouble(Counter::count)
+                .sum();
+    }
+}
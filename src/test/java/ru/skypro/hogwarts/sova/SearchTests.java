@@ -0,0 +1,97 @@
+package ru.skypro.hogwarts.sova;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+import ru.skypro.hogwarts.sova.dto.FacultyDto;
+import ru.skypro.hogwarts.sova.dto.SearchMode;
+import ru.skypro.hogwarts.sova.dto.StudentDto;
+import ru.skypro.hogwarts.sova.model.Faculty;
+import ru.skypro.hogwarts.sova.model.Student;
+import ru.skypro.hogwarts.sova.repository.FacultyRepository;
+import ru.skypro.hogwarts.sova.repository.StudentRepository;
+import ru.skypro.hogwarts.sova.service.FacultyService;
+import ru.skypro.hogwarts.sova.service.StudentService;
+
+import java.util.Locale;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Точный и префиксный поиск студентов и факультетов. Нечёткий поиск
+ * держится на pg_trgm и проверяется в {@link FuzzySearchTests}.
+ */
+@SpringBootTest
+@ActiveProfiles("test")
+class SearchTests {
+    @Autowired
+    private StudentService studentService;
+    @Autowired
+    private FacultyService facultyService;
+    @Autowired
+    private FacultyRepository facultyRepository;
+    @Autowired
+    private StudentRepository studentRepository;
+
+    @BeforeEach
+    void seed() {
+        Faculty gryffindor = facultyRepository.save(new Faculty(null, "Гриффиндор", "красный"));
+        facultyRepository.save(new Faculty(null, "Когтевран", "синий"));
+        studentRepository.save(new Student(null, "Гарри Поттер", 11, gryffindor));
+        studentRepository.save(new Student(null, "Гарри", 12, gryffindor));
+        studentRepository.save(new Student(null, "Гермиона", 11, gryffindor));
+        studentRepository.save(new Student(null, "100%_чистокровный", 15, null));
+        studentRepository.save(new Student(null, "1000 галлеонов", 15, null));
+    }
+
+    @AfterEach
+    void cleanUp() {
+        studentRepository.deleteAllInBatch();
+        facultyRepository.deleteAllInBatch();
+    }
+
+    @Test
+    void exactIgnoresCase() {
+        assertThat(studentService.searchByName("гАРРИ", SearchMode.EXACT, 0, 20))
+                .extracting(StudentDto::name)
+                .containsExactly("Гарри");
+        assertThat(facultyService.search("СИНИЙ", SearchMode.EXACT, 0, 20))
+                .extracting(FacultyDto::name)
+                .containsExactly("Когтевран");
+    }
+
+    @Test
+    void prefixOrdersShortestFirstAndPages() {
+        assertThat(studentService.searchByName("гар", SearchMode.PREFIX, 0, 20))
+                .extracting(StudentDto::name)
+                .containsExactly("Гарри", "Гарри Поттер");
+        assertThat(studentService.searchByName("гар", SearchMode.PREFIX, 1, 1))
+                .extracting(StudentDto::name)
+                .containsExactly("Гарри Поттер");
+        assertThat(facultyService.search("Кра", SearchMode.PREFIX, 0, 20))
+                .extracting(FacultyDto::name)
+                .containsExactly("Гриффиндор");
+    }
+
+    @Test
+    void prefixEscapesLikeWildcards() {
+        assertThat(studentService.searchByName("100%_", SearchMode.PREFIX, 0, 20))
+                .extracting(StudentDto::name)
+                .containsExactly("100%_чистокровный");
+        assertThat(studentService.searchByName("100", SearchMode.PREFIX, 0, 20)).hasSize(2);
+    }
+
+    @Test
+    void prefixPatternDoesNotDependOnDefaultLocale() {
+        Locale defaultLocale = Locale.getDefault();
+        try {
+            Locale.setDefault(Locale.forLanguageTag("tr"));
+            assertThat(SearchMode.prefixPattern("TITLE_1")).isEqualTo("title\\_1%");
+        } finally {
+            Locale.setDefault(defaultLocale);
+        }
+    }
+}
@@ -0,0 +1,117 @@
+package ru.skypro.hogwarts.sova;
+
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.MediaType;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.RequestBuilder;
+import ru.skypro.hogwarts.sova.model.Faculty;
+import ru.skypro.hogwarts.sova.model.Student;
+import ru.skypro.hogwarts.sova.repository.FacultyRepository;
+import ru.skypro.hogwarts.sova.repository.StudentRepository;
+
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.head;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+/**
+ * Число SQL-запросов на эндпоинт не должно зависеть от количества строк.
+ * Данные засеяны так, что возврат к N+1 сразу увеличит счётчик.
+ * Повторные запросы по id проверяют, что кэш снимает чтение факультета/студента.
+ */
+@SpringBootTest
+@AutoConfigureMockMvc
+@ActiveProfiles("test")
+class SqlStatementCountTests {
+    private static final int FACULTIES = 4;
+    private static final int STUDENTS_PER_FACULTY = 5;
+
+    @Autowired
+    private MockMvc mockMvc;
+    @Autowired
+    private FacultyRepository facultyRepository;
+    @Autowired
+    private StudentRepository studentRepository;
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    private Faculty faculty;
+    private Student student;
+
+    @BeforeEach
+    void seed() {
+        for (int f = 0; f < FACULTIES; f++) {
+            faculty = facultyRepository.save(new Faculty(null, "Факультет " + f, "цвет " + f));
+            for (int s = 0; s < STUDENTS_PER_FACULTY; s++) {
+                student = studentRepository.save(new Student(null, "Студент " + f + "-" + s, 11 + s, faculty));
+            }
+        }
+    }
+
+    @AfterEach
+    void cleanUp() {
+        studentRepository.deleteAllInBatch();
+        facultyRepository.deleteAllInBatch();
+    }
+
+    @Test
+    void facultyEndpoints() throws Exception {
+        assertStatements(1, get("/faculty"));
+        assertStatements(1, get("/faculty/{id}", faculty.getId()));
+        assertStatements(0, get("/faculty/{id}", faculty.getId()));
+        assertStatements(1, get("/faculty/{id}/students", faculty.getId()));
+        assertStatements(1, get("/faculty/{id}/students", faculty.getId())
+                .param("sort", "NAME").param("size", "2").param("fields", "id,name"));
+        assertStatements(1, head("/faculty/{id}/students", faculty.getId()));
+        assertStatements(1, get("/faculty/color/{color}", faculty.getColor()));
+        assertStatements(1, get("/faculty/search").param("query", faculty.getName()));
+        assertStatements(1, get("/faculty/search").param("query", "факу").param("mode", "PREFIX"));
+
+        String facultyIds = ids(facultyRepository.findAll().stream().map(Faculty::getId).toList());
+        assertStatements(1, post("/faculty/batch-get").contentType(MediaType.APPLICATION_JSON).content(facultyIds));
+        assertStatements(0, post("/faculty/batch-get").contentType(MediaType.APPLICATION_JSON).content(facultyIds));
+    }
+
+    @Test
+    void studentEndpoints() throws Exception {
+        assertStatements(1, get("/student"));
+        assertStatements(1, get("/student/{id}", student.getId()));
+        assertStatements(0, get("/student/{id}", student.getId()));
+        assertStatements(1, get("/student/{id}/faculty", student.getId()));
+        assertStatements(0, get("/student/{id}/faculty", student.getId()));
+        assertStatements(1, get("/student/age/{age}", student.getAge()));
+        assertStatements(1, get("/student/age-between").param("min", "10").param("max", "20"));
+        assertStatements(1, get("/student/search").param("name", "студ").param("mode", "PREFIX"));
+
+        String studentIds = ids(studentRepository.findAll().stream().map(Student::getId).toList());
+        assertStatements(2, post("/student/batch-get").param("includeFaculties", "true")
+                .contentType(MediaType.APPLICATION_JSON).content(studentIds));
+        assertStatements(0, post("/student/batch-get").param("includeFaculties", "true")
+                .contentType(MediaType.APPLICATION_JSON).content(studentIds));
+    }
+
+    private static String ids(List<Long> ids) {
+        return ids.toString();
+    }
+
+    private void assertStatements(long expected, RequestBuilder request) throws Exception {
+        Statistics statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        statistics.clear();
+        mockMvc.perform(request).andExpect(status().isOk());
+        assertThat(statistics.getPrepareStatementCount())
+                .as("SQL statements for %s", request)
+                .isEqualTo(expected);
+    }
+}
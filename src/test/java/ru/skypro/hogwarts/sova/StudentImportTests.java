@@ -0,0 +1,83 @@
+package ru.skypro.hogwarts.sova;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.MediaType;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.web.servlet.MockMvc;
+import ru.skypro.hogwarts.sova.model.Faculty;
+import ru.skypro.hogwarts.sova.repository.FacultyRepository;
+import ru.skypro.hogwarts.sova.repository.StudentRepository;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.hamcrest.Matchers.nullValue;
+import static org.hamcrest.Matchers.startsWith;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+/** POST /student/bulk: отчёт по каждой строке, ошибки строк не мешают остальным. */
+@SpringBootTest(properties = "hogwarts.student.import.batch-size=2")
+@AutoConfigureMockMvc
+@ActiveProfiles("test")
+class StudentImportTests {
+    @Autowired
+    private MockMvc mockMvc;
+    @Autowired
+    private FacultyRepository facultyRepository;
+    @Autowired
+    private StudentRepository studentRepository;
+
+    @AfterEach
+    void cleanUp() {
+        studentRepository.deleteAllInBatch();
+        facultyRepository.deleteAllInBatch();
+    }
+
+    @Test
+    void jsonRowsAreReportedOneByOne() throws Exception {
+        Faculty faculty = facultyRepository.save(new Faculty(null, "Гриффиндор", "красный"));
+
+        mockMvc.perform(post("/student/bulk").contentType(MediaType.APPLICATION_JSON).content("""
+                        [{"name": "Гарри", "age": 11, "facultyId": %d},
+                         null,
+                         {"name": "", "age": 11},
+                         {"name": "Рон", "age": 11, "facultyId": -1},
+                         {"name": "Гермиона", "age": 12}]
+                        """.formatted(faculty.getId())))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.total").value(5))
+                .andExpect(jsonPath("$.imported").value(2))
+                .andExpect(jsonPath("$.failed").value(3))
+                .andExpect(jsonPath("$.rows[0].error").value(nullValue()))
+                .andExpect(jsonPath("$.rows[1].error").value("Пустая строка импорта"))
+                .andExpect(jsonPath("$.rows[2].error").value("Нужно имя"))
+                .andExpect(jsonPath("$.rows[3].error").value("Факультет с ID -1 не найден"))
+                .andExpect(jsonPath("$.rows[4].id").isNumber());
+
+        assertThat(studentRepository.count()).isEqualTo(2);
+        assertThat(studentRepository.countByFacultyId(faculty.getId(), 0)).isEqualTo(1);
+    }
+
+    @Test
+    void csvRowsAreImportedInBatches() throws Exception {
+        mockMvc.perform(post("/student/bulk").contentType("text/csv").content("""
+                        name,age,facultyId
+                        Гарри,11
+                        Рон,одиннадцать
+                        Гермиона,12
+                        Невилл,0
+                        Полумна,11
+                        """))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.total").value(5))
+                .andExpect(jsonPath("$.imported").value(3))
+                .andExpect(jsonPath("$.rows[1].error").value(startsWith("Некорректное число")))
+                .andExpect(jsonPath("$.rows[3].error").value("Возраст должен быть больше 0"));
+
+        assertThat(studentRepository.count()).isEqualTo(3);
+    }
+}
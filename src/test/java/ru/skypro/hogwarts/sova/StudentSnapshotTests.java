@@ -0,0 +1,197 @@
+package ru.skypro.hogwarts.sova;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.data.domain.Sort;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+import org.springframework.transaction.PlatformTransactionManager;
+import ru.skypro.hogwarts.sova.dto.RosterSort;
+import ru.skypro.hogwarts.sova.dto.StudentDto;
+import ru.skypro.hogwarts.sova.dto.StudentTransfer;
+import ru.skypro.hogwarts.sova.model.ChangeEvent;
+import ru.skypro.hogwarts.sova.model.ChangeEvent.EntityType;
+import ru.skypro.hogwarts.sova.model.Faculty;
+import ru.skypro.hogwarts.sova.model.Student;
+import ru.skypro.hogwarts.sova.repository.ChangeEventRepository;
+import ru.skypro.hogwarts.sova.repository.FacultyRepository;
+import ru.skypro.hogwarts.sova.repository.StudentRepository;
+import ru.skypro.hogwarts.sova.service.ChangeFeedService;
+import ru.skypro.hogwarts.sova.service.FacultyService;
+import ru.skypro.hogwarts.sova.service.StudentCohorts;
+import ru.skypro.hogwarts.sova.service.StudentService;
+import ru.skypro.hogwarts.sova.service.StudentSnapshot;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Comparator;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Копия студентов в памяти догоняет ленту изменений: правки через сервис,
+ * массовые UPDATE, удаление факультета и правки другого экземпляра (строка
+ * в таблице и событие в журнале без участия этого сервиса) дают ту же
+ * картину, что и таблица. Восстановленная из файла копия совпадает с
+ * таблицей, а отставшая дальше журнала загружается заново. Расписания
+ * копии и ретранслятора в тесте не срабатывают, их вызывают вручную.
+ */
+@SpringBootTest(properties = {
+        "hogwarts.student.snapshot.enabled=true",
+        "hogwarts.student.snapshot.follow-interval=PT1H",
+        "hogwarts.student.snapshot.resync-interval=PT1H",
+        "hogwarts.student.bulk-update.chunk-size=2"})
+@ActiveProfiles("test")
+class StudentSnapshotTests {
+    private static final Path FILE = snapshotFile();
+
+    @Autowired
+    private StudentSnapshot snapshot;
+    @Autowired
+    private StudentService studentService;
+    @Autowired
+    private FacultyService facultyService;
+    @Autowired
+    private ChangeFeedService changeFeedService;
+    @Autowired
+    private StudentRepository studentRepository;
+    @Autowired
+    private FacultyRepository facultyRepository;
+    @Autowired
+    private ChangeEventRepository changeEventRepository;
+    @Autowired
+    private ObjectMapper objectMapper;
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+    @Autowired
+    private StudentCohorts cohorts;
+    @Autowired
+    private JdbcTemplate jdbc;
+
+    private Faculty gryffindor;
+    private Faculty ravenclaw;
+
+    @DynamicPropertySource
+    static void snapshotFile(DynamicPropertyRegistry registry) {
+        registry.add("hogwarts.student.snapshot.file", FILE::toString);
+    }
+
+    @BeforeEach
+    void seed() {
+        gryffindor = facultyRepository.save(new Faculty(null, "Гриффиндор", "красный"));
+        ravenclaw = facultyRepository.save(new Faculty(null, "Когтевран", "синий"));
+        studentRepository.saveAll(List.of(
+                new Student(null, "Гарри Поттер", 11, gryffindor),
+                new Student(null, "Рон Уизли", 12, gryffindor),
+                new Student(null, "Луна Лавгуд", 13, ravenclaw),
+                new Student(null, "Гермиона Грейнджер", 14, gryffindor),
+                new Student(null, "Невилл Долгопупс", 15, null)));
+        changeFeedService.relay();
+        snapshot.reload();
+    }
+
+    @AfterEach
+    void cleanUp() {
+        studentRepository.deleteAllInBatch();
+        facultyRepository.deleteAllInBatch();
+        jdbc.update("DELETE FROM change_event");
+        jdbc.update("DELETE FROM change_relay_state");
+        jdbc.update("DELETE FROM student_age_rollover");
+    }
+
+    @Test
+    void followsServiceBulkAndForeignChanges() throws Exception {
+        assertThat(snapshot.size()).isEqualTo(5);
+        List<StudentDto> seeded = database();
+
+        StudentDto draco = studentService.createStudent(new Student(null, "Драко Малфой", 11, null));
+        studentService.editStudent(new Student(seeded.get(0).id(), "Гарри Джеймс Поттер", 12, gryffindor));
+        studentService.deleteStudent(seeded.get(4).id());
+        studentService.transferStudents(new StudentTransfer(gryffindor.getId(), ravenclaw.getId(), 12, 13, null));
+        studentService.incrementAges(2026);
+        // другой экземпляр: правит таблицу и пишет своё событие в общий журнал
+        long lunaId = seeded.get(2).id();
+        jdbc.update("UPDATE student SET name = 'Полумна Лавгуд', version = version + 1 WHERE id = ?", lunaId);
+        StudentDto luna = studentRepository.findDtosByIdIn(List.of(lunaId)).get(0);
+        changeEventRepository.save(new ChangeEvent(EntityType.STUDENT, lunaId, ChangeEvent.Type.UPDATED,
+                luna.version(), objectMapper.writeValueAsString(luna)));
+
+        changeFeedService.relay();
+        snapshot.follow();
+
+        assertThat(snapshot.findPageAfter(0, 100)).containsExactlyElementsOf(database());
+        assertThat(snapshot.findPageAfter(0, 100)).extracting(StudentDto::id).contains(draco.id());
+
+        facultyService.deleteFaculty(ravenclaw.getId());
+        changeFeedService.relay();
+        snapshot.follow();
+
+        assertThat(snapshot.findPageAfter(0, 100))
+                .containsExactlyElementsOf(database())
+                .extracting(StudentDto::facultyId).doesNotContain(ravenclaw.getId());
+    }
+
+    @Test
+    void restoredCopyReplaysChangesAfterFile() {
+        assertThat(FILE).exists();
+        List<StudentDto> seeded = database();
+        studentService.createStudent(new Student(null, "Драко Малфой", 11, null));
+        studentService.deleteStudent(seeded.get(1).id());
+        studentService.transferStudents(new StudentTransfer(gryffindor.getId(), ravenclaw.getId(), null, null, null));
+        changeFeedService.relay();
+        // правка мимо журнала: копия из файла её не видит, полная загрузка увидела бы
+        jdbc.update("UPDATE student SET age = 99 WHERE id = ?", seeded.get(4).id());
+
+        StudentSnapshot restarted = new StudentSnapshot(studentRepository, changeFeedService, objectMapper,
+                transactionManager, cohorts, true, FILE.toString(), 200_000);
+        restarted.start();
+
+        assertThat(restarted.isReady()).isTrue();
+        assertThat(restarted.findPageAfter(0, 100)).containsExactlyElementsOf(database().stream()
+                .map(student -> student.id().equals(seeded.get(4).id()) ? seeded.get(4) : student)
+                .toList());
+        assertThat(restarted.findByFacultyId(ravenclaw.getId(), RosterSort.ID,
+                Sort.Direction.ASC, 0, null)).hasSize(3);
+    }
+
+    @Test
+    void copyBehindPurgedFeedReloads() {
+        List<StudentDto> seeded = database();
+        studentService.editStudent(new Student(seeded.get(0).id(), "Гарри Поттер", 17, gryffindor));
+        changeFeedService.relay();
+        // изменения после смещения копии уже вычищены из журнала
+        jdbc.update("DELETE FROM change_event");
+        studentService.editStudent(new Student(seeded.get(1).id(), "Рональд Уизли", 17, gryffindor));
+        changeFeedService.relay();
+
+        snapshot.follow();
+
+        assertThat(snapshot.findPageAfter(0, 100)).containsExactlyElementsOf(database());
+        assertThat(snapshot.countByAgeBetween(17, 17)).isEqualTo(2);
+    }
+
+    private List<StudentDto> database() {
+        return studentRepository.findAll().stream()
+                .map(StudentDto::of)
+                .sorted(Comparator.comparing(StudentDto::id))
+                .toList();
+    }
+
+    private static Path snapshotFile() {
+        try {
+            Path directory = Files.createTempDirectory("student-snapshot");
+            directory.toFile().deleteOnExit();
+            return directory.resolve("students.bin");
+        } catch (IOException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+}
@@ -0,0 +1,92 @@
+package ru.skypro.hogwarts.sova.cache;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionSynchronizationUtils;
+import ru.skypro.hogwarts.sova.dto.StudentDto;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Кэш с версиями: загрузка, начатая до массового изменения, не возвращает
+ * в кэш старые данные на весь TTL — ни при прямом сбросе во время загрузки,
+ * ни при сбросе после коммита массового изменения. Записи с меньшей
+ * версией и после удаления не вытесняют более новые.
+ */
+class VersionedCacheTests {
+    private final VersionedCache<StudentDto> cache =
+            new VersionedCache<>("students", 100, Duration.ofMinutes(5), StudentDto::version);
+    private final AtomicInteger loads = new AtomicInteger();
+
+    @AfterEach
+    void clearSynchronization() {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.clearSynchronization();
+        }
+    }
+
+    @Test
+    void olderVersionNeverReplacesNewerOne() {
+        cache.put(1, student("Гарри Поттер", 2));
+        cache.put(1, student("Гарри", 1));
+        assertThat(cache.get(1, this::load)).contains(student("Гарри Поттер", 2));
+
+        cache.evict(1);
+        cache.put(1, student("Гарри Поттер", 3));
+        assertThat(cache.get(1, this::load)).isEmpty();
+        assertThat(loads).hasValue(0);
+    }
+
+    @Test
+    void loadOverlappingInvalidateAllIsNotCached() {
+        StudentDto stale = student("Гарри", 0);
+
+        Optional<StudentDto> loaded = cache.get(1, id -> {
+            loads.incrementAndGet();
+            cache.invalidateAll();
+            return Optional.of(stale);
+        });
+
+        assertThat(loaded).contains(stale);
+        assertThat(cache.get(1, this::load)).contains(student("Гарри Поттер", 1));
+        assertThat(loads).hasValue(2);
+    }
+
+    @Test
+    void loadStartedBeforeBulkCommitIsNotCachedAfterIt() {
+        TransactionSynchronizationManager.initSynchronization();
+
+        // чтение сняло старые данные, а массовое изменение успело закоммититься и сбросить кэш
+        Map<Long, StudentDto> loaded = cache.getAll(List.of(1L, 2L), ids -> {
+            loads.incrementAndGet();
+            Map<Long, StudentDto> stale = Map.of(1L, student("Гарри", 0), 2L, student("Рон", 0));
+            cache.invalidateAllAfterCommit();
+            TransactionSynchronizationUtils.invokeAfterCommit(TransactionSynchronizationManager.getSynchronizations());
+            TransactionSynchronizationManager.clearSynchronization();
+            return stale;
+        });
+
+        assertThat(loaded).hasSize(2);
+        assertThat(cache.estimatedSize()).isZero();
+        assertThat(cache.get(1, this::load)).contains(student("Гарри Поттер", 1));
+        assertThat(cache.get(1, this::load)).contains(student("Гарри Поттер", 1));
+        assertThat(loads).hasValue(2);
+        assertThat(cache.stats().hitCount()).isEqualTo(1);
+    }
+
+    private Optional<StudentDto> load(long id) {
+        loads.incrementAndGet();
+        return Optional.of(new StudentDto(id, "Гарри Поттер", 12, null, 1));
+    }
+
+    private static StudentDto student(String name, int version) {
+        return new StudentDto(1L, name, 12, null, version);
+    }
+}
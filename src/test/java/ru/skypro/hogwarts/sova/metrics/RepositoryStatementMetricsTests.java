@@ -0,0 +1,104 @@
+package ru.skypro.hogwarts.sova.metrics;
+
+import ch.qos.logback.classic.Logger;
+import ch.qos.logback.classic.spi.ILoggingEvent;
+import ch.qos.logback.core.read.ListAppender;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.aopalliance.intercept.MethodInterceptor;
+import org.aopalliance.intercept.MethodInvocation;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.slf4j.LoggerFactory;
+import ru.skypro.hogwarts.sova.repository.FacultyRepository;
+import ru.skypro.hogwarts.sova.repository.StudentRepository;
+
+import java.lang.reflect.Method;
+import java.time.Duration;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+/**
+ * Счётчик операторов: оператор засчитывается самому внутреннему вызову
+ * репозитория, вне вызова — в method=none; журнал медленных запросов пишет
+ * текст SQL только для выбранных вызовов, дольше порога.
+ */
+class RepositoryStatementMetricsTests {
+    private final MeterRegistry registry = new SimpleMeterRegistry();
+    private final Logger slowQueryLog = (Logger) LoggerFactory.getLogger("ru.skypro.hogwarts.sova.SLOW_QUERY");
+    private final ListAppender<ILoggingEvent> logged = new ListAppender<>();
+
+    @BeforeEach
+    void attachAppender() {
+        logged.start();
+        slowQueryLog.addAppender(logged);
+    }
+
+    @AfterEach
+    void detachAppender() {
+        slowQueryLog.detachAppender(logged);
+    }
+
+    @Test
+    void statementsGoToInnermostRepositoryCall() throws Throwable {
+        RepositoryStatementMetrics metrics = new RepositoryStatementMetrics(registry, 0, Duration.ZERO);
+        MethodInterceptor students = metrics.interceptorFor("StudentRepository");
+        MethodInterceptor faculties = metrics.interceptorFor("FacultyRepository");
+
+        students.invoke(invocation(StudentRepository.class.getMethod("streamAll"), () -> {
+            metrics.inspect("select s from student s");
+            faculties.invoke(invocation(FacultyRepository.class.getMethod("findAll"), () -> {
+                metrics.inspect("select f from faculty f");
+                metrics.inspect("select f from faculty f where id > ?");
+                return null;
+            }));
+            metrics.inspect("select s from student s where id > ?");
+            return null;
+        }));
+        metrics.inspect("update student set name = ?");
+
+        assertThat(count("StudentRepository", "streamAll")).isEqualTo(2);
+        assertThat(count("FacultyRepository", "findAll")).isEqualTo(2);
+        assertThat(count("none", "none")).isEqualTo(1);
+        assertThat(logged.list).isEmpty();
+    }
+
+    @Test
+    void sampledSlowCallsAreLoggedWithTheirStatements() throws Throwable {
+        RepositoryStatementMetrics slow = new RepositoryStatementMetrics(registry, 1, Duration.ZERO);
+        RepositoryStatementMetrics fast = new RepositoryStatementMetrics(registry, 1, Duration.ofHours(1));
+        Method streamAll = StudentRepository.class.getMethod("streamAll");
+
+        fast.interceptorFor("StudentRepository").invoke(invocation(streamAll, () -> fast.inspect("select 1")));
+        assertThat(logged.list).isEmpty();
+
+        slow.interceptorFor("StudentRepository").invoke(invocation(streamAll, () -> slow.inspect("select 2")));
+        assertThat(logged.list).singleElement()
+                .extracting(ILoggingEvent::getFormattedMessage)
+                .asString()
+                .startsWith("StudentRepository.streamAll took ")
+                .endsWith("1 statements: [select 2]");
+    }
+
+    private double count(String repository, String method) {
+        return registry.get(RepositoryStatementMetrics.STATEMENTS_METRIC)
+                .tag("repository", repository)
+                .tag("method", method)
+                .counter()
+                .count();
+    }
+
+    private static MethodInvocation invocation(Method method, Body body) throws Throwable {
+        MethodInvocation invocation = mock(MethodInvocation.class);
+        when(invocation.getMethod()).thenReturn(method);
+        when(invocation.proceed()).thenAnswer(call -> body.run());
+        return invocation;
+    }
+
+    private interface Body {
+        Object run() throws Throwable;
+    }
+}
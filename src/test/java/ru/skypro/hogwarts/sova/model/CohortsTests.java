@@ -0,0 +1,45 @@
+package ru.skypro.hogwarts.sova.model;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.Clock;
+import java.time.Instant;
+import java.time.ZoneId;
+import java.time.ZoneOffset;
+import java.util.TimeZone;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Правило потока по явным часам: год не зависит от часового пояса JVM, в
+ * том числе при вставке студента в новогоднюю ночь.
+ */
+class CohortsTests {
+    private static final Instant NEW_YEARS_EVE = Instant.parse("2026-12-31T20:00:00Z");
+
+    @Test
+    void cohortFollowsAgeAndClockYear() {
+        Clock clock = Clock.fixed(NEW_YEARS_EVE, ZoneOffset.UTC);
+
+        assertThat(Cohorts.forAge(9, clock)).isEqualTo(2026);
+        assertThat(Cohorts.forAge(11, clock)).isEqualTo(2026);
+        assertThat(Cohorts.forAge(14, clock)).isEqualTo(2023);
+        // в UTC+14 уже 2027 год: пояс задают часы, а не настройки JVM
+        assertThat(Cohorts.forAge(14, clock.withZone(ZoneId.of("Pacific/Kiritimati")))).isEqualTo(2024);
+        assertThat(Cohorts.CLOCK.getZone()).isEqualTo(ZoneOffset.UTC);
+    }
+
+    @Test
+    void insertIgnoresJvmTimeZone() {
+        TimeZone defaultZone = TimeZone.getDefault();
+        try {
+            TimeZone.setDefault(TimeZone.getTimeZone("Pacific/Kiritimati"));
+            Student student = new Student(null, "Гарри", 14, null);
+            student.assignCohort();
+
+            assertThat(student.getCohort()).isEqualTo(Cohorts.forAge(14, Cohorts.CLOCK));
+        } finally {
+            TimeZone.setDefault(defaultZone);
+        }
+    }
+}
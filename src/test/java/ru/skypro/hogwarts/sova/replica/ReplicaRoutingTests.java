@@ -0,0 +1,195 @@
+package ru.skypro.hogwarts.sova.replica;
+
+import com.zaxxer.hikari.HikariDataSource;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+import org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import ru.skypro.hogwarts.sova.concurrency.BulkheadDataSource;
+import ru.skypro.hogwarts.sova.concurrency.BulkheadFullException;
+import ru.skypro.hogwarts.sova.concurrency.DatabaseBulkhead;
+
+import jakarta.servlet.http.Cookie;
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+/**
+ * Маршрутизация read-only соединений на реплики. Основная база и реплики —
+ * отдельные базы H2 в памяти, источник соединения виден по её URL.
+ */
+class ReplicaRoutingTests {
+    private final List<HikariDataSource> pools = new ArrayList<>();
+    private final ReadYourWrites readYourWrites = new ReadYourWrites(Duration.ofSeconds(5));
+    private final MockHttpServletResponse response = new MockHttpServletResponse();
+
+    private DatabaseBulkhead primaryBulkhead;
+    private DataSource primary;
+
+    @BeforeEach
+    void setUp() {
+        primaryBulkhead = new DatabaseBulkhead(2, Duration.ofMillis(100));
+        primary = new BulkheadDataSource(pool("primary", 2), primaryBulkhead);
+    }
+
+    @AfterEach
+    void tearDown() {
+        readYourWrites.afterCompletion(new MockHttpServletRequest(), response, null, null);
+        pools.forEach(HikariDataSource::close);
+    }
+
+    @Test
+    void readOnlyTransactionsGoToHealthyReplicasInTurn() throws SQLException {
+        ReplicaSet replicas = replicas(ReplicaSet.Balance.ROUND_ROBIN, "SELECT 0", "replica-1", "replica-2");
+        DataSource routed = routed(replicas);
+
+        assertThat(readOnlyTarget(routed)).as("до первой проверки реплики выключены").isEqualTo("primary");
+
+        replicas.checkReplicas();
+        assertThat(List.of(readOnlyTarget(routed), readOnlyTarget(routed), readOnlyTarget(routed)))
+                .containsExactly("replica-1", "replica-2", "replica-1");
+        assertThat(writeTarget(routed)).isEqualTo("primary");
+        assertThat(replicas.getPrimaryReadCount()).isEqualTo(1);
+        assertThat(replicas.getReplicas()).extracting(ReplicaSet.Replica::getReadCount).containsExactly(2L, 1L);
+    }
+
+    @Test
+    void laggingReplicaGetsNoReads() throws SQLException {
+        ReplicaSet replicas = replicas(ReplicaSet.Balance.LEAST_LOADED, "SELECT 5", "replica-1");
+        replicas.checkReplicas();
+
+        assertThat(replicas.getReplicas().get(0).isHealthy()).isFalse();
+        assertThat(replicas.getReplicas().get(0).getLagSeconds()).isEqualTo(5);
+        assertThat(readOnlyTarget(routed(replicas))).isEqualTo("primary");
+    }
+
+    @Test
+    void readsAfterWriteStayOnPrimaryUntilCookieExpires() throws Exception {
+        ReplicaSet replicas = replicas(ReplicaSet.Balance.LEAST_LOADED, "SELECT 0", "replica-1");
+        replicas.checkReplicas();
+        DataSource routed = routed(replicas);
+
+        readYourWrites.preHandle(request("POST"), response, null);
+        assertThat(ReadYourWrites.isPinned()).isTrue();
+        assertThat(readOnlyTarget(routed)).isEqualTo("primary");
+        Cookie cookie = response.getCookie(ReadYourWrites.COOKIE);
+        assertThat(cookie).isNotNull();
+        assertThat(Long.parseLong(cookie.getValue())).isGreaterThan(System.currentTimeMillis());
+
+        MockHttpServletRequest followUp = request("GET");
+        followUp.setCookies(cookie);
+        readYourWrites.preHandle(followUp, response, null);
+        assertThat(readOnlyTarget(routed)).isEqualTo("primary");
+
+        MockHttpServletRequest later = request("GET");
+        later.setCookies(new Cookie(ReadYourWrites.COOKIE, Long.toString(System.currentTimeMillis() - 1)));
+        readYourWrites.preHandle(later, response, null);
+        assertThat(readOnlyTarget(routed)).isEqualTo("replica-1");
+
+        readYourWrites.preHandle(request("POST"), response, null);
+        readYourWrites.afterCompletion(request("POST"), response, null, null);
+        assertThat(ReadYourWrites.isPinned()).isFalse();
+    }
+
+    @Test
+    void busyReplicaFailsWithoutTakingPrimaryPermitsOrGoingDown() throws SQLException {
+        ReplicaSet replicas = replicas(ReplicaSet.Balance.LEAST_LOADED, "SELECT 0", "replica-1");
+        replicas.checkReplicas();
+        ReplicaRoutingDataSource routing = new ReplicaRoutingDataSource(primary, replicas);
+        ReplicaSet.Replica replica = replicas.getReplicas().get(0);
+
+        try (Connection first = routing.getConnection(); Connection second = routing.getConnection()) {
+            assertThat(primaryBulkhead.getAvailablePermits()).isEqualTo(2);
+            assertThat(replica.getBulkhead().getAvailablePermits()).isZero();
+
+            assertThatThrownBy(routing::getConnection).isInstanceOf(BulkheadFullException.class);
+            assertThat(replica.isHealthy()).isTrue();
+            assertThat(replicas.getPrimaryReadCount()).isZero();
+        }
+        assertThat(replica.getBulkhead().getAvailablePermits()).isEqualTo(2);
+    }
+
+    @Test
+    void replicaFailureFallsBackToPrimary() throws SQLException {
+        ReplicaSet replicas = replicas(ReplicaSet.Balance.LEAST_LOADED, "SELECT 0", "replica-1");
+        replicas.checkReplicas();
+        pools.get(1).close();
+
+        assertThat(readOnlyTarget(routed(replicas))).isEqualTo("primary");
+        assertThat(replicas.getReplicas().get(0).isHealthy()).isFalse();
+    }
+
+    @Test
+    void explicitCredentialsGoToPrimary() throws SQLException {
+        ReplicaSet replicas = replicas(ReplicaSet.Balance.LEAST_LOADED, "SELECT 0", "replica-1");
+        replicas.checkReplicas();
+        DataSource credentialed = new BulkheadDataSource(
+                new DriverManagerDataSource(url("primary"), "sa", ""),
+                primaryBulkhead);
+
+        try (Connection connection = new ReplicaRoutingDataSource(credentialed, replicas).getConnection("sa", "")) {
+            assertThat(target(connection)).isEqualTo("primary");
+        }
+    }
+
+    private ReplicaSet replicas(ReplicaSet.Balance balance, String lagQuery, String... names) {
+        List<HikariDataSource> replicaPools = new ArrayList<>();
+        for (String name : names) {
+            replicaPools.add(pool(name, 2));
+        }
+        return new ReplicaSet(replicaPools, balance, Duration.ofSeconds(2), lagQuery, true);
+    }
+
+    /** Как в {@link ru.skypro.hogwarts.sova.config.ReplicaRoutingConfig}: реплики — для read-only соединений. */
+    private DataSource routed(ReplicaSet replicas) {
+        LazyConnectionDataSourceProxy proxy = new LazyConnectionDataSourceProxy(primary);
+        proxy.setReadOnlyDataSource(new ReplicaRoutingDataSource(primary, replicas));
+        return proxy;
+    }
+
+    private static String readOnlyTarget(DataSource dataSource) throws SQLException {
+        try (Connection connection = dataSource.getConnection()) {
+            connection.setReadOnly(true);
+            return target(connection);
+        }
+    }
+
+    private static String writeTarget(DataSource dataSource) throws SQLException {
+        try (Connection connection = dataSource.getConnection()) {
+            return target(connection);
+        }
+    }
+
+    private static String target(Connection connection) throws SQLException {
+        String url = connection.getMetaData().getURL();
+        return url.substring("jdbc:h2:mem:".length(), url.indexOf(';') < 0 ? url.length() : url.indexOf(';'));
+    }
+
+    private HikariDataSource pool(String name, int size) {
+        HikariDataSource pool = new HikariDataSource();
+        pool.setJdbcUrl(url(name));
+        pool.setUsername("sa");
+        pool.setPoolName(name);
+        pool.setMaximumPoolSize(size);
+        pool.setConnectionTimeout(250);
+        pools.add(pool);
+        return pool;
+    }
+
+    private static String url(String name) {
+        return "jdbc:h2:mem:" + name + ";DB_CLOSE_DELAY=-1";
+    }
+
+    private static MockHttpServletRequest request(String method) {
+        return new MockHttpServletRequest(method, "/student");
+    }
+}
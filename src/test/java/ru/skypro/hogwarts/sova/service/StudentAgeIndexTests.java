@@ -0,0 +1,130 @@
+package ru.skypro.hogwarts.sova.service;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.transaction.PlatformTransactionManager;
+import ru.skypro.hogwarts.sova.event.StudentChangedEvent;
+import ru.skypro.hogwarts.sova.event.StudentsBulkChangedEvent;
+import ru.skypro.hogwarts.sova.repository.StudentRepository;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+import java.util.stream.LongStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class StudentAgeIndexTests {
+    // id студентов 1..11 по трём возрастам вперемешку, плюс одинокий 100 в возрасте 20
+    private static final long[][] IDS_BY_AGE = {{11, 1, 4, 7, 10}, {12, 2, 5, 8}, {13, 3, 6, 9, 11}, {20, 100}};
+
+    private final List<Object[]> rows = new ArrayList<>();
+    private final List<Runnable> tasks = new ArrayList<>();
+    private StudentRepository studentRepository;
+    private StudentAgeIndex index;
+
+    @BeforeEach
+    void setUp() {
+        for (long[] ids : IDS_BY_AGE) {
+            for (int i = 1; i < ids.length; i++) {
+                rows.add(new Object[]{(int) ids[0], ids[i]});
+            }
+        }
+        studentRepository = mock(StudentRepository.class);
+        when(studentRepository.streamAgeAndId()).thenAnswer(call -> rows.stream()
+                .sorted(Comparator.<Object[]>comparingInt(row -> (int) row[0]).thenComparingLong(row -> (long) row[1]))
+                .map(Object[]::clone));
+        StudentCohorts cohorts = mock(StudentCohorts.class);
+        index = new StudentAgeIndex(studentRepository, mock(PlatformTransactionManager.class), cohorts,
+                tasks::add, true);
+        index.reload();
+    }
+
+    @Test
+    void mergedPagesMatchIdOrderForEveryOffsetAndLimit() {
+        long[] all = LongStream.rangeClosed(1, 11).toArray();
+        for (int offset = 0; offset <= 13; offset++) {
+            for (int limit = 0; limit <= 13; limit++) {
+                int from = Math.min(offset, all.length);
+                assertThat(index.page(11, 13, offset, limit))
+                        .as("offset %d, limit %d", offset, limit)
+                        .containsExactly(Arrays.copyOfRange(all, from, Math.min(all.length, from + limit)));
+            }
+        }
+        assertThat(index.count(11, 13)).isEqualTo(11);
+    }
+
+    @Test
+    void pageEdgeCases() {
+        assertThat(index.page(11, 13, 0, Integer.MAX_VALUE)).hasSize(11);
+        assertThat(index.page(11, 11, 2, Integer.MAX_VALUE)).containsExactly(7, 10);
+        assertThat(index.page(11, 13, -5, 2)).containsExactly(1, 2);
+        assertThat(index.page(11, 13, Long.MAX_VALUE, 10)).isEmpty();
+        assertThat(index.page(11, 13, 3, -1)).isEmpty();
+        assertThat(index.page(13, 11, 0, 10)).isEmpty();
+        assertThat(index.page(14, 19, 0, 10)).isEmpty();
+        assertThat(index.page(-10, 11, 0, 10)).containsExactly(1, 4, 7, 10);
+        assertThat(index.page(12, 1000, 1, 100)).containsExactly(3, 5, 6, 8, 9, 11, 100);
+        assertThat(index.count(-10, 1000)).isEqualTo(12);
+    }
+
+    @Test
+    void changesMoveIdsBetweenAges() {
+        index.onStudentChanged(new StudentChangedEvent(4, state(11), state(12)));
+        index.onStudentChanged(new StudentChangedEvent(200, null, state(12)));
+        index.onStudentChanged(new StudentChangedEvent(2, state(12), null));
+
+        assertThat(index.page(12, 12, 0, 10)).containsExactly(4, 5, 8, 200);
+        assertThat(index.page(11, 11, 0, 10)).containsExactly(1, 7, 10);
+        assertThat(index.count(11, 13)).isEqualTo(11);
+    }
+
+    @Test
+    void hugeAgesDoNotAllocateDenseBuckets() {
+        rows.add(new Object[]{2_000_000_000, 500L});
+        index.reload();
+        index.onStudentChanged(new StudentChangedEvent(600, null, state(Integer.MAX_VALUE)));
+
+        assertThat(index.page(21, Integer.MAX_VALUE, 0, 10)).containsExactly(500, 600);
+        assertThat(index.count(0, Integer.MAX_VALUE)).isEqualTo(14);
+
+        index.onStudentChanged(new StudentChangedEvent(600, state(Integer.MAX_VALUE), null));
+        assertThat(index.count(21, Integer.MAX_VALUE)).isEqualTo(1);
+    }
+
+    @Test
+    void bulkChangeStopsServingAndRebuildsInBackground() {
+        index.onStudentsBulkChanged(new StudentsBulkChangedEvent("ages incremented"));
+        index.onStudentsBulkChanged(new StudentsBulkChangedEvent("students transferred"));
+
+        assertThat(index.isReady()).isFalse();
+        assertThat(tasks).hasSize(1);
+
+        rows.add(new Object[]{14, 300L});
+        tasks.remove(0).run();
+
+        assertThat(index.isReady()).isTrue();
+        assertThat(index.page(14, 14, 0, 10)).containsExactly(300);
+    }
+
+    @Test
+    void rebuildStartedBeforeBulkChangeDoesNotMarkIndexReady() {
+        when(studentRepository.streamAgeAndId()).thenAnswer(call -> {
+            index.onStudentsBulkChanged(new StudentsBulkChangedEvent("ages incremented"));
+            return rows.stream().map(Object[]::clone);
+        }).thenAnswer(call -> rows.stream().map(Object[]::clone));
+
+        index.reload();
+        assertThat(index.isReady()).isFalse();
+
+        tasks.remove(0).run();
+        assertThat(index.isReady()).isTrue();
+    }
+
+    private static StudentChangedEvent.State state(int age) {
+        return new StudentChangedEvent.State("Студент", age, null, 0);
+    }
+}
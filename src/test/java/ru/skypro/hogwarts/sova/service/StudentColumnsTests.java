@@ -0,0 +1,139 @@
+package ru.skypro.hogwarts.sova.service;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import ru.skypro.hogwarts.sova.dto.StudentDto;
+
+import java.io.IOException;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.TreeMap;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+/**
+ * Столбцы копии студентов: случайные правки сверяются с картой-образцом до и
+ * после записи в файл, словарь имён не растёт от переименований, а файл
+ * пишется и читается окнами, через границы которых проходят значения.
+ */
+class StudentColumnsTests {
+    private static final String[] NAMES = {"Гарри Поттер", "Рон Уизли", "Гермиона Грейнджер", null, ""};
+
+    @TempDir
+    private Path directory;
+
+    @Test
+    void randomChangesMatchModelBeforeAndAfterRestore() throws IOException {
+        Random random = new Random(42);
+        StudentColumns columns = new StudentColumns(4);
+        TreeMap<Long, StudentDto> model = new TreeMap<>();
+
+        applyRandomChanges(random, columns, model, 2_000);
+        assertSame(columns, model);
+
+        // окно в 13 байт не кратно размеру значений: значения попадают на границы окон
+        Path file = directory.resolve("students.bin");
+        columns.write(file, 77, 13);
+        StudentColumns.Restored restored = StudentColumns.read(file, 13);
+        assertThat(restored.feedPosition()).isEqualTo(77);
+        assertSame(restored.columns(), model);
+
+        applyRandomChanges(random, restored.columns(), model, 2_000);
+        assertSame(restored.columns(), model);
+
+        restored.columns().write(file, 78);
+        assertSame(StudentColumns.read(file).columns(), model);
+    }
+
+    @Test
+    void renamesDoNotGrowDictionary() throws IOException {
+        StudentColumns columns = new StudentColumns(4);
+        columns.put(1, "Том Реддл", 11, null, 0);
+        columns.put(2, "Том Реддл", 12, null, 0);
+        for (int version = 1; version <= 1_000; version++) {
+            columns.put(1, "Имя " + version, 11, null, version);
+        }
+        // новое имя берёт номер раньше, чем освобождается старое: третий номер нужен на время правки
+        assertThat(columns.dictionarySize()).isEqualTo(3);
+
+        columns.remove(2);
+        columns.put(3, "Волан-де-Морт", 70, null, 0);
+        assertThat(columns.dictionarySize()).isEqualTo(3);
+        assertThat(columns.get(1).name()).isEqualTo("Волан-де-Морт");
+
+        columns.remove(3);
+        Path file = directory.resolve("students.bin");
+        columns.write(file, 0);
+        StudentColumns restored = StudentColumns.read(file).columns();
+        restored.put(4, "Нагайна", 5, null, 0);
+        assertThat(restored.dictionarySize()).isEqualTo(3);
+        assertThat(List.of(restored.get(0).name(), restored.get(1).name())).containsExactly("Имя 1000", "Нагайна");
+    }
+
+    @Test
+    void staleEventsAreDropped() {
+        StudentColumns columns = new StudentColumns(4);
+        columns.put(1, "Гарри", 11, null, 0);
+
+        assertThat(columns.putIfNewer(1, "Гарри Поттер", 11, 1L, 2)).isTrue();
+        // правка версии 1 закоммичена раньше, но стоит в ленте после версии 2
+        assertThat(columns.putIfNewer(1, "Гарри", 11, null, 1)).isFalse();
+        assertThat(columns.putIfNewer(1, "Гарри", 11, null, 2)).isFalse();
+        assertThat(columns.get(0)).isEqualTo(new StudentDto(1L, "Гарри Поттер", 11, 1L, 2));
+
+        assertThat(columns.removeIfNewer(1, 1)).isFalse();
+        assertThat(columns.size()).isEqualTo(1);
+        assertThat(columns.removeIfNewer(1, 3)).isTrue();
+        // удаление уже применено: запоздавшая правка не возвращает строку
+        assertThat(columns.putIfNewer(1, "Гарри", 11, null, 3)).isFalse();
+        assertThat(columns.size()).isZero();
+
+        assertThat(columns.putIfNewer(2, "Рон", 11, null, null)).isTrue();
+        assertThat(columns.putIfNewer(2, "Рон Уизли", 11, null, null)).isTrue();
+        assertThat(columns.get(0).name()).isEqualTo("Рон Уизли");
+    }
+
+    @Test
+    void truncatedFileIsRejected() throws IOException {
+        StudentColumns columns = new StudentColumns(4);
+        columns.put(1, "Гарри", 11, 1L, 0);
+        Path file = directory.resolve("students.bin");
+        columns.write(file, 5);
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.WRITE)) {
+            channel.truncate(channel.size() - 3);
+        }
+
+        assertThatThrownBy(() -> StudentColumns.read(file)).isInstanceOf(IOException.class);
+    }
+
+    private static void applyRandomChanges(Random random, StudentColumns columns, TreeMap<Long, StudentDto> model,
+                                           int changes) {
+        for (int i = 0; i < changes; i++) {
+            long id = 1 + random.nextInt(300);
+            if (random.nextInt(4) == 0) {
+                columns.remove(id);
+                model.remove(id);
+            } else {
+                String name = random.nextInt(3) == 0 ? "Студент " + random.nextInt(50) : NAMES[random.nextInt(NAMES.length)];
+                Long facultyId = random.nextBoolean() ? null : (long) (1 + random.nextInt(4));
+                Integer version = random.nextInt(10) == 0 ? null : random.nextInt(5);
+                int age = 11 + random.nextInt(8);
+                columns.put(id, name, age, facultyId, version);
+                model.put(id, new StudentDto(id, name, age, facultyId, version));
+            }
+        }
+    }
+
+    private static void assertSame(StudentColumns columns, TreeMap<Long, StudentDto> model) {
+        List<StudentDto> rows = new ArrayList<>(columns.size());
+        for (int row = 0; row < columns.size(); row++) {
+            rows.add(columns.get(row));
+        }
+        assertThat(rows).containsExactlyElementsOf(model.values());
+    }
+}
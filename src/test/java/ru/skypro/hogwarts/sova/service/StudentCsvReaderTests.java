@@ -0,0 +1,66 @@
+package ru.skypro.hogwarts.sova.service;
+
+import org.junit.jupiter.api.Test;
+import ru.skypro.hogwarts.sova.dto.StudentImportRow;
+
+import java.io.BufferedReader;
+import java.io.StringReader;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class StudentCsvReaderTests {
+
+    @Test
+    void readsRowsWithOptionalHeaderQuotesAndFaculty() {
+        List<StudentImportRow> rows = readAll("""
+                name,age,facultyId
+                Гарри Поттер,11,1
+
+                "Уизли, Рон",12,
+                "Аластор ""Грозный Глаз"" Грюм",60
+                """);
+
+        assertThat(rows).containsExactly(
+                new StudentImportRow("Гарри Поттер", 11, 1L),
+                new StudentImportRow("Уизли, Рон", 12, null),
+                new StudentImportRow("Аластор \"Грозный Глаз\" Грюм", 60, null));
+    }
+
+    @Test
+    void headerIsRecognisedUnderTurkishLocale() {
+        Locale defaultLocale = Locale.getDefault();
+        Locale.setDefault(Locale.forLanguageTag("tr-TR"));
+        try {
+            assertThat(readAll("NAME,AGE,FACULTYID\nГарри,11,1\n"))
+                    .containsExactly(new StudentImportRow("Гарри", 11, 1L));
+        } finally {
+            Locale.setDefault(defaultLocale);
+        }
+    }
+
+    @Test
+    void badLineFailsButReadingContinues() {
+        StudentCsvReader reader = reader("Гарри,одиннадцать\nРон\nГермиона,11,2\n");
+
+        assertThatThrownBy(reader::next).isInstanceOf(IllegalArgumentException.class)
+                .hasMessageStartingWith("Некорректное число");
+        assertThatThrownBy(reader::next).isInstanceOf(IllegalArgumentException.class)
+                .hasMessage("Ожидается name,age[,facultyId]");
+        assertThat(reader.next()).isEqualTo(new StudentImportRow("Гермиона", 11, 2L));
+        assertThat(reader.hasNext()).isFalse();
+    }
+
+    private static List<StudentImportRow> readAll(String csv) {
+        List<StudentImportRow> rows = new ArrayList<>();
+        reader(csv).forEachRemaining(rows::add);
+        return rows;
+    }
+
+    private static StudentCsvReader reader(String csv) {
+        return new StudentCsvReader(new BufferedReader(new StringReader(csv)));
+    }
+}
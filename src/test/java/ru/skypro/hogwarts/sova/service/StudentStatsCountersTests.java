@@ -0,0 +1,113 @@
+package ru.skypro.hogwarts.sova.service;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import ru.skypro.hogwarts.sova.dto.AgeStatistics;
+import ru.skypro.hogwarts.sova.dto.AgeStatistics.AgeBucket;
+import ru.skypro.hogwarts.sova.event.StudentChangedEvent;
+import ru.skypro.hogwarts.sova.event.StudentsBulkChangedEvent;
+import ru.skypro.hogwarts.sova.repository.StudentRepository;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+/**
+ * Счётчики статистики: правка одного студента переносит его между
+ * корзинами без запроса к базе, массовое изменение выключает счётчики и
+ * перечитывает их в фоне.
+ */
+class StudentStatsCountersTests {
+    private final List<StudentRepository.FacultyAgeCount> rows = new ArrayList<>();
+    private final List<Runnable> tasks = new ArrayList<>();
+    private StudentRepository studentRepository;
+    private StudentStatsCounters counters;
+
+    @BeforeEach
+    void setUp() {
+        rows.add(row(1L, 11, 2));
+        rows.add(row(1L, 12, 1));
+        rows.add(row(null, 17, 1));
+        studentRepository = mock(StudentRepository.class);
+        when(studentRepository.countByFacultyAndAge()).thenAnswer(call -> List.copyOf(rows));
+        counters = new StudentStatsCounters(studentRepository, tasks::add, true);
+        counters.reload();
+    }
+
+    @Test
+    void changeMovesStudentBetweenBucketsWithoutQuery() {
+        counters.onStudentChanged(new StudentChangedEvent(1, state(11, 1L), state(12, 2L)));
+        counters.onStudentChanged(new StudentChangedEvent(5, null, state(13, 1L)));
+        counters.onStudentChanged(new StudentChangedEvent(4, state(17, null), null));
+
+        assertThat(counters.forFaculty(1L).orElseThrow().histogram())
+                .containsExactly(new AgeBucket(11, 1), new AgeBucket(12, 1), new AgeBucket(13, 1));
+        assertThat(counters.forFaculty(2L).orElseThrow().histogram()).containsExactly(new AgeBucket(12, 1));
+        assertThat(counters.totals().orElseThrow())
+                .extracting(AgeStatistics::count, AgeStatistics::minAge, AgeStatistics::maxAge)
+                .containsExactly(4L, 11, 13);
+        verify(studentRepository, times(1)).countByFacultyAndAge();
+    }
+
+    @Test
+    void bulkChangeStopsServingAndReloadsInBackground() {
+        counters.onStudentsBulkChanged(new StudentsBulkChangedEvent("ages incremented"));
+        counters.onStudentsBulkChanged(new StudentsBulkChangedEvent("students transferred"));
+
+        // запрос, сделавший изменение, базу не перечитывает, статистика временно считается по базе
+        assertThat(counters.totals()).isEmpty();
+        assertThat(tasks).hasSize(1);
+        verify(studentRepository, times(1)).countByFacultyAndAge();
+
+        rows.clear();
+        rows.add(row(1L, 12, 2));
+        rows.add(row(1L, 13, 1));
+        tasks.remove(0).run();
+
+        assertThat(counters.forFaculty(1L).orElseThrow().histogram())
+                .containsExactly(new AgeBucket(12, 2), new AgeBucket(13, 1));
+        assertThat(counters.totals().orElseThrow().count()).isEqualTo(3);
+    }
+
+    @Test
+    void reloadStartedBeforeBulkChangeDoesNotMarkCountersReady() {
+        when(studentRepository.countByFacultyAndAge()).thenAnswer(call -> {
+            counters.onStudentsBulkChanged(new StudentsBulkChangedEvent("ages incremented"));
+            return List.copyOf(rows);
+        }).thenAnswer(call -> List.copyOf(rows));
+
+        counters.reload();
+        assertThat(counters.totals()).isEmpty();
+
+        tasks.remove(0).run();
+        assertThat(counters.totals()).isPresent();
+    }
+
+    private static StudentChangedEvent.State state(int age, Long facultyId) {
+        return new StudentChangedEvent.State("Студент", age, facultyId, 0);
+    }
+
+    private static StudentRepository.FacultyAgeCount row(Long facultyId, int age, long count) {
+        return new StudentRepository.FacultyAgeCount() {
+            @Override
+            public Long getFacultyId() {
+                return facultyId;
+            }
+
+            @Override
+            public int getAge() {
+                return age;
+            }
+
+            @Override
+            public long getCount() {
+                return count;
+            }
+        };
+    }
+}
@@ -0,0 +1,169 @@
+package ru.skypro.hogwarts.sova.service;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.http.HttpStatus;
+import org.springframework.web.server.ResponseStatusException;
+import ru.skypro.hogwarts.sova.concurrency.QueueFullException;
+import ru.skypro.hogwarts.sova.dto.StudentDto;
+import ru.skypro.hogwarts.sova.dto.StudentEdit;
+import ru.skypro.hogwarts.sova.dto.StudentEditStatus;
+import ru.skypro.hogwarts.sova.dto.StudentEditStatus.State;
+import ru.skypro.hogwarts.sova.model.Student;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyCollection;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.argThat;
+import static org.mockito.ArgumentMatchers.isNull;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class StudentWriteBehindQueueTests {
+    private StudentService studentService;
+    private StudentWriteBehindQueue queue;
+
+    @BeforeEach
+    void setUp() {
+        studentService = mock(StudentService.class);
+        when(studentService.findStudent(anyLong()))
+                .thenAnswer(call -> new StudentDto(call.getArgument(0), "Студент", 11, null, 0));
+        queue = new StudentWriteBehindQueue(studentService, Runnable::run, true, 2, 10, Duration.ofMillis(20));
+    }
+
+    @Test
+    void laterEditSupersedesQueuedOne() {
+        when(studentService.applyEdits(anyCollection())).thenAnswer(call -> appliedAll(call.getArgument(0)));
+
+        StudentEditStatus first = queue.submit(new Student(1L, "Гарри", 11, null), null);
+        StudentEditStatus second = queue.submit(new Student(1L, "Гарри Поттер", 12, null), 0);
+
+        assertThat(queue.size()).isEqualTo(1);
+        assertThat(queue.getStatus(first.ticketId()).state()).isEqualTo(State.SUPERSEDED);
+        assertThat(queue.getStatus(second.ticketId()).state()).isEqualTo(State.QUEUED);
+
+        queue.flush();
+
+        verify(studentService).applyEdits(argThat(edits -> edits.size() == 1
+                && edits.contains(new StudentEdit(1L, "Гарри Поттер", 12, null, 0))));
+        assertThat(queue.getStatus(second.ticketId()))
+                .extracting(StudentEditStatus::state, StudentEditStatus::version)
+                .containsExactly(State.APPLIED, 1);
+        assertThat(queue.size()).isZero();
+    }
+
+    @Test
+    void fullQueueRejectsNewStudentsButAcceptsEditsOfQueuedOnes() {
+        queue.submit(new Student(1L, "Гарри", 11, null), null);
+        queue.submit(new Student(2L, "Рон", 11, null), null);
+
+        assertThatThrownBy(() -> queue.submit(new Student(3L, "Гермиона", 11, null), null))
+                .isInstanceOf(QueueFullException.class);
+        queue.submit(new Student(2L, "Рональд", 11, null), null);
+        assertThat(queue.size()).isEqualTo(2);
+    }
+
+    @Test
+    void rejectsMissingIdBeforeLookingUpStudent() {
+        assertThatThrownBy(() -> queue.submit(new Student(null, "Гарри", 11, null), null))
+                .isInstanceOfSatisfying(ResponseStatusException.class,
+                        e -> assertThat(e.getStatusCode()).isEqualTo(HttpStatus.BAD_REQUEST));
+        verify(studentService, never()).findStudent(anyLong());
+    }
+
+    @Test
+    void batchConflictFallsBackToSingleEditsAndMarksFailuresPerEdit() {
+        when(studentService.applyEdits(anyCollection()))
+                .thenThrow(new OptimisticLockingFailureException("конфликт версий"));
+        when(studentService.editStudent(argThat(student -> student != null && student.getId() == 1L), isNull()))
+                .thenReturn(new StudentDto(1L, "Гарри", 11, null, 5));
+        when(studentService.editStudent(argThat(student -> student != null && student.getId() == 2L), isNull()))
+                .thenThrow(new IllegalStateException("соединение потеряно"));
+
+        StudentEditStatus applied = queue.submit(new Student(1L, "Гарри", 11, null), null);
+        StudentEditStatus failed = queue.submit(new Student(2L, "Рон", 11, null), null);
+        queue.flush();
+
+        assertThat(queue.getStatus(applied.ticketId()))
+                .extracting(StudentEditStatus::state, StudentEditStatus::version)
+                .containsExactly(State.APPLIED, 5);
+        assertThat(queue.getStatus(failed.ticketId()))
+                .extracting(StudentEditStatus::state, StudentEditStatus::error)
+                .containsExactly(State.FAILED, "соединение потеряно");
+    }
+
+    @Test
+    void batchFailureMarksWholeBatchFailed() {
+        when(studentService.applyEdits(anyCollection())).thenThrow(new IllegalStateException("база недоступна"));
+
+        StudentEditStatus edit = queue.submit(new Student(1L, "Гарри", 11, null), null);
+        queue.flush();
+
+        assertThat(queue.getStatus(edit.ticketId()).state()).isEqualTo(State.FAILED);
+        verify(studentService, never()).editStudent(any(), any());
+    }
+
+    @Test
+    void drainWritesQueuedEditsAndClosesQueue() {
+        when(studentService.applyEdits(anyCollection())).thenAnswer(call -> appliedAll(call.getArgument(0)));
+        StudentEditStatus edit = queue.submit(new Student(1L, "Гарри", 11, null), null);
+
+        queue.drain();
+
+        assertThat(queue.getStatus(edit.ticketId()).state()).isEqualTo(State.APPLIED);
+        assertThatThrownBy(() -> queue.submit(new Student(2L, "Рон", 11, null), null))
+                .isInstanceOf(QueueFullException.class);
+    }
+
+    @Test
+    void concurrentFlushNeverLeavesAppliedEditQueued() throws InterruptedException {
+        when(studentService.applyEdits(anyCollection())).thenAnswer(call -> appliedAll(call.getArgument(0)));
+        StudentWriteBehindQueue queue = new StudentWriteBehindQueue(studentService, Runnable::run, true,
+                100_000, 100_000, Duration.ofMillis(20));
+        AtomicBoolean submitting = new AtomicBoolean(true);
+        Thread flusher = new Thread(() -> {
+            while (submitting.get()) {
+                queue.flush();
+            }
+        });
+        flusher.start();
+
+        List<StudentEditStatus> tickets = new CopyOnWriteArrayList<>();
+        List<Thread> submitters = new ArrayList<>();
+        for (int thread = 0; thread < 8; thread++) {
+            long first = thread * 2_000L + 1;
+            submitters.add(new Thread(() -> {
+                for (long id = first; id < first + 2_000; id++) {
+                    tickets.add(queue.submit(new Student(id, "Студент", 11, null), null));
+                }
+            }));
+        }
+        submitters.forEach(Thread::start);
+        for (Thread submitter : submitters) {
+            submitter.join();
+        }
+        submitting.set(false);
+        flusher.join();
+        queue.flush();
+
+        // статус QUEUED пишется до того, как правку увидит flush, и не затирает APPLIED
+        assertThat(tickets).hasSize(16_000)
+                .allSatisfy(ticket -> assertThat(queue.getStatus(ticket.ticketId()).state()).isEqualTo(State.APPLIED));
+    }
+
+    private static List<StudentEdit.Outcome> appliedAll(Collection<StudentEdit> edits) {
+        return edits.stream().map(edit -> StudentEdit.Outcome.applied(edit.studentId(), 1)).toList();
+    }
+}